@@ -18,8 +18,10 @@ public class DocumentAccessProvider implements Provider<VespaDocumentAccess> {
     private final VespaDocumentAccess access;
 
     @Inject
-    public DocumentAccessProvider(DocumentmanagerConfig documentmanagerConfig, MessagebusConfig messagebusConfig) {
-        this.access = new VespaDocumentAccess(documentmanagerConfig, System.getProperty("config.id"), messagebusConfig);
+    public DocumentAccessProvider(DocumentmanagerConfig documentmanagerConfig, MessagebusConfig messagebusConfig,
+                                  DocumentAccessConfig documentAccessConfig) {
+        this.access = new VespaDocumentAccess(documentmanagerConfig, System.getProperty("config.id"), messagebusConfig,
+                                              documentAccessConfig);
     }
 
     @Override
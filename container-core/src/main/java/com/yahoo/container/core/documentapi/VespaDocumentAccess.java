@@ -20,6 +20,7 @@ import com.yahoo.documentapi.messagebus.MessageBusParams;
 import com.yahoo.messagebus.MessagebusConfig;
 import com.yahoo.yolean.concurrent.Memoized;
 
+import java.time.Duration;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -37,12 +38,16 @@ public class VespaDocumentAccess extends DocumentAccess {
 
     private final Memoized<DocumentAccess, RuntimeException> delegate;
 
-    VespaDocumentAccess(DocumentmanagerConfig documentmanagerConfig, String slobroksConfigId, MessagebusConfig messagebusConfig) {
+    VespaDocumentAccess(DocumentmanagerConfig documentmanagerConfig, String slobroksConfigId, MessagebusConfig messagebusConfig,
+                        DocumentAccessConfig documentAccessConfig) {
         super(new DocumentAccessParams().setDocumentmanagerConfig(documentmanagerConfig));
         this.parameters = new MessageBusParams();
         this.parameters.setDocumentmanagerConfig(documentmanagerConfig);
         this.parameters.getRPCNetworkParams().setSlobrokConfigId(slobroksConfigId);
         this.parameters.getMessageBusParams().setMessageBusConfig(messagebusConfig);
+        this.parameters.setMaxBatchedOperations(documentAccessConfig.maxBatchedOperations());
+        this.parameters.setBatchWindow(Duration.ofMillis(documentAccessConfig.batchWindowMillis()));
+        this.parameters.setLazyFieldDecoding(documentAccessConfig.lazyFieldDecoding());
         this.delegate = new Memoized<>(() -> new MessageBusDocumentAccess(parameters), DocumentAccess::shutdown);
     }
 
@@ -4,13 +4,17 @@ package com.yahoo.language.provider;
 import com.google.common.base.Supplier;
 import com.google.common.base.Suppliers;
 import com.yahoo.component.annotation.Inject;
+import com.yahoo.container.core.LinguisticsCacheConfig;
 import com.yahoo.container.di.componentgraph.Provider;
+import com.yahoo.language.CachingLinguistics;
 import com.yahoo.language.Linguistics;
 import com.yahoo.language.opennlp.OpenNlpLinguistics;
+import com.yahoo.language.process.LinguisticsCache;
 
 /**
  * Provides the default linguistics implementation if no linguistics component has been explicitly configured
  * (dependency injection will fallback to providers if no components of the requested type is found).
+ * The results of the provided linguistics are cached if this is enabled in {@link LinguisticsCacheConfig}.
  *
  * @author bratseth
  */
@@ -21,8 +25,17 @@ public class DefaultLinguisticsProvider implements Provider<Linguistics> {
     private final Supplier<Linguistics> linguisticsSupplier;
 
     @Inject
+    public DefaultLinguisticsProvider(LinguisticsCacheConfig config) {
+        linguisticsSupplier = Suppliers.memoize(() -> create(config, new OpenNlpLinguistics()));
+    }
+
     public DefaultLinguisticsProvider() {
-        linguisticsSupplier = Suppliers.memoize(OpenNlpLinguistics::new);
+        this(new LinguisticsCacheConfig.Builder().build());
+    }
+
+    static Linguistics create(LinguisticsCacheConfig config, Linguistics linguistics) {
+        if ( ! config.enabled()) return linguistics;
+        return new CachingLinguistics(linguistics, new LinguisticsCache(config.maxEntries(), config.maxInputLength()));
     }
 
     @Override
@@ -0,0 +1,32 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.language.provider;
+
+import com.yahoo.container.core.LinguisticsCacheConfig;
+import com.yahoo.language.CachingLinguistics;
+import com.yahoo.language.Linguistics;
+import com.yahoo.language.simple.SimpleLinguistics;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author agent
+ */
+public class DefaultLinguisticsProviderTest {
+
+    @Test
+    void linguistics_is_only_cached_when_enabled() {
+        Linguistics simple = new SimpleLinguistics();
+        assertSame(simple, DefaultLinguisticsProvider.create(new LinguisticsCacheConfig.Builder().build(), simple));
+
+        var config = new LinguisticsCacheConfig.Builder().enabled(true).maxEntries(1000).build();
+        var linguistics = DefaultLinguisticsProvider.create(config, simple);
+        assertTrue(linguistics instanceof CachingLinguistics);
+        linguistics.getNormalizer().normalize("foo");
+        linguistics.getNormalizer().normalize("foo");
+        assertEquals(1, ((CachingLinguistics)linguistics).cache().hits());
+    }
+
+}
@@ -0,0 +1,41 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.container.jdisc.messagebus;
+
+import ai.vespa.metrics.ContainerMetrics;
+import com.yahoo.jdisc.Metric;
+import com.yahoo.messagebus.network.rpc.CompressionMetrics;
+
+/**
+ * Emits the changes in the payload compression metrics of a message bus network, such that the bytes saved
+ * by compression can be weighed against the time spent compressing.
+ *
+ * This is not multithread safe.
+ *
+ * @author agent
+ */
+class CompressionMetricsEmitter {
+
+    private static final String UNCOMPRESSED_BYTES_METRIC = ContainerMetrics.MBUS_COMPRESSION_UNCOMPRESSED_BYTES.baseName();
+    private static final String SAVED_BYTES_METRIC = ContainerMetrics.MBUS_COMPRESSION_SAVED_BYTES.baseName();
+    private static final String COMPRESSIONS_METRIC = ContainerMetrics.MBUS_COMPRESSION_COMPRESSIONS.baseName();
+    private static final String SKIPPED_METRIC = ContainerMetrics.MBUS_COMPRESSION_SKIPPED.baseName();
+    private static final String TIME_METRIC = ContainerMetrics.MBUS_COMPRESSION_TIME.baseName();
+
+    private final Metric metric;
+    private CompressionMetrics previous = new CompressionMetrics(0, 0, 0, 0, 0);
+
+    CompressionMetricsEmitter(Metric metric) {
+        this.metric = metric;
+    }
+
+    /** Emits the changes in the given metrics since the last call to this */
+    void emit(CompressionMetrics current) {
+        metric.add(UNCOMPRESSED_BYTES_METRIC, current.uncompressedBytes() - previous.uncompressedBytes(), null);
+        metric.add(SAVED_BYTES_METRIC, current.savedBytes() - previous.savedBytes(), null);
+        metric.add(COMPRESSIONS_METRIC, current.compressions() - previous.compressions(), null);
+        metric.add(SKIPPED_METRIC, current.skippedCompressions() - previous.skippedCompressions(), null);
+        metric.add(TIME_METRIC, (current.compressionNanos() - previous.compressionNanos()) / 1e6, null);
+        previous = current;
+    }
+
+}
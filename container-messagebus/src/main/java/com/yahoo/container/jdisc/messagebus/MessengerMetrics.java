@@ -0,0 +1,56 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.container.jdisc.messagebus;
+
+import ai.vespa.metrics.ContainerMetrics;
+import com.yahoo.jdisc.Metric;
+import com.yahoo.messagebus.Messenger;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Emits the metrics of the worker threads of a message bus messenger, with the worker index as dimension.
+ *
+ * This is not multithread safe.
+ *
+ * @author agent
+ */
+class MessengerMetrics {
+
+    private static final String QUEUE_SIZE_METRIC = ContainerMetrics.MBUS_MESSENGER_QUEUE_SIZE.baseName();
+    private static final String TASKS_METRIC = ContainerMetrics.MBUS_MESSENGER_TASKS.baseName();
+    private static final String TASK_LATENCY_METRIC = ContainerMetrics.MBUS_MESSENGER_TASK_LATENCY.baseName();
+
+    private final Metric metric;
+    private final List<Metric.Context> contexts = new ArrayList<>();
+    private List<Messenger.WorkerMetrics> previous = List.of();
+
+    MessengerMetrics(Metric metric) {
+        this.metric = metric;
+    }
+
+    /** Emits the changes in the given worker metrics since the last call to this */
+    void emit(List<Messenger.WorkerMetrics> workers) {
+        for (int i = 0; i < workers.size(); i++) {
+            Messenger.WorkerMetrics current = workers.get(i);
+            long previousTasks = i < previous.size() ? previous.get(i).tasksRun() : 0;
+            long previousLatency = i < previous.size() ? previous.get(i).totalTaskLatencyNanos() : 0;
+            long tasks = current.tasksRun() - previousTasks;
+
+            Metric.Context context = contextOf(i);
+            metric.set(QUEUE_SIZE_METRIC, current.queueSize(), context);
+            metric.add(TASKS_METRIC, tasks, context);
+            if (tasks > 0)
+                metric.set(TASK_LATENCY_METRIC, (current.totalTaskLatencyNanos() - previousLatency) / tasks / 1e6, context);
+        }
+        previous = workers;
+    }
+
+    private Metric.Context contextOf(int worker) {
+        while (contexts.size() <= worker)
+            contexts.add(metric.createContext(Map.of("worker", String.valueOf(contexts.size()))));
+        return contexts.get(worker);
+    }
+
+}
@@ -2,6 +2,8 @@
 package com.yahoo.container.jdisc.messagebus;
 
 import com.yahoo.component.AbstractComponent;
+import com.yahoo.component.annotation.Inject;
+import com.yahoo.jdisc.Metric;
 import com.yahoo.messagebus.network.Network;
 import com.yahoo.messagebus.network.NetworkMultiplexer;
 import com.yahoo.messagebus.network.rpc.RPCNetwork;
@@ -9,6 +11,8 @@ import com.yahoo.messagebus.network.rpc.RPCNetworkParams;
 import com.yahoo.messagebus.shared.NullNetwork;
 import com.yahoo.yolean.concurrent.Memoized;
 
+import java.util.Timer;
+import java.util.TimerTask;
 import java.util.concurrent.atomic.AtomicReference;
 
 /**
@@ -21,6 +25,26 @@ public class NetworkMultiplexerHolder extends AbstractComponent {
     private final AtomicReference<RPCNetworkParams> params = new AtomicReference<>();
     private final Memoized<NetworkMultiplexer, RuntimeException> net = new Memoized<>(() -> NetworkMultiplexer.shared(newNetwork(params.get())),
                                                                                       NetworkMultiplexer::disown);
+    private volatile RPCNetwork rpcNetwork = null;
+
+    /** Reports metrics periodically, or null if metrics are not reported */
+    private final Timer scheduler;
+
+    public NetworkMultiplexerHolder() {
+        this(null);
+    }
+
+    /** Creates a holder which reports the metrics of the network it creates to the given metric, unless it is null */
+    @Inject
+    public NetworkMultiplexerHolder(Metric metric) {
+        if (metric != null) {
+            scheduler = new Timer("mbus-network-metrics", true);
+            scheduler.schedule(new MetricReporter(metric), 10_000, 10_000);
+        }
+        else {
+            scheduler = null;
+        }
+    }
 
     /** Get the singleton RPCNetworkAdapter, creating it if this hasn't yet been done. */
     public NetworkMultiplexer get(RPCNetworkParams params) {
@@ -28,15 +52,34 @@ public class NetworkMultiplexerHolder extends AbstractComponent {
         return net.get();
     }
 
-    private static Network newNetwork(RPCNetworkParams params) {
-        return params.getSlobroksConfig() != null && params.getSlobroksConfig().slobrok().isEmpty()
-               ? new NullNetwork() // For LocalApplication, test setup.
-               : new RPCNetwork(params);
+    private Network newNetwork(RPCNetworkParams params) {
+        if (params.getSlobroksConfig() != null && params.getSlobroksConfig().slobrok().isEmpty())
+            return new NullNetwork(); // For LocalApplication, test setup.
+        return rpcNetwork = new RPCNetwork(params);
     }
 
     @Override
     public void deconstruct() {
+        if (scheduler != null)
+            scheduler.cancel();
         net.close();
     }
 
+    private class MetricReporter extends TimerTask {
+
+        private final CompressionMetricsEmitter compressionMetrics;
+
+        MetricReporter(Metric metric) {
+            this.compressionMetrics = new CompressionMetricsEmitter(metric);
+        }
+
+        @Override
+        public void run() {
+            RPCNetwork network = rpcNetwork;
+            if (network == null) return; // not used yet
+            compressionMetrics.emit(network.compressionMetrics());
+        }
+
+    }
+
 }
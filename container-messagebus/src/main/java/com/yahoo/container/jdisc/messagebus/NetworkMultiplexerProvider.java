@@ -3,6 +3,7 @@ package com.yahoo.container.jdisc.messagebus;
 
 import com.yahoo.component.annotation.Inject;
 import com.yahoo.cloud.config.SlobroksConfig;
+import com.yahoo.compress.CompressionType;
 import com.yahoo.container.jdisc.ContainerMbusConfig;
 import com.yahoo.messagebus.network.Identity;
 import com.yahoo.messagebus.network.NetworkMultiplexer;
@@ -44,7 +45,9 @@ public class NetworkMultiplexerProvider {
                                      .setNumTargetsPerSpec(mbusConfig.numconnectionspertarget())
                                      .setNumNetworkThreads(mbusConfig.numthreads())
                                      .setTransportEventsBeforeWakeup(mbusConfig.transport_events_before_wakeup())
-                                     .setOptimization(RPCNetworkParams.Optimization.valueOf(mbusConfig.optimize_for().name()));
+                                     .setOptimization(RPCNetworkParams.Optimization.valueOf(mbusConfig.optimize_for().name()))
+                                     .setCompressionType(CompressionType.valueOf(mbusConfig.compression_type().name()))
+                                     .setCompressionMinSizeBytes(mbusConfig.compression_min_size());
     }
 
     public NetworkMultiplexer net() {
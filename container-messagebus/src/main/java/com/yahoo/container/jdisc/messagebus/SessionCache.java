@@ -7,6 +7,7 @@ import com.yahoo.container.jdisc.ContainerMbusConfig;
 import com.yahoo.document.DocumentTypeManager;
 import com.yahoo.documentapi.messagebus.protocol.DocumentProtocol;
 import com.yahoo.jdisc.ReferencedResource;
+import com.yahoo.jdisc.Metric;
 import com.yahoo.jdisc.References;
 import com.yahoo.jdisc.ResourceReference;
 import com.yahoo.jdisc.SharedResource;
@@ -28,6 +29,8 @@ import com.yahoo.yolean.concurrent.Memoized;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Timer;
+import java.util.TimerTask;
 import java.util.function.Supplier;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -51,6 +54,10 @@ public final class SessionCache extends AbstractComponent {
     private static final Logger log = Logger.getLogger(SessionCache.class.getName());
 
     private final Memoized<SharedMessageBus, RuntimeException> messageBus;
+    private volatile SharedMessageBus createdMessageBus = null;
+
+    /** Reports metrics periodically, or null if metrics are not reported */
+    private final Timer scheduler;
 
     private final Object intermediateLock = new Object();
     private final Map<String, SharedIntermediateSession> intermediates = new HashMap<>();
@@ -61,11 +68,16 @@ public final class SessionCache extends AbstractComponent {
     private final SourceSessionCreator sourcesCreator = new SourceSessionCreator();
 
     @Inject
+    public SessionCache(NetworkMultiplexerProvider nets, ContainerMbusConfig containerMbusConfig,
+                        DocumentTypeManager documentTypeManager,
+                        MessagebusConfig messagebusConfig, Metric metric) {
+        this(nets::net, containerMbusConfig, messagebusConfig, protocol(documentTypeManager, containerMbusConfig), metric);
+    }
+
     public SessionCache(NetworkMultiplexerProvider nets, ContainerMbusConfig containerMbusConfig,
                         DocumentTypeManager documentTypeManager,
                         MessagebusConfig messagebusConfig) {
         this(nets::net, containerMbusConfig, documentTypeManager, messagebusConfig);
-
     }
 
     public SessionCache(Supplier<NetworkMultiplexer> net, ContainerMbusConfig containerMbusConfig,
@@ -74,17 +86,41 @@ public final class SessionCache extends AbstractComponent {
         this(net,
              containerMbusConfig,
              messagebusConfig,
-             new DocumentProtocol(documentTypeManager));
+             protocol(documentTypeManager, containerMbusConfig));
+    }
+
+    private static DocumentProtocol protocol(DocumentTypeManager documentTypeManager, ContainerMbusConfig containerMbusConfig) {
+        return new DocumentProtocol(documentTypeManager).setLazyFieldDecoding(containerMbusConfig.lazy_field_decoding());
     }
 
     public SessionCache(Supplier<NetworkMultiplexer> net, ContainerMbusConfig containerMbusConfig,
                         MessagebusConfig messagebusConfig, Protocol protocol) {
-        this.messageBus = new Memoized<>(() -> createSharedMessageBus(net.get(), containerMbusConfig, messagebusConfig, protocol),
+        this(net, containerMbusConfig, messagebusConfig, protocol, null);
+    }
+
+    /** Creates a session cache which reports the metrics of its message bus to the given metric, unless it is null */
+    public SessionCache(Supplier<NetworkMultiplexer> net, ContainerMbusConfig containerMbusConfig,
+                        MessagebusConfig messagebusConfig, Protocol protocol, Metric metric) {
+        this.messageBus = new Memoized<>(() -> {
+                                             SharedMessageBus bus = createSharedMessageBus(net.get(), containerMbusConfig,
+                                                                                           messagebusConfig, protocol);
+                                             createdMessageBus = bus;
+                                             return bus;
+                                         },
                                          SharedMessageBus::release);
+        if (metric != null) {
+            scheduler = new Timer("mbus-metrics", true);
+            scheduler.schedule(new MetricReporter(metric), 10_000, 10_000);
+        }
+        else {
+            scheduler = null;
+        }
     }
 
     @Override
     public void deconstruct() {
+        if (scheduler != null)
+            scheduler.cancel();
         messageBus.close();
     }
 
@@ -100,6 +136,7 @@ public final class SessionCache extends AbstractComponent {
         MessageBusParams mbusParams = new MessageBusParams().addProtocol(protocol);
 
         mbusParams.setMaxPendingCount(mbusConfig.maxpendingcount());
+        mbusParams.setMessengerThreads(mbusConfig.messenger_threads());
 
         MessageBus bus = new MessageBus(net, mbusParams);
         new ConfigAgent(messagebusConfig, bus); // Configure the wrapped MessageBus with a routing table.
@@ -194,6 +231,23 @@ public final class SessionCache extends AbstractComponent {
         }
     }
 
+    private class MetricReporter extends TimerTask {
+
+        private final MessengerMetrics messengerMetrics;
+
+        MetricReporter(Metric metric) {
+            this.messengerMetrics = new MessengerMetrics(metric);
+        }
+
+        @Override
+        public void run() {
+            SharedMessageBus bus = createdMessageBus;
+            if (bus == null) return; // not used yet
+            messengerMetrics.emit(bus.messageBus().messengerMetrics());
+        }
+
+    }
+
     static class ThrottlePolicySignature {
 
         @Override
@@ -0,0 +1,35 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.container.jdisc.messagebus;
+
+import com.yahoo.jdisc.test.MockMetric;
+import com.yahoo.messagebus.network.rpc.CompressionMetrics;
+import org.junit.Test;
+
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * @author agent
+ */
+public class CompressionMetricsEmitterTestCase {
+
+    @Test
+    public void testChangesAreEmitted() {
+        MockMetric metric = new MockMetric();
+        CompressionMetricsEmitter emitter = new CompressionMetricsEmitter(metric);
+
+        emitter.emit(new CompressionMetrics(1000, 400, 3, 1, 2_000_000));
+        emitter.emit(new CompressionMetrics(1500, 700, 4, 3, 2_500_000));
+        assertEquals(1500.0, value(metric, "mbus.compression.uncompressed_bytes"), 0);
+        assertEquals(800.0, value(metric, "mbus.compression.saved_bytes"), 0);
+        assertEquals(4.0, value(metric, "mbus.compression.compressions"), 0);
+        assertEquals(3.0, value(metric, "mbus.compression.skipped"), 0);
+        assertEquals(2.5, value(metric, "mbus.compression.time"), 0);
+    }
+
+    private static double value(MockMetric metric, String name) {
+        return metric.metrics().get(name).get(Map.of());
+    }
+
+}
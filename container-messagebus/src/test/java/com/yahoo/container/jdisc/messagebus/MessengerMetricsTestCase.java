@@ -0,0 +1,44 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.container.jdisc.messagebus;
+
+import com.yahoo.jdisc.test.MockMetric;
+import com.yahoo.messagebus.Messenger.WorkerMetrics;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+/**
+ * @author agent
+ */
+public class MessengerMetricsTestCase {
+
+    @Test
+    public void testChangesAreEmittedPerWorker() {
+        MockMetric metric = new MockMetric();
+        MessengerMetrics metrics = new MessengerMetrics(metric);
+
+        metrics.emit(List.of(new WorkerMetrics(3, 10, 10_000_000), new WorkerMetrics(0, 0, 0)));
+        assertEquals(3.0, value(metric, "mbus.messenger.queue_size", "0"), 0);
+        assertEquals(10.0, value(metric, "mbus.messenger.tasks", "0"), 0);
+        assertEquals(1.0, value(metric, "mbus.messenger.task_latency", "0"), 0);
+        assertEquals(0.0, value(metric, "mbus.messenger.queue_size", "1"), 0);
+        assertEquals(0.0, value(metric, "mbus.messenger.tasks", "1"), 0);
+        assertNull(value(metric, "mbus.messenger.task_latency", "1"));
+
+        metrics.emit(List.of(new WorkerMetrics(1, 30, 70_000_000), new WorkerMetrics(2, 5, 5_000_000)));
+        assertEquals(1.0, value(metric, "mbus.messenger.queue_size", "0"), 0);
+        assertEquals(30.0, value(metric, "mbus.messenger.tasks", "0"), 0); // accumulated by the mock
+        assertEquals(3.0, value(metric, "mbus.messenger.task_latency", "0"), 0); // 60 ms over 20 tasks
+        assertEquals(5.0, value(metric, "mbus.messenger.tasks", "1"), 0);
+        assertEquals(1.0, value(metric, "mbus.messenger.task_latency", "1"), 0);
+    }
+
+    private static Double value(MockMetric metric, String name, String worker) {
+        return metric.metrics().getOrDefault(name, Map.of()).get(Map.of("worker", worker));
+    }
+
+}
@@ -277,6 +277,25 @@ public class Query extends com.yahoo.processing.Request implements Cloneable {
         return names;
     }
 
+    /** The full name of a field declared in this query or one of its dependent objects */
+    private record ArgumentName(CompoundName name, boolean isMap) {}
+
+    /** The names of all the fields declared in the argument types of a query, in the order they should be set */
+    private static final List<ArgumentName> argumentNames = List.copyOf(argumentNamesOf("", Query.getArgumentType(), new ArrayList<>()));
+
+    private static List<ArgumentName> argumentNamesOf(String prefix, QueryProfileType arguments, List<ArgumentName> names) {
+        prefix = append(prefix, getPrefix(arguments).toString());
+        for (FieldDescription field : arguments.fields().values()) {
+            if (field.getType() == FieldType.genericQueryProfileType) // Generic map
+                names.add(new ArgumentName(CompoundName.from(append(prefix, field.getCompoundName().toString())), true));
+            else if (field.getType() instanceof QueryProfileFieldType) // Nested arguments
+                argumentNamesOf(prefix, ((QueryProfileFieldType)field.getType()).getQueryProfileType(), names);
+            else
+                names.add(new ArgumentName(CompoundName.from(append(prefix, field.getCompoundName().toString())), false));
+        }
+        return names;
+    }
+
     //---------------- Construction ------------------------------------
 
     /**
@@ -427,43 +446,28 @@ public class Query extends com.yahoo.processing.Request implements Cloneable {
      * dependent objects for the appropriate subset of the given property values
      */
     private void setFieldsFrom(Properties properties, Map<String, String> context) {
-        setFrom("", properties, Query.getArgumentType(), context);
-    }
-
-    private static String append(String a, String b) {
-        if (a.isEmpty()) return b;
-        if (b.isEmpty()) return a;
-        return a + "." + b;
-    }
-
-    /**
-     * For each field in the given query profile type, take the corresponding value from originalProperties
-     * (if any) set it to properties(), recursively.
-     */
-    private void setFrom(String prefix, Properties originalProperties, QueryProfileType arguments, Map<String, String> context) {
-        prefix = append(prefix, getPrefix(arguments).toString());
-        for (FieldDescription field : arguments.fields().values()) {
-            if (field.getType() == FieldType.genericQueryProfileType) { // Generic map
-                String fullName = append(prefix, field.getCompoundName().toString());
-                for (Map.Entry<String, Object> entry : originalProperties.listProperties(CompoundName.from(fullName), context).entrySet()) {
-                    properties().set(CompoundName.from(append(fullName, entry.getKey())), entry.getValue(), context);
+        for (ArgumentName argument : argumentNames) {
+            if (argument.isMap()) {
+                String prefix = argument.name().toString();
+                for (Map.Entry<String, Object> entry : properties.listProperties(argument.name(), context).entrySet()) {
+                    properties().set(CompoundName.from(append(prefix, entry.getKey())), entry.getValue(), context);
                 }
             }
-            else if (field.getType() instanceof QueryProfileFieldType) { // Nested arguments
-                setFrom(prefix, originalProperties, ((QueryProfileFieldType)field.getType()).getQueryProfileType(), context);
-            }
             else {
-                CompoundName fullName = prefix.isEmpty()
-                        ? field.getCompoundName()
-                        : CompoundName.from(append(prefix, field.getCompoundName().toString()));
-                Object value = originalProperties.get(fullName, context);
+                Object value = properties.get(argument.name(), context);
                 if (value != null) {
-                    properties().set(fullName, value, context);
+                    properties().set(argument.name(), value, context);
                 }
             }
         }
     }
 
+    private static String append(String a, String b) {
+        if (a.isEmpty()) return b;
+        if (b.isEmpty()) return a;
+        return a + "." + b;
+    }
+
     /** Calls properties#set on all entries in requestMap */
     private void setPropertiesFromRequestMap(Map<String, String> requestMap, Properties properties, boolean ignoreSelect) {
         var entrySet = requestMap.entrySet();
@@ -7,6 +7,7 @@ import com.yahoo.component.annotation.Inject;
 import com.yahoo.config.subscription.ConfigSubscriber;
 import com.yahoo.container.QrConfig;
 import com.yahoo.container.handler.VipStatus;
+import com.yahoo.search.dispatch.rpc.SerializedTensorCache;
 import com.yahoo.vespa.config.search.DispatchConfig;
 import com.yahoo.vespa.config.search.DispatchNodesConfig;
 import com.yahoo.yolean.UncheckedInterruptedException;
@@ -22,8 +23,9 @@ public class ReconfigurableDispatcher extends Dispatcher {
     private final ConfigSubscriber subscriber;
 
     @Inject
-    public ReconfigurableDispatcher(ComponentId clusterId, DispatchConfig dispatchConfig, SystemInfo systemInfo, VipStatus vipStatus) {
-        super(clusterId, dispatchConfig, new DispatchNodesConfig.Builder().build(), vipStatus);
+    public ReconfigurableDispatcher(ComponentId clusterId, DispatchConfig dispatchConfig, SystemInfo systemInfo, VipStatus vipStatus,
+                                    SerializedTensorCache tensorCache) {
+        super(clusterId, dispatchConfig, new DispatchNodesConfig.Builder().build(), vipStatus, tensorCache);
         this.subscriber = new ConfigSubscriber();
         CountDownLatch configured = new CountDownLatch(1);
         this.subscriber.subscribe(config -> { updateWithNewConfig(config); configured.countDown(); },
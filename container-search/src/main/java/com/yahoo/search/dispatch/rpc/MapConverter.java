@@ -4,27 +4,24 @@ package com.yahoo.search.dispatch.rpc;
 import ai.vespa.searchlib.searchprotocol.protobuf.SearchProtocol.StringProperty;
 import ai.vespa.searchlib.searchprotocol.protobuf.SearchProtocol.TensorProperty;
 import com.google.protobuf.ByteString;
-import com.yahoo.io.GrowableByteBuffer;
 import com.yahoo.tensor.Tensor;
-import com.yahoo.tensor.serialization.TypedBinaryFormat;
 
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.function.Consumer;
+import java.util.function.Function;
 
 /**
  * @author ollivir
  */
 public class MapConverter {
 
-    public static void convertMapTensors(GrowableByteBuffer buffer, Map<String, Object> map, Consumer<TensorProperty.Builder> inserter) {
+    public static void convertMapTensors(Function<Tensor, ByteString> tensorSerializer, Map<String, Object> map, Consumer<TensorProperty.Builder> inserter) {
         for (var entry : map.entrySet()) {
             var value = entry.getValue();
             if (value instanceof Tensor tensor) {
-                buffer.clear();
-                TypedBinaryFormat.encode(tensor, buffer);
-                inserter.accept(TensorProperty.newBuilder().setName(entry.getKey()).setValue(ByteString.copyFrom(buffer.getByteBuffer().flip())));
+                inserter.accept(TensorProperty.newBuilder().setName(entry.getKey()).setValue(tensorSerializer.apply(tensor)));
             }
         }
     }
@@ -47,7 +44,7 @@ public class MapConverter {
         }
     }
 
-    public static void convertMultiMap(GrowableByteBuffer buffer,
+    public static void convertMultiMap(Function<Tensor, ByteString> tensorSerializer,
                                        Map<String, List<Object>> map,
                                        Consumer<StringProperty.Builder> stringInserter,
                                        Consumer<TensorProperty.Builder> tensorInserter) {
@@ -58,9 +55,7 @@ public class MapConverter {
                 for (var value : entry.getValue()) {
                     if (value != null) {
                         if (value instanceof Tensor tensor) {
-                            buffer.clear();
-                            TypedBinaryFormat.encode(tensor, buffer);
-                            tensorInserter.accept(TensorProperty.newBuilder().setName(key).setValue(ByteString.copyFrom(buffer.getByteBuffer().flip())));
+                            tensorInserter.accept(TensorProperty.newBuilder().setName(key).setValue(tensorSerializer.apply(tensor)));
                         } else {
                             stringValues.add(value.toString());
                         }
@@ -5,7 +5,8 @@ import ai.vespa.searchlib.searchprotocol.protobuf.SearchProtocol;
 import ai.vespa.searchlib.searchprotocol.protobuf.SearchProtocol.StringProperty;
 import ai.vespa.searchlib.searchprotocol.protobuf.SearchProtocol.TensorProperty;
 import com.google.protobuf.ByteString;
-import com.google.protobuf.InvalidProtocolBufferException;
+import com.google.protobuf.CodedInputStream;
+import com.google.protobuf.WireFormat;
 import com.yahoo.data.access.helpers.MatchFeatureData;
 import com.yahoo.data.access.simple.Value;
 import com.yahoo.data.access.slime.SlimeAdapter;
@@ -25,18 +26,26 @@ import com.yahoo.search.query.QueryTree;
 import com.yahoo.search.query.Ranking;
 import com.yahoo.search.query.Sorting;
 import com.yahoo.search.query.Sorting.Order;
+import com.yahoo.search.query.profile.QueryProfileProperties;
+import com.yahoo.search.query.profile.compiled.CompiledQueryProfile;
 import com.yahoo.search.query.profiling.Profiling;
 import com.yahoo.search.result.Coverage;
 import com.yahoo.search.result.ErrorMessage;
 import com.yahoo.searchlib.aggregation.Grouping;
 import com.yahoo.slime.BinaryFormat;
+import com.yahoo.slime.BinaryView;
+import com.yahoo.slime.Inspector;
+import com.yahoo.tensor.Tensor;
 import com.yahoo.vespa.objects.BufferSerializer;
 
+import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Set;
 import java.util.function.Consumer;
+import java.util.function.Function;
 
 public class ProtobufSerialization {
 
@@ -49,17 +58,39 @@ public class ProtobufSerialization {
      */
     private static final ThreadLocal<GrowableByteBuffer> threadLocalBuffer = ThreadLocal.withInitial(() -> new GrowableByteBuffer(4096));
 
-    static byte[] serializeSearchRequest(Query query, int hits, String serverId, double requestTimeout) {
-        return convertFromQuery(query, hits, serverId, requestTimeout).toByteArray();
+    /** The smallest number of bytes a hit with a global id takes in a SearchReply */
+    private static final int minimumHitSize = 16;
+    private static final byte[] emptyBytes = new byte[0];
+
+    // Tags of the fields decoded when decoding replies without creating protobuf messages, see search_protocol.proto
+    private static final int replyTotalHitCount = 1 << 3 | WireFormat.WIRETYPE_VARINT;
+    private static final int replyCoverageDocs = 2 << 3 | WireFormat.WIRETYPE_VARINT;
+    private static final int replyActiveDocs = 3 << 3 | WireFormat.WIRETYPE_VARINT;
+    private static final int replyTargetActiveDocs = 4 << 3 | WireFormat.WIRETYPE_VARINT;
+    private static final int replyDegradedByMatchPhase = 5 << 3 | WireFormat.WIRETYPE_VARINT;
+    private static final int replyDegradedBySoftTimeout = 6 << 3 | WireFormat.WIRETYPE_VARINT;
+    private static final int replyHits = 7 << 3 | WireFormat.WIRETYPE_LENGTH_DELIMITED;
+    private static final int replyGroupingBlob = 8 << 3 | WireFormat.WIRETYPE_LENGTH_DELIMITED;
+    private static final int replySlimeTrace = 9 << 3 | WireFormat.WIRETYPE_LENGTH_DELIMITED;
+    private static final int replyErrors = 10 << 3 | WireFormat.WIRETYPE_LENGTH_DELIMITED;
+    private static final int replyMatchFeatureNames = 11 << 3 | WireFormat.WIRETYPE_LENGTH_DELIMITED;
+    private static final int hitGlobalId = 1 << 3 | WireFormat.WIRETYPE_LENGTH_DELIMITED;
+    private static final int hitRelevance = 2 << 3 | WireFormat.WIRETYPE_FIXED64;
+    private static final int hitSortData = 3 << 3 | WireFormat.WIRETYPE_LENGTH_DELIMITED;
+    private static final int hitMatchFeatures = 4 << 3 | WireFormat.WIRETYPE_LENGTH_DELIMITED;
+    private static final int featureNumber = 1 << 3 | WireFormat.WIRETYPE_FIXED64;
+    private static final int featureTensor = 2 << 3 | WireFormat.WIRETYPE_LENGTH_DELIMITED;
+    private static final int errorMessage = 1 << 3 | WireFormat.WIRETYPE_LENGTH_DELIMITED;
+    private static final int docsumSlimeSummaries = 1 << 3 | WireFormat.WIRETYPE_LENGTH_DELIMITED;
+    private static final int docsumErrors = 2 << 3 | WireFormat.WIRETYPE_LENGTH_DELIMITED;
+
+    static byte[] serializeSearchRequest(Query query, int hits, String serverId, double requestTimeout,
+                                         SerializedTensorCache tensorCache) {
+        return convertFromQuery(query, hits, serverId, requestTimeout, tensorCache).toByteArray();
     }
 
-    private static void convertSearchReplyErrors(Result target, List<SearchProtocol.Error> errors) {
-        for (var error : errors) {
-            target.hits().addError(ErrorMessage.createSearchReplyError(error.getMessage()));
-        }
-    }
-
-    static SearchProtocol.SearchRequest convertFromQuery(Query query, int hits, String serverId, double requestTimeout) {
+    static SearchProtocol.SearchRequest convertFromQuery(Query query, int hits, String serverId, double requestTimeout,
+                                                         SerializedTensorCache tensorCache) {
         var builder = SearchProtocol.SearchRequest.newBuilder().setHits(hits).setOffset(query.getOffset())
                 .setTimeout((int) (requestTimeout * 1000));
 
@@ -99,7 +130,7 @@ public class ProtobufSerialization {
             mergeToSearchRequestFromProfiling(query.getTrace().getProfiling(), builder);
         }
 
-        mergeToSearchRequestFromRanking(query.getRanking(), scratchPad, builder);
+        mergeToSearchRequestFromRanking(query.getRanking(), tensorSerializer(query, tensorCache, scratchPad), builder);
 
         return builder.build();
     }
@@ -115,7 +146,16 @@ public class ProtobufSerialization {
         return traceLevel;
     }
 
-    private static void mergeToSearchRequestFromRanking(Ranking ranking, GrowableByteBuffer scratchPad, SearchProtocol.SearchRequest.Builder builder) {
+    /** Returns a function serializing tensors of the given query, reusing the serialized form of query profile tensors */
+    private static Function<Tensor, ByteString> tensorSerializer(Query query, SerializedTensorCache tensorCache,
+                                                                 GrowableByteBuffer scratchPad) {
+        var queryProfileProperties = query.properties().getInstance(QueryProfileProperties.class);
+        CompiledQueryProfile profile = queryProfileProperties == null ? null : queryProfileProperties.getQueryProfile();
+        return tensor -> tensorCache.serialize(tensor, profile, scratchPad);
+    }
+
+    private static void mergeToSearchRequestFromRanking(Ranking ranking, Function<Tensor, ByteString> tensorSerializer,
+                                                        SearchProtocol.SearchRequest.Builder builder) {
         builder.setRankProfile(ranking.getProfile());
 
         if (ranking.getQueryCache()) {
@@ -130,8 +170,8 @@ public class ProtobufSerialization {
 
         var featureMap = ranking.getFeatures().asMap();
         MapConverter.convertMapPrimitives(featureMap, builder::addFeatureOverrides);
-        MapConverter.convertMapTensors(scratchPad, featureMap, builder::addTensorFeatureOverrides);
-        mergeRankProperties(ranking, scratchPad, builder::addRankProperties, builder::addTensorRankProperties);
+        MapConverter.convertMapTensors(tensorSerializer, featureMap, builder::addTensorFeatureOverrides);
+        mergeRankProperties(ranking, tensorSerializer, builder::addRankProperties, builder::addTensorRankProperties);
     }
 
     private static void mergeToSearchRequestFromSorting(Sorting sorting, SearchProtocol.SearchRequest.Builder builder) {
@@ -164,7 +204,8 @@ public class ProtobufSerialization {
                                                                            String summaryClass,
                                                                            Set<String> fields,
                                                                            boolean includeQueryData,
-                                                                           double requestTimeout) {
+                                                                           double requestTimeout,
+                                                                           SerializedTensorCache tensorCache) {
         var builder = SearchProtocol.DocsumRequest.newBuilder()
                 .setTimeout((int) (requestTimeout * 1000))
                 .setDumpFeatures(query.properties().getBoolean(Ranking.RANKFEATURES, false));
@@ -193,7 +234,7 @@ public class ProtobufSerialization {
         }
         GrowableByteBuffer scratchPad = threadLocalBuffer.get();
         if (includeQueryData) {
-            mergeQueryDataToDocsumRequest(query, scratchPad, builder);
+            mergeQueryDataToDocsumRequest(query, scratchPad, tensorSerializer(query, tensorCache, scratchPad), builder);
         }
         if (query.getTrace().getLevel() >= 3) {
             query.trace((includeQueryData ? "ProtoBuf: Resending " : "Not resending ") + "query during document summary fetching", 3);
@@ -202,6 +243,37 @@ public class ProtobufSerialization {
         return builder;
     }
 
+    /** A docsum reply: The root of its slime summaries, and its errors */
+    record DecodedDocsumReply(Inspector root, List<String> errors) { }
+
+    /**
+     * Decodes a serialized DocsumReply without creating protobuf messages or copying the slime summaries:
+     * These are either inspected in place in the payload (if lazy) or decoded from it.
+     */
+    static DecodedDocsumReply decodeDocsumReply(byte[] payload, boolean lazy) throws IOException {
+        var input = CodedInputStream.newInstance(payload);
+        int summariesOffset = 0;
+        int summariesLength = 0;
+        List<String> errors = List.of();
+        for (int tag = input.readTag(); tag != 0; tag = input.readTag()) {
+            switch (tag) {
+                case docsumSlimeSummaries -> {
+                    summariesLength = input.readRawVarint32();
+                    summariesOffset = input.getTotalBytesRead();
+                    input.skipRawBytes(summariesLength);
+                }
+                case docsumErrors -> {
+                    if (errors.isEmpty()) errors = new ArrayList<>();
+                    errors.add(decodeError(input));
+                }
+                default -> input.skipField(tag);
+            }
+        }
+        Inspector root = lazy ? BinaryView.inspect(payload, summariesOffset, summariesLength)
+                              : BinaryFormat.decode(payload, summariesOffset, summariesLength).get();
+        return new DecodedDocsumReply(root, errors);
+    }
+
     static byte[] serializeDocsumRequest(SearchProtocol.DocsumRequest.Builder builder, List<FastHit> documents) {
         builder.clearGlobalIds();
         for (var hit : documents) {
@@ -210,96 +282,189 @@ public class ProtobufSerialization {
         return builder.build().toByteArray();
     }
 
-    private static void mergeQueryDataToDocsumRequest(Query query, GrowableByteBuffer scratchPad, SearchProtocol.DocsumRequest.Builder builder) {
+    private static void mergeQueryDataToDocsumRequest(Query query, GrowableByteBuffer scratchPad,
+                                                      Function<Tensor, ByteString> tensorSerializer,
+                                                      SearchProtocol.DocsumRequest.Builder builder) {
         var ranking = query.getRanking();
         var featureMap = ranking.getFeatures().asMap();
 
         builder.setQueryTreeBlob(serializeQueryTree(query.getModel().getQueryTree(), scratchPad));
 
         MapConverter.convertMapPrimitives(featureMap, builder::addFeatureOverrides);
-        MapConverter.convertMapTensors(scratchPad, featureMap, builder::addTensorFeatureOverrides);
+        MapConverter.convertMapTensors(tensorSerializer, featureMap, builder::addTensorFeatureOverrides);
         if (query.getPresentation().getHighlight() != null) {
             MapConverter.convertStringMultiMap(query.getPresentation().getHighlight().getHighlightTerms(), builder::addHighlightTerms);
         }
-        mergeRankProperties(ranking, scratchPad, builder::addRankProperties, builder::addTensorRankProperties);
+        mergeRankProperties(ranking, tensorSerializer, builder::addRankProperties, builder::addTensorRankProperties);
     }
     static byte[] serializeResult(Result searchResult) {
         return convertFromResult(searchResult).toByteArray();
     }
 
     static InvokerResult deserializeToSearchResult(byte[] payload, Query query, VespaBackend searcher, int partId, int distKey)
-            throws InvalidProtocolBufferException {
-        var protobuf = SearchProtocol.SearchReply.parseFrom(payload);
-        return convertToResult(query, protobuf, searcher.getDocumentDatabase(query), partId, distKey);
+            throws IOException {
+        return decodeToResult(query, payload, searcher.getDocumentDatabase(query), partId, distKey);
     }
 
-    static InvokerResult convertToResult(Query query, SearchProtocol.SearchReply protobuf,
-                                         DocumentDatabase documentDatabase, int partId, int distKey)
-    {
-        InvokerResult result = new InvokerResult(query, protobuf.getHitsCount());
-
-        result.getResult().setTotalHitCount(protobuf.getTotalHitCount());
-        result.getResult().setCoverage(convertToCoverage(protobuf));
-
-        convertSearchReplyErrors(result.getResult(), protobuf.getErrorsList());
-        List<String> featureNames = protobuf.getMatchFeatureNamesList();
-        var haveMatchFeatures = ! featureNames.isEmpty();
-        MatchFeatureData matchFeatures = haveMatchFeatures ? new MatchFeatureData(featureNames) : null;
-        var haveGrouping = ! protobuf.getGroupingBlob().isEmpty();
-        if (haveGrouping) {
-            BufferSerializer buf = new BufferSerializer(new GrowableByteBuffer(protobuf.getGroupingBlob().asReadOnlyByteBuffer()));
-            int cnt = buf.getInt(null);
-            ArrayList<Grouping> list = new ArrayList<>(cnt);
-            for (int i = 0; i < cnt; i++) {
-                Grouping g = new Grouping();
-                g.deserialize(buf);
-                list.add(g);
-            }
-            GroupingListHit hit = new GroupingListHit(list, documentDatabase, query);
-            result.getResult().hits().add(hit);
-        }
-        for (var replyHit : protobuf.getHitsList()) {
-            LeanHit hit = (replyHit.getSortData().isEmpty())
-                    ? new LeanHit(replyHit.getGlobalId().toByteArray(), partId, distKey, replyHit.getRelevance())
-                    : new LeanHit(replyHit.getGlobalId().toByteArray(), partId, distKey, replyHit.getRelevance(), replyHit.getSortData().toByteArray());
-            if (haveMatchFeatures) {
-                var hitFeatures = matchFeatures.addHit();
-                var featureList = replyHit.getMatchFeaturesList();
-                if (featureList.size() == featureNames.size()) {
-                    int idx = 0;
-                    for (SearchProtocol.Feature value : featureList) {
-                        ByteString tensorBlob = value.getTensor();
-                        if (tensorBlob.isEmpty()) {
-                            hitFeatures.set(idx++, value.getNumber());
-                        } else {
-                            hitFeatures.set(idx++, tensorBlob.toByteArray());
-                        }
-                    }
-                    hit.addMatchFeatures(hitFeatures);
-                } else {
-                    result.getResult().hits().addError(ErrorMessage.createBackendCommunicationError("mismatch in match feature sizes"));
+    /** Decodes a serialized SearchReply directly into a result, without creating intermediate protobuf messages */
+    static InvokerResult decodeToResult(Query query, byte[] payload, DocumentDatabase documentDatabase, int partId, int distKey)
+            throws IOException {
+        var input = CodedInputStream.newInstance(payload);
+        input.enableAliasing(true); // byte buffers are read as views of the payload
+        var result = new InvokerResult(query, Math.min(query.getOffset() + query.getHits(), payload.length / minimumHitSize));
+        long coverageDocs = 0, activeDocs = 0, targetActiveDocs = 0;
+        boolean degradedByMatchPhase = false, degradedBySoftTimeout = false;
+        List<String> errors = List.of();
+        List<String> featureNames = List.of();
+        List<List<Object>> hitFeatures = null; // the match features of each hit, if any
+        ByteBuffer groupingBlob = null;
+        ByteBuffer slimeTrace = null;
+        for (int tag = input.readTag(); tag != 0; tag = input.readTag()) {
+            switch (tag) {
+                case replyTotalHitCount -> result.getResult().setTotalHitCount(input.readInt64());
+                case replyCoverageDocs -> coverageDocs = input.readInt64();
+                case replyActiveDocs -> activeDocs = input.readInt64();
+                case replyTargetActiveDocs -> targetActiveDocs = input.readInt64();
+                case replyDegradedByMatchPhase -> degradedByMatchPhase = input.readBool();
+                case replyDegradedBySoftTimeout -> degradedBySoftTimeout = input.readBool();
+                case replyHits -> {
+                    int limit = input.pushLimit(input.readRawVarint32());
+                    List<Object> features = decodeHit(input, partId, distKey, result.getLeanHits());
+                    input.popLimit(limit);
+                    if (features != null && hitFeatures == null)
+                        hitFeatures = new ArrayList<>(Collections.nCopies(result.getLeanHits().size() - 1, null));
+                    if (hitFeatures != null)
+                        hitFeatures.add(features);
+                }
+                case replyGroupingBlob -> groupingBlob = input.readByteBuffer();
+                case replySlimeTrace -> slimeTrace = input.readByteBuffer();
+                case replyErrors -> {
+                    if (errors.isEmpty()) errors = new ArrayList<>();
+                    errors.add(decodeError(input));
                 }
+                case replyMatchFeatureNames -> {
+                    if (featureNames.isEmpty()) featureNames = new ArrayList<>();
+                    featureNames.add(input.readStringRequireUtf8());
+                }
+                default -> input.skipField(tag);
             }
-            result.getLeanHits().add(hit);
         }
 
-        var slimeTrace = protobuf.getSlimeTrace();
-        if ( ! slimeTrace.isEmpty()) {
+        result.getResult().setCoverage(convertToCoverage(coverageDocs, activeDocs, targetActiveDocs,
+                                                         degradedByMatchPhase, degradedBySoftTimeout));
+
+        for (String error : errors)
+            result.getResult().hits().addError(ErrorMessage.createSearchReplyError(error));
+        if (groupingBlob != null && groupingBlob.hasRemaining())
+            result.getResult().hits().add(new GroupingListHit(deserializeGroupingList(new GrowableByteBuffer(groupingBlob)),
+                                                              documentDatabase, query));
+        if ( ! featureNames.isEmpty())
+            addMatchFeatures(featureNames, hitFeatures, result);
+        if (slimeTrace != null && slimeTrace.hasRemaining()) {
             var traces = new Value.ArrayValue();
-            traces.add(new SlimeAdapter(BinaryFormat.decode(slimeTrace.toByteArray()).get()));
+            traces.add(new SlimeAdapter(BinaryFormat.decode(slimeTrace.array(),
+                                                            slimeTrace.arrayOffset() + slimeTrace.position(),
+                                                            slimeTrace.remaining()).get()));
             query.trace(traces, query.getTrace().getLevel());
         }
         return result;
     }
 
-    private static Coverage convertToCoverage(SearchProtocol.SearchReply protobuf) {
-        var coverage = new Coverage(protobuf.getCoverageDocs(), protobuf.getActiveDocs(), 1);
-        coverage.setNodesTried(1).setTargetActive(protobuf.getTargetActiveDocs());
+    /** Decodes a Hit into a lean hit added to the given list, and returns its match features if any, and null otherwise */
+    private static List<Object> decodeHit(CodedInputStream input, int partId, int distKey, List<LeanHit> hits) throws IOException {
+        byte[] globalId = emptyBytes;
+        double relevance = 0;
+        byte[] sortData = emptyBytes;
+        List<Object> features = null;
+        for (int tag = input.readTag(); tag != 0; tag = input.readTag()) {
+            switch (tag) {
+                case hitGlobalId -> globalId = input.readByteArray();
+                case hitRelevance -> relevance = input.readDouble();
+                case hitSortData -> sortData = input.readByteArray();
+                case hitMatchFeatures -> {
+                    if (features == null) features = new ArrayList<>();
+                    int limit = input.pushLimit(input.readRawVarint32());
+                    features.add(decodeFeature(input));
+                    input.popLimit(limit);
+                }
+                default -> input.skipField(tag);
+            }
+        }
+        hits.add(sortData.length == 0 ? new LeanHit(globalId, partId, distKey, relevance)
+                                      : new LeanHit(globalId, partId, distKey, relevance, sortData));
+        return features;
+    }
+
+    /** Decodes a Feature into either a Double or the byte[] of a serialized tensor */
+    private static Object decodeFeature(CodedInputStream input) throws IOException {
+        double number = 0;
+        byte[] tensor = emptyBytes;
+        for (int tag = input.readTag(); tag != 0; tag = input.readTag()) {
+            switch (tag) {
+                case featureNumber -> number = input.readDouble();
+                case featureTensor -> tensor = input.readByteArray();
+                default -> input.skipField(tag);
+            }
+        }
+        return tensor.length == 0 ? (Object)number : tensor;
+    }
+
+    /** Decodes the message of an Error */
+    private static String decodeError(CodedInputStream input) throws IOException {
+        int limit = input.pushLimit(input.readRawVarint32());
+        String message = "";
+        for (int tag = input.readTag(); tag != 0; tag = input.readTag()) {
+            if (tag == errorMessage)
+                message = input.readStringRequireUtf8();
+            else
+                input.skipField(tag);
+        }
+        input.popLimit(limit);
+        return message;
+    }
+
+    private static void addMatchFeatures(List<String> featureNames, List<List<Object>> hitFeatures, InvokerResult result) {
+        var matchFeatures = new MatchFeatureData(featureNames);
+        List<LeanHit> hits = result.getLeanHits();
+        for (int i = 0; i < hits.size(); i++) {
+            var features = matchFeatures.addHit();
+            List<Object> values = hitFeatures == null || hitFeatures.get(i) == null ? List.of() : hitFeatures.get(i);
+            if (values.size() == featureNames.size()) {
+                for (int j = 0; j < values.size(); j++) {
+                    if (values.get(j) instanceof Double number)
+                        features.set(j, number);
+                    else
+                        features.set(j, (byte[])values.get(j));
+                }
+                hits.get(i).addMatchFeatures(features);
+            }
+            else {
+                result.getResult().hits().addError(ErrorMessage.createBackendCommunicationError("mismatch in match feature sizes"));
+            }
+        }
+    }
+
+    private static List<Grouping> deserializeGroupingList(GrowableByteBuffer groupingBlob) {
+        BufferSerializer buf = new BufferSerializer(groupingBlob);
+        int cnt = buf.getInt(null);
+        ArrayList<Grouping> list = new ArrayList<>(cnt);
+        for (int i = 0; i < cnt; i++) {
+            Grouping g = new Grouping();
+            g.deserialize(buf);
+            list.add(g);
+        }
+        return list;
+    }
+
+    private static Coverage convertToCoverage(long coverageDocs, long activeDocs, long targetActiveDocs,
+                                              boolean degradedByMatchPhase, boolean degradedBySoftTimeout) {
+        var coverage = new Coverage(coverageDocs, activeDocs, 1);
+        coverage.setNodesTried(1).setTargetActive(targetActiveDocs);
 
         int degradedReason = 0;
-        if (protobuf.getDegradedByMatchPhase())
+        if (degradedByMatchPhase)
             degradedReason |= Coverage.DEGRADED_BY_MATCH_PHASE;
-        if (protobuf.getDegradedBySoftTimeout())
+        if (degradedBySoftTimeout)
             degradedReason |= Coverage.DEGRADED_BY_TIMEOUT;
         coverage.setDegradedReason(degradedReason);
 
@@ -343,10 +508,10 @@ public class ProtobufSerialization {
     }
 
     private static void mergeRankProperties(Ranking ranking,
-                                            GrowableByteBuffer scratchPad,
+                                            Function<Tensor, ByteString> tensorSerializer,
                                             Consumer<StringProperty.Builder> stringProperties,
                                             Consumer<TensorProperty.Builder> tensorProperties) {
-        MapConverter.convertMultiMap(scratchPad, ranking.getProperties().asMap(), propB -> {
+        MapConverter.convertMultiMap(tensorSerializer, ranking.getProperties().asMap(), propB -> {
             if (!GetDocSumsPacket.sessionIdKey.equals(propB.getName())) {
                 stringProperties.accept(propB);
             }
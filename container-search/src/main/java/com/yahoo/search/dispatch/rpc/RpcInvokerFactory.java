@@ -21,6 +21,7 @@ public class RpcInvokerFactory extends InvokerFactory {
     private final RpcConnectionPool rpcResourcePool;
     private final CompressPayload compressor;
     private final RpcProtobufFillInvoker.DecodePolicy decodeType;
+    private final SerializedTensorCache tensorCache;
 
     private static RpcProtobufFillInvoker.DecodePolicy convert(DispatchConfig.SummaryDecodePolicy.Enum decoding) {
         return switch (decoding) {
@@ -29,16 +30,18 @@ public class RpcInvokerFactory extends InvokerFactory {
         };
     }
 
-    public RpcInvokerFactory(RpcConnectionPool rpcResourcePool, SearchGroups cluster, DispatchConfig dispatchConfig) {
+    public RpcInvokerFactory(RpcConnectionPool rpcResourcePool, SearchGroups cluster, DispatchConfig dispatchConfig,
+                             SerializedTensorCache tensorCache) {
         super(cluster, dispatchConfig);
         this.rpcResourcePool = rpcResourcePool;
         this.compressor = new CompressService();
         this.decodeType = convert(dispatchConfig.summaryDecodePolicy());
+        this.tensorCache = tensorCache;
     }
 
     @Override
     protected Optional<SearchInvoker> createNodeSearchInvoker(VespaBackend searcher, Query query, int maxHits, Node node) {
-        return Optional.of(new RpcSearchInvoker(searcher, compressor, node, rpcResourcePool, maxHits));
+        return Optional.of(new RpcSearchInvoker(searcher, compressor, node, rpcResourcePool, maxHits, tensorCache));
     }
 
     @Override
@@ -47,6 +50,6 @@ public class RpcInvokerFactory extends InvokerFactory {
 
         boolean summaryNeedsQuery = searcher.summaryNeedsQuery(query);
         return new RpcProtobufFillInvoker(rpcResourcePool, compressor, searcher.getDocumentDatabase(query),
-                                          searcher.getServerId(), decodeType, summaryNeedsQuery);
+                                          searcher.getServerId(), decodeType, summaryNeedsQuery, tensorCache);
     }
 }
@@ -1,8 +1,6 @@
 // Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
 package com.yahoo.search.dispatch.rpc;
 
-import ai.vespa.searchlib.searchprotocol.protobuf.SearchProtocol;
-import com.google.protobuf.InvalidProtocolBufferException;
 import com.yahoo.collections.ListMap;
 import com.yahoo.collections.Pair;
 import com.yahoo.compress.Compressor;
@@ -19,9 +17,8 @@ import com.yahoo.search.dispatch.rpc.Client.ProtobufResponse;
 import com.yahoo.search.result.ErrorMessage;
 import com.yahoo.search.result.Hit;
 import com.yahoo.slime.ArrayTraverser;
-import com.yahoo.slime.BinaryFormat;
-import com.yahoo.slime.BinaryView;
 
+import java.io.IOException;
 import java.util.List;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.LinkedBlockingQueue;
@@ -49,6 +46,7 @@ public class RpcProtobufFillInvoker extends FillInvoker {
     private final String serverId;
     private final CompressPayload compressor;
     private final DecodePolicy decodePolicy;
+    private final SerializedTensorCache tensorCache;
 
     private BlockingQueue<Pair<Client.ResponseOrError<ProtobufResponse>, List<FastHit>>> responses;
 
@@ -59,13 +57,15 @@ public class RpcProtobufFillInvoker extends FillInvoker {
     private int outstandingResponses;
 
     RpcProtobufFillInvoker(RpcConnectionPool resourcePool, CompressPayload compressor, DocumentDatabase documentDb,
-                           String serverId, DecodePolicy decodePolicy, boolean summaryNeedsQuery) {
+                           String serverId, DecodePolicy decodePolicy, boolean summaryNeedsQuery,
+                           SerializedTensorCache tensorCache) {
         this.documentDb = documentDb;
         this.resourcePool = resourcePool;
         this.serverId = serverId;
         this.summaryNeedsQuery = summaryNeedsQuery;
         this.compressor = compressor;
         this.decodePolicy = decodePolicy;
+        this.tensorCache = tensorCache;
     }
 
     @Override
@@ -86,7 +86,8 @@ public class RpcProtobufFillInvoker extends FillInvoker {
             return;
         }
         var builder = ProtobufSerialization.createDocsumRequestBuilder(
-                result.getQuery(), serverId, summaryClass, result.getQuery().getPresentation().getSummaryFields(), summaryNeedsQuery, timeout.request());
+                result.getQuery(), serverId, summaryClass, result.getQuery().getPresentation().getSummaryFields(), summaryNeedsQuery, timeout.request(),
+                tensorCache);
         hitsByNode.forEach((nodeId, hits) -> {
             var payload = ProtobufSerialization.serializeDocsumRequest(builder, hits);
             sendDocsumsRequest(nodeId, hits, payload, result, timeout.client());
@@ -196,24 +197,22 @@ public class RpcProtobufFillInvoker extends FillInvoker {
         });
     }
 
-    private void convertErrorsFromDocsumReply(Result target, List<SearchProtocol.Error> errors) {
+    private void convertErrorsFromDocsumReply(Result target, List<String> errors) {
         for (var error : errors) {
-            target.hits().addError(ErrorMessage.createDocsumReplyError(error.getMessage()));
+            target.hits().addError(ErrorMessage.createDocsumReplyError(error));
         }
     }
 
     private int fill(Result result, List<FastHit> hits, String summaryClass, byte[] payload) {
         try {
-            var protobuf = SearchProtocol.DocsumReply.parseFrom(payload);
-            var root = (decodePolicy == DecodePolicy.ONDEMAND)
-                    ? BinaryView.inspect(protobuf.getSlimeSummaries().toByteArray())
-                    : BinaryFormat.decode(protobuf.getSlimeSummaries().toByteArray()).get();
+            var reply = ProtobufSerialization.decodeDocsumReply(payload, decodePolicy == DecodePolicy.ONDEMAND);
+            var root = reply.root();
             var errors = root.field("errors");
             boolean hasErrors = errors.valid() && (errors.entries() > 0);
             if (hasErrors) {
                 addErrors(result, errors);
             }
-            convertErrorsFromDocsumReply(result, protobuf.getErrorsList());
+            convertErrorsFromDocsumReply(result, reply.errors());
 
             Inspector summaries = new SlimeAdapter(root.field("docsums"));
             if (!summaries.valid()) {
@@ -231,7 +230,7 @@ public class RpcProtobufFillInvoker extends FillInvoker {
                 }
             }
             return skippedHits;
-        } catch (InvalidProtocolBufferException ex) {
+        } catch (IOException ex) {
             log.log(Level.WARNING, "Invalid response to docsum request", ex);
             result.hits().addError(ErrorMessage.createInternalServerError("Invalid response to docsum request from backend"));
             return 0;
@@ -31,10 +31,12 @@ public class RpcSearchInvoker extends SearchInvoker implements Client.ResponseRe
     private final BlockingQueue<Client.ResponseOrError<ProtobufResponse>> responses;
     private final int maxHits;
     private final CompressPayload compressor;
+    private final SerializedTensorCache tensorCache;
 
     private Query query;
 
-    RpcSearchInvoker(VespaBackend searcher, CompressPayload compressor, Node node, RpcConnectionPool resourcePool, int maxHits) {
+    RpcSearchInvoker(VespaBackend searcher, CompressPayload compressor, Node node, RpcConnectionPool resourcePool, int maxHits,
+                     SerializedTensorCache tensorCache) {
         super(Optional.of(node));
         this.searcher = searcher;
         this.node = node;
@@ -42,6 +44,7 @@ public class RpcSearchInvoker extends SearchInvoker implements Client.ResponseRe
         this.responses = new LinkedBlockingQueue<>(1);
         this.maxHits = maxHits;
         this.compressor = compressor;
+        this.tensorCache = tensorCache;
     }
 
     @Override
@@ -81,7 +84,8 @@ public class RpcSearchInvoker extends SearchInvoker implements Client.ResponseRe
         return new RpcContext(compressor, query,
                               ProtobufSerialization.serializeSearchRequest(query,
                                                                            Math.min(query.getHits(), maxHits),
-                                                                           searcher.getServerId(), requestTimeout));
+                                                                           searcher.getServerId(), requestTimeout,
+                                                                           tensorCache));
     }
 
     @Override
@@ -0,0 +1,119 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.search.dispatch.rpc;
+
+import ai.vespa.metrics.ContainerMetrics;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.protobuf.ByteString;
+import com.yahoo.component.AbstractComponent;
+import com.yahoo.component.annotation.Inject;
+import com.yahoo.io.GrowableByteBuffer;
+import com.yahoo.jdisc.Metric;
+import com.yahoo.search.query.profile.compiled.CompiledQueryProfile;
+import com.yahoo.tensor.Tensor;
+import com.yahoo.tensor.serialization.TypedBinaryFormat;
+
+import java.util.Timer;
+import java.util.TimerTask;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Tensors from query profiles serialized for dispatch to content nodes, reused across requests.
+ * Tensors are immutable, so a tensor instance which is a query profile value, and therefore
+ * shared by many requests, only needs to be serialized once. Other tensors are serialized per request.
+ *
+ * Tensors are keyed by identity, as tensor equality is approximate, and held weakly,
+ * such that tensors of query profiles which are reconfigured away are dropped.
+ *
+ * This is multithread safe.
+ *
+ * @author agent
+ */
+public final class SerializedTensorCache extends AbstractComponent {
+
+    private static final String SERIALIZED_BYTES_METRIC = ContainerMetrics.DISPATCH_TENSOR_SERIALIZED_BYTES.baseName();
+    private static final String REUSED_BYTES_METRIC = ContainerMetrics.DISPATCH_TENSOR_REUSED_BYTES.baseName();
+
+    private final Cache<Tensor, ByteString> cache;
+    private final AtomicLong reusedBytes = new AtomicLong();
+    private final AtomicLong serializedBytes = new AtomicLong();
+
+    /** Reports metrics periodically, or null if metrics are not reported */
+    private final Timer scheduler;
+
+    @Inject
+    public SerializedTensorCache(Metric metric) {
+        this(10000, metric);
+    }
+
+    /** Creates a cache which does not report metrics */
+    public SerializedTensorCache() {
+        this(10000, null);
+    }
+
+    SerializedTensorCache(int maxSize, Metric metric) {
+        this.cache = CacheBuilder.newBuilder().weakKeys().maximumSize(maxSize).build();
+        if (metric != null) {
+            scheduler = new Timer(true);
+            scheduler.schedule(new MetricReporter(metric), 10_000, 10_000);
+        }
+        else {
+            scheduler = null;
+        }
+    }
+
+    /**
+     * Returns the given tensor serialized, using the given buffer as scratchpad if it is not already serialized.
+     *
+     * @param tensor the tensor to serialize
+     * @param profile the query profile of the request, or null if none. The serialized form is cached
+     *                only if the tensor is a value in this profile
+     * @param buffer the buffer to use as scratchpad
+     */
+    ByteString serialize(Tensor tensor, CompiledQueryProfile profile, GrowableByteBuffer buffer) {
+        boolean cacheable = profile != null && profile.containsTensor(tensor);
+        if (cacheable) {
+            ByteString serialized = cache.getIfPresent(tensor);
+            if (serialized != null) {
+                reusedBytes.addAndGet(serialized.size());
+                return serialized;
+            }
+        }
+        buffer.clear();
+        TypedBinaryFormat.encode(tensor, buffer);
+        ByteString serialized = ByteString.copyFrom(buffer.getByteBuffer().flip());
+        if (cacheable)
+            cache.put(tensor, serialized);
+        serializedBytes.addAndGet(serialized.size());
+        return serialized;
+    }
+
+    /** Returns the number of bytes reused instead of serializing tensors again since the last call to this */
+    long takeReusedBytes() { return reusedBytes.getAndSet(0); }
+
+    /** Returns the number of bytes of tensors serialized since the last call to this */
+    long takeSerializedBytes() { return serializedBytes.getAndSet(0); }
+
+    @Override
+    public void deconstruct() {
+        if (scheduler != null)
+            scheduler.cancel();
+    }
+
+    private class MetricReporter extends TimerTask {
+
+        private final Metric metric;
+
+        MetricReporter(Metric metric) {
+            this.metric = metric;
+        }
+
+        @Override
+        public void run() {
+            metric.add(SERIALIZED_BYTES_METRIC, takeSerializedBytes(), null);
+            metric.add(REUSED_BYTES_METRIC, takeReusedBytes(), null);
+        }
+
+    }
+
+}
@@ -7,6 +7,7 @@ import com.yahoo.prelude.IndexFacts;
 import com.yahoo.language.process.SpecialTokens;
 import com.yahoo.search.Searcher;
 import com.yahoo.search.searchchain.Execution;
+import com.yahoo.search.yql.YqlProgramCache;
 
 /**
  * This class encapsulates the environment of a {@link Parser}. In case you are creating a parser from within a
@@ -34,6 +35,7 @@ public final class ParserEnvironment {
     private Linguistics linguistics = new SimpleLinguistics();
     private SpecialTokens specialTokens = SpecialTokens.empty();
     private ParserSettings parserSettings = new ParserSettings();
+    private YqlProgramCache yqlProgramCache = null;
 
     public ParserSettings getParserSettings() {
         return parserSettings;
@@ -71,6 +73,16 @@ public final class ParserEnvironment {
         return this;
     }
 
+    /** Returns the cache of parsed YQL programs to use, or null to parse every program */
+    public YqlProgramCache getYqlProgramCache() {
+        return yqlProgramCache;
+    }
+
+    public ParserEnvironment setYqlProgramCache(YqlProgramCache yqlProgramCache) {
+        this.yqlProgramCache = yqlProgramCache;
+        return this;
+    }
+
     public static ParserEnvironment fromExecutionContext(Execution.Context context) {
         ParserEnvironment env = new ParserEnvironment();
         if (context == null) return env;
@@ -94,6 +106,7 @@ public final class ParserEnvironment {
                 .setIndexFacts(environment.indexFacts)
                 .setParserSettings(environment.parserSettings)
                 .setLinguistics(environment.linguistics)
-                .setSpecialTokens(environment.specialTokens);
+                .setSpecialTokens(environment.specialTokens)
+                .setYqlProgramCache(environment.yqlProgramCache);
     }
 }
@@ -3,22 +3,23 @@ package com.yahoo.search.query.profile;
 
 import com.yahoo.processing.request.CompoundName;
 
-import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Cache for compound names created through {@link CompoundName#append(String)}.
  * Creating new {@link CompoundName}s can be expensive, and since they are immutable, they
  * are safe to cache and reuse. Use this if you will create <em>a lot</em> of them, by appending suffixes.
+ * This is multithread safe, such that names can be shared between compiled query profiles compiled in parallel.
  *
  * @author jonmv
  */
 public final class CompoundNameChildCache {
 
-    private final Map<CompoundName, Map<String, CompoundName>> cache = new HashMap<>();
+    private final Map<CompoundName, Map<String, CompoundName>> cache = new ConcurrentHashMap<>();
 
     public CompoundName append(CompoundName prefix, String suffix) {
-        return cache.computeIfAbsent(prefix, __ -> new HashMap<>()).computeIfAbsent(suffix, prefix::append);
+        return cache.computeIfAbsent(prefix, __ -> new ConcurrentHashMap<>()).computeIfAbsent(suffix, prefix::append);
     }
 
 }
@@ -1,23 +1,29 @@
 // Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
 package com.yahoo.search.query.profile;
 
+import com.yahoo.component.ComponentId;
 import com.yahoo.processing.request.CompoundName;
 import com.yahoo.search.query.profile.compiled.Binding;
 import com.yahoo.search.query.profile.compiled.CompiledQueryProfile;
 import com.yahoo.search.query.profile.compiled.CompiledQueryProfileRegistry;
 import com.yahoo.search.query.profile.compiled.DimensionalMap;
+import com.yahoo.search.query.profile.compiled.DimensionalValue;
 import com.yahoo.search.query.profile.compiled.ValueWithSource;
 import com.yahoo.search.query.profile.types.QueryProfileType;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.SortedMap;
+import java.util.SortedSet;
 import java.util.TreeMap;
+import java.util.TreeSet;
 import java.util.function.BiConsumer;
 import java.util.logging.Logger;
 
@@ -32,12 +38,30 @@ public class QueryProfileCompiler {
 
     public static CompiledQueryProfileRegistry compile(QueryProfileRegistry input) {
         CompiledQueryProfileRegistry output = new CompiledQueryProfileRegistry(input.getTypeRegistry());
+        CompoundNameChildCache names = new CompoundNameChildCache();
+        Map<DimensionalValue<?>, DimensionalValue<?>> sharedValues = new HashMap<>();
         for (QueryProfile inputProfile : input.allComponents())
-            output.register(compile(inputProfile, output));
+            output.register(compile(inputProfile, output, names, sharedValues));
         return output;
     }
 
     public static CompiledQueryProfile compile(QueryProfile in, CompiledQueryProfileRegistry registry) {
+        return compile(in, registry, new CompoundNameChildCache(), new HashMap<>());
+    }
+
+    /**
+     * Compiles a query profile.
+     *
+     * @param in the profile to compile
+     * @param registry the registry the compiled profile will belong to
+     * @param names the cache to create the names of compiled values from, which can be shared with other compiled
+     *              profiles to share their names
+     * @param sharedValues dimensional values which can be shared with other compiled profiles,
+     *                     see {@link DimensionalMap.Builder#build(Map)}
+     */
+    public static CompiledQueryProfile compile(QueryProfile in, CompiledQueryProfileRegistry registry,
+                                               CompoundNameChildCache names,
+                                               Map<DimensionalValue<?>, DimensionalValue<?>> sharedValues) {
         try {
             DimensionalMap.Builder<ValueWithSource> values = new DimensionalMap.Builder<>();
             DimensionalMap.Builder<QueryProfileType> types = new DimensionalMap.Builder<>();
@@ -49,13 +73,12 @@ public class QueryProfileCompiler {
             variants.add(new DimensionBindingForPath(DimensionBinding.nullBinding, CompoundName.empty)); // if this contains no variants
             log.fine(() -> "Compiling " + in + " having " + variants.size() + " variants");
 
-            CompoundNameChildCache pathCache = new CompoundNameChildCache();
             Map<DimensionBinding, Binding> bindingCache = new HashMap<>();
             for (var variant : variants) {
                 log.finer(() -> "Compiling variant " + variant);
                 Binding variantBinding = bindingCache.computeIfAbsent(variant.binding(), Binding::createFrom);
-                for (var entry : in.visitValues(variant.path(), variant.binding().getContext(), pathCache).valuesWithSource().entrySet()) {
-                    CompoundName fullName = pathCache.append(variant.path, entry.getKey());
+                for (var entry : in.visitValues(variant.path(), variant.binding().getContext(), names).valuesWithSource().entrySet()) {
+                    CompoundName fullName = names.append(variant.path, entry.getKey());
                     values.put(fullName, variantBinding, entry.getValue());
                     if (entry.getValue().isUnoverridable())
                         unoverridables.put(fullName, variantBinding, Boolean.TRUE);
@@ -67,7 +90,8 @@ public class QueryProfileCompiler {
             }
 
             return new CompiledQueryProfile(in.getId(), in.getType(),
-                                            values.build(), types.build(), references.build(), unoverridables.build(),
+                                            values.build(sharedValues), types.build(sharedValues),
+                                            references.build(sharedValues), unoverridables.build(sharedValues),
                                             registry);
         }
         catch (IllegalArgumentException e) {
@@ -75,6 +99,42 @@ public class QueryProfileCompiler {
         }
     }
 
+    /**
+     * Returns the ids of the explicit query profiles the given profile depends on, that is itself
+     * and all the profiles it inherits or references, directly or indirectly, in any variant.
+     * A compiled profile only changes if the content of one of these changes.
+     */
+    public static SortedSet<ComponentId> dependenciesOf(QueryProfile profile) {
+        SortedSet<ComponentId> dependencies = new TreeSet<>();
+        collectDependencies(profile, dependencies, Collections.newSetFromMap(new IdentityHashMap<>()));
+        return dependencies;
+    }
+
+    private static void collectDependencies(QueryProfile profile, Set<ComponentId> dependencies, Set<QueryProfile> visited) {
+        if ( ! visited.add(profile)) return;
+        if (profile.isExplicit())
+            dependencies.add(profile.getId());
+        if (profile instanceof BackedOverridableQueryProfile backed)
+            collectDependencies(backed.getBacking(), dependencies, visited);
+        for (QueryProfile inherited : profile.inherited())
+            collectDependencies(inherited, dependencies, visited);
+        collectDependencies(profile.getContent().values(), dependencies, visited);
+        if (profile.getVariants() != null) {
+            for (QueryProfileVariant variant : profile.getVariants().getVariants()) {
+                for (QueryProfile inherited : variant.inherited())
+                    collectDependencies(inherited, dependencies, visited);
+                collectDependencies(variant.values().values(), dependencies, visited);
+            }
+        }
+    }
+
+    private static void collectDependencies(Collection<Object> values, Set<ComponentId> dependencies, Set<QueryProfile> visited) {
+        for (Object value : values) {
+            if (value instanceof QueryProfile profile)
+                collectDependencies(profile, dependencies, visited);
+        }
+    }
+
     /**
      * Returns all the unique combinations of dimension values which have values reachable from this profile.
      *
@@ -86,7 +86,7 @@ public class QueryProfileProperties extends Properties {
     public Object get(CompoundName name, Map<String, String> context,
                       com.yahoo.processing.request.Properties substitution) {
         context = contextWithZoneInfo(context);
-        name = unalias(name, context);
+        name = profile.unalias(name, context);
         if (values != null && values.containsKey(name))
             return values.get(name); // Returns this value, even if null
 
@@ -123,7 +123,7 @@ public class QueryProfileProperties extends Properties {
 
     private void setOrCheckSettable(CompoundName name, Object value, Map<String, String> context, boolean set) {
         try {
-            name = unalias(name, context);
+            name = profile.unalias(name, context);
 
             if (context == null)
                 context = Map.of();
@@ -235,7 +235,7 @@ public class QueryProfileProperties extends Properties {
                                               com.yahoo.processing.request.Properties substitution) {
         context = contextWithZoneInfo(context);
 
-        path = unalias(path, context);
+        path = profile.unalias(path, context);
         if (context == null) context = Map.of();
 
         Map<String, Object> properties = new HashMap<>();
@@ -354,22 +354,6 @@ public class QueryProfileProperties extends Properties {
         return false;
     }
 
-    CompoundName unalias(CompoundName name, Map<String,String> context) {
-        if (profile.getTypes().isEmpty()) return name;
-
-        CompoundName unaliasedName = name;
-        for (int i = 0; i < name.size(); i++) {
-            QueryProfileType type = profile.getType(name.first(i), context);
-            if (type == null) continue;
-            if (type.aliases() == null) continue; // TODO: Make never null
-            if (type.aliases().isEmpty()) continue;
-            String localName = name.get(i);
-            String unaliasedLocalName = type.unalias(localName);
-            unaliasedName = unaliasedName.set(i, unaliasedLocalName);
-        }
-        return unaliasedName;
-    }
-
     @Override
     public QueryProfileProperties clone() {
         QueryProfileProperties clone = (QueryProfileProperties)super.clone();
@@ -143,8 +143,13 @@ public class QueryProfileVariant implements Cloneable, Comparable<QueryProfileVa
         if (frozen) return;
         if (inherited != null)
             inherited = List.copyOf(inherited);
-        if (values != null)
+        if (values != null) {
             values = Map.copyOf(values);
+            for (Object value : values.values()) {
+                if (value instanceof QueryProfile profile)
+                    profile.freeze();
+            }
+        }
         frozen=true;
     }
 
@@ -8,9 +8,14 @@ import com.yahoo.processing.request.Properties;
 import com.yahoo.search.query.profile.QueryProfileProperties;
 import com.yahoo.search.query.profile.SubstituteString;
 import com.yahoo.search.query.profile.types.QueryProfileType;
+import com.yahoo.tensor.Tensor;
 
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -40,6 +45,19 @@ public class CompiledQueryProfile extends AbstractComponent implements Cloneable
     /** Values which are not overridable in this. Used as a set. */
     private final DimensionalMap<Object> unoverridables;
 
+    /** Whether the types in this are the same in all contexts, such that names can be unaliased without a context */
+    private final boolean typesAreContextIndependent;
+
+    /**
+     * Names unaliased by the types of this, used when the types are context independent.
+     * Only names where each component is declared in the type of its prefix are remembered, such that this
+     * is bounded by the types, also when names which are not declared are passed in requests.
+     */
+    private final Map<CompoundName, CompoundName> unaliasedNames = new ConcurrentHashMap<>();
+
+    /** The tensor instances which are values in this, in any context */
+    private final Set<Tensor> tensors;
+
     /**
      * Creates a new query profile from an id.
      */
@@ -59,15 +77,28 @@ public class CompiledQueryProfile extends AbstractComponent implements Cloneable
         this.types = types;
         this.references = references;
         this.unoverridables = unoverridables;
+        this.typesAreContextIndependent = types.isContextIndependent();
+        this.tensors = tensorsIn(entries);
         if ( ! id.isAnonymous())
             validateName(id.getName());
     }
 
+    /** Returns a copy of this belonging to the given registry, sharing all the compiled content of this */
+    CompiledQueryProfile withRegistry(CompiledQueryProfileRegistry registry) {
+        return new CompiledQueryProfile(getId(), type, entries, types, references, unoverridables, registry);
+    }
+
     // ----------------- Public API -------------------------------------------------------------------------------
 
     /** Returns the registry this belongs to, or null if none (in which case runtime profile reference assignment won't work) */
     public CompiledQueryProfileRegistry getRegistry() { return registry; }
 
+    /**
+     * Returns whether the given tensor instance is a value in this, in any context.
+     * Tensors are compared by identity, as tensor equality is approximate.
+     */
+    public boolean containsTensor(Tensor tensor) { return tensors.contains(tensor); }
+
     /** Returns the type of this or null if it has no type */
     // TODO: Move into below
     public QueryProfileType getType() { return type; }
@@ -89,6 +120,41 @@ public class CompiledQueryProfile extends AbstractComponent implements Cloneable
         return types.get(name, context);
     }
 
+    /**
+     * Returns the given name with each component which is an alias in the type of the prefix before it
+     * replaced by the field name it is an alias of.
+     */
+    public final CompoundName unalias(CompoundName name, Map<String, String> context) {
+        if (types.isEmpty()) return name;
+        if ( ! typesAreContextIndependent) return unaliasByTypes(name, context, false);
+
+        CompoundName unaliasedName = unaliasedNames.get(name);
+        if (unaliasedName != null) return unaliasedName;
+        return unaliasByTypes(name, context, true);
+    }
+
+    private CompoundName unaliasByTypes(CompoundName name, Map<String, String> context, boolean remember) {
+        CompoundName unaliasedName = name;
+        boolean declared = remember;
+        for (int i = 0; i < name.size(); i++) {
+            QueryProfileType type = getType(name.first(i), context);
+            if (type == null) {
+                declared = false;
+                continue;
+            }
+            String fieldName = type.unalias(name.get(i));
+            unaliasedName = unaliasedName.set(i, fieldName);
+            if (declared && type.getField(fieldName) == null)
+                declared = false;
+        }
+        if (declared)
+            unaliasedNames.put(name, unaliasedName);
+        return unaliasedName;
+    }
+
+    /** Returns the number of unaliased names remembered by this. For testing. */
+    int unaliasedNameCount() { return unaliasedNames.size(); }
+
     /** Returns the types reachable from this, or an empty map (never null) if none */
     public DimensionalMap<QueryProfileType> getTypes() { return types; }
 
@@ -194,6 +260,19 @@ public class CompiledQueryProfile extends AbstractComponent implements Cloneable
         return ((SubstituteString)value).substitute(context, substitution);
     }
 
+    private static Set<Tensor> tensorsIn(DimensionalMap<ValueWithSource> entries) {
+        Set<Tensor> tensors = null;
+        for (var entry : entries.entrySet()) {
+            for (ValueWithSource value : entry.getValue().values()) {
+                if (value == null || ! (value.value() instanceof Tensor tensor)) continue;
+                if (tensors == null)
+                    tensors = Collections.newSetFromMap(new IdentityHashMap<>());
+                tensors.add(tensor);
+            }
+        }
+        return tensors == null ? Set.of() : tensors;
+    }
+
     /** Throws IllegalArgumentException if the given string is not a valid query profile name */
     private static void validateName(String name) {
         Matcher nameMatcher = namePattern.matcher(name);
@@ -0,0 +1,32 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.search.query.profile.compiled;
+
+import com.yahoo.component.AbstractComponent;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Holds the last registry of query profiles compiled from config in a container, such that the next
+ * registry can reuse the profiles which depend only on unchanged config, as compiling is expensive while
+ * config changes usually only touch a few profiles.
+ *
+ * This component has no config, so the same instance is kept across reconfigurations of a container,
+ * while each container has its own. The profiles it holds are released when it is deconstructed.
+ *
+ * @author agent
+ */
+public class CompiledQueryProfileCache extends AbstractComponent {
+
+    private final AtomicReference<CompiledQueryProfileRegistry.Generation> last = new AtomicReference<>();
+
+    /** Returns the last generation of profiles compiled from config, or null if none */
+    CompiledQueryProfileRegistry.Generation last() { return last.get(); }
+
+    void setLast(CompiledQueryProfileRegistry.Generation generation) { last.set(generation); }
+
+    @Override
+    public void deconstruct() {
+        last.set(null);
+    }
+
+}
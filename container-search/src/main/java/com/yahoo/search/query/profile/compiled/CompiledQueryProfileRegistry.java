@@ -1,9 +1,11 @@
 // Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
 package com.yahoo.search.query.profile.compiled;
 
+import com.yahoo.component.ComponentId;
 import com.yahoo.component.annotation.Inject;
 import com.yahoo.component.ComponentSpecification;
 import com.yahoo.component.provider.ComponentRegistry;
+import com.yahoo.search.query.profile.CompoundNameChildCache;
 import com.yahoo.search.query.profile.QueryProfile;
 import com.yahoo.search.query.profile.QueryProfileCompiler;
 import com.yahoo.search.query.profile.QueryProfileRegistry;
@@ -12,9 +14,15 @@ import com.yahoo.search.query.profile.config.QueryProfilesConfig;
 import com.yahoo.search.query.profile.types.QueryProfileTypeRegistry;
 import com.yahoo.yolean.UncheckedInterruptedException;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Executor;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.logging.Logger;
 
 /**
  * A set of compiled query profiles.
@@ -25,20 +33,46 @@ public class CompiledQueryProfileRegistry extends ComponentRegistry<CompiledQuer
 
     /** The empty, frozen registry */
     public static final CompiledQueryProfileRegistry empty = CompiledQueryProfileRegistry.createFrozen();
-    
+
+    private static final Logger log = Logger.getLogger(CompiledQueryProfileRegistry.class.getName());
+
     private final QueryProfileTypeRegistry typeRegistry;
 
-    @Inject
+    /** Creates a registry from config, compiling all the profiles */
     public CompiledQueryProfileRegistry(QueryProfilesConfig config, Executor executor) {
+        this(config, executor, new CompiledQueryProfileCache());
+    }
+
+    /**
+     * Creates a registry from config, reusing the profiles of the last registry in the given cache
+     * which depend only on unchanged config, and compiling the others.
+     */
+    @Inject
+    public CompiledQueryProfileRegistry(QueryProfilesConfig config, Executor executor, CompiledQueryProfileCache cache) {
+        this(config, executor, cache, Math.max(1, (int)(Runtime.getRuntime().availableProcessors() * 0.20)));
+    }
+
+    CompiledQueryProfileRegistry(QueryProfilesConfig config, Executor executor, CompiledQueryProfileCache cache,
+                                 int maxConcurrent) {
         QueryProfileRegistry registry = QueryProfileConfigurer.createFromConfig(config);
         typeRegistry = registry.getTypeRegistry();
-        int maxConcurrent = 1; // TODO hold this one after Concurrency issue has been found: Math.max(1, (int)(Runtime.getRuntime().availableProcessors() * 0.20));
+        Generation previous = cache.last();
+        Generation generation = new Generation(config, this);
+        CompoundNameChildCache names = new CompoundNameChildCache();
+        Map<DimensionalValue<?>, DimensionalValue<?>> sharedValues = new ConcurrentHashMap<>();
         BlockingQueue<CompiledQueryProfile> doneQ = new LinkedBlockingQueue<>();
         int started = 0;
         int completed = 0;
+        int reused = 0;
         try {
             for (QueryProfile inputProfile : registry.allComponents()) {
                 abortIfInterrupted();
+                CompiledQueryProfile unchanged = generation.addDependencies(inputProfile, previous);
+                if (unchanged != null) {
+                    register(unchanged.withRegistry(this));
+                    reused++;
+                    continue;
+                }
                 if (started++ >= maxConcurrent) {
                     register(doneQ.take());
                     completed++;
@@ -48,7 +82,7 @@ public class CompiledQueryProfileRegistry extends ComponentRegistry<CompiledQuer
                     int prevPriority = self.getPriority();
                     try {
                         self.setPriority(Thread.MIN_PRIORITY);
-                        doneQ.add(QueryProfileCompiler.compile(inputProfile, this));
+                        doneQ.add(QueryProfileCompiler.compile(inputProfile, this, names, sharedValues));
                     } finally {
                         self.setPriority(prevPriority);
                     }
@@ -61,6 +95,10 @@ public class CompiledQueryProfileRegistry extends ComponentRegistry<CompiledQuer
         } catch (InterruptedException e) {
             throw new UncheckedInterruptedException("Interrupted while waiting for compiled query profiles", true);
         }
+        cache.setLast(generation);
+        int compiled = started;
+        int unchanged = reused;
+        log.fine(() -> "Compiled " + compiled + " query profiles, reused " + unchanged + " unchanged ones");
     }
 
     // Query profile construction is very expensive and triggers no operations that automatically throws on interrupt
@@ -139,4 +177,39 @@ public class CompiledQueryProfileRegistry extends ComponentRegistry<CompiledQuer
         return QueryProfileConfigurer.createFromConfig(config).compile();
     }
 
+    /** A registry created from config, and the config of the profiles each profile in it depends on */
+    static final class Generation {
+
+        private final List<QueryProfilesConfig.Queryprofiletype> types;
+        private final Map<ComponentId, QueryProfilesConfig.Queryprofile> profiles = new HashMap<>();
+        private final Map<ComponentId, List<QueryProfilesConfig.Queryprofile>> dependencies = new HashMap<>();
+        private final CompiledQueryProfileRegistry registry;
+
+        Generation(QueryProfilesConfig config, CompiledQueryProfileRegistry registry) {
+            this.types = config.queryprofiletype();
+            for (QueryProfilesConfig.Queryprofile profile : config.queryprofile())
+                profiles.put(new ComponentSpecification(profile.id()).toId(), profile);
+            this.registry = registry;
+        }
+
+        /**
+         * Adds the config the given profile depends on to this, and returns the compiled profile
+         * of the previous generation if it depends on the same config, or null if it must be compiled.
+         */
+        CompiledQueryProfile addDependencies(QueryProfile profile, Generation previous) {
+            List<QueryProfilesConfig.Queryprofile> profileDependencies = new ArrayList<>();
+            for (ComponentId id : QueryProfileCompiler.dependenciesOf(profile)) {
+                QueryProfilesConfig.Queryprofile dependency = profiles.get(id);
+                if (dependency == null) return null; // Not created from this config
+                profileDependencies.add(dependency);
+            }
+            dependencies.put(profile.getId(), profileDependencies);
+
+            if (previous == null || ! previous.types.equals(types)) return null;
+            if ( ! profileDependencies.equals(previous.dependencies.get(profile.getId()))) return null;
+            return previous.registry.getComponent(profile.getId());
+        }
+
+    }
+
 }
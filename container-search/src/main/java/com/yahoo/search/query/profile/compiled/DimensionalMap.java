@@ -37,6 +37,13 @@ public class DimensionalMap<VALUE> {
         return values.entrySet();
     }
 
+    /** Returns true if all the values in this are the same in all contexts. */
+    boolean isContextIndependent() {
+        for (DimensionalValue<VALUE> value : values.values())
+            if ( ! value.isContextIndependent()) return false;
+        return true;
+    }
+
     /** Returns true if this is empty for all contexts. */
     public boolean isEmpty() {
         return values.isEmpty();
@@ -52,9 +59,23 @@ public class DimensionalMap<VALUE> {
         }
 
         public DimensionalMap<VALUE> build() {
+            return build(new HashMap<>());
+        }
+
+        /**
+         * Builds this, using an equal dimensional value instance from the given map instead of each built value
+         * when present, and adding it to the map otherwise. This allows maps which contain many of the same values,
+         * such as the maps of query profiles inheriting the same profiles, to share them.
+         *
+         * @param sharedValues the values to share, which must be thread safe if this is used by multiple threads
+         */
+        @SuppressWarnings("unchecked")
+        public DimensionalMap<VALUE> build(Map<DimensionalValue<?>, DimensionalValue<?>> sharedValues) {
             Map<CompoundName, DimensionalValue<VALUE>> map = new HashMap<>();
             for (Map.Entry<CompoundName, DimensionalValue.Builder<VALUE>> entry : entries.entrySet()) {
-                map.put(entry.getKey(), entry.getValue().build(entries));
+                DimensionalValue<VALUE> value = entry.getValue().build(entries);
+                DimensionalValue<?> sharedValue = sharedValues.putIfAbsent(value, value);
+                map.put(entry.getKey(), sharedValue != null ? (DimensionalValue<VALUE>)sharedValue : value);
             }
             return new DimensionalMap<>(map);
         }
@@ -8,6 +8,7 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -19,44 +20,142 @@ import java.util.Optional;
  */
 public class DimensionalValue<VALUE> {
 
-    private final Map<Binding, VALUE> indexedVariants;
-    private final List<BindingSpec> bindingSpecs;
+    private static final BindingSpec[] nullBindingSpecs = { new BindingSpec(Binding.nullBinding) };
+    private static final int[] singleBindingEnds = { 1 };
+    private static final String[][] nullBindingValues = { new String[0] };
+
+    /** The dimensions of the bindings of this, in the order they are tried */
+    private final BindingSpec[] bindingSpecs;
+
+    /** The index after the last binding of each binding spec, in bindingValues and values */
+    private final int[] bindingEnds;
+
+    /** The dimension values of each binding, in the order of their spec, sorted within each spec */
+    private final String[][] bindingValues;
+
+    /** The value of each binding */
+    private final Object[] values;
 
     private DimensionalValue(List<Value<VALUE>> variants) {
         Collections.sort(variants);
 
-        // If there are inconsistent definitions of the same property, we should pick the first in the sort order
-        this.indexedVariants = new HashMap<>();
-        for (Value<VALUE> variant : variants)
-            indexedVariants.putIfAbsent(variant.binding(), variant.value());
+        if (variants.size() == 1 && variants.get(0).binding().isNull()) { // Common case: The same value in all contexts
+            bindingSpecs = nullBindingSpecs;
+            bindingEnds = singleBindingEnds;
+            bindingValues = nullBindingValues;
+            values = new Object[] { variants.get(0).value() };
+            return;
+        }
 
-        this.bindingSpecs = new ArrayList<>();
-        for (Value<VALUE> variant : variants) {
-            BindingSpec spec = new BindingSpec(variant.binding());
-            if ( ! bindingSpecs.contains(spec))
-                bindingSpecs.add(spec);
+        Map<BindingSpec, List<Value<VALUE>>> variantsBySpec = new LinkedHashMap<>();
+        for (Value<VALUE> variant : variants)
+            variantsBySpec.computeIfAbsent(new BindingSpec(variant.binding()), __ -> new ArrayList<>()).add(variant);
+
+        List<String[]> bindingValues = new ArrayList<>(variants.size());
+        List<Object> values = new ArrayList<>(variants.size());
+        this.bindingSpecs = variantsBySpec.keySet().toArray(new BindingSpec[0]);
+        this.bindingEnds = new int[bindingSpecs.length];
+        for (int i = 0; i < bindingSpecs.length; i++) {
+            List<Value<VALUE>> specVariants = variantsBySpec.get(bindingSpecs[i]);
+            specVariants.sort((v1, v2) -> Arrays.compare(v1.binding().dimensionValues(), v2.binding().dimensionValues()));
+            String[] previous = null;
+            for (Value<VALUE> variant : specVariants) {
+                // If there are inconsistent definitions of the same property, we should pick the first in the sort order
+                if (Arrays.equals(previous, variant.binding().dimensionValues())) continue;
+                previous = variant.binding().dimensionValues();
+                bindingValues.add(previous);
+                values.add(variant.value());
+            }
+            bindingEnds[i] = values.size();
         }
+        this.bindingValues = bindingValues.toArray(new String[0][]);
+        this.values = values.toArray();
     }
 
     /** Returns the value matching this context, or null if none */
+    @SuppressWarnings("unchecked")
     public VALUE get(Map<String, String> context) {
+        if (bindingSpecs == nullBindingSpecs) return (VALUE)values[0];
         if (context == null)
             context = Map.of();
 
-        for (BindingSpec spec : bindingSpecs) {
-            if ( ! spec.matches(context)) continue;
-            VALUE value = indexedVariants.get(new Binding(spec, context));
-            if (value != null)
-                return value;
+        for (int i = 0; i < bindingSpecs.length; i++) {
+            if ( ! bindingSpecs[i].matches(context)) continue;
+            int index = indexOf(bindingSpecs[i].dimensions(), context, i == 0 ? 0 : bindingEnds[i - 1], bindingEnds[i]);
+            if (index >= 0)
+                return (VALUE)values[index];
         }
         return null;
     }
 
-    public boolean isEmpty() { return indexedVariants.isEmpty(); }
+    /** Returns the index of the binding having the values of the given dimensions in the context, or -1 if none */
+    private int indexOf(String[] dimensions, Map<String, String> context, int start, int end) {
+        int low = start;
+        int high = end - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int comparison = compare(bindingValues[middle], dimensions, context);
+            if (comparison < 0)
+                low = middle + 1;
+            else if (comparison > 0)
+                high = middle - 1;
+            else
+                return middle;
+        }
+        return -1;
+    }
+
+    private static int compare(String[] dimensionValues, String[] dimensions, Map<String, String> context) {
+        for (int i = 0; i < dimensions.length; i++) {
+            int comparison = dimensionValues[i].compareTo(context.get(dimensions[i]));
+            if (comparison != 0) return comparison;
+        }
+        return 0;
+    }
+
+    public boolean isEmpty() { return values.length == 0; }
+
+    /** Returns the values of this in all contexts */
+    @SuppressWarnings("unchecked")
+    List<VALUE> values() { return (List<VALUE>)Arrays.asList(values); }
+
+    /** Returns whether this has the same value in all contexts */
+    boolean isContextIndependent() {
+        return bindingSpecs.length == 1 && bindingSpecs[0].dimensions().length == 0;
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(values) + 11 * Arrays.deepHashCode(bindingValues);
+    }
+
+    /** Returns true if the other has the same values with the same sources for the same bindings as this */
+    @Override
+    public boolean equals(Object o) {
+        if (o == this) return true;
+        if ( ! (o instanceof DimensionalValue<?> other)) return false;
+        if ( ! Arrays.equals(this.bindingSpecs, other.bindingSpecs)) return false;
+        if ( ! Arrays.equals(this.bindingEnds, other.bindingEnds)) return false;
+        if ( ! Arrays.deepEquals(this.bindingValues, other.bindingValues)) return false;
+        if ( ! Arrays.equals(this.values, other.values)) return false;
+        for (int i = 0; i < values.length; i++) {
+            if (values[i] instanceof ValueWithSource value && ! value.hasSameSourceAs((ValueWithSource)other.values[i]))
+                return false;
+        }
+        return true;
+    }
 
     @Override
     public String toString() {
-        return indexedVariants.toString();
+        StringBuilder b = new StringBuilder("{");
+        for (int i = 0, spec = 0; i < values.length; i++) {
+            if (i == bindingEnds[spec]) spec++;
+            b.append("[");
+            for (int j = 0; j < bindingSpecs[spec].dimensions().length; j++)
+                b.append(j > 0 ? ", " : "").append(bindingSpecs[spec].dimensions()[j]).append("=").append(bindingValues[i][j]);
+            b.append("]=").append(values[i]).append(i < values.length - 1 ? ", " : "");
+        }
+        return b.append("}").toString();
     }
 
     public static class Builder<VALUE> {
@@ -266,10 +365,10 @@ public class DimensionalValue<VALUE> {
         /** Do not change the returned array */
         String[] dimensions() { return dimensions; }
 
-        /** Returns whether this context contains all the keys of this */
+        /** Returns whether this context contains a value for all the keys of this */
         public boolean matches(Map<String, String> context) {
             for (String dimension : dimensions)
-                if (!context.containsKey(dimension)) return false;
+                if (context.get(dimension) == null) return false;
             return true;
         }
 
@@ -75,6 +75,13 @@ public class ValueWithSource {
     /** Returns the variant having this value, or empty if it's not in a variant */
     public Optional<DimensionValues> variant() { return Optional.ofNullable(variant); }
 
+    /** Returns whether the other value has the same source and variant as this, which is not part of equality */
+    boolean hasSameSourceAs(ValueWithSource other) {
+        return Objects.equals(this.source, other.source)
+               && Objects.equals(this.variant, other.variant)
+               && this.isQueryProfile == other.isQueryProfile;
+    }
+
     @Override
     public int hashCode() {
         // Value is always a value object. Don't include source in identity.
@@ -3,6 +3,7 @@ package com.yahoo.search.query.profile.types;
 
 import com.yahoo.language.Language;
 import com.yahoo.language.process.Embedder;
+import com.yahoo.processing.request.CompoundName;
 import com.yahoo.search.query.Properties;
 import com.yahoo.search.query.profile.compiled.CompiledQueryProfileRegistry;
 import com.yahoo.search.query.properties.PropertyMap;
@@ -14,12 +15,16 @@ import java.util.Map;
  */
 public class ConversionContext {
 
+    private static final CompoundName LANGUAGE = CompoundName.from("language");
+
     private final String destination;
     private final CompiledQueryProfileRegistry registry;
     private final Map<String, Embedder> embedders;
     private final Map<String, String> contextValues;
     private final Properties properties;
-    private final Language language;
+
+    /** The language of the query, resolved on first use, or null if not resolved yet */
+    private Language language = null;
 
     public ConversionContext(String destination, CompiledQueryProfileRegistry registry, Embedder embedder,
                              Map<String, String> context, Properties properties) {
@@ -33,14 +38,6 @@ public class ConversionContext {
         this.destination = destination;
         this.registry = registry;
         this.embedders = embedders;
-
-        // If this was set in the request it may not be in this properties instance, which may be just the query profile
-        // properties, which are below the queryProperties in the chain ...
-        Object language = context.get("language"); // set in the request
-        if (language == null)
-            language = properties.get("language", context);
-        this.language = language != null ? Language.fromLanguageTag(language.toString()) : Language.UNKNOWN;
-
         this.contextValues = context;
         this.properties = properties;
     }
@@ -55,7 +52,17 @@ public class ConversionContext {
     Map<String, Embedder> embedders() { return embedders; }
 
     /** Returns the language, which is never null but may be UNKNOWN */
-    Language language() { return language; }
+    Language language() {
+        if (language == null) {
+            // If this was set in the request it may not be in this properties instance, which may be just the query profile
+            // properties, which are below the queryProperties in the chain ...
+            Object language = contextValues.get("language"); // set in the request
+            if (language == null)
+                language = properties.get(LANGUAGE, contextValues);
+            this.language = language != null ? Language.fromLanguageTag(language.toString()) : Language.UNKNOWN;
+        }
+        return language;
+    }
 
     /** Returns a read-only map of context key-values which can be looked up during conversion. */
     Map<String, String> contextValues() { return contextValues; }
@@ -8,10 +8,10 @@ import com.yahoo.search.query.profile.QueryProfile;
 
 import java.util.ArrayList;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.TreeMap;
 
 import static com.yahoo.text.Lowercase.toLowerCase;
 
@@ -63,7 +63,7 @@ public class QueryProfileType extends FreezableSimpleComponent {
         this.strict = strict;
         this.matchAsPath = matchAsPath;
         this.builtin = builtin;
-        this.aliases = aliases == null ? null : new HashMap<>(aliases);
+        this.aliases = aliases == null ? null : newAliasMap(aliases);
     }
 
     /** Return this is it is not frozen, returns a modifiable deeply unfrozen copy otherwise */
@@ -354,10 +354,17 @@ public class QueryProfileType extends FreezableSimpleComponent {
     private void addAlias(String alias, String field) {
         ensureNotFrozen();
         if (aliases == null)
-            aliases = new HashMap<>();
+            aliases = newAliasMap(Map.of());
         aliases.put(toLowerCase(alias), field);
     }
 
+    /** Returns a mutable copy of the given aliases which can be looked up case-insensitively without lowercasing */
+    private static Map<String, String> newAliasMap(Map<String, String> aliases) {
+        Map<String, String> aliasMap = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        aliasMap.putAll(aliases);
+        return aliasMap;
+    }
+
     /** Returns all the fields of this profile type and all types it inherits as a read-only map */
     public Map<String, FieldDescription> fields() {
         if (isFrozen()) return fields;
@@ -384,7 +391,7 @@ public class QueryProfileType extends FreezableSimpleComponent {
     /** Returns the field name of an alias or field name */
     public String unalias(String aliasOrField) {
         if (aliases == null || aliases.isEmpty()) return aliasOrField;
-        String field = aliases.get(toLowerCase(aliasOrField));
+        String field = aliases.get(aliasOrField);
         if (field != null) return field;
         return aliasOrField;
     }
@@ -1,6 +1,7 @@
 // Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
 package com.yahoo.search.query.ranking;
 
+import com.yahoo.processing.IllegalInputException;
 import com.yahoo.search.query.Ranking;
 import com.yahoo.search.query.profile.types.FieldDescription;
 import com.yahoo.search.query.profile.types.FieldType;
@@ -18,16 +19,23 @@ public class GlobalPhase implements Cloneable {
     /** The type representing the property arguments consumed by this */
     private static final QueryProfileType argumentType;
 
+    public static final String NUMTHREADS = "numThreads";
+    public static final String MINHITSPERTHREAD = "minHitsPerThread";
+
     static {
         argumentType = new QueryProfileType(Ranking.GLOBAL_PHASE);
         argumentType.setStrict(true);
         argumentType.setBuiltin(true);
         argumentType.addField(new FieldDescription(Ranking.RERANKCOUNT, FieldType.integerType));
+        argumentType.addField(new FieldDescription(NUMTHREADS, FieldType.integerType));
+        argumentType.addField(new FieldDescription(MINHITSPERTHREAD, FieldType.integerType));
         argumentType.freeze();
     }
     public static QueryProfileType getArgumentType() { return argumentType; }
 
     private Integer rerankCount = null;
+    private Integer numThreads = null;
+    private Integer minHitsPerThread = null;
 
     /**
      * Sets the number of hits for which the global-phase function will be evaluated.
@@ -38,9 +46,35 @@ public class GlobalPhase implements Cloneable {
     /** Returns the rerank-count that will be used, or null if not set */
     public Integer getRerankCount() { return rerankCount; }
 
+    /**
+     * Sets the max number of threads to use to evaluate the global-phase function over the hits to rerank.
+     * The default is 1.
+     */
+    public void setNumThreads(int numThreads) {
+        if (numThreads < 1)
+            throw new IllegalInputException("numThreads must be at least 1, not " + numThreads);
+        this.numThreads = numThreads;
+    }
+
+    /** Returns the max number of threads that will be used, or null if not set */
+    public Integer getNumThreads() { return numThreads; }
+
+    /**
+     * Sets the min number of hits each thread should rerank, to avoid using multiple threads
+     * when there is too little work to make up for the overhead.
+     */
+    public void setMinHitsPerThread(int minHitsPerThread) {
+        if (minHitsPerThread < 1)
+            throw new IllegalInputException("minHitsPerThread must be at least 1, not " + minHitsPerThread);
+        this.minHitsPerThread = minHitsPerThread;
+    }
+
+    /** Returns the min number of hits per thread that will be used, or null if not set */
+    public Integer getMinHitsPerThread() { return minHitsPerThread; }
+
     @Override
     public int hashCode() {
-        return Objects.hashCode(this.rerankCount);
+        return Objects.hash(rerankCount, numThreads, minHitsPerThread);
     }
 
     @Override
@@ -48,6 +82,8 @@ public class GlobalPhase implements Cloneable {
         if (o == this) return true;
         if (o instanceof GlobalPhase other) {
             if ( ! Objects.equals(this.rerankCount, other.rerankCount)) return false;
+            if ( ! Objects.equals(this.numThreads, other.numThreads)) return false;
+            if ( ! Objects.equals(this.minHitsPerThread, other.minHitsPerThread)) return false;
             return true;
         }
         return false;
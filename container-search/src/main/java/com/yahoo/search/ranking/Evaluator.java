@@ -9,4 +9,15 @@ interface Evaluator {
     Evaluator bind(String name, Tensor value);
 
     double evaluateScore();
+
+    /** Returns the scores of the given evaluators, in the same order, evaluating them together where possible */
+    static double[] evaluateScores(List<Evaluator> evaluators) {
+        if (evaluators.size() > 1 && evaluators.stream().allMatch(evaluator -> evaluator instanceof SimpleEvaluator))
+            return SimpleEvaluator.evaluateScores(evaluators.stream().map(evaluator -> (SimpleEvaluator)evaluator).toList());
+        double[] scores = new double[evaluators.size()];
+        for (int i = 0; i < scores.length; i++)
+            scores[i] = evaluators.get(i).evaluateScore();
+        return scores;
+    }
+
 }
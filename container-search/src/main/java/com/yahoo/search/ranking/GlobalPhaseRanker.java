@@ -1,7 +1,10 @@
 // Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
 package com.yahoo.search.ranking;
 
+import ai.vespa.metrics.ContainerMetrics;
+import com.yahoo.component.AbstractComponent;
 import com.yahoo.component.annotation.Inject;
+import com.yahoo.jdisc.Metric;
 import com.yahoo.search.Query;
 import com.yahoo.search.Result;
 import com.yahoo.search.query.Sorting;
@@ -14,17 +17,30 @@ import com.yahoo.data.access.helpers.MatchFeatureData;
 import com.yahoo.data.access.helpers.MatchFeatureFilter;
 
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
 import java.util.function.Supplier;
 import java.util.logging.Logger;
 
-public class GlobalPhaseRanker {
+public class GlobalPhaseRanker extends AbstractComponent {
 
     private static final Logger logger = Logger.getLogger(GlobalPhaseRanker.class.getName());
+    private static final String PREPROCESS_LATENCY_METRIC = ContainerMetrics.GLOBAL_PHASE_PREPROCESS_LATENCY.baseName();
+    private static final String NORMALIZE_LATENCY_METRIC = ContainerMetrics.GLOBAL_PHASE_NORMALIZE_LATENCY.baseName();
+    private static final String RESCORE_LATENCY_METRIC = ContainerMetrics.GLOBAL_PHASE_RESCORE_LATENCY.baseName();
+    private static final String THREADS_METRIC = ContainerMetrics.GLOBAL_PHASE_THREADS.baseName();
+
+    private static final int defaultMinHitsPerThread = 50;
+
     private final RankProfilesEvaluatorFactory factory;
+    private final Metric metric;
+
+    /** The threads shared by all queries evaluating the global phase in parallel */
+    private final ForkJoinPool pool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
 
     @Inject
-    public GlobalPhaseRanker(RankProfilesEvaluatorFactory factory) {
+    public GlobalPhaseRanker(RankProfilesEvaluatorFactory factory, Metric metric) {
         this.factory = factory;
+        this.metric = metric;
         logger.fine(() -> "Using factory: " + factory);
     }
 
@@ -50,7 +66,11 @@ public class GlobalPhaseRanker {
         return Optional.empty();
     }
 
-    static void rerankHitsImpl(GlobalPhaseSetup setup, Query query, Result result) {
+    static ResultReranker rerankHitsImpl(GlobalPhaseSetup setup, Query query, Result result) {
+        return rerankHitsImpl(setup, query, result, null);
+    }
+
+    static ResultReranker rerankHitsImpl(GlobalPhaseSetup setup, Query query, Result result, ForkJoinPool pool) {
         var mainSpec = setup.globalPhaseEvalSpec;
         var mainSrc = withQueryPrep(mainSpec.evalSource(), mainSpec.fromQuery(), setup.defaultValues, query);
         int rerankCount = resolveRerankCount(setup, query);
@@ -60,19 +80,32 @@ public class GlobalPhaseRanker {
             var normEvalSrc = withQueryPrep(normSpec.evalSource(), normSpec.fromQuery(), setup.defaultValues, query);
             normalizers.add(new NormalizerContext(nSetup.name(), nSetup.supplier().get(), normEvalSrc, normSpec.fromMF()));
         }
-        var rescorer = new HitRescorer(mainSrc, mainSpec.fromMF(), normalizers);
+        var globalPhase = query.getRanking().getGlobalPhase();
+        int numThreads = Objects.requireNonNullElse(globalPhase.getNumThreads(), 1);
+        int minHitsPerThread = Objects.requireNonNullElse(globalPhase.getMinHitsPerThread(), defaultMinHitsPerThread);
+        var rescorer = new HitRescorer(mainSrc, mainSpec.fromMF(), normalizers, pool, numThreads, minHitsPerThread);
         var reranker = new ResultReranker(rescorer, rerankCount);
         reranker.rerankHits(result);
         hideImplicitMatchFeatures(result, setup.matchFeaturesToHide);
+        return reranker;
     }
 
     public void rerankHits(Query query, Result result, String schema) {
         var setup = globalPhaseSetupFor(query, schema);
         if (setup.isPresent()) {
-            rerankHitsImpl(setup.get(), query, result);
+            var reranker = rerankHitsImpl(setup.get(), query, result, pool);
+            metric.set(PREPROCESS_LATENCY_METRIC, reranker.preprocessNanos() / 1_000_000.0, null);
+            metric.set(NORMALIZE_LATENCY_METRIC, reranker.normalizeNanos() / 1_000_000.0, null);
+            metric.set(RESCORE_LATENCY_METRIC, reranker.rescoreNanos() / 1_000_000.0, null);
+            metric.set(THREADS_METRIC, reranker.threadsUsed(), null);
         }
     }
 
+    @Override
+    public void deconstruct() {
+        pool.shutdown();
+    }
+
     static Supplier<Evaluator> withQueryPrep(Supplier<Evaluator> evalSource, List<String> queryFeatures, Map<String, Tensor> defaultValues, Query query) {
         var prepared = PreparedInput.findFromQuery(query, queryFeatures, defaultValues);
         Supplier<Evaluator> supplier = () -> {
@@ -3,7 +3,11 @@ package com.yahoo.search.ranking;
 
 import com.yahoo.tensor.Tensor;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.Function;
 import java.util.function.Supplier;
 import java.util.logging.Logger;
 
@@ -14,20 +18,45 @@ class HitRescorer {
     private final Supplier<Evaluator> mainEvalSrc;
     private final List<MatchFeatureInput> mainFromMF;
     private final List<NormalizerContext> normalizers;
+    private final ForkJoinPool pool;
+    private final int maxThreads;
+    private final int minHitsPerThread;
+    private int threadsUsed = 1;
 
     public HitRescorer(Supplier<Evaluator> mainEvalSrc,
                        List<MatchFeatureInput> mainFromMF,
                        List<NormalizerContext> normalizers) {
+        this(mainEvalSrc, mainFromMF, normalizers, null, 1, 1);
+    }
+
+    /**
+     * Creates a hit rescorer which splits the hits to evaluate into partitions of at least minHitsPerThread hits,
+     * and evaluates up to maxThreads of these in parallel: One in the calling thread, and the rest in the given pool.
+     * Each partition is evaluated with its own evaluators, as these are not thread safe.
+     */
+    public HitRescorer(Supplier<Evaluator> mainEvalSrc,
+                       List<MatchFeatureInput> mainFromMF,
+                       List<NormalizerContext> normalizers,
+                       ForkJoinPool pool,
+                       int maxThreads,
+                       int minHitsPerThread) {
         this.mainEvalSrc = mainEvalSrc;
         this.mainFromMF = mainFromMF;
         this.normalizers = normalizers;
+        this.pool = pool;
+        this.maxThreads = pool == null ? 1 : Math.min(maxThreads, pool.getParallelism() + 1);
+        this.minHitsPerThread = minHitsPerThread;
     }
 
-    void preprocess(WrappedHit wrapped) {
+    /** Returns the max number of threads used to evaluate hits by this */
+    int threadsUsed() { return threadsUsed; }
+
+    /** Adds the inputs of the given hits to the normalizers, evaluating them together where possible */
+    void preprocess(List<WrappedHit> hits) {
         for (var n : normalizers) {
-            var scorer = n.evalSource().get();
-            double val = evalScorer(wrapped, scorer, n.fromMF());
-            wrapped.setIdx(n.normalizer().addInput(val));
+            double[] values = evaluate(hits, wrapped -> n.evalSource().get(), n.fromMF());
+            for (int i = 0; i < values.length; i++)
+                hits.get(i).setIdx(n.normalizer().addInput(values[i]));
         }
     }
 
@@ -37,27 +66,75 @@ class HitRescorer {
         }
     }
 
-    double rescoreHit(WrappedHit wrapped) {
+    /** Sets new scores on the given hits, evaluating them together where possible */
+    void rescoreHits(List<WrappedHit> hits) {
+        double[] scores = evaluate(hits, this::mainScorerFor, mainFromMF);
+        for (int i = 0; i < scores.length; i++)
+            hits.get(i).setScore(scores[i]);
+    }
+
+    private Evaluator mainScorerFor(WrappedHit wrapped) {
         var scorer = mainEvalSrc.get();
         for (var n : normalizers) {
             double normalizedValue = n.normalizer().getOutput(wrapped.getIdx());
             scorer.bind(n.name(), Tensor.from(normalizedValue));
         }
-        double newScore = evalScorer(wrapped, scorer, mainFromMF);
-        wrapped.setScore(newScore);
-        return newScore;
+        return scorer;
+    }
+
+    /** Returns the value of a scorer for each of the given hits, or 0 for hits missing some match-feature input */
+    private double[] evaluate(List<WrappedHit> hits, Function<WrappedHit, Evaluator> scorerSource, List<MatchFeatureInput> fromMF) {
+        int threads = Math.max(1, Math.min(maxThreads, hits.size() / minHitsPerThread));
+        if (threads == 1) return evaluatePartition(hits, scorerSource, fromMF);
+
+        threadsUsed = Math.max(threadsUsed, threads);
+        int partitionSize = (hits.size() + threads - 1) / threads;
+        List<ForkJoinTask<double[]>> tasks = new ArrayList<>(threads - 1);
+        for (int start = partitionSize; start < hits.size(); start += partitionSize) {
+            var partition = hits.subList(start, Math.min(start + partitionSize, hits.size()));
+            tasks.add(pool.submit(() -> evaluatePartition(partition, scorerSource, fromMF)));
+        }
+        double[] values = new double[hits.size()];
+        double[] first = evaluatePartition(hits.subList(0, partitionSize), scorerSource, fromMF);
+        System.arraycopy(first, 0, values, 0, first.length);
+        int start = partitionSize;
+        for (var task : tasks) {
+            double[] partitionValues = task.join();
+            System.arraycopy(partitionValues, 0, values, start, partitionValues.length);
+            start += partitionValues.length;
+        }
+        return values;
+    }
+
+    private static double[] evaluatePartition(List<WrappedHit> hits,
+                                              Function<WrappedHit, Evaluator> scorerSource,
+                                              List<MatchFeatureInput> fromMF) {
+        double[] values = new double[hits.size()];
+        List<Integer> bound = new ArrayList<>(hits.size());
+        List<Evaluator> scorers = new ArrayList<>(hits.size());
+        for (int i = 0; i < hits.size(); i++) {
+            var scorer = scorerSource.apply(hits.get(i));
+            if (bindMatchFeatures(hits.get(i), scorer, fromMF)) {
+                bound.add(i);
+                scorers.add(scorer);
+            }
+        }
+        double[] scores = Evaluator.evaluateScores(scorers);
+        for (int i = 0; i < scores.length; i++)
+            values[bound.get(i)] = scores[i];
+        return values;
     }
 
-    private static double evalScorer(WrappedHit wrapped, Evaluator scorer, List<MatchFeatureInput> fromMF) {
+    private static boolean bindMatchFeatures(WrappedHit wrapped, Evaluator scorer, List<MatchFeatureInput> fromMF) {
         for (var argSpec : fromMF) {
             var asTensor = wrapped.getTensor(argSpec.matchFeatureName());
             if (asTensor != null) {
                 scorer.bind(argSpec.inputName(), asTensor);
             } else {
                 logger.warning("Missing match-feature for Evaluator argument: " + argSpec.inputName());
-                return 0.0;
+                return false;
             }
         }
-        return scorer.evaluateScore();
+        return true;
     }
 }
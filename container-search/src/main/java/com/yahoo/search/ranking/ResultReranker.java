@@ -19,20 +19,35 @@ class ResultReranker {
     private final List<WrappedHit> hitsToRescore = new ArrayList<>();
     private final RangeAdjuster ranges = new RangeAdjuster();
 
+    /** Time spent in each phase of reranking, in nanoseconds */
+    private long preprocessNanos, normalizeNanos, rescoreNanos;
+
     ResultReranker(HitRescorer hitRescorer, int rerankCount) {
         this.hitRescorer = hitRescorer;
         this.rerankCount = rerankCount;
     }
 
     void rerankHits(Result result) {
+        long start = System.nanoTime();
         gatherHits(result);
         runPreProcessing();
+        long preprocessed = System.nanoTime();
         hitRescorer.runNormalizers();
+        long normalized = System.nanoTime();
         runProcessing();
+        long rescored = System.nanoTime();
         runPostProcessing();
         result.hits().sort();
+        preprocessNanos = preprocessed - start;
+        normalizeNanos = normalized - preprocessed;
+        rescoreNanos = rescored - normalized;
     }
 
+    long preprocessNanos() { return preprocessNanos; }
+    long normalizeNanos() { return normalizeNanos; }
+    long rescoreNanos() { return rescoreNanos; }
+    int threadsUsed() { return hitRescorer.threadsUsed(); }
+
     private void gatherHits(Result result) {
         for (var iterator = result.hits().deepIterator(); iterator.hasNext();) {
             Hit hit = iterator.next();
@@ -49,25 +64,25 @@ class ResultReranker {
     private void runPreProcessing() {
         // we can't be 100% certain that hits were sorted according to relevance:
         hitsToRescore.sort(Comparator.naturalOrder());
-        int count = 0;
-        for (WrappedHit hit : hitsToRescore) {
-            if (count == rerankCount) break;
-            hitRescorer.preprocess(hit);
-            ++count;
-        }
+        hitRescorer.preprocess(hitsToRerank());
+    }
+
+    /** Returns the hits to rerank, as a view of the first hits to rescore */
+    private List<WrappedHit> hitsToRerank() {
+        return hitsToRescore.subList(0, Math.min(rerankCount, hitsToRescore.size()));
     }
 
     private void runProcessing() {
-        int count = 0;
-        for (var iterator = hitsToRescore.iterator(); count < rerankCount && iterator.hasNext(); ) {
-            WrappedHit wrapped = iterator.next();
-            double oldScore = wrapped.getScore();
-            double newScore = hitRescorer.rescoreHit(wrapped);
-            ranges.withInitialScore(oldScore);
-            ranges.withFinalScore(newScore);
-            ++count;
-            iterator.remove();
+        List<WrappedHit> rescored = hitsToRerank();
+        double[] oldScores = new double[rescored.size()];
+        for (int i = 0; i < oldScores.length; i++)
+            oldScores[i] = rescored.get(i).getScore();
+        hitRescorer.rescoreHits(rescored);
+        for (int i = 0; i < oldScores.length; i++) {
+            ranges.withInitialScore(oldScores[i]);
+            ranges.withFinalScore(rescored.get(i).getScore());
         }
+        rescored.clear();
     }
 
     private void runPostProcessing() {
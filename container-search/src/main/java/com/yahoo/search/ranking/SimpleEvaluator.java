@@ -35,6 +35,15 @@ class SimpleEvaluator implements Evaluator {
         return evaluator.evaluate().asDouble();
     }
 
+    /** Returns the scores of the given evaluators, evaluating ONNX models once for all of them where possible */
+    static double[] evaluateScores(List<SimpleEvaluator> evaluators) {
+        var results = FunctionEvaluator.evaluate(evaluators.stream().map(evaluator -> evaluator.evaluator).toList());
+        double[] scores = new double[results.size()];
+        for (int i = 0; i < scores.length; i++)
+            scores[i] = results.get(i).asDouble();
+        return scores;
+    }
+
     @Override
     public String toString() {
         var buf = new StringBuilder();
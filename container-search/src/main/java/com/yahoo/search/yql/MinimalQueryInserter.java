@@ -45,12 +45,19 @@ public class MinimalQueryInserter extends Searcher {
     private static final CompoundName MAX_OFFSET = CompoundName.from("maxOffset");
     private static final Logger log = Logger.getLogger(MinimalQueryInserter.class.getName());
 
+    private final YqlProgramCache programCache;
+
     @Inject
-    public MinimalQueryInserter(Linguistics linguistics) {
+    public MinimalQueryInserter(Linguistics linguistics, YqlProgramCache programCache) {
+        this.programCache = programCache;
         // Warmup is needed to avoid a large 400ms init cost during first execution of yql code.
         warmup(linguistics);
     }
 
+    public MinimalQueryInserter(Linguistics linguistics) {
+        this(linguistics, null);
+    }
+
     public MinimalQueryInserter() {
         this(new SimpleLinguistics());
     }
@@ -78,7 +85,8 @@ public class MinimalQueryInserter extends Searcher {
         if (query.properties().get(YQL) == null) return execution.search(query);
         Result errorResult;
         try {
-            errorResult = insertQuery(query, ParserEnvironment.fromExecutionContext(execution.context()));
+            errorResult = insertQuery(query, ParserEnvironment.fromExecutionContext(execution.context())
+                                                              .setYqlProgramCache(programCache));
         }
         catch (IllegalArgumentException e) {
             throw new IllegalInputException("Illegal YQL query", e);
@@ -97,8 +97,11 @@ final class ProgramParser {
         yqlplusLexer lexer = new yqlplusLexer(input);
         lexer.removeErrorListeners();
         lexer.addErrorListener(errorListener);
-        TokenStream tokens = new CommonTokenStream(lexer);
+        return prepareParser(programName, new CommonTokenStream(lexer));
+    }
 
+    private yqlplusParser prepareParser(String programName, TokenStream tokens) {
+        ErrorListener errorListener = new ErrorListener(programName);
         yqlplusParser parser = new yqlplusParser(tokens);
         parser.removeErrorListeners();
         parser.addErrorListener(errorListener);
@@ -122,6 +125,23 @@ final class ProgramParser {
         return convertProgram(parseProgram(parser), parser, programName);
     }
 
+    /** Returns all the tokens of the given program, including those on hidden channels */
+    public CommonTokenStream tokenize(String programName, String program) {
+        yqlplusLexer lexer = new yqlplusLexer(new CaseInsensitiveCharStream(CharStreams.fromString(program)));
+        lexer.removeErrorListeners();
+        lexer.addErrorListener(new ErrorListener(programName));
+        CommonTokenStream tokens = new CommonTokenStream(lexer);
+        tokens.fill();
+        return tokens;
+    }
+
+    /** Parses a program which is already tokenized by {@link #tokenize} */
+    public OperatorNode<StatementOperator> parse(String programName, CommonTokenStream tokens) throws IOException, RecognitionException {
+        tokens.seek(0);
+        yqlplusParser parser = prepareParser(programName, tokens);
+        return convertProgram(parseProgram(parser), parser, programName);
+    }
+
     private Location toLocation(Scope scope, ParseTree node) {
         Token start;
         if (node instanceof ParserRuleContext) {
@@ -891,9 +911,12 @@ final class ProgramParser {
 	}
 
     public Object convertLiteral(Scalar_literalContext literal) {
-        int parseTreeIndex = getParseTreeIndex(literal.getChild(0));
-        String text = literal.getChild(0).getText();
-        switch(parseTreeIndex) {
+        return literalValue(getParseTreeIndex(literal.getChild(0)), literal.getChild(0).getText());
+    }
+
+    /** Returns the value of a scalar literal token of the given type and text */
+    static Object literalValue(int tokenType, String text) {
+        switch(tokenType) {
             case yqlplusParser.INT:
                 long as_long = Long.parseLong(text);
                 int as_int = (int)as_long;
@@ -887,7 +887,9 @@ public class YqlParser implements Parser {
     private OperatorNode<?> parseYqlProgram() {
         OperatorNode<?> ast;
         try {
-            ast = new ProgramParser().parse("query", currentlyParsing.getQuery());
+            YqlProgramCache programCache = environment.getYqlProgramCache();
+            ast = programCache != null ? programCache.parse("query", currentlyParsing.getQuery())
+                                       : new ProgramParser().parse("query", currentlyParsing.getQuery());
         } catch (Exception e) {
             throw new IllegalInputException(e);
         }
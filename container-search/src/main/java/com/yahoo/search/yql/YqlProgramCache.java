@@ -0,0 +1,267 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.search.yql;
+
+import ai.vespa.metrics.ContainerMetrics;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.yahoo.component.AbstractComponent;
+import com.yahoo.component.annotation.Inject;
+import com.yahoo.jdisc.Metric;
+import org.antlr.v4.runtime.CommonTokenStream;
+import org.antlr.v4.runtime.Token;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Timer;
+import java.util.TimerTask;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Parsed YQL programs, reused across queries which differ only in their literal values.
+ *
+ * Programs are keyed by their text with each literal token replaced by a placeholder, such that
+ * queries generated from the same template share an entry. The entry holds the program parsed the first time,
+ * which is instantiated for later queries by copying it and substituting the literal values of the query.
+ * Literals which are not literal expression nodes in the parsed program, such as annotation values,
+ * must be identical for an entry to be reused, and the program is parsed as usual if not.
+ *
+ * This is multithread safe.
+ *
+ * @author agent
+ */
+public final class YqlProgramCache extends AbstractComponent {
+
+    private static final String LOOKUPS_METRIC = ContainerMetrics.YQL_PARSE_CACHE_LOOKUPS.baseName();
+    private static final String HITS_METRIC = ContainerMetrics.YQL_PARSE_CACHE_HITS.baseName();
+
+    private final Cache<String, Template> cache;
+    private final int maxProgramLength;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong lookups = new AtomicLong();
+
+    /** Reports metrics periodically, or null if metrics are not reported */
+    private final Timer scheduler;
+
+    @Inject
+    public YqlProgramCache(Metric metric) {
+        this(1000, 10000, metric);
+    }
+
+    YqlProgramCache(int maxSize, int maxProgramLength, Metric metric) {
+        this.cache = CacheBuilder.newBuilder().maximumSize(maxSize).build();
+        this.maxProgramLength = maxProgramLength;
+        if (metric != null) {
+            scheduler = new Timer(true);
+            scheduler.schedule(new MetricReporter(metric), 10_000, 10_000);
+        }
+        else {
+            scheduler = null;
+        }
+    }
+
+    /** Returns the given program parsed, from a cached parse of a program with the same structure if possible */
+    OperatorNode<StatementOperator> parse(String programName, String program) throws IOException {
+        ProgramParser parser = new ProgramParser();
+        CommonTokenStream tokens = parser.tokenize(programName, program);
+        if (program.length() > maxProgramLength) return parser.parse(programName, tokens);
+
+        List<Token> literals = literalsIn(tokens);
+        String key = keyOf(program, literals);
+        lookups.incrementAndGet();
+        Template template = cache.getIfPresent(key);
+        if (template != null) {
+            OperatorNode<StatementOperator> instance = template.instantiate(literals);
+            if (instance != null) {
+                hits.incrementAndGet();
+                return instance;
+            }
+        }
+
+        OperatorNode<StatementOperator> parsed = parser.parse(programName, tokens);
+        template = Template.of(parsed, literals);
+        if (template == null) return parsed;
+        cache.put(key, template);
+        return template.instantiate(literals);
+    }
+
+    /** Returns the number of programs instantiated from a cached parse since the last call to this */
+    long takeHits() { return hits.getAndSet(0); }
+
+    /** Returns the number of programs looked up in this since the last call to this */
+    long takeLookups() { return lookups.getAndSet(0); }
+
+    @Override
+    public void deconstruct() {
+        if (scheduler != null)
+            scheduler.cancel();
+    }
+
+    private static List<Token> literalsIn(CommonTokenStream tokens) {
+        List<Token> literals = new ArrayList<>();
+        for (Token token : tokens.getTokens())
+            if (isLiteral(token.getType()))
+                literals.add(token);
+        return literals;
+    }
+
+    private static boolean isLiteral(int tokenType) {
+        return switch (tokenType) {
+            case yqlplusParser.INT, yqlplusParser.LONG_INT, yqlplusParser.FLOAT,
+                 yqlplusParser.STRING, yqlplusParser.TRUE, yqlplusParser.FALSE -> true;
+            default -> false;
+        };
+    }
+
+    /** Returns the given program with each literal replaced by a placeholder of the literal type */
+    private static String keyOf(String program, List<Token> literals) {
+        StringBuilder key = new StringBuilder(program.length());
+        int end = 0;
+        for (Token literal : literals) {
+            key.append(program, end, literal.getStartIndex()).append('\0').append(literal.getType()).append('\0');
+            end = literal.getStopIndex() + 1;
+        }
+        return key.append(program, end, program.length()).toString();
+    }
+
+    private static long positionOf(int line, int charPositionInLine) {
+        return (long)line << 32 | charPositionInLine;
+    }
+
+    private class MetricReporter extends TimerTask {
+
+        private final Metric metric;
+
+        MetricReporter(Metric metric) {
+            this.metric = metric;
+        }
+
+        @Override
+        public void run() {
+            // Counters, such that the hit ratio is computed over any period when the metrics are aggregated
+            metric.add(LOOKUPS_METRIC, takeLookups(), null);
+            metric.add(HITS_METRIC, takeHits(), null);
+        }
+
+    }
+
+    /** A parsed program, and the literal nodes in it which are given by each literal token */
+    private static final class Template {
+
+        private final OperatorNode<StatementOperator> program;
+
+        /** The literal nodes of the program, and the index of the literal token giving the value of each */
+        private final Map<OperatorNode<?>, Integer> parameters;
+
+        /** The value type of each literal token which is a parameter, and null for the others */
+        private final Class<?>[] parameterTypes;
+
+        /** The text of each literal token which is not a parameter, and null for the others */
+        private final String[] literalTexts;
+
+        private Template(OperatorNode<StatementOperator> program, Map<OperatorNode<?>, Integer> parameters,
+                         Class<?>[] parameterTypes, String[] literalTexts) {
+            this.program = program;
+            this.parameters = parameters;
+            this.parameterTypes = parameterTypes;
+            this.literalTexts = literalTexts;
+        }
+
+        /** Returns a template of the given program, or null if its literal nodes cannot be matched to the literal tokens */
+        static Template of(OperatorNode<StatementOperator> program, List<Token> literals) {
+            Map<Long, List<OperatorNode<?>>> literalNodes = new HashMap<>();
+            collectLiteralNodes(program, literalNodes);
+
+            Map<OperatorNode<?>, Integer> parameters = new IdentityHashMap<>();
+            Class<?>[] parameterTypes = new Class<?>[literals.size()];
+            String[] literalTexts = new String[literals.size()];
+            for (int i = 0; i < literals.size(); i++) {
+                Token literal = literals.get(i);
+                List<OperatorNode<?>> nodes = literalNodes.get(positionOf(literal.getLine(), literal.getCharPositionInLine()));
+                if (nodes == null) {
+                    literalTexts[i] = literal.getText();
+                    continue;
+                }
+                Optional<Object> value = valueOf(literal);
+                if (value.isEmpty()) return null;
+                for (OperatorNode<?> node : nodes) {
+                    if ( ! value.get().equals(node.getArgument(0))) return null;
+                    parameters.put(node, i);
+                }
+                parameterTypes[i] = value.get().getClass();
+            }
+            return new Template(program, parameters, parameterTypes, literalTexts);
+        }
+
+        private static void collectLiteralNodes(Object argument, Map<Long, List<OperatorNode<?>>> literalNodes) {
+            if (argument instanceof OperatorNode<?> node) {
+                if (node.getOperator() == ExpressionOperator.LITERAL && node.getLocation() != null) {
+                    Location location = node.getLocation();
+                    literalNodes.computeIfAbsent(positionOf(location.getLineNumber(), location.getCharacterOffset()),
+                                                 __ -> new ArrayList<>()).add(node);
+                }
+                for (Object nodeArgument : node.getArguments())
+                    collectLiteralNodes(nodeArgument, literalNodes);
+            }
+            else if (argument instanceof List<?> list) {
+                for (Object element : list)
+                    collectLiteralNodes(element, literalNodes);
+            }
+        }
+
+        /**
+         * Returns a copy of the program of this with the values of the given literal tokens,
+         * or null if the program cannot be instantiated with these literals.
+         */
+        OperatorNode<StatementOperator> instantiate(List<Token> literals) {
+            Object[] values = new Object[literals.size()];
+            for (int i = 0; i < values.length; i++) {
+                Token literal = literals.get(i);
+                if (parameterTypes[i] == null) {
+                    if ( ! literalTexts[i].equals(literal.getText())) return null;
+                }
+                else {
+                    Optional<Object> value = valueOf(literal);
+                    if (value.isEmpty() || value.get().getClass() != parameterTypes[i]) return null;
+                    values[i] = value.get();
+                }
+            }
+            return copy(program, values);
+        }
+
+        @SuppressWarnings("unchecked")
+        private <T> T copy(T argument, Object[] values) {
+            if (argument instanceof OperatorNode<?> node) {
+                Integer parameter = parameters.get(node);
+                if (parameter != null)
+                    return (T)OperatorNode.create(node.getLocation(), node.getAnnotations(), node.getOperator(), values[parameter]);
+                Object[] arguments = node.getArguments();
+                for (int i = 0; i < arguments.length; i++)
+                    arguments[i] = copy(arguments[i], values);
+                return (T)OperatorNode.create(node.getLocation(), node.getAnnotations(), node.getOperator(), arguments);
+            }
+            else if (argument instanceof List<?> list) {
+                List<Object> copy = new ArrayList<>(list.size());
+                for (Object element : list)
+                    copy.add(copy(element, values));
+                return (T)copy;
+            }
+            return argument;
+        }
+
+        private static Optional<Object> valueOf(Token literal) {
+            try {
+                return Optional.of(ProgramParser.literalValue(literal.getType(), literal.getText()));
+            }
+            catch (RuntimeException e) {
+                return Optional.empty();
+            }
+        }
+
+    }
+
+}
@@ -15,6 +15,7 @@ import com.yahoo.search.Query;
 import com.yahoo.search.Result;
 import com.yahoo.search.config.ClusterConfig;
 import com.yahoo.search.dispatch.Dispatcher;
+import com.yahoo.search.dispatch.rpc.SerializedTensorCache;
 import com.yahoo.search.result.Hit;
 import com.yahoo.search.schema.Cluster;
 import com.yahoo.search.schema.RankProfile;
@@ -482,7 +483,8 @@ public class ClusterSearcherTestCase {
         Dispatcher dispatcher = new Dispatcher(ComponentId.createAnonymousComponentId("test-id"),
                                                dispatchConfig,
                                                nodesConfig,
-                                               vipStatus);
+                                               vipStatus,
+                                               new SerializedTensorCache());
         ComponentRegistry<Dispatcher> dispatchers = new ComponentRegistry<>();
         dispatchers.register(new ComponentId("dispatcher." + clusterName), dispatcher);
 
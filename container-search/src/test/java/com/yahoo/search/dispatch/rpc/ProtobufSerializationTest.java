@@ -6,15 +6,30 @@ import ai.vespa.searchlib.searchprotocol.protobuf.SearchProtocol;
 import com.google.protobuf.ByteString;
 import com.yahoo.document.GlobalId;
 import com.yahoo.document.idstring.IdString;
+import com.yahoo.io.GrowableByteBuffer;
 import com.yahoo.prelude.fastsearch.FastHit;
 import com.yahoo.search.Query;
 import com.yahoo.search.dispatch.InvokerResult;
 import com.yahoo.search.dispatch.LeanHit;
+import com.yahoo.search.query.profile.QueryProfile;
+import com.yahoo.search.query.profile.QueryProfileRegistry;
+import com.yahoo.search.query.profile.compiled.CompiledQueryProfile;
 import com.yahoo.search.query.profile.compiled.CompiledQueryProfileRegistry;
 import com.yahoo.search.query.profile.config.QueryProfileXMLReader;
+import com.yahoo.search.query.profile.types.FieldDescription;
+import com.yahoo.search.query.profile.types.QueryProfileType;
+import com.yahoo.search.result.Coverage;
+import com.yahoo.slime.BinaryFormat;
+import com.yahoo.slime.Cursor;
+import com.yahoo.slime.Slime;
+import com.yahoo.tensor.Tensor;
+import com.yahoo.tensor.serialization.TypedBinaryFormat;
 import org.junit.jupiter.api.Test;
 
+import java.io.IOException;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Optional;
 import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -26,6 +41,8 @@ public class ProtobufSerializationTest {
 
     static final double DELTA = 0.000000000001;
 
+    private final SerializedTensorCache tensorCache = new SerializedTensorCache();
+
     @Test
     void testQuerySerialization() {
         CompiledQueryProfileRegistry registry = new QueryProfileXMLReader().read("src/test/java/com/yahoo/search/query/profile/config/test/tensortypes").compile();
@@ -33,7 +50,7 @@ public class ProtobufSerializationTest {
                 .setRequest("?query=test&ranking.features.query(tensor_1)=[1.200]")
                 .build();
 
-        SearchProtocol.SearchRequest request1 = ProtobufSerialization.convertFromQuery(query, 9, "serverId", 0.5);
+        SearchProtocol.SearchRequest request1 = ProtobufSerialization.convertFromQuery(query, 9, "serverId", 0.5, tensorCache);
         assertEquals(9, request1.getHits());
         assertEquals(0, request1.getRankPropertiesCount());
         assertEquals(0, request1.getTensorRankPropertiesCount());
@@ -46,7 +63,7 @@ public class ProtobufSerializationTest {
         assertFalse(request1.hasProfiling());
 
         query.prepare(); // calling prepare() moves "overrides" to "features" - content stays the same
-        SearchProtocol.SearchRequest request2 = ProtobufSerialization.convertFromQuery(query, 9, "serverId", 0.5);
+        SearchProtocol.SearchRequest request2 = ProtobufSerialization.convertFromQuery(query, 9, "serverId", 0.5, tensorCache);
         assertEquals(9, request2.getHits());
         assertEquals(0, request2.getRankPropertiesCount());
         assertEquals(2, request2.getTensorRankPropertiesCount());
@@ -58,10 +75,49 @@ public class ProtobufSerializationTest {
         assertEquals(0, request2.getTensorFeatureOverridesCount());
     }
 
+    @Test
+    void testOnlyQueryProfileTensorsAreSerializedOnce() {
+        QueryProfileRegistry registry = new QueryProfileRegistry();
+        QueryProfileType type = new QueryProfileType("type");
+        type.addField(new FieldDescription("ranking.features.query(t)", "tensor(x[3])"), registry.getTypeRegistry());
+        registry.getTypeRegistry().register(type);
+        QueryProfile profile = new QueryProfile("profile");
+        profile.setType(type);
+        profile.set("ranking.features.query(t)", "[1.0, 2.0, 3.0]", registry);
+        registry.register(profile);
+        CompiledQueryProfile compiledProfile = registry.compile().getComponent("profile");
+
+        var value1 = tensorFeatureOf(new Query("?query=test", compiledProfile));
+        var value2 = tensorFeatureOf(new Query("?query=test", compiledProfile));
+        assertSame(value1, value2);
+        assertEquals(value1.size(), tensorCache.takeSerializedBytes());
+        assertEquals(value1.size(), tensorCache.takeReusedBytes());
+        assertEquals(Tensor.from("tensor(x[3]):[1.0, 2.0, 3.0]"),
+                     TypedBinaryFormat.decode(Optional.empty(), GrowableByteBuffer.wrap(value2.toByteArray())));
+
+        // Tensors which are not from the query profile are serialized per request, even if shared
+        Tensor tensor = Tensor.from("tensor(x[3]):[1.0, 2.0, 3.0]");
+        Query query3 = new Query("?query=test", compiledProfile);
+        query3.getRanking().getFeatures().put("query(t)", tensor);
+        Query query4 = new Query("?query=test");
+        query4.getRanking().getFeatures().put("query(t)", tensor);
+        var value3 = tensorFeatureOf(query3);
+        var value4 = tensorFeatureOf(query4);
+        assertNotSame(value3, value4);
+        assertEquals(value1, value3);
+        assertEquals(value1, value4);
+        assertEquals(2L * value1.size(), tensorCache.takeSerializedBytes());
+        assertEquals(0, tensorCache.takeReusedBytes());
+    }
+
+    private ByteString tensorFeatureOf(Query query) {
+        return ProtobufSerialization.convertFromQuery(query, 9, "serverId", 0.5, tensorCache).getTensorFeatureOverrides(0).getValue();
+    }
+
     @Test
     void testDocsumSerialization() {
         Query q = new Query("search/?query=test&hits=10&offset=3");
-        var builder = ProtobufSerialization.createDocsumRequestBuilder(q, "server", "summary", Set.of("f1", "f2"),true, 0.5);
+        var builder = ProtobufSerialization.createDocsumRequestBuilder(q, "server", "summary", Set.of("f1", "f2"),true, 0.5, tensorCache);
         builder.setTimeout(0);
         var hit = new FastHit();
         hit.setGlobalId(new GlobalId(IdString.createIdString("id:ns:type::id")).getRawId());
@@ -96,9 +152,9 @@ public class ProtobufSerializationTest {
     }
 
     @Test
-    void testSearchReplyDecodingWithRelevance() {
+    void testSearchReplyDecodingWithRelevance() throws IOException {
         Query q = new Query("search/?query=test");
-        InvokerResult result = ProtobufSerialization.convertToResult(q, createSearchReply(5, false), null, 1, 2);
+        InvokerResult result = ProtobufSerialization.decodeToResult(q, createSearchReply(5, false).toByteArray(), null, 1, 2);
         assertEquals(result.getResult().getTotalHitCount(), 7);
         List<LeanHit> hits = result.getLeanHits();
         assertEquals(5, hits.size());
@@ -116,9 +172,9 @@ public class ProtobufSerializationTest {
     }
 
     @Test
-    void testSearchReplyDecodingWithSortData() {
+    void testSearchReplyDecodingWithSortData() throws IOException {
         Query q = new Query("search/?query=test");
-        InvokerResult result = ProtobufSerialization.convertToResult(q, createSearchReply(5, true), null, 1, 2);
+        InvokerResult result = ProtobufSerialization.decodeToResult(q, createSearchReply(5, true).toByteArray(), null, 1, 2);
         assertEquals(result.getResult().getTotalHitCount(), 7);
         List<LeanHit> hits = result.getLeanHits();
         assertEquals(5, hits.size());
@@ -136,13 +192,69 @@ public class ProtobufSerializationTest {
         }
     }
 
+    @Test
+    void testSearchReplyDecodingWithMatchFeaturesCoverageAndErrors() throws IOException {
+        byte[] tensor = TypedBinaryFormat.encode(Tensor.from("tensor(x[2]):[1.0, 2.0]"));
+        var reply = createSearchReply(3, false).toBuilder()
+                .setCoverageDocs(80).setActiveDocs(100).setTargetActiveDocs(120).setDegradedBySoftTimeout(true)
+                .addErrors(SearchProtocol.Error.newBuilder().setMessage("first error"))
+                .addErrors(SearchProtocol.Error.newBuilder().setMessage("second error"))
+                .addMatchFeatureNames("attribute(a)").addMatchFeatureNames("tensor_feature");
+        reply.getHitsBuilder(0).addMatchFeatures(SearchProtocol.Feature.newBuilder().setNumber(0.5))
+                               .addMatchFeatures(SearchProtocol.Feature.newBuilder().setTensor(ByteString.copyFrom(tensor)));
+        reply.getHitsBuilder(1).addMatchFeatures(SearchProtocol.Feature.newBuilder().setNumber(1.5))
+                               .addMatchFeatures(SearchProtocol.Feature.newBuilder().setNumber(2.5));
+        // The third hit has no match features
+
+        Query q = new Query("search/?query=test");
+        InvokerResult result = ProtobufSerialization.decodeToResult(q, reply.build().toByteArray(), null, 1, 2);
+        assertEquals(7, result.getResult().getTotalHitCount());
+        Coverage coverage = result.getResult().getCoverage(false);
+        assertEquals(80, coverage.getDocs());
+        assertEquals(100, coverage.getActive());
+        assertEquals(120, coverage.getTargetActive());
+        assertTrue(coverage.isDegradedByTimeout());
+        assertFalse(coverage.isDegradedByMatchPhase());
+
+        List<LeanHit> hits = result.getLeanHits();
+        assertEquals(3, hits.size());
+        assertEquals(0.5, hits.get(0).getMatchFeatures().getDouble("attribute(a)"), DELTA);
+        assertEquals(Tensor.from("tensor(x[2]):[1.0, 2.0]"), hits.get(0).getMatchFeatures().getTensor("tensor_feature"));
+        assertEquals(1.5, hits.get(1).getMatchFeatures().getDouble("attribute(a)"), DELTA);
+        assertEquals(2.5, hits.get(1).getMatchFeatures().getDouble("tensor_feature"), DELTA);
+        assertNull(hits.get(2).getMatchFeatures());
+
+        var errors = new HashSet<String>();
+        result.getResult().hits().getErrorHit().errors().forEach(error -> errors.add(error.getDetailedMessage()));
+        assertEquals(Set.of("first error", "second error", "mismatch in match feature sizes"), errors);
+    }
+
+    @Test
+    void testDocsumReplyDecoding() throws IOException {
+        Slime slime = new Slime();
+        Cursor docsums = slime.setObject().setArray("docsums");
+        docsums.addObject().setObject("docsum").setString("title", "first");
+        docsums.addObject().setObject("docsum").setString("title", "second");
+        byte[] payload = SearchProtocol.DocsumReply.newBuilder()
+                .setSlimeSummaries(ByteString.copyFrom(BinaryFormat.encode(slime)))
+                .addErrors(SearchProtocol.Error.newBuilder().setMessage("docsum error"))
+                .build().toByteArray();
+
+        for (boolean lazy : List.of(true, false)) {
+            var reply = ProtobufSerialization.decodeDocsumReply(payload, lazy);
+            assertEquals(2, reply.root().field("docsums").entries());
+            assertEquals("second", reply.root().field("docsums").entry(1).field("docsum").field("title").asString());
+            assertEquals(List.of("docsum error"), reply.errors());
+        }
+    }
+
     @Test
     void profiling_parameters_are_serialized_in_search_request() {
         var q = new Query("?query=test&trace.level=1&" +
                 "trace.profiling.matching.depth=3&" +
                 "trace.profiling.firstPhaseRanking.depth=5&" +
                 "trace.profiling.secondPhaseRanking.depth=-7");
-        var req = ProtobufSerialization.convertFromQuery(q, 1, "serverId", 0.5);
+        var req = ProtobufSerialization.convertFromQuery(q, 1, "serverId", 0.5, tensorCache);
         assertEquals(3, req.getProfiling().getMatch().getDepth());
         assertEquals(5, req.getProfiling().getFirstPhase().getDepth());
         assertEquals(-7, req.getProfiling().getSecondPhase().getDepth());
@@ -152,7 +264,7 @@ public class ProtobufSerializationTest {
     void only_set_profiling_parameters_are_serialized_in_search_request() {
         var q = new Query("?query=test&trace.level=1&" +
                 "trace.profiling.matching.depth=3");
-        var req = ProtobufSerialization.convertFromQuery(q, 1, "serverId", 0.5);
+        var req = ProtobufSerialization.convertFromQuery(q, 1, "serverId", 0.5, tensorCache);
         assertEquals(3, req.getProfiling().getMatch().getDepth());
         assertFalse(req.getProfiling().hasFirstPhase());
         assertFalse(req.getProfiling().hasSecondPhase());
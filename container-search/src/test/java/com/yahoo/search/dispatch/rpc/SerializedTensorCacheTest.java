@@ -0,0 +1,72 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.search.dispatch.rpc;
+
+import com.yahoo.io.GrowableByteBuffer;
+import com.yahoo.search.query.profile.QueryProfile;
+import com.yahoo.search.query.profile.QueryProfileRegistry;
+import com.yahoo.search.query.profile.compiled.CompiledQueryProfile;
+import com.yahoo.search.query.profile.types.FieldDescription;
+import com.yahoo.search.query.profile.types.QueryProfileType;
+import com.yahoo.tensor.Tensor;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+/**
+ * @author agent
+ */
+public class SerializedTensorCacheTest {
+
+    @Test
+    void testQueryProfileTensorsAreReusedByIdentity() {
+        SerializedTensorCache cache = new SerializedTensorCache(10, null);
+        GrowableByteBuffer buffer = new GrowableByteBuffer(16);
+        CompiledQueryProfile profile = profileWithTensor("tensor(key{}):{a:1.0, b:2.0}");
+        Tensor tensor = (Tensor)profile.get("ranking.features.query(t)");
+
+        var serialized = cache.serialize(tensor, profile, buffer);
+        assertEquals(serialized.size(), cache.takeSerializedBytes());
+        assertEquals(0, cache.takeReusedBytes());
+
+        assertSame(serialized, cache.serialize(tensor, profile, buffer));
+        assertSame(serialized, cache.serialize(tensor, profile, buffer));
+        assertEquals(0, cache.takeSerializedBytes());
+        assertEquals(2L * serialized.size(), cache.takeReusedBytes());
+
+        // Equal tensors are serialized again, since tensor equality is approximate
+        var other = cache.serialize(Tensor.from("tensor(key{}):{a:1.0, b:2.0}"), profile, buffer);
+        assertNotSame(serialized, other);
+        assertEquals(serialized, other);
+        assertEquals(other.size(), cache.takeSerializedBytes());
+        assertEquals(0, cache.takeReusedBytes());
+    }
+
+    @Test
+    void testTensorsNotInTheQueryProfileAreNotCached() {
+        SerializedTensorCache cache = new SerializedTensorCache(10, null);
+        GrowableByteBuffer buffer = new GrowableByteBuffer(16);
+        CompiledQueryProfile profile = profileWithTensor("tensor(key{}):{a:1.0}");
+        Tensor tensor = Tensor.from("tensor(key{}):{a:1.0, b:2.0}");
+
+        var serialized = cache.serialize(tensor, profile, buffer);
+        assertNotSame(serialized, cache.serialize(tensor, profile, buffer));
+        assertNotSame(serialized, cache.serialize(tensor, null, buffer));
+        assertEquals(3L * serialized.size(), cache.takeSerializedBytes());
+        assertEquals(0, cache.takeReusedBytes());
+    }
+
+    private static CompiledQueryProfile profileWithTensor(String tensor) {
+        QueryProfileRegistry registry = new QueryProfileRegistry();
+        QueryProfileType type = new QueryProfileType("type");
+        type.addField(new FieldDescription("ranking.features.query(t)", "tensor(key{})"), registry.getTypeRegistry());
+        registry.getTypeRegistry().register(type);
+        QueryProfile profile = new QueryProfile("profile");
+        profile.setType(type);
+        profile.set("ranking.features.query(t)", tensor, registry);
+        registry.register(profile);
+        return registry.compile().getComponent("profile");
+    }
+
+}
@@ -1,12 +1,18 @@
 // Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
 package com.yahoo.search.query.profile.compiled;
 
+import com.yahoo.processing.request.CompoundName;
+import com.yahoo.search.query.profile.config.QueryProfileConfigurer;
 import com.yahoo.search.query.profile.config.QueryProfilesConfig;
 import org.junit.jupiter.api.Test;
 
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 /**
@@ -31,4 +37,157 @@ public class CompiledQueryProfileRegistryTest {
         assertEquals("5", profile1.get("hits"));
     }
 
+    @Test
+    void profiles_depending_on_unchanged_config_are_reused() {
+        var executor = Executors.newCachedThreadPool();
+        var cache = new CompiledQueryProfileCache();
+        var registry1 = new CompiledQueryProfileRegistry(config("5", "10", "base"), executor, cache);
+        var registry2 = new CompiledQueryProfileRegistry(config("5", "20", "base"), executor, cache);
+        var registry3 = new CompiledQueryProfileRegistry(config("6", "20", "base"), executor, cache);
+        var registry4 = new CompiledQueryProfileRegistry(config("6", "20", "changed"), executor, cache);
+        executor.shutdown();
+
+        assertReused(true, "child", registry1, registry2);
+        assertReused(false, "other", registry1, registry2);
+        assertEquals("20", registry2.getComponent("other").get("hits"));
+
+        assertReused(false, "child", registry2, registry3);
+        assertReused(true, "other", registry2, registry3);
+        assertEquals("6", registry3.getComponent("child").get("hits"));
+
+        assertReused(false, "child", registry3, registry4);
+        assertReused(true, "other", registry3, registry4);
+        assertEquals("changed", registry4.getComponent("child").get("source"));
+        assertEquals("changed", registry4.getComponent("child").get("d.source", Map.of("x", "x1")));
+        assertEquals("base", registry3.getComponent("child").get("d.source", Map.of("x", "x1")));
+    }
+
+    @Test
+    void profiles_are_only_reused_from_the_same_cache() {
+        var executor = Executors.newCachedThreadPool();
+        var cluster1 = new CompiledQueryProfileCache();
+        var cluster2 = new CompiledQueryProfileCache();
+        var registry1 = new CompiledQueryProfileRegistry(config("5", "10", "base"), executor, cluster1);
+        var registry2 = new CompiledQueryProfileRegistry(config("5", "10", "base"), executor, cluster2);
+        var registry3 = new CompiledQueryProfileRegistry(config("5", "10", "base"), executor);
+        assertReused(false, "child", registry1, registry2);
+        assertReused(false, "child", registry2, registry3);
+
+        var registry4 = new CompiledQueryProfileRegistry(config("5", "10", "base"), executor, cluster1);
+        assertReused(true, "child", registry1, registry4);
+
+        cluster1.deconstruct();
+        var registry5 = new CompiledQueryProfileRegistry(config("5", "10", "base"), executor, cluster1);
+        executor.shutdown();
+        assertReused(false, "child", registry4, registry5);
+    }
+
+    @Test
+    void concurrent_compilation_produces_the_same_profiles_as_serial_compilation() {
+        var config = manyProfilesConfig(200);
+        var serial = QueryProfileConfigurer.createFromConfig(config).compile();
+        var executor = Executors.newFixedThreadPool(8);
+        var concurrent = new CompiledQueryProfileRegistry(config, executor, new CompiledQueryProfileCache(), 8);
+        executor.shutdown();
+
+        assertEquals(serial.allComponents().size(), concurrent.allComponents().size());
+        for (CompiledQueryProfile expected : serial.allComponents()) {
+            CompiledQueryProfile actual = concurrent.getComponent(expected.getId());
+            assertEquals(asMap(expected.getEntries()), asMap(actual.getEntries()), "Entries of " + expected);
+            assertEquals(asMap(expected.getTypes()).keySet(), asMap(actual.getTypes()).keySet(), "Types of " + expected);
+            assertEquals(asMap(expected.getReferences()).keySet(), asMap(actual.getReferences()).keySet(),
+                         "References of " + expected);
+            for (var context : List.of(Map.<String, String>of(), Map.of("x", "x1"), Map.of("x", "x2", "y", "y1")))
+                assertEquals(expected.listValues("", context), actual.listValues("", context), "Values of " + expected);
+        }
+    }
+
+    @Test
+    void equal_values_are_shared_between_profiles() {
+        var executor = Executors.newCachedThreadPool();
+        var registry = new CompiledQueryProfileRegistry(config("5", "10", "base"), executor);
+        executor.shutdown();
+
+        assertSame(valueOf("source", registry.getComponent("child")), valueOf("source", registry.getComponent("base")));
+        assertSame(valueOf("d.source", registry.getComponent("child")), valueOf("d.source", registry.getComponent("base")));
+    }
+
+    private static QueryProfilesConfig config(String childHits, String otherHits, String baseSource) {
+        return new QueryProfilesConfig.Builder()
+                .queryprofile(new QueryProfilesConfig.Queryprofile.Builder()
+                        .id("base")
+                        .dimensions("x")
+                        .property(new QueryProfilesConfig.Queryprofile.Property.Builder()
+                                .name("source")
+                                .value(baseSource))
+                        .queryprofilevariant(new QueryProfilesConfig.Queryprofile.Queryprofilevariant.Builder()
+                                .fordimensionvalues("x1")
+                                .property(new QueryProfilesConfig.Queryprofile.Queryprofilevariant.Property.Builder()
+                                        .name("d.source")
+                                        .value(baseSource))))
+                .queryprofile(new QueryProfilesConfig.Queryprofile.Builder()
+                        .id("child")
+                        .inherit("base")
+                        .property(new QueryProfilesConfig.Queryprofile.Property.Builder()
+                                .name("hits")
+                                .value(childHits)))
+                .queryprofile(new QueryProfilesConfig.Queryprofile.Builder()
+                        .id("other")
+                        .property(new QueryProfilesConfig.Queryprofile.Property.Builder()
+                                .name("hits")
+                                .value(otherHits)))
+                .build();
+    }
+
+    /** Returns config with base profiles with variants, inherited by the given number of profiles with their own variants */
+    private static QueryProfilesConfig manyProfilesConfig(int profileCount) {
+        var builder = new QueryProfilesConfig.Builder();
+        for (int base = 0; base < 5; base++) {
+            var profile = new QueryProfilesConfig.Queryprofile.Builder().id("base" + base).dimensions(List.of("x", "y"));
+            for (int i = 0; i < 10; i++)
+                profile.property(new QueryProfilesConfig.Queryprofile.Property.Builder()
+                        .name("p" + i + ".v")
+                        .value("base" + base + "-" + i));
+            for (String x : List.of("x1", "x2"))
+                profile.queryprofilevariant(new QueryProfilesConfig.Queryprofile.Queryprofilevariant.Builder()
+                        .fordimensionvalues(List.of(x))
+                        .property(new QueryProfilesConfig.Queryprofile.Queryprofilevariant.Property.Builder()
+                                .name("p1.v")
+                                .value(x + "-" + base)));
+            builder.queryprofile(profile);
+        }
+        for (int i = 0; i < profileCount; i++)
+            builder.queryprofile(new QueryProfilesConfig.Queryprofile.Builder()
+                    .id("profile" + i)
+                    .inherit("base" + (i % 5))
+                    .property(new QueryProfilesConfig.Queryprofile.Property.Builder()
+                            .name("own")
+                            .value("value" + i))
+                    .queryprofilevariant(new QueryProfilesConfig.Queryprofile.Queryprofilevariant.Builder()
+                            .fordimensionvalues(List.of("x2", "y" + (i % 3)))
+                            .property(new QueryProfilesConfig.Queryprofile.Queryprofilevariant.Property.Builder()
+                                    .name("own")
+                                    .value("variant" + i))));
+        return builder.build();
+    }
+
+    private static <VALUE> Map<CompoundName, DimensionalValue<VALUE>> asMap(DimensionalMap<VALUE> map) {
+        return map.entrySet().stream().collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue));
+    }
+
+    private static void assertReused(boolean expected, String profileId,
+                                     CompiledQueryProfileRegistry from, CompiledQueryProfileRegistry to) {
+        CompiledQueryProfile previous = from.getComponent(profileId);
+        CompiledQueryProfile next = to.getComponent(profileId);
+        assertSame(to, next.getRegistry());
+        assertEquals(expected, previous.getEntries() == next.getEntries());
+    }
+
+    private static DimensionalValue<ValueWithSource> valueOf(String name, CompiledQueryProfile profile) {
+        for (var entry : profile.getEntries().entrySet())
+            if (entry.getKey().toString().equals(name))
+                return entry.getValue();
+        throw new IllegalArgumentException(name + " is not in " + profile);
+    }
+
 }
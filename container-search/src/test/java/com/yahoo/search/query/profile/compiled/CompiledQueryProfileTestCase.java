@@ -0,0 +1,52 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.search.query.profile.compiled;
+
+import com.yahoo.processing.request.CompoundName;
+import com.yahoo.search.query.profile.QueryProfile;
+import com.yahoo.search.query.profile.QueryProfileRegistry;
+import com.yahoo.search.query.profile.types.FieldDescription;
+import com.yahoo.search.query.profile.types.FieldType;
+import com.yahoo.search.query.profile.types.QueryProfileType;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * @author agent
+ */
+public class CompiledQueryProfileTestCase {
+
+    @Test
+    void testOnlyDeclaredNamesAreRememberedWhenUnaliasing() {
+        QueryProfileRegistry registry = new QueryProfileRegistry();
+        QueryProfileType subType = new QueryProfileType("subType");
+        subType.addField(new FieldDescription("field", FieldType.integerType, "f"));
+        registry.getTypeRegistry().register(subType);
+        QueryProfileType type = new QueryProfileType("type");
+        type.addField(new FieldDescription("field", FieldType.integerType, "f"));
+        type.addField(new FieldDescription("sub", FieldType.fromString("query-profile:subType", registry.getTypeRegistry())));
+        registry.getTypeRegistry().register(type);
+        QueryProfile profile = new QueryProfile("profile");
+        profile.setType(type);
+        profile.set("sub.field", 1, registry);
+        registry.register(profile);
+        CompiledQueryProfile compiled = registry.compile().getComponent("profile");
+
+        for (int i = 0; i < 2; i++) {
+            assertEquals("field", compiled.unalias(CompoundName.from("f"), Map.of()).toString());
+            assertEquals("sub.field", compiled.unalias(CompoundName.from("sub.f"), Map.of()).toString());
+            assertEquals("sub.field", compiled.unalias(CompoundName.from("sub.field"), Map.of()).toString());
+        }
+        assertEquals(3, compiled.unaliasedNameCount());
+
+        for (int i = 0; i < 100; i++) {
+            assertEquals("undeclared" + i, compiled.unalias(CompoundName.from("undeclared" + i), Map.of()).toString());
+            assertEquals("sub.undeclared" + i, compiled.unalias(CompoundName.from("sub.undeclared" + i), Map.of()).toString());
+            assertEquals("field.undeclared" + i, compiled.unalias(CompoundName.from("f.undeclared" + i), Map.of()).toString());
+        }
+        assertEquals(3, compiled.unaliasedNameCount());
+    }
+
+}
@@ -0,0 +1,92 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.search.query.profile.compiled;
+
+import com.yahoo.processing.request.CompoundName;
+import com.yahoo.search.query.profile.DimensionBinding;
+import com.yahoo.search.query.profile.DimensionValues;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+/**
+ * @author agent
+ */
+public class DimensionalValueTestCase {
+
+    private static final List<String> dimensions = List.of("region", "device", "bucket");
+    private static final CompoundName name = CompoundName.from("a");
+
+    @Test
+    void testLookupWithManyVariants() {
+        DimensionalMap.Builder<String> builder = new DimensionalMap.Builder<>();
+        builder.put(name, binding(), "default");
+        for (int region = 0; region < 10; region++) {
+            builder.put(name, binding("r" + region), "r" + region);
+            for (int bucket = 0; bucket < 10; bucket++)
+                builder.put(name, binding("r" + region, null, "b" + bucket), "r" + region + "-b" + bucket);
+        }
+        builder.put(name, binding(null, "mobile"), "mobile");
+        DimensionalMap<String> map = builder.build();
+
+        assertEquals("default", map.get(name, Map.of()));
+        assertEquals("default", map.get(name, null));
+        assertEquals("default", map.get(name, Map.of("region", "unknown")));
+        assertEquals("r3", map.get(name, Map.of("region", "r3")));
+        assertEquals("r3", map.get(name, Map.of("region", "r3", "bucket", "unknown")));
+        assertEquals("r3-b7", map.get(name, Map.of("region", "r3", "bucket", "b7")));
+        assertEquals("r0-b0", map.get(name, Map.of("region", "r0", "bucket", "b0")));
+        assertEquals("r9-b9", map.get(name, Map.of("region", "r9", "bucket", "b9", "device", "mobile")));
+        assertEquals("r9", map.get(name, Map.of("region", "r9", "device", "mobile")));
+        assertEquals("mobile", map.get(name, Map.of("region", "unknown", "device", "mobile")));
+        assertEquals("mobile", map.get(name, Map.of("device", "mobile", "bucket", "b1")));
+
+        Map<String, String> contextWithNull = new HashMap<>();
+        contextWithNull.put("region", "r2");
+        contextWithNull.put("bucket", null);
+        assertEquals("r2", map.get(name, contextWithNull));
+    }
+
+    @Test
+    void testValueWithoutDefault() {
+        DimensionalMap.Builder<String> builder = new DimensionalMap.Builder<>();
+        builder.put(name, binding("r1"), "r1");
+        builder.put(name, binding("r2"), "r2");
+        DimensionalMap<String> map = builder.build();
+        assertNull(map.get(name, Map.of()));
+        assertNull(map.get(name, Map.of("region", "r3")));
+        assertEquals("r2", map.get(name, Map.of("region", "r2")));
+    }
+
+    @Test
+    void testEqualValuesAreShared() {
+        Map<DimensionalValue<?>, DimensionalValue<?>> sharedValues = new HashMap<>();
+        DimensionalMap<String> map1 = mapWithVariants("x").build(sharedValues);
+        DimensionalMap<String> map2 = mapWithVariants("x").build(sharedValues);
+        DimensionalMap<String> map3 = mapWithVariants("y").build(sharedValues);
+        assertSame(valueOf(map1), valueOf(map2));
+        assertEquals(2, sharedValues.size());
+        assertEquals("y", map3.get(name, Map.of()));
+    }
+
+    private DimensionalMap.Builder<String> mapWithVariants(String defaultValue) {
+        DimensionalMap.Builder<String> builder = new DimensionalMap.Builder<>();
+        builder.put(name, binding(), defaultValue);
+        builder.put(name, binding("r1", "mobile"), "r1-mobile");
+        return builder;
+    }
+
+    private DimensionalValue<String> valueOf(DimensionalMap<String> map) {
+        return map.entrySet().iterator().next().getValue();
+    }
+
+    private static Binding binding(String ... values) {
+        return Binding.createFrom(DimensionBinding.createFrom(dimensions, DimensionValues.createFrom(values)));
+    }
+
+}
@@ -0,0 +1,118 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.search.query.profile.test;
+
+import com.yahoo.processing.request.CompoundName;
+import com.yahoo.search.query.profile.compiled.CompiledQueryProfile;
+import com.yahoo.search.query.profile.compiled.CompiledQueryProfileRegistry;
+import com.yahoo.search.query.profile.config.QueryProfilesConfig;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Measures the heap footprint of compiled query profiles with variants, and the time to look up values in them.
+ *
+ * @author agent
+ */
+public class CompiledQueryProfileMicroBenchmark {
+
+    private static final String[] regions = { "eu", "us", "ap" };
+    private static final String[] devices = { "mobile", "desktop" };
+
+    private final int profileCount;
+
+    public CompiledQueryProfileMicroBenchmark(int profileCount) {
+        this.profileCount = profileCount;
+    }
+
+    public void benchmark(int count) {
+        System.out.println("Compiling " + profileCount + " query profiles inheriting 10 profiles with " +
+                           regions.length * devices.length + " variants each");
+        QueryProfilesConfig config = config();
+        ExecutorService executor = Executors.newCachedThreadPool();
+        long startBytes = usedHeap();
+        CompiledQueryProfileRegistry registry = new CompiledQueryProfileRegistry(config, executor);
+        executor.shutdown();
+        long endBytes = usedHeap();
+        System.out.println("Compiled profiles use " + (endBytes - startBytes) / 1000 + " kB (" +
+                           (endBytes - startBytes) / registry.allComponents().size() + " bytes per profile)");
+
+        List<CompiledQueryProfile> profiles = registry.allComponents();
+        List<Map<String, String>> contexts = List.of(Map.of(),
+                                                     Map.of("region", "eu"),
+                                                     Map.of("region", "eu", "device", "mobile"),
+                                                     Map.of("region", "us", "device", "desktop", "bucket", "b3"),
+                                                     Map.of("region", "eu", "bucket", "b1"));
+        List<CompoundName> names = List.of(CompoundName.from("p1.v"), CompoundName.from("p25.v"),
+                                           CompoundName.from("own"), CompoundName.from("nonExisting"));
+        getValues(count / 10, profiles, contexts, names); // warm-up
+        long startTime = System.nanoTime();
+        int found = getValues(count, profiles, contexts, names);
+        long endTime = System.nanoTime();
+        System.out.println("Did " + count + " lookups (" + found + " found) in " + (endTime - startTime) / 1000000 +
+                           " ms (" + (endTime - startTime) / (float)count + " nanoseconds per lookup)");
+    }
+
+    private int getValues(int count, List<CompiledQueryProfile> profiles, List<Map<String, String>> contexts,
+                          List<CompoundName> names) {
+        int found = 0;
+        for (int i = 0; i < count; i++) {
+            CompiledQueryProfile profile = profiles.get(i % profiles.size());
+            if (profile.get(names.get(i % names.size()), contexts.get(i % contexts.size()), null) != null)
+                found++;
+        }
+        return found;
+    }
+
+    private QueryProfilesConfig config() {
+        var builder = new QueryProfilesConfig.Builder();
+        for (int base = 0; base < 10; base++) {
+            var profile = new QueryProfilesConfig.Queryprofile.Builder().id("base" + base)
+                                                                        .dimensions(List.of("region", "device", "bucket"));
+            for (int i = 0; i < 30; i++)
+                profile.property(property("p" + i + ".v", "base" + base + "-" + i));
+            for (String region : regions) {
+                for (String device : devices) {
+                    var variant = new QueryProfilesConfig.Queryprofile.Queryprofilevariant.Builder()
+                                          .fordimensionvalues(List.of(region, device));
+                    for (int i = 0; i < 10; i++)
+                        variant.property(variantProperty("p" + i + ".v", region + "-" + device + "-" + i));
+                    profile.queryprofilevariant(variant);
+                }
+            }
+            builder.queryprofile(profile);
+        }
+        for (int i = 0; i < profileCount; i++) {
+            builder.queryprofile(new QueryProfilesConfig.Queryprofile.Builder()
+                                         .id("profile" + i)
+                                         .inherit("base" + (i % 10))
+                                         .property(property("own", "value" + i))
+                                         .queryprofilevariant(new QueryProfilesConfig.Queryprofile.Queryprofilevariant.Builder()
+                                                                      .fordimensionvalues(List.of("eu", "*", "b" + (i % 5)))
+                                                                      .property(variantProperty("own", "variant" + i))));
+        }
+        return builder.build();
+    }
+
+    private static QueryProfilesConfig.Queryprofile.Property.Builder property(String name, String value) {
+        return new QueryProfilesConfig.Queryprofile.Property.Builder().name(name).value(value);
+    }
+
+    private static QueryProfilesConfig.Queryprofile.Queryprofilevariant.Property.Builder variantProperty(String name, String value) {
+        return new QueryProfilesConfig.Queryprofile.Queryprofilevariant.Property.Builder().name(name).value(value);
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++)
+            System.gc();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    public static void main(String[] args) {
+        new CompiledQueryProfileMicroBenchmark(2000).benchmark(10000000);
+    }
+
+}
@@ -0,0 +1,118 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.search.query.profile.test;
+
+import com.yahoo.component.ComponentId;
+import com.yahoo.container.jdisc.HttpRequest;
+import com.yahoo.jdisc.http.HttpRequest.Method;
+import com.yahoo.search.Query;
+import com.yahoo.search.query.profile.QueryProfile;
+import com.yahoo.search.query.profile.QueryProfileRegistry;
+import com.yahoo.search.query.profile.compiled.CompiledQueryProfile;
+import com.yahoo.search.query.profile.types.QueryProfileType;
+
+import java.lang.management.ManagementFactory;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Measures the time and memory allocated to create queries from requests with a typical set of parameters,
+ * using a typed query profile with variants.
+ *
+ * @author agent
+ */
+public class QueryCreationMicroBenchmark {
+
+    private final String description;
+    private final HttpRequest request;
+    private final CompiledQueryProfile profile;
+
+    public QueryCreationMicroBenchmark(String description, Map<String, String> parameters, CompiledQueryProfile profile) {
+        this.description = description;
+        this.request = createRequest(parameters);
+        this.profile = profile;
+    }
+
+    public void benchmark(int count) {
+        createQueries(count / 10); // warm-up
+        System.out.println(description);
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean)ManagementFactory.getThreadMXBean();
+        long startBytes = threads.getCurrentThreadAllocatedBytes();
+        long startTime = System.nanoTime();
+        createQueries(count);
+        long endTime = System.nanoTime();
+        long endBytes = threads.getCurrentThreadAllocatedBytes();
+        System.out.println("Done in " + (endTime - startTime) / 1000000 + " ms (" +
+                           (endTime - startTime) / 1000 / (float)count + " microseconds and " +
+                           (endBytes - startBytes) / count + " bytes allocated per query)");
+    }
+
+    private void createQueries(int count) {
+        for (int i = 0; i < count; i++) {
+            Query query = new Query(request, profile);
+            if (query.getHits() != 10)
+                throw new RuntimeException("Expected 10 hits");
+        }
+    }
+
+    private static HttpRequest createRequest(Map<String, String> parameters) {
+        StringBuilder uri = new StringBuilder("?");
+        for (var parameter : parameters.entrySet())
+            uri.append(parameter.getKey()).append("=")
+               .append(URLEncoder.encode(parameter.getValue(), StandardCharsets.UTF_8)).append("&");
+        return HttpRequest.createTestRequest(uri.toString(), Method.GET);
+    }
+
+    private static CompiledQueryProfile createProfile() {
+        QueryProfileRegistry registry = new QueryProfileRegistry();
+        QueryProfileType type = new QueryProfileType(new ComponentId("root"));
+        type.inherited().add(registry.getTypeRegistry().getComponent(new ComponentId("native")));
+        registry.getTypeRegistry().register(type);
+        QueryProfile profile = new QueryProfile("default");
+        profile.setType(type);
+        profile.setDimensions(new String[] { "region", "device" });
+        profile.set("hits", "20", registry);
+        profile.set("timeout", "500ms", registry);
+        profile.set("model.defaultIndex", "default", registry);
+        profile.set("ranking.profile", "main", registry);
+        profile.set("ranking.profile", "eu-main", new String[] { "eu" }, registry);
+        profile.set("ranking.profile", "eu-mobile", new String[] { "eu", "mobile" }, registry);
+        profile.set("presentation.summary", "short", new String[] { null, "mobile" }, registry);
+        profile.set("custom.a", "x", registry);
+        profile.set("custom.b", "y", new String[] { "us" }, registry);
+        registry.register(profile);
+        return registry.compile().getComponent("default");
+    }
+
+    private static Map<String, String> parameters() {
+        Map<String, String> parameters = new LinkedHashMap<>();
+        parameters.put("yql", "select * from sources * where userQuery()");
+        parameters.put("query", "hello world");
+        parameters.put("hits", "10");
+        parameters.put("offset", "0");
+        parameters.put("region", "eu");
+        parameters.put("device", "mobile");
+        parameters.put("ranking.features.query(user_age)", "30");
+        parameters.put("input.query(q)", "[1,2,3]");
+        parameters.put("ranking.matchPhase.maxHits", "1000");
+        parameters.put("presentation.timing", "true");
+        parameters.put("trace.level", "0");
+        parameters.put("model.locale", "en-US");
+        parameters.put("custom.c", "z");
+        parameters.put("timeout", "200ms");
+        return parameters;
+    }
+
+    public static void main(String[] args) {
+        int count = 1000000;
+        CompiledQueryProfile profile = createProfile();
+        Map<String, String> parameters = parameters();
+        new QueryCreationMicroBenchmark("Creating queries with a typed profile with variants", parameters, profile).benchmark(count);
+        System.out.println();
+        Map<String, String> minimalParameters = Map.of("query", "hello world", "hits", "10");
+        new QueryCreationMicroBenchmark("Creating queries with a typed profile with variants, no context", minimalParameters, profile).benchmark(count);
+        System.out.println();
+    }
+
+}
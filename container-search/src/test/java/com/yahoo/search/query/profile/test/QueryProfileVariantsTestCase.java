@@ -108,6 +108,19 @@ public class QueryProfileVariantsTestCase {
                 cRegistry.getComponent("test").get("a.b", Map.of("d1", "d1v")));
     }
 
+    @Test
+    void testProfilesInVariantsAreFrozen() {
+        QueryProfileRegistry registry = new QueryProfileRegistry();
+        QueryProfile test = new QueryProfile("test");
+        test.setDimensions(new String[]{"d1"});
+        test.set("a.b", "value", new String[]{"d1v"}, registry);
+        registry.register(test);
+        registry.freeze();
+
+        QueryProfile inVariant = (QueryProfile)test.getVariants().getVariants().get(0).values().get("a");
+        assertTrue(inVariant.isFrozen());
+    }
+
     /**
      * Tests referencing a variant which modifies the dimension set,
      * and also setting a value within that variants subspace.
@@ -752,6 +752,46 @@ public class QueryProfileTypeTestCase {
         assertEquals(0.1, query.properties().get("prefix.ranking.foo"));
     }
 
+    @Test
+    void testUnaliasing() {
+        QueryProfile profile = new QueryProfile("test");
+        profile.setType(testtype);
+        profile.set("myUserQueryProfile.myUserString", "value", registry);
+        registry.register(profile);
+        CompiledQueryProfile cprofile = registry.compile().getComponent("test");
+        for (int i = 0; i < 2; i++) { // the second time is resolved from names already unaliased
+            assertEquals("myInteger", cprofile.unalias(CompoundName.from("INT"), Map.of()).toString());
+            assertEquals("myUserQueryProfile.myUserInteger", cprofile.unalias(CompoundName.from("myUserQueryProfile.uInt"), Map.of()).toString());
+            assertEquals("myUserQueryProfile.myUserString", cprofile.unalias(CompoundName.from("myUserQueryProfile.myUserString"), Map.of()).toString());
+            assertEquals("nonExisting.uint", cprofile.unalias(CompoundName.from("nonExisting.uint"), Map.of()).toString());
+        }
+    }
+
+    @Test
+    void testUnaliasingWithTypesInVariants() {
+        QueryProfileType other = new QueryProfileType(new ComponentId("other"));
+        other.addField(new FieldDescription("otherInteger", FieldType.fromString("integer", registry.getTypeRegistry()), "uint"));
+        registry.getTypeRegistry().register(other);
+
+        QueryProfile userProfile = new QueryProfile("userProfile");
+        userProfile.setType(user);
+        registry.register(userProfile);
+        QueryProfile otherProfile = new QueryProfile("otherProfile");
+        otherProfile.setType(other);
+        registry.register(otherProfile);
+        QueryProfile profile = new QueryProfile("test");
+        profile.setDimensions(new String[] { "x" });
+        profile.set("sub", userProfile, registry);
+        profile.set("sub", otherProfile, new String[] { "2" }, registry);
+        registry.register(profile);
+
+        CompiledQueryProfile cprofile = registry.compile().getComponent("test");
+        for (int i = 0; i < 2; i++) {
+            assertEquals("sub.myUserInteger", cprofile.unalias(CompoundName.from("sub.uint"), Map.of("x", "1")).toString());
+            assertEquals("sub.otherInteger", cprofile.unalias(CompoundName.from("sub.uint"), Map.of("x", "2")).toString());
+        }
+    }
+
     private void assertWrongType(QueryProfile profile,String typeName,String name,Object value) {
         try {
             profile.set(name,value, registry);
@@ -13,6 +13,7 @@ import com.yahoo.tensor.Tensor;
 import org.junit.jupiter.api.Test;
 
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
 import java.util.function.Supplier;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -204,6 +205,17 @@ public class GlobalPhaseRerankHitsImplTest {
         expect.verifyScores(result);
         verifyDoesNotHaveMatchFeaturesField(result);
     }
+    @Test void hitsMissingMatchFeaturesAreScoredZero() {
+        var setup = setup().eval(makeSumSpec(List.of(), List.of("bar"))).build();
+        var query = makeQuery(List.of());
+        var factory = new HitFactory(List.of("bar"));
+        var result = makeResult(query, List.of(factory.create("a", 1, List.of(value("bar", 10))),
+                hit("b", 2),
+                factory.create("c", 3, List.of(value("bar", 5)))));
+        var expect = Expect.make(List.of(hit("a", 10), hit("b", 0), hit("c", 5)));
+        GlobalPhaseRanker.rerankHitsImpl(setup, query, result);
+        expect.verifyScores(result);
+    }
     @Test void queryFeaturesCanBeUsed() {
         var setup = setup().eval(makeSumSpec(List.of("foo"), List.of("bar"))).build();
         var query = makeQuery(List.of(value("query(foo)", 7)));
@@ -249,4 +261,27 @@ public class GlobalPhaseRerankHitsImplTest {
         GlobalPhaseRanker.rerankHitsImpl(setup, query, result);
         expect.verifyScores(result);
     }
+    @Test void parallelRescoringGivesSameScores() {
+        var setup = setup().rerank(200).eval(makeSumSpec(List.of("x"), List.of("bar"))).build();
+        var query = makeQuery(List.of(value("query(x)", 5)));
+        query.getRanking().getGlobalPhase().setNumThreads(4);
+        query.getRanking().getGlobalPhase().setMinHitsPerThread(30);
+        var factory = new HitFactory(List.of("bar"));
+        List<Hit> hits = new ArrayList<>();
+        List<Hit> expected = new ArrayList<>();
+        for (int i = 0; i < 150; i++) {
+            hits.add(factory.create("h" + i, 1000 - i, List.of(value("bar", i))));
+            expected.add(hit("h" + i, i + 5));
+        }
+        var result = makeResult(query, hits);
+        var expect = Expect.make(expected);
+        var pool = new ForkJoinPool(4);
+        try {
+            var reranker = GlobalPhaseRanker.rerankHitsImpl(setup, query, result, pool);
+            assertEquals(4, reranker.threadsUsed());
+        } finally {
+            pool.shutdown();
+        }
+        expect.verifyScores(result);
+    }
 }
@@ -651,6 +651,12 @@ public class QueryTestCase {
         q = new Query("?query=foo&" +
                       "ranking.globalPhase.rerankCount=42");
         assertEquals(42, q.getRanking().getGlobalPhase().getRerankCount());
+        assertNull(q.getRanking().getGlobalPhase().getNumThreads());
+        q = new Query("?query=foo&" +
+                      "ranking.globalPhase.numThreads=4&" +
+                      "ranking.globalPhase.minHitsPerThread=20");
+        assertEquals(4, q.getRanking().getGlobalPhase().getNumThreads());
+        assertEquals(20, q.getRanking().getGlobalPhase().getMinHitsPerThread());
     }
 
     @Test
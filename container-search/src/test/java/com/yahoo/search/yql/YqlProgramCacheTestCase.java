@@ -0,0 +1,108 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.search.yql;
+
+import com.yahoo.component.chain.Chain;
+import com.yahoo.language.simple.SimpleLinguistics;
+import com.yahoo.search.Query;
+import com.yahoo.search.searchchain.Execution;
+import org.junit.jupiter.api.Test;
+
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * @author agent
+ */
+public class YqlProgramCacheTestCase {
+
+    @Test
+    void testProgramsDifferingOnlyInLiteralsShareParse() throws Exception {
+        YqlProgramCache cache = new YqlProgramCache(10, 10000, null);
+        assertParsed("select * from sources * where title contains \"madonna\" and year > 1980 limit 10", cache);
+        assertParsed("select * from sources * where title contains \"bowie\" and year > 1970 limit 10", cache);
+        assertParsed("select * from sources * where title contains \"a \\\"quoted\\\" title\" and year > -5 limit 10", cache);
+        assertEquals(3, cache.takeLookups());
+        assertEquals(2, cache.takeHits());
+    }
+
+    @Test
+    void testLiteralTypesArePartOfTheStructure() throws Exception {
+        YqlProgramCache cache = new YqlProgramCache(10, 10000, null);
+        assertParsed("select * from sources * where year > 1980", cache);
+        assertParsed("select * from sources * where year > 1970", cache);
+        assertParsed("select * from sources * where year > 1980.5", cache);
+        assertParsed("select * from sources * where year > 1980L", cache);
+        assertParsed("select * from sources * where year > \"1980\"", cache);
+        assertParsed("select * from sources * where year > 3000000000", cache); // a long value of an int token
+        assertEquals(6, cache.takeLookups());
+        assertEquals(1, cache.takeHits());
+    }
+
+    @Test
+    void testLiteralsWhichAreNotExpressionsMustBeEqual() throws Exception {
+        YqlProgramCache cache = new YqlProgramCache(10, 10000, null);
+        assertParsed("select * from sources * where ({targetHits:10}nearestNeighbor(embedding, q)) limit 5 offset 3", cache);
+        assertParsed("select * from sources * where ({targetHits:10}nearestNeighbor(embedding, q)) limit 7 offset 2", cache);
+        assertParsed("select * from sources * where ({targetHits:20}nearestNeighbor(embedding, q)) limit 7 offset 2", cache);
+        assertParsed("select * from sources * where ({targetHits:20}nearestNeighbor(embedding, q)) limit 7 offset 2", cache);
+        assertParsed("select * from sources * where weightedSet(tags, {\"a\":1, \"b\":2}) and true", cache);
+        assertParsed("select * from sources * where weightedSet(tags, {\"a\":3, \"c\":4}) and false", cache);
+        assertEquals(6, cache.takeLookups());
+        assertEquals(2, cache.takeHits());
+    }
+
+    @Test
+    void testEachParseIsACopy() throws Exception {
+        YqlProgramCache cache = new YqlProgramCache(10, 10000, null);
+        String program = "select * from sources * where title contains \"madonna\"";
+        assertNotSame(cache.parse("query", program), cache.parse("query", program));
+        assertEquals(1, cache.takeHits());
+    }
+
+    @Test
+    void testInvalidProgramsAreNotCached() {
+        YqlProgramCache cache = new YqlProgramCache(10, 10000, null);
+        for (int i = 0; i < 2; i++)
+            assertThrows(ProgramCompileException.class, () -> cache.parse("query", "select * from sources * where title contains"));
+        assertThrows(ProgramCompileException.class, () -> cache.parse("query", "select * from sources * where \"unterminated"));
+        assertEquals(0, cache.takeHits());
+    }
+
+    @Test
+    void testLongProgramsAreNotCached() throws Exception {
+        YqlProgramCache cache = new YqlProgramCache(10, 30, null);
+        assertParsed("select * from sources * where title contains \"madonna\"", cache);
+        assertParsed("select * from sources * where title contains \"bowie\"", cache);
+        assertEquals(0, cache.takeLookups());
+    }
+
+    @Test
+    void testQueryInserterParsesThroughTheInjectedCache() {
+        YqlProgramCache cache = new YqlProgramCache(10, 10000, null);
+        var searchChain = new Chain<>(new MinimalQueryInserter(new SimpleLinguistics(), cache));
+        for (String title : new String[] { "madonna", "bowie" }) {
+            Query query = new Query("?yql=" + URLEncoder.encode("select * from sources * where title contains \"" + title + "\"",
+                                                                StandardCharsets.UTF_8));
+            new Execution(searchChain, Execution.Context.createContextStub()).search(query);
+            assertEquals("title:" + title, query.getModel().getQueryTree().toString());
+        }
+        assertEquals(2, cache.takeLookups());
+        assertEquals(1, cache.takeHits());
+    }
+
+    private void assertParsed(String program, YqlProgramCache cache) throws Exception {
+        OperatorNode<StatementOperator> expected = new ProgramParser().parse("query", program);
+        OperatorNode<StatementOperator> parsed = cache.parse("query", program);
+        assertEquals(expected, parsed);
+        assertEquals(withoutLocations(expected), withoutLocations(parsed));
+    }
+
+    private String withoutLocations(OperatorNode<?> node) {
+        return node.toString().replaceAll(" L\\d+:\\d+", "");
+    }
+
+}
@@ -26,6 +26,8 @@ import com.yahoo.messagebus.jdisc.MbusRequest;
 import com.yahoo.processing.execution.chain.ChainRegistry;
 
 import java.util.TimerTask;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import java.util.logging.Logger;
@@ -47,6 +49,8 @@ public class DocumentProcessingHandler extends AbstractRequestHandler {
     private final ChainRegistry<DocumentProcessor> chainRegistry = new ChainRegistry<>();
     private final ScheduledThreadPoolExecutor laterExecutor =
             new ScheduledThreadPoolExecutor(2, new DaemonThreadFactory("docproc-later-"));
+    /** Pool shared by all chains for processing the documents of a single message in parallel, or null if disabled */
+    private final ExecutorService batchExecutor;
     private final ContainerDocumentConfig containerDocConfig;
     private final DocumentTypeManager documentTypeManager;
 
@@ -54,6 +58,7 @@ public class DocumentProcessingHandler extends AbstractRequestHandler {
                                       ComponentRegistry<DocumentProcessor> documentProcessorComponentRegistry,
                                       ComponentRegistry<AbstractConcreteDocumentFactory> docFactoryRegistry,
                                       int numThreads,
+                                      int batchParallelism,
                                       DocumentTypeManager documentTypeManager,
                                       ChainsModel chainsModel, SchemaMap schemaMap,
                                       Metric metric,
@@ -65,6 +70,9 @@ public class DocumentProcessingHandler extends AbstractRequestHandler {
         DocprocService.schemaMap = schemaMap;
         laterExecutor.setContinueExistingPeriodicTasksAfterShutdownPolicy(false);
         laterExecutor.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+        batchExecutor = (batchParallelism > 1)
+                        ? Executors.newFixedThreadPool(batchParallelism, new DaemonThreadFactory("docproc-batch-"))
+                        : null;
 
         if (chainsModel != null) {
             prepareChainRegistry(chainRegistry, chainsModel, documentProcessorComponentRegistry);
@@ -88,6 +96,7 @@ public class DocumentProcessingHandler extends AbstractRequestHandler {
                               DocumentProcessingHandlerParameters params) {
         this(docprocServiceRegistry, documentProcessorComponentRegistry, docFactoryRegistry,
              params.getMaxNumThreads(),
+             params.getBatchParallelism(),
              params.getDocumentTypeManager(), params.getChainsModel(), params.getSchemaMap(),
              params.getMetric(),
              params.getContainerDocConfig());
@@ -106,6 +115,7 @@ public class DocumentProcessingHandler extends AbstractRequestHandler {
              documentProcessorComponentRegistry, docFactoryRegistry,
                 new DocumentProcessingHandlerParameters()
                      .setMaxNumThreads(docprocConfig.numthreads())
+                     .setBatchParallelism(docprocConfig.batchparallelism())
                      .setDocumentTypeManager(documentTypeManager)
                      .setChainsModel(buildFromConfig(chainsConfig)).setSchemaMap(configureMapping(mappingConfig))
                      .setMetric(metric)
@@ -116,6 +126,7 @@ public class DocumentProcessingHandler extends AbstractRequestHandler {
     @Override
     protected void destroy() {
         laterExecutor.shutdown();
+        if (batchExecutor != null) batchExecutor.shutdown();
         if ( ! laterExecutor.getQueue().isEmpty()) {
             // This should not happen, as container should keep this alive until all requests are served.
             log.log(Level.SEVERE, "Docproc laterExecutor queue not empty on shutdown, " + laterExecutor.getQueue().size() + " tasks discarded");
@@ -177,7 +188,7 @@ public class DocumentProcessingHandler extends AbstractRequestHandler {
             return null;
         }
 
-        DocumentProcessingTask task = new DocumentProcessingTask(requestContext, this, service, service.getThreadPoolExecutor());
+        DocumentProcessingTask task = new DocumentProcessingTask(requestContext, this, service, service.getThreadPoolExecutor(), batchExecutor);
         task.submit();
         return null;
     }
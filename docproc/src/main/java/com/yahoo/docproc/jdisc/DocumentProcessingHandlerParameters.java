@@ -17,6 +17,7 @@ import com.yahoo.jdisc.Metric;
 public class DocumentProcessingHandlerParameters {
 
     private int maxNumThreads = 0;
+    private int batchParallelism = 1;
     private DocumentTypeManager documentTypeManager = null;
     private ChainsModel chainsModel = null;
     private SchemaMap schemaMap = null;
@@ -48,6 +49,20 @@ public class DocumentProcessingHandlerParameters {
         return this;
     }
 
+    /**
+     * Returns the number of documents of a single message which may be processed in parallel.
+     *
+     * @return the number of documents of a single message which may be processed in parallel.
+     */
+    public int getBatchParallelism() {
+        return batchParallelism;
+    }
+
+    public DocumentProcessingHandlerParameters setBatchParallelism(int batchParallelism) {
+        this.batchParallelism = batchParallelism;
+        return this;
+    }
+
     public DocumentTypeManager getDocumentTypeManager() {
         return documentTypeManager;
     }
@@ -17,6 +17,9 @@ import java.io.StringWriter;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.logging.Logger;
@@ -35,13 +38,21 @@ public class DocumentProcessingTask implements Runnable {
 
     private final DocprocService service;
     private final ThreadPoolExecutor executor;
+    /** Executor used to process the processings of a batch in parallel, or null to process them sequentially */
+    private final ExecutorService batchExecutor;
 
     public DocumentProcessingTask(RequestContext requestContext, DocumentProcessingHandler docprocHandler,
                                   DocprocService service, ThreadPoolExecutor executor) {
+        this(requestContext, docprocHandler, service, executor, null);
+    }
+
+    public DocumentProcessingTask(RequestContext requestContext, DocumentProcessingHandler docprocHandler,
+                                  DocprocService service, ThreadPoolExecutor executor, ExecutorService batchExecutor) {
         this.requestContext = requestContext;
         this.docprocHandler = docprocHandler;
         this.service = service;
         this.executor = executor;
+        this.batchExecutor = batchExecutor;
     }
 
     void submit() {
@@ -82,66 +93,147 @@ public class DocumentProcessingTask implements Runnable {
     }
 
     /**
-     * Processes a single Processing, and fails the message if this processing fails.
+     * Processes all pending processings, and fails the message if any of these fail.
      *
      * @param executor the DocprocService to use for processing
      */
     private DocumentProcessor.Progress process(DocprocExecutor executor) {
+        if (batchExecutor != null && processings.size() > 1)
+            return processInParallel(executor);
+
         Iterator<Processing> iterator = processings.iterator();
         List<Tuple2<DocumentProcessor.Progress, Processing>> later = new ArrayList<>();
         while (iterator.hasNext()) {
             Processing processing = iterator.next();
             iterator.remove();
-            if (requestContext.hasExpired()) {
-                DocumentProcessor.Progress progress = DocumentProcessor.Progress.FAILED;
-                final String location;
-                if (processing != null) {
-                    final CallStack callStack = processing.callStack();
-                    if (callStack != null) {
-                        final Call lastPopped = callStack.getLastPopped();
-                        if (lastPopped != null) {
-                            location = lastPopped.toString();
-                        } else {
-                            location = "empty call stack or no processors popped";
-                        }
-                    } else {
-                        location = "no call stack";
-                    }
-                } else {
-                    location = "no processing instance";
-                }
-                log.log(Level.FINE, () -> "Time is up for '" + processing + " failed, " + location + "'.");
-                requestContext.processingFailed(RequestContext.ErrorCode.ERROR_PROCESSING_FAILURE, "Time is up.");
-                return progress;
-            }
+            if (requestContext.hasExpired())
+                return timeIsUp(processing);
 
             DocumentProcessor.Progress progress = DocumentProcessor.Progress.FAILED;
             try {
                 progress = executor.process(processing);
             } catch (Exception e) {
                 logProcessingFailure(processing, e);
-                requestContext.processingFailed(e);
+                if (requestContext.processingFailed(processing, e)) continue;
                 return progress;
             }
 
-            if (DocumentProcessor.Progress.LATER.equals(progress)) {
-                later.add(new Tuple2<>(progress, processing));
-            } else if (DocumentProcessor.Progress.DONE.equals(progress)) {
-                processingsDone.add(processing);
-            } else if (DocumentProcessor.Progress.FAILED.equals(progress)) {
-                logProcessingFailure(processing, null);
-                requestContext.processingFailed(RequestContext.ErrorCode.ERROR_PROCESSING_FAILURE,
-                        progress.getReason().orElse("Document processing failed."));
-                return progress;
-            } else if (DocumentProcessor.Progress.PERMANENT_FAILURE.equals(progress)) {
-                logProcessingFailure(processing, null);
-                requestContext.processingFailed(RequestContext.ErrorCode.ERROR_PROCESSING_FAILURE,
-                        progress.getReason().orElse("Document processing failed."));
+            if ( ! handleProgress(progress, processing, later))
                 return progress;
+        }
+        return completeOrRetryLater(later);
+    }
+
+    /**
+     * Processes all pending processings concurrently using the batch executor. The calling thread processes
+     * the first one itself (and any rejected by the batch executor), and waits for the others to complete.
+     * Results are inspected in the original order, so the processings are forwarded in the same order
+     * as when processed sequentially, and Progress.LATER is handled the same way.
+     *
+     * @param executor the DocprocService to use for processing
+     */
+    private DocumentProcessor.Progress processInParallel(DocprocExecutor executor) {
+        List<Processing> batch = new ArrayList<>(processings);
+        processings.clear();
+        if (requestContext.hasExpired())
+            return timeIsUp(batch.get(0));
+
+        // A null result means the processing is done by the calling thread
+        List<Future<DocumentProcessor.Progress>> results = new ArrayList<>(batch.size());
+        results.add(null);
+        for (Processing processing : batch.subList(1, batch.size())) {
+            try {
+                results.add(batchExecutor.submit(() -> executor.process(processing)));
+            } catch (RejectedExecutionException e) {
+                results.add(null);
             }
         }
 
-        // Processings that have FAILED will have made this method terminate by now.
+        List<Tuple2<DocumentProcessor.Progress, Processing>> later = new ArrayList<>();
+        DocumentProcessor.Progress failure = null;
+        for (int i = 0; i < batch.size(); i++) {
+            Processing processing = batch.get(i);
+            if (failure != null && results.get(i) == null) continue;
+
+            DocumentProcessor.Progress progress = DocumentProcessor.Progress.FAILED;
+            try {
+                progress = (results.get(i) == null) ? executor.process(processing) : await(results.get(i));
+            } catch (Exception e) {
+                if (failure == null) {
+                    logProcessingFailure(processing, e);
+                    if ( ! requestContext.processingFailed(processing, e))
+                        failure = progress;
+                }
+                continue;
+            }
+            if (failure == null && ! handleProgress(progress, processing, later))
+                failure = progress;
+        }
+        // Wait for all submitted processings also on failure, as they may still be modifying the documents
+        return failure != null ? failure : completeOrRetryLater(later);
+    }
+
+    private static DocumentProcessor.Progress await(Future<DocumentProcessor.Progress> result) throws Exception {
+        try {
+            return result.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof Error error) throw error;
+            if (e.getCause() instanceof Exception cause) throw cause;
+            throw e;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw e;
+        }
+    }
+
+    private DocumentProcessor.Progress timeIsUp(Processing processing) {
+        final String location;
+        if (processing != null) {
+            final CallStack callStack = processing.callStack();
+            if (callStack != null) {
+                final Call lastPopped = callStack.getLastPopped();
+                if (lastPopped != null) {
+                    location = lastPopped.toString();
+                } else {
+                    location = "empty call stack or no processors popped";
+                }
+            } else {
+                location = "no call stack";
+            }
+        } else {
+            location = "no processing instance";
+        }
+        log.log(Level.FINE, () -> "Time is up for '" + processing + " failed, " + location + "'.");
+        requestContext.processingFailed(RequestContext.ErrorCode.ERROR_PROCESSING_FAILURE, "Time is up.");
+        return DocumentProcessor.Progress.FAILED;
+    }
+
+    /**
+     * Records the outcome of processing the given processing.
+     *
+     * @return false if the processing failed, in which case the message has been failed, and true otherwise,
+     *         or if only the operation of this processing has been failed
+     */
+    private boolean handleProgress(DocumentProcessor.Progress progress, Processing processing,
+                                   List<Tuple2<DocumentProcessor.Progress, Processing>> later) {
+        if (DocumentProcessor.Progress.LATER.equals(progress)) {
+            later.add(new Tuple2<>(progress, processing));
+        } else if (DocumentProcessor.Progress.DONE.equals(progress)) {
+            processingsDone.add(processing);
+        } else if (DocumentProcessor.Progress.FAILED.equals(progress)) {
+            logProcessingFailure(processing, null);
+            return requestContext.processingFailed(processing, RequestContext.ErrorCode.ERROR_PROCESSING_FAILURE,
+                    progress.getReason().orElse("Document processing failed."));
+        } else if (DocumentProcessor.Progress.PERMANENT_FAILURE.equals(progress)) {
+            logProcessingFailure(processing, null);
+            return requestContext.processingFailed(processing, RequestContext.ErrorCode.ERROR_PROCESSING_FAILURE,
+                    progress.getReason().orElse("Document processing failed."));
+        }
+        return true;
+    }
+
+    private DocumentProcessor.Progress completeOrRetryLater(List<Tuple2<DocumentProcessor.Progress, Processing>> later) {
+        // Processings that have FAILED will have made processing terminate by now.
         // We now have successful Processings in 'processingsDone' and
         // the ones that have returned LATER in 'later'.
 
@@ -27,6 +27,28 @@ public interface RequestContext {
 
     void processingFailed(Exception exception);
 
+    /**
+     * Fails the given processing of this request.
+     *
+     * @return true if only the operation of the given processing is failed, such that the other processings
+     *         of this should complete as usual, and false if this request as a whole is failed
+     */
+    default boolean processingFailed(Processing processing, ErrorCode error, String msg) {
+        processingFailed(error, msg);
+        return false;
+    }
+
+    /**
+     * Fails the given processing of this request.
+     *
+     * @return true if only the operation of the given processing is failed, such that the other processings
+     *         of this should complete as usual, and false if this request as a whole is failed
+     */
+    default boolean processingFailed(Processing processing, Exception exception) {
+        processingFailed(exception);
+        return false;
+    }
+
     /** Returns whether this request has timed out */
     default boolean hasExpired() { return false; }
 
@@ -0,0 +1,51 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.docproc.jdisc.messagebus;
+
+import com.yahoo.documentapi.messagebus.protocol.BatchDocumentReply;
+import com.yahoo.jdisc.Response;
+import com.yahoo.jdisc.handler.ResponseDispatch;
+import com.yahoo.jdisc.handler.ResponseHandler;
+import com.yahoo.messagebus.Reply;
+import com.yahoo.messagebus.jdisc.MbusResponse;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Collects the reply to each operation of a batch, and responds with a batch reply containing them,
+ * in the order of the operations, once all have been received.
+ *
+ * @author agent
+ */
+class BatchResponseMerger {
+
+    private final ResponseHandler responseHandler;
+    private final Reply[] replies;
+    private int numPending;
+
+    BatchResponseMerger(int operations, ResponseHandler responseHandler) {
+        this.responseHandler = responseHandler;
+        this.replies = new Reply[operations];
+        this.numPending = operations;
+    }
+
+    /** Returns a handler of the response to the operation at the given index in the batch */
+    ResponseHandler operationHandler(int index) {
+        return response -> {
+            reply(index, ((MbusResponse)response).getReply());
+            return null;
+        };
+    }
+
+    /** Sets the reply to the operation at the given index in the batch */
+    void reply(int index, Reply reply) {
+        synchronized (this) {
+            replies[index] = reply;
+            if (--numPending != 0) return;
+        }
+        List<Reply> batchReplies = Arrays.asList(replies);
+        ResponseDispatch.newInstance(new MbusResponse(Response.Status.OK, new BatchDocumentReply(batchReplies)))
+                        .dispatch(responseHandler);
+    }
+
+}
@@ -10,8 +10,10 @@ import com.yahoo.docproc.Processing;
 import com.yahoo.docproc.impl.TransientFailureException;
 import com.yahoo.docproc.jdisc.RequestContext;
 import com.yahoo.document.DocumentOperation;
+import com.yahoo.documentapi.messagebus.protocol.BatchDocumentMessage;
 import com.yahoo.documentapi.messagebus.protocol.DocumentMessage;
 import com.yahoo.documentapi.messagebus.protocol.DocumentProtocol;
+import com.yahoo.documentapi.messagebus.protocol.TestAndSetMessage;
 import com.yahoo.jdisc.Request;
 import com.yahoo.jdisc.Response;
 import com.yahoo.jdisc.handler.ContentChannel;
@@ -27,7 +29,10 @@ import com.yahoo.messagebus.jdisc.MbusResponse;
 import java.net.URI;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.logging.Logger;
 
@@ -48,6 +53,10 @@ public class MbusRequestContext implements RequestContext, ResponseHandler {
     private final MbusRequest request;
     private final DocumentMessage requestMsg;
     private final ResponseHandler responseHandler;
+    /** The index in the batch of the operation of each processing, if the request is a batch */
+    private final Map<Processing, Integer> batchIndexes = new IdentityHashMap<>();
+    /** The reply to each operation of the batch which failed processing, by index in the batch */
+    private final Map<Integer, Reply> failedOperations = new HashMap<>();
     // When spawning off new documents inside document processor, we do not want
     // throttling since this can lead to live locks. This is because the
     // document being processed is a resource and is then grabbing more resources of
@@ -71,7 +80,12 @@ public class MbusRequestContext implements RequestContext, ResponseHandler {
         if (deserialized.getAndSet(true)) {
             return List.of();
         }
-        return processingFactory.fromMessage(requestMsg);
+        List<Processing> processings = processingFactory.fromMessage(requestMsg);
+        if (requestMsg instanceof BatchDocumentMessage) {
+            for (int i = 0; i < processings.size(); i++)
+                batchIndexes.put(processings.get(i), i);
+        }
+        return processings;
     }
 
     @Override
@@ -83,21 +97,59 @@ public class MbusRequestContext implements RequestContext, ResponseHandler {
 
     @Override
     public void processingDone(List<Processing> processings) {
+        if (requestMsg instanceof BatchDocumentMessage batch) {
+            batchProcessingDone(batch, processings);
+            return;
+        }
         List<DocumentMessage> messages = new ArrayList<>();
-        if (messageFactory != null) {
-            for (Processing processing : processings) {
-                for (DocumentOperation documentOperation : processing.getDocumentOperations()) {
-                    messages.add(messageFactory.fromDocumentOperation(processing, documentOperation));
-                }
-            }
+        for (Processing processing : processings) {
+            addMessages(processing, messages);
         }
         log.log(Level.FINE, () ->"Forwarding " + messages.size() + " messages from " + processings.size() + " processings.");
         if (messages.isEmpty()) {
             dispatchResponse(Response.Status.OK);
             return;
         }
-        long inputSequenceId = requestMsg.getSequenceId();
-        ResponseMerger responseHandler = new ResponseMerger(requestMsg, messages.size(), this);
+        dispatchRequests(messages, requestMsg, new ResponseMerger(requestMsg, messages.size(), this));
+    }
+
+    /** Forwards the messages resulting from each operation of a batch, and replies with the reply to each operation */
+    private void batchProcessingDone(BatchDocumentMessage batch, List<Processing> processings) {
+        List<TestAndSetMessage> operations = batch.getOperations();
+        List<List<DocumentMessage>> messages = new ArrayList<>(operations.size());
+        for (int i = 0; i < operations.size(); i++) {
+            messages.add(new ArrayList<>());
+        }
+        for (Processing processing : processings) {
+            int index = batchIndexes.get(processing);
+            if ( ! failedOperations.containsKey(index))
+                addMessages(processing, messages.get(index));
+        }
+        log.log(Level.FINE, () ->"Forwarding messages from " + processings.size() + " processings of " + batch + ".");
+        BatchResponseMerger batchResponseHandler = new BatchResponseMerger(operations.size(), this);
+        for (int i = 0; i < operations.size(); i++) {
+            TestAndSetMessage operation = operations.get(i);
+            if (failedOperations.containsKey(i)) {
+                batchResponseHandler.reply(i, failedOperations.get(i));
+            } else if (messages.get(i).isEmpty()) {
+                batchResponseHandler.reply(i, operation.createReply());
+            } else {
+                dispatchRequests(messages.get(i), operation,
+                                 new ResponseMerger(operation, messages.get(i).size(), batchResponseHandler.operationHandler(i)));
+            }
+        }
+    }
+
+    private void addMessages(Processing processing, List<DocumentMessage> messages) {
+        if (messageFactory == null) return;
+        for (DocumentOperation documentOperation : processing.getDocumentOperations()) {
+            messages.add(messageFactory.fromDocumentOperation(processing, documentOperation));
+        }
+    }
+
+    /** Dispatches the messages resulting from processing the given input message */
+    private void dispatchRequests(List<DocumentMessage> messages, Message inputMsg, ResponseHandler responseHandler) {
+        long inputSequenceId = inputMsg.getSequenceId();
         int numMsgWithOriginalSequenceId = 0;
         for (Message message : messages) {
             if (message.getSequenceId() == inputSequenceId) numMsgWithOriginalSequenceId++;
@@ -113,12 +165,46 @@ public class MbusRequestContext implements RequestContext, ResponseHandler {
 
     @Override
     public void processingFailed(Exception exception) {
-        ErrorCode errorCode;
+        processingFailed(errorCodeOf(exception), errorMessageOf(exception));
+    }
+
+    @Override
+    public void processingFailed(ErrorCode errorCode, String errorMsg) {
+        MbusResponse response = new MbusResponse(errorCode.getDiscStatus(), requestMsg.createReply());
+        response.getReply().addError(new com.yahoo.messagebus.Error(errorCode.getDocumentProtocolStatus(), errorMsg));
+        ResponseDispatch.newInstance(response).dispatch(this);
+    }
+
+    /** Fails only the operation of the given processing if the request is a batch, and the whole request otherwise */
+    @Override
+    public boolean processingFailed(Processing processing, ErrorCode errorCode, String errorMsg) {
+        Integer index = batchIndexes.get(processing);
+        if (index == null) {
+            processingFailed(errorCode, errorMsg);
+            return false;
+        }
+        if ( ! failedOperations.containsKey(index)) {
+            Reply reply = ((BatchDocumentMessage) requestMsg).getOperations().get(index).createReply();
+            reply.addError(new com.yahoo.messagebus.Error(errorCode.getDocumentProtocolStatus(), errorMsg));
+            failedOperations.put(index, reply);
+        }
+        return true;
+    }
+
+    @Override
+    public boolean processingFailed(Processing processing, Exception exception) {
+        return processingFailed(processing, errorCodeOf(exception), errorMessageOf(exception));
+    }
+
+    private static ErrorCode errorCodeOf(Exception exception) {
         if (exception instanceof TransientFailureException) {
-            errorCode = ErrorCode.ERROR_ABORTED;
+            return ErrorCode.ERROR_ABORTED;
         } else {
-            errorCode = ErrorCode.ERROR_PROCESSING_FAILURE;
+            return ErrorCode.ERROR_PROCESSING_FAILURE;
         }
+    }
+
+    private static String errorMessageOf(Exception exception) {
         StringBuilder errorMsg = new StringBuilder("Processing failed.");
         if (exception instanceof HandledProcessingException) {
             errorMsg.append(" Error message: ").append(exception.getMessage());
@@ -126,14 +212,7 @@ public class MbusRequestContext implements RequestContext, ResponseHandler {
             errorMsg.append(" Error message: ").append(exception);
         }
         errorMsg.append(" -- See Vespa log for details.");
-        processingFailed(errorCode, errorMsg.toString());
-    }
-
-    @Override
-    public void processingFailed(ErrorCode errorCode, String errorMsg) {
-        MbusResponse response = new MbusResponse(errorCode.getDiscStatus(), requestMsg.createReply());
-        response.getReply().addError(new com.yahoo.messagebus.Error(errorCode.getDocumentProtocolStatus(), errorMsg));
-        ResponseDispatch.newInstance(response).dispatch(this);
+        return errorMsg.toString();
     }
 
     @Override
@@ -152,7 +231,8 @@ public class MbusRequestContext implements RequestContext, ResponseHandler {
         return switch (requestMsg.getType()) {
             case DocumentProtocol.MESSAGE_PUTDOCUMENT,
                  DocumentProtocol.MESSAGE_UPDATEDOCUMENT,
-                 DocumentProtocol.MESSAGE_REMOVEDOCUMENT -> true;
+                 DocumentProtocol.MESSAGE_REMOVEDOCUMENT,
+                 DocumentProtocol.MESSAGE_BATCHDOCUMENT -> true;
             default -> false;
         };
     }
@@ -12,6 +12,7 @@ import com.yahoo.document.DocumentOperation;
 import com.yahoo.document.DocumentPut;
 import com.yahoo.document.DocumentRemove;
 import com.yahoo.document.DocumentUpdate;
+import com.yahoo.documentapi.messagebus.protocol.BatchDocumentMessage;
 import com.yahoo.documentapi.messagebus.protocol.DocumentProtocol;
 import com.yahoo.documentapi.messagebus.protocol.PutDocumentMessage;
 import com.yahoo.documentapi.messagebus.protocol.RemoveDocumentMessage;
@@ -41,22 +42,33 @@ class ProcessingFactory {
     }
 
     public List<Processing> fromMessage(Message message) {
-        return switch (message.getType()) {
+        if (message.getType() == DocumentProtocol.MESSAGE_BATCHDOCUMENT) {
+            List<Processing> processings = new ArrayList<>();
+            for (Message operation : ((BatchDocumentMessage) message).getOperations())
+                processings.addAll(fromOperation(operation, message));
+            return processings;
+        }
+        return fromOperation(message, message);
+    }
+
+    /** Returns the processing of the given operation, which is either the given message or part of it */
+    private List<Processing> fromOperation(Message operation, Message message) {
+        return switch (operation.getType()) {
             case DocumentProtocol.MESSAGE_PUTDOCUMENT -> {
-                PutDocumentMessage putMessage = (PutDocumentMessage) message;
+                PutDocumentMessage putMessage = (PutDocumentMessage) operation;
                 DocumentPut putOperation = new DocumentPut(createPutDocument(putMessage));
                 putOperation.setCondition(putMessage.getCondition());
                 putOperation.setCreateIfNonExistent(putMessage.getCreateIfNonExistent());
                 yield List.of(createProcessing(putOperation, message));
             }
             case DocumentProtocol.MESSAGE_UPDATEDOCUMENT -> {
-                UpdateDocumentMessage updateMessage = (UpdateDocumentMessage) message;
+                UpdateDocumentMessage updateMessage = (UpdateDocumentMessage) operation;
                 DocumentUpdate updateOperation = updateMessage.getDocumentUpdate();
                 updateOperation.setCondition(updateMessage.getCondition());
                 yield List.of(createProcessing(updateOperation, message));
             }
             case DocumentProtocol.MESSAGE_REMOVEDOCUMENT -> {
-                RemoveDocumentMessage removeMessage = (RemoveDocumentMessage) message;
+                RemoveDocumentMessage removeMessage = (RemoveDocumentMessage) operation;
                 DocumentRemove removeOperation = new DocumentRemove(removeMessage.getDocumentId());
                 removeOperation.setCondition(removeMessage.getCondition());
                 yield List.of(createProcessing(removeOperation, message));
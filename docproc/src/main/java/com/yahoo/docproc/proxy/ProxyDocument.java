@@ -20,6 +20,7 @@ import com.yahoo.document.serialization.DocumentWriter;
 import com.yahoo.document.serialization.FieldReader;
 import com.yahoo.document.serialization.FieldWriter;
 import com.yahoo.document.serialization.SerializationException;
+import com.yahoo.document.serialization.SerializedFieldValue;
 import com.yahoo.document.serialization.XmlStream;
 import com.yahoo.vespa.objects.Serializer;
 
@@ -97,6 +98,17 @@ public class ProxyDocument extends Document implements DocumentOperationWrapper
         return doc.getFieldValue(field);
     }
 
+    @Override
+    public SerializedFieldValue getSerializedFieldValue(Field field) {
+        return doc.getSerializedFieldValue(field);
+    }
+
+    @Override
+    public void setSerializedFieldValue(SerializedFieldValue value) {
+        checkAccess(value.getField());
+        doc.setSerializedFieldValue(value);
+    }
+
     @Override
     public FieldValue setFieldValue(String fieldName, FieldValue fieldValue) {
         SetHandler handler = new SetHandler(fieldValue);
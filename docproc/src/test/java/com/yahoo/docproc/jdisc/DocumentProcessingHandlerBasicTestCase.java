@@ -6,22 +6,30 @@ import com.yahoo.docproc.CallStack;
 import com.yahoo.docproc.SimpleDocumentProcessor;
 import com.yahoo.document.DataType;
 import com.yahoo.document.Document;
+import com.yahoo.document.DocumentId;
 import com.yahoo.document.DocumentPut;
 import com.yahoo.document.DocumentType;
 import com.yahoo.document.Field;
 import com.yahoo.document.datatypes.StringFieldValue;
+import com.yahoo.documentapi.messagebus.protocol.BatchDocumentMessage;
+import com.yahoo.documentapi.messagebus.protocol.BatchDocumentReply;
+import com.yahoo.documentapi.messagebus.protocol.DocumentProtocol;
 import com.yahoo.documentapi.messagebus.protocol.PutDocumentMessage;
+import com.yahoo.documentapi.messagebus.protocol.RemoveDocumentMessage;
 import com.yahoo.messagebus.Message;
 import com.yahoo.messagebus.Reply;
 import org.junit.Test;
 
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 import java.util.concurrent.TimeUnit;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
 /**
@@ -57,6 +65,56 @@ public class DocumentProcessingHandlerBasicTestCase extends DocumentProcessingHa
         assertFalse(reply.hasErrors());
     }
 
+    @Test
+    public void testBatch() throws InterruptedException {
+        Document document = new Document(getType(), "id:ns:yalla::balla");
+        document.setFieldValue("blahblah", new StringFieldValue("This is a test."));
+        PutDocumentMessage put = new PutDocumentMessage(new DocumentPut(document));
+        RemoveDocumentMessage remove = new RemoveDocumentMessage(new DocumentId("id:ns:yalla::other"));
+
+        assertTrue(sendMessage("foobar", new BatchDocumentMessage(List.of(put, remove))));
+
+        Set<Integer> forwardedTypes = new HashSet<>();
+        for (int i = 0; i < 2; i++) {
+            Message msg = remoteServer.awaitMessage(60, TimeUnit.SECONDS);
+            assertNotNull(msg);
+            forwardedTypes.add(msg.getType());
+            remoteServer.ackMessage(msg);
+        }
+        assertEquals(Set.of(DocumentProtocol.MESSAGE_PUTDOCUMENT, DocumentProtocol.MESSAGE_REMOVEDOCUMENT), forwardedTypes);
+
+        Reply reply = driver.client().awaitReply(60, TimeUnit.SECONDS);
+        assertNotNull(reply);
+        assertFalse(reply.hasErrors());
+        List<Reply> replies = ((BatchDocumentReply) reply).getReplies();
+        assertEquals(2, replies.size());
+        assertFalse(replies.get(0).hasErrors());
+        assertFalse(replies.get(1).hasErrors());
+    }
+
+    @Test
+    public void testBatchWithFailingOperation() throws InterruptedException {
+        PutDocumentMessage put = new PutDocumentMessage(new DocumentPut(new Document(getType(), "id:ns:yalla::balla")));
+        PutDocumentMessage failing = new PutDocumentMessage(new DocumentPut(new Document(getType(), "id:ns:yalla::fail")));
+
+        assertTrue(sendMessage("foobar", new BatchDocumentMessage(List.of(put, failing))));
+
+        Message msg = remoteServer.awaitMessage(60, TimeUnit.SECONDS);
+        assertNotNull(msg);
+        assertEquals(put.getDocumentPut().getId(), ((PutDocumentMessage) msg).getDocumentPut().getId());
+        remoteServer.ackMessage(msg);
+
+        Reply reply = driver.client().awaitReply(60, TimeUnit.SECONDS);
+        assertNotNull(reply);
+        assertFalse(reply.hasErrors());
+        List<Reply> replies = ((BatchDocumentReply) reply).getReplies();
+        assertEquals(2, replies.size());
+        assertFalse(replies.get(0).hasErrors());
+        assertTrue(replies.get(1).hasErrors());
+        assertEquals(DocumentProtocol.ERROR_PROCESSING_FAILURE, replies.get(1).getError(0).getCode());
+        assertNull(remoteServer.awaitMessage(100, TimeUnit.MILLISECONDS));
+    }
+
     @Override
     public List<Pair<String,CallStack>> getCallStacks() {
         CallStack stack = new CallStack();
@@ -73,5 +131,12 @@ public class DocumentProcessingHandlerBasicTestCase extends DocumentProcessingHa
     }
 
     public static class TestDocumentProcessor extends SimpleDocumentProcessor {
+
+        @Override
+        public void process(DocumentPut put) {
+            if (put.getId().toString().equals("id:ns:yalla::fail"))
+                throw new IllegalArgumentException("Failing " + put.getId());
+        }
+
     }
 }
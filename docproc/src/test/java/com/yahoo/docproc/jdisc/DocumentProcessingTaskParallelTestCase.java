@@ -0,0 +1,133 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.docproc.jdisc;
+
+import com.yahoo.concurrent.DaemonThreadFactory;
+import com.yahoo.docproc.CallStack;
+import com.yahoo.docproc.DocumentProcessor;
+import com.yahoo.docproc.Processing;
+import com.yahoo.docproc.SimpleDocumentProcessor;
+import com.yahoo.docproc.impl.DocprocService;
+import com.yahoo.document.DataType;
+import com.yahoo.document.DocumentId;
+import com.yahoo.document.DocumentPut;
+import com.yahoo.document.DocumentType;
+import org.junit.After;
+import org.junit.Test;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests processing the documents of a single message in parallel.
+ *
+ * @author agent
+ */
+public class DocumentProcessingTaskParallelTestCase {
+
+    private static final DocumentType type = new DocumentType("test");
+    static {
+        type.addField("test", DataType.STRING);
+    }
+
+    private final ExecutorService batchExecutor = Executors.newFixedThreadPool(4, new DaemonThreadFactory("test-batch-"));
+
+    @After
+    public void shutdown() {
+        batchExecutor.shutdownNow();
+    }
+
+    @Test
+    public void testDocumentsAreProcessedInParallelAndForwardedInOrder() {
+        // Each document waits for all others to be under processing, which only completes if processed in parallel
+        CountDownLatch allStarted = new CountDownLatch(4);
+        Set<String> threads = ConcurrentHashMap.newKeySet();
+        DocprocService service = createService(new SimpleDocumentProcessor() {
+            @Override
+            public void process(DocumentPut put) {
+                threads.add(Thread.currentThread().getName());
+                allStarted.countDown();
+                try {
+                    assertTrue(allStarted.await(60, TimeUnit.SECONDS));
+                }
+                catch (InterruptedException e) {
+                    throw new RuntimeException(e);
+                }
+                put.getDocument().setFieldValue("test", "processed");
+            }
+        });
+        TestRequestContext context = new TestRequestContext(createProcessings(4));
+        new DocumentProcessingTask(context, null, service, service.getThreadPoolExecutor(), batchExecutor).run();
+
+        assertNull(context.failure);
+        assertEquals(4, threads.size());
+        assertEquals(4, context.done.size());
+        for (int i = 0; i < 4; i++) {
+            DocumentPut put = (DocumentPut) context.done.get(i).getDocumentOperations().get(0);
+            assertEquals("id:ns:test::" + i, put.getId().toString());
+            assertEquals("processed", put.getDocument().getFieldValue("test").toString());
+        }
+    }
+
+    @Test
+    public void testFailureOfOneDocumentFailsMessage() {
+        DocprocService service = createService(new SimpleDocumentProcessor() {
+            @Override
+            public void process(DocumentPut put) {
+                if (put.getId().toString().endsWith("2"))
+                    throw new IllegalArgumentException("Failing document 2");
+            }
+        });
+        TestRequestContext context = new TestRequestContext(createProcessings(4));
+        new DocumentProcessingTask(context, null, service, service.getThreadPoolExecutor(), batchExecutor).run();
+
+        assertEquals("Failing document 2", context.failure);
+        assertTrue(context.done.isEmpty());
+    }
+
+    private static DocprocService createService(DocumentProcessor processor) {
+        DocprocService service = new DocprocService("parallel");
+        service.setCallStack(new CallStack().addLast(processor));
+        service.setInService(true);
+        return service;
+    }
+
+    private static List<Processing> createProcessings(int count) {
+        List<Processing> processings = new ArrayList<>();
+        for (int i = 0; i < count; i++)
+            processings.add(Processing.of(new DocumentPut(type, new DocumentId("id:ns:test::" + i))));
+        return processings;
+    }
+
+    private static class TestRequestContext implements RequestContext {
+
+        private final List<Processing> processings;
+        private final List<Processing> done = new ArrayList<>();
+        private String failure = null;
+
+        TestRequestContext(List<Processing> processings) {
+            this.processings = processings;
+        }
+
+        @Override public List<Processing> getProcessings() { return processings; }
+        @Override public String getServiceName() { return "parallel"; }
+        @Override public URI getUri() { return URI.create("test://parallel"); }
+        @Override public boolean isProcessable() { return true; }
+        @Override public void processingDone(List<Processing> processings) { done.addAll(processings); }
+        @Override public void processingFailed(ErrorCode error, String msg) { failure = msg; }
+        @Override public void processingFailed(Exception exception) { failure = exception.getMessage(); }
+        @Override public void skip() { }
+
+    }
+
+}
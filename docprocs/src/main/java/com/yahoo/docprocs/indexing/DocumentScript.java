@@ -17,7 +17,9 @@ import com.yahoo.document.update.FieldUpdate;
 import com.yahoo.document.update.MapValueUpdate;
 import com.yahoo.document.update.ValueUpdate;
 import com.yahoo.vespa.indexinglanguage.AdapterFactory;
+import com.yahoo.vespa.indexinglanguage.expressions.CompiledScript;
 import com.yahoo.vespa.indexinglanguage.expressions.Expression;
+import com.yahoo.vespa.indexinglanguage.expressions.ScriptCompiler;
 
 import java.util.Collection;
 import java.util.HashSet;
@@ -33,11 +35,14 @@ public class DocumentScript {
     private final String documentType;
     private final Set<String> inputFields;
     private final Expression expression;
+    /** The expression compiled, used to execute documents */
+    private final CompiledScript compiled;
 
     public DocumentScript(String documentType, Collection<String> inputFields, Expression expression) {
         this.documentType = documentType;
         this.inputFields = new HashSet<>(inputFields);
         this.expression = expression;
+        this.compiled = ScriptCompiler.compile(expression);
     }
 
     public Expression getExpression() { return expression; }
@@ -48,7 +53,7 @@ public class DocumentScript {
             requireThatFieldIsDeclaredInDocument(entry.getKey());
             removeAnyLinguisticsSpanTree(entry.getValue());
         }
-        return expression.execute(adapterFactory, document);
+        return compiled.execute(adapterFactory, document);
     }
 
     public DocumentUpdate execute(AdapterFactory adapterFactory, DocumentUpdate update) {
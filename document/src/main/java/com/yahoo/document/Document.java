@@ -12,6 +12,7 @@ import com.yahoo.document.serialization.DocumentWriter;
 import com.yahoo.document.serialization.FieldReader;
 import com.yahoo.document.serialization.FieldWriter;
 import com.yahoo.document.serialization.SerializationException;
+import com.yahoo.document.serialization.SerializedFieldValue;
 import com.yahoo.document.serialization.XmlSerializationHelper;
 import com.yahoo.document.serialization.XmlStream;
 import com.yahoo.io.GrowableByteBuffer;
@@ -180,11 +181,21 @@ public class Document extends StructuredFieldValue {
         return content.getFieldValue(field);
     }
 
+    @Override
+    public SerializedFieldValue getSerializedFieldValue(Field field) {
+        return content.getSerializedFieldValue(field);
+    }
+
     @Override
     protected void doSetFieldValue(Field field, FieldValue value) {
         content.setFieldValue(field, value);
     }
 
+    /** Sets the value of a field to a serialized value, which is deserialized when the value is first accessed. */
+    public void setSerializedFieldValue(SerializedFieldValue value) {
+        content.setSerializedFieldValue(value);
+    }
+
     @Override
     public FieldValue removeFieldValue(Field field) {
         return content.removeFieldValue(field);
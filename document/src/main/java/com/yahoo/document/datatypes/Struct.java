@@ -9,6 +9,7 @@ import com.yahoo.document.PositionDataType;
 import com.yahoo.document.StructDataType;
 import com.yahoo.document.serialization.FieldReader;
 import com.yahoo.document.serialization.FieldWriter;
+import com.yahoo.document.serialization.SerializedFieldValue;
 import com.yahoo.document.serialization.XmlSerializationHelper;
 import com.yahoo.document.serialization.XmlStream;
 import com.yahoo.vespa.objects.Ids;
@@ -27,7 +28,8 @@ import java.util.Set;
 public class Struct extends StructuredFieldValue {
 
     public static final int classId = registerClass(Ids.document + 33, Struct.class);
-    private Hashlet<Integer, FieldValue> values = new Hashlet<>();
+    /** The values of this: A FieldValue, or a SerializedFieldValue which is deserialized on first access */
+    private Hashlet<Integer, Object> values = new Hashlet<>();
     private int [] order = null;
 
     private int version;
@@ -47,6 +49,24 @@ public class Struct extends StructuredFieldValue {
         order = null;
     }
 
+    /**
+     * Returns the value at the given index, deserializing it first if necessary.
+     * Serialized values are not replaced by their deserialized value, such that reading values does not
+     * modify this, as readers are allowed to access the same struct concurrently.
+     */
+    private FieldValue valueAt(int index) {
+        Object value = values.value(index);
+        if (value instanceof SerializedFieldValue serialized)
+            return serialized.getValue();
+        return (FieldValue) value;
+    }
+
+    /** Returns the value of the field with the given id, or null if it is not set */
+    private FieldValue valueOf(int id) {
+        int index = values.getIndexOfKey(id);
+        return index == -1 ? null : valueAt(index);
+    }
+
     public Struct(DataType type) {
         super((StructDataType) type);
         this.version = Document.SERIALIZED_VERSION;
@@ -71,7 +91,11 @@ public class Struct extends StructuredFieldValue {
         struct.values = new Hashlet<>();
         struct.values.reserve(values.size());
         for (int i = 0; i < values.size(); i++) {
-            struct.values.put(values.key(i), values.value(i).clone());
+            Object value = values.value(i);
+            if (value instanceof SerializedFieldValue serialized && ! serialized.isDeserialized())
+                struct.values.put(values.key(i), serialized.copy());
+            else
+                struct.values.put(values.key(i), valueAt(i).clone());
         }
         return struct;
     }
@@ -107,9 +131,33 @@ public class Struct extends StructuredFieldValue {
 
     @Override
     public FieldValue getFieldValue(Field field) {
-        return values.get(field.getId());
+        return valueOf(field.getId());
     }
 
+    @Override
+    public SerializedFieldValue getSerializedFieldValue(Field field) {
+        return values.get(field.getId()) instanceof SerializedFieldValue serialized && ! serialized.isDeserialized()
+               ? serialized : null;
+    }
+
+    /**
+     * Sets the value of a field to a serialized value, which is deserialized when the value is first accessed.
+     *
+     * @throws IllegalArgumentException if the field of the value is not a field of this
+     */
+    public void setSerializedFieldValue(SerializedFieldValue value) {
+        Field field = value.getField();
+        if (getDataType().getField(field.getId()) == null)
+            throw new IllegalArgumentException("No such field in " + getDataType() + " : " + field.getName());
+
+        int index = values.getIndexOfKey(field.getId());
+        if (index == -1) {
+            values.put(field.getId(), value);
+            invalidateOrder();
+        } else {
+            values.setValue(index, value);
+        }
+    }
 
     @Override
     public Field getField(String fieldName) {
@@ -149,9 +197,9 @@ public class Struct extends StructuredFieldValue {
 
     @Override
     public FieldValue removeFieldValue(Field field) {
-        FieldValue found = values.get(field.getId());
+        FieldValue found = valueOf(field.getId());
         if (found != null) {
-            Hashlet<Integer, FieldValue> copy = new Hashlet<>();
+            Hashlet<Integer, Object> copy = new Hashlet<>();
             copy.reserve(values.size() - 1);
             for (int i=0; i < values.size(); i++) {
                 if (values.key(i) != field.getId()) {
@@ -196,13 +244,21 @@ public class Struct extends StructuredFieldValue {
         if (!(o instanceof Struct struct)) return false;
         if (!super.equals(o)) return false;
 
-        return values.equals(struct.values);
+        if (values.size() != struct.values.size()) return false;
+        for (int i = 0; i < values.size(); i++) {
+            int index = struct.values.getIndexOfKey(values.key(i));
+            if (index == -1 || ! valueAt(i).equals(struct.valueAt(index))) return false;
+        }
+        return true;
     }
 
     @Override
     public int hashCode() {
         int result = super.hashCode();
-        result = 31 * result + values.hashCode();
+        int valuesHash = 0;
+        for (int i = 0; i < values.size(); i++)
+            valuesHash += values.key(i).hashCode() + valueAt(i).hashCode();
+        result = 31 * result + valuesHash;
         return result;
     }
 
@@ -212,7 +268,7 @@ public class Struct extends StructuredFieldValue {
         retVal.append("Struct (").append(getDataType()).append("): ");
         int [] increasing = getInOrder();
         for (int id : increasing) {
-            retVal.append(getDataType().getField(id)).append("=").append(values.get(id)).append(", ");
+            retVal.append(getDataType().getField(id)).append("=").append(valueOf(id)).append(", ");
         }
         return retVal.toString();
     }
@@ -270,7 +326,7 @@ public class Struct extends StructuredFieldValue {
         }
 
         public FieldValue getValue() {
-            return values.get(id);
+            return valueOf(id);
         }
 
         public FieldValue setValue(FieldValue value) {
@@ -284,7 +340,7 @@ public class Struct extends StructuredFieldValue {
                 values.put(id, value);
                 invalidateOrder();
             } else {
-                retVal = values.value(index);
+                retVal = valueAt(index);
                 values.setValue(index, value);
             }
 
@@ -2,6 +2,7 @@
 package com.yahoo.document.datatypes;
 
 import com.yahoo.document.*;
+import com.yahoo.document.serialization.SerializedFieldValue;
 import com.yahoo.vespa.objects.Ids;
 
 import java.util.ArrayList;
@@ -55,6 +56,15 @@ public abstract class StructuredFieldValue extends CompositeFieldValue {
         return getFieldValue(field);
     }
 
+    /**
+     * Returns the value of the given field in serialized form if it has been read by a lazy de-serializer
+     * and not accessed since, and null otherwise.
+     * See {@link com.yahoo.document.serialization.DocumentDeserializerFactory#createLazyHead}.
+     */
+    public SerializedFieldValue getSerializedFieldValue(Field field) {
+        return null;
+    }
+
     /**
      * Sets the value of the given field. The type of the value must match the type of this field, i.e.
      * <pre>field.getDataType().getValueClass().isAssignableFrom(value.getClass())</pre> must be true.
@@ -19,6 +19,16 @@ public class DocumentDeserializerFactory {
         return new VespaDocumentDeserializerHead(manager, buf);
     }
 
+    /**
+     * Creates a de-serializer for the current head document format which keeps the field values of documents
+     * in serialized form until they are accessed. This is cheaper when only some fields of documents are accessed,
+     * and fields not accessed are written back out without being serialized again.
+     * Field values are scanned when read, such that errors are detected by this as with {@link #createHead}.
+     */
+    public static DocumentDeserializer createLazyHead(DocumentTypeManager manager, GrowableByteBuffer buf) {
+        return new VespaDocumentDeserializerHead(manager, buf, true);
+    }
+
     /**
      * Creates a de-serializer for the 6.x document format.
      * This format is an extension of the 4.2 format.
@@ -0,0 +1,110 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.document.serialization;
+
+import com.yahoo.document.Document;
+import com.yahoo.document.DocumentTypeManager;
+import com.yahoo.document.Field;
+import com.yahoo.document.datatypes.FieldValue;
+import com.yahoo.io.GrowableByteBuffer;
+
+import java.nio.ByteBuffer;
+
+/**
+ * The value of a document field in the serialized head format, as read by a de-serializer created by
+ * {@link DocumentDeserializerFactory#createLazyHead}. The value is deserialized when it is first accessed,
+ * and written back out as-is by serializers if it never is.
+ *
+ * The serialized data is immutable, and the value is deserialized at most once. This is multithread safe.
+ *
+ * @author agent
+ */
+public final class SerializedFieldValue {
+
+    private final Field field;
+    private final DocumentTypeManager manager;
+    private final byte[] data;
+    private final int offset;
+    private final int length;
+    private final short version;
+    private final boolean exact;
+
+    /** The deserialized value, or null if it has not been accessed */
+    private volatile FieldValue value = null;
+
+    /**
+     * Creates a serialized value
+     *
+     * @param field the local field this is a value of
+     * @param manager the type manager to use to deserialize this
+     * @param data the array containing the serialized value
+     * @param offset the offset of the serialized value in data
+     * @param length the length of the serialized value
+     * @param version the serialization version of the document containing this value
+     * @param exact true if this value contains no fields unknown to the local types, such that
+     *              serializing the deserialized value produces these bytes
+     */
+    SerializedFieldValue(Field field, DocumentTypeManager manager, byte[] data, int offset, int length,
+                         short version, boolean exact) {
+        this.field = field;
+        this.manager = manager;
+        this.data = data;
+        this.offset = offset;
+        this.length = length;
+        this.version = version;
+        this.exact = exact;
+    }
+
+    /** Returns the field this is the value of */
+    public Field getField() { return field; }
+
+    /** Returns the serialized value as a read-only buffer */
+    public ByteBuffer getBytes() {
+        return ByteBuffer.wrap(data, offset, length).asReadOnlyBuffer();
+    }
+
+    /** Returns whether this value has been deserialized */
+    public boolean isDeserialized() { return value != null; }
+
+    /**
+     * Returns whether the serialized bytes of this can be written as the value of the given field,
+     * which is the case if this is not deserialized, and is serialized in the current version as
+     * a value of the same field and type as the given field, with no fields unknown to the local type.
+     * Otherwise, the value must be deserialized and serialized again.
+     */
+    public boolean isWritableAs(Field field) {
+        return ! isDeserialized() && exact && version == Document.SERIALIZED_VERSION &&
+               this.field.getId() == field.getId() && this.field.getDataType().equals(field.getDataType());
+    }
+
+    /**
+     * Returns the deserialized value of this, deserializing it on the first invocation.
+     *
+     * @throws DeserializationException if the value cannot be deserialized
+     */
+    public FieldValue getValue() {
+        FieldValue value = this.value;
+        if (value != null) return value;
+        synchronized (this) {
+            if (this.value == null)
+                this.value = deserialize();
+            return this.value;
+        }
+    }
+
+    /** Returns a serialized value sharing the data of this, which is not deserialized */
+    public SerializedFieldValue copy() {
+        return new SerializedFieldValue(field, manager, data, offset, length, version, exact);
+    }
+
+    private FieldValue deserialize() {
+        FieldValue value = field.getDataType().createFieldValue();
+        value.deserialize(field, new VespaDocumentDeserializerHead(manager, GrowableByteBuffer.wrap(data, offset, length)));
+        return value;
+    }
+
+    @Override
+    public String toString() {
+        return "serialized value of " + field + " (" + length + " bytes)";
+    }
+
+}
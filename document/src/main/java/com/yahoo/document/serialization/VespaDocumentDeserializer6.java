@@ -43,9 +43,11 @@ import com.yahoo.document.fieldpathupdate.AssignFieldPathUpdate;
 import com.yahoo.document.fieldpathupdate.FieldPathUpdate;
 import com.yahoo.document.fieldpathupdate.RemoveFieldPathUpdate;
 import com.yahoo.document.MapDataType;
+import com.yahoo.document.ReferenceDataType;
 import com.yahoo.document.predicate.BinaryFormat;
 import com.yahoo.document.select.parser.ParseException;
 import com.yahoo.document.StructDataType;
+import com.yahoo.document.TensorDataType;
 import com.yahoo.document.update.AddValueUpdate;
 import com.yahoo.document.update.ArithmeticValueUpdate;
 import com.yahoo.document.update.AssignValueUpdate;
@@ -78,14 +80,26 @@ import static com.yahoo.text.Utf8.calculateStringPositions;
 public class VespaDocumentDeserializer6 extends BufferSerializer implements DocumentDeserializer {
 
     private final DocumentTypeManager manager;
+    private final boolean lazyFields;
     private short version;
     private List<SpanNode> spanNodes;
     private List<Annotation> annotations;
     private int[] stringPositions;
 
     VespaDocumentDeserializer6(DocumentTypeManager manager, GrowableByteBuffer buf) {
+        this(manager, buf, false);
+    }
+
+    /**
+     * Creates a de-serializer
+     *
+     * @param lazyFields whether to keep the fields of documents in serialized form until they are accessed,
+     *                   see {@link SerializedFieldValue}
+     */
+    VespaDocumentDeserializer6(DocumentTypeManager manager, GrowableByteBuffer buf, boolean lazyFields) {
         super(buf);
         this.manager = manager;
+        this.lazyFields = lazyFields;
         this.version = Document.SERIALIZED_VERSION;
     }
 
@@ -280,6 +294,10 @@ public class VespaDocumentDeserializer6 extends BufferSerializer implements Docu
         }
 
         int afterPos = position() + dataSize;
+        if (lazyFields && target instanceof Document document) {
+            readSerializedFields(document, priType, fieldIds, fieldLens, dataSize);
+            return;
+        }
         for (int i = 0; i < numberOfFields; i++) {
             int posBefore = position();
             Field structField = priType.getField(fieldIds[i]);
@@ -296,6 +314,146 @@ public class VespaDocumentDeserializer6 extends BufferSerializer implements Docu
         position(afterPos);
     }
 
+    /**
+     * Sets the fields of the given document to serialized values which are deserialized when accessed.
+     * Each value is scanned to detect errors here rather than when it is accessed. Values which cannot be
+     * validated by scanning are deserialized right away instead.
+     */
+    private void readSerializedFields(Document document, StructDataType type, int[] fieldIds, int[] fieldLens, int dataSize) {
+        int dataPos = position();
+        byte[] data = getBytes(null, dataSize);
+        int afterPos = position();
+        int offset = 0;
+        for (int i = 0; i < fieldIds.length; i++) {
+            Field structField = type.getField(fieldIds[i]);
+            // ignoring unknown field
+            if (structField != null) {
+                position(dataPos + offset);
+                Scan scan = scanField(structField.getDataType(), dataPos + offset + fieldLens[i]);
+                if (scan == Scan.UNCHECKED) {
+                    position(dataPos + offset);
+                    FieldValue value = structField.getDataType().createFieldValue();
+                    value.deserialize(structField, this);
+                    document.setFieldValue(structField, value);
+                }
+                else {
+                    document.setSerializedFieldValue(new SerializedFieldValue(structField, manager, data, offset, fieldLens[i],
+                                                                              version, scan == Scan.EXACT));
+                }
+            }
+            offset += fieldLens[i];
+        }
+        position(afterPos);
+    }
+
+    /** The result of scanning a serialized value without deserializing it */
+    private enum Scan {
+
+        /** The value is valid, and contains only fields known to the local types */
+        EXACT,
+
+        /** The value is valid, but contains fields unknown to the local types, which are dropped on deserialization */
+        INEXACT,
+
+        /** The value is not validated by scanning, and must be deserialized to find out whether it is valid */
+        UNCHECKED;
+
+        Scan and(Scan other) { return ordinal() >= other.ordinal() ? this : other; }
+
+    }
+
+    /** Scans a field value of the given type which must end at the given position */
+    private Scan scanField(DataType type, int end) {
+        try {
+            Scan scan = scan(type);
+            return position() == end ? scan : Scan.UNCHECKED;
+        }
+        catch (RuntimeException e) { // deserialize to produce the error
+            return Scan.UNCHECKED;
+        }
+    }
+
+    /** Moves past a value of the given type, reading only what is needed to find its length */
+    private Scan scan(DataType type) {
+        if (type == DataType.INT || type == DataType.FLOAT) return skip(4);
+        if (type == DataType.LONG || type == DataType.DOUBLE) return skip(8);
+        if (type == DataType.BYTE || type == DataType.BOOL) return skip(1);
+        if (type == DataType.RAW) return skip(getInt(null));
+        if (type instanceof TensorDataType) return skip(getInt1_4Bytes(null));
+        if (type == DataType.STRING || type == DataType.URI) {
+            byte coding = getByte(null);
+            if ((coding & 64) == 64) return Scan.UNCHECKED; // span trees
+            int length = getInt1_4Bytes(null);
+            return length < 1 ? Scan.UNCHECKED : skip(length);
+        }
+        if (type instanceof ReferenceDataType) {
+            if (getByte(null) != 0)
+                readDocumentId();
+            return Scan.EXACT;
+        }
+        if (type instanceof ArrayDataType arrayType) {
+            Scan scan = Scan.EXACT;
+            for (int i = getNumCollectionElems(); i > 0 && scan != Scan.UNCHECKED; i--)
+                scan = scan.and(scan(arrayType.getNestedType()));
+            return scan;
+        }
+        if (type instanceof MapDataType mapType) {
+            Scan scan = Scan.EXACT;
+            for (int i = getNumCollectionElems(); i > 0 && scan != Scan.UNCHECKED; i--)
+                scan = scan.and(scan(mapType.getKeyType())).and(scan(mapType.getValueType()));
+            return scan;
+        }
+        if (type instanceof WeightedSetDataType weightedSetType) {
+            getInt(null); // type
+            int numElements = getInt(null);
+            if (numElements < 0) return Scan.UNCHECKED;
+            Scan scan = Scan.EXACT;
+            for (int i = numElements; i > 0 && scan != Scan.UNCHECKED; i--) {
+                getInt(null); // size
+                scan = scan.and(scan(weightedSetType.getNestedType()));
+                skip(4); // weight
+            }
+            return scan;
+        }
+        if (type instanceof StructDataType structType)
+            return scanStruct(structType);
+        return Scan.UNCHECKED;
+    }
+
+    private Scan scanStruct(StructDataType type) {
+        int dataSize = getInt(null);
+        getByte(null); // unused compression code
+        int numberOfFields = getInt1_4Bytes(null);
+        var fieldIds = new int[numberOfFields];
+        var fieldLens = new int[numberOfFields];
+        for (int i = 0; i < numberOfFields; i++) {
+            fieldIds[i] = getInt1_4Bytes(null);
+            fieldLens[i] = (int) getInt2_4_8Bytes(null);
+        }
+
+        int afterPos = position() + dataSize;
+        Scan scan = Scan.EXACT;
+        for (int i = 0; i < numberOfFields && scan != Scan.UNCHECKED; i++) {
+            int posBefore = position();
+            Field structField = type.getField(fieldIds[i]);
+            if (structField != null)
+                scan = scan.and(scanField(structField.getDataType(), posBefore + fieldLens[i]));
+            else
+                scan = scan.and(Scan.INEXACT);
+            position(posBefore + fieldLens[i]);
+        }
+        position(afterPos);
+        return scan;
+    }
+
+    /** Moves past the given number of bytes */
+    private Scan skip(int length) {
+        if (length < 0 || length > remaining())
+            throw new DeserializationException("Expected " + length + " bytes, but only " + remaining() + " remains");
+        position(position() + length);
+        return Scan.EXACT;
+    }
+
     public void read(FieldBase field, StructuredFieldValue value) {
         throw new IllegalArgumentException("read not implemented yet.");
     }
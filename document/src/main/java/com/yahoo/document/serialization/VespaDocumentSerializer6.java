@@ -336,7 +336,11 @@ public class VespaDocumentSerializer6 extends BufferSerializer implements Docume
 
             int startPos = buffer.position();
             Field key = value.getKey();
-            value.getValue().serialize(key, this);
+            SerializedFieldValue serialized = s.getSerializedFieldValue(key);
+            if (serialized != null && serialized.isWritableAs(key))
+                put(null, serialized.getBytes());
+            else
+                value.getValue().serialize(key, this);
 
             fieldLengths[i] = buffer.position() - startPos;
             fieldIds[i] = key.getId();
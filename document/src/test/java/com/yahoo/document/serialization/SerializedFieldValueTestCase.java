@@ -0,0 +1,202 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.document.serialization;
+
+import com.yahoo.document.ArrayDataType;
+import com.yahoo.document.DataType;
+import com.yahoo.document.Document;
+import com.yahoo.document.DocumentType;
+import com.yahoo.document.DocumentTypeManager;
+import com.yahoo.document.Field;
+import com.yahoo.document.StructDataType;
+import com.yahoo.document.datatypes.Array;
+import com.yahoo.document.datatypes.FieldValue;
+import com.yahoo.document.datatypes.IntegerFieldValue;
+import com.yahoo.document.datatypes.StringFieldValue;
+import com.yahoo.document.datatypes.Struct;
+import com.yahoo.io.GrowableByteBuffer;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author agent
+ */
+public class SerializedFieldValueTestCase {
+
+    private final DocumentTypeManager types = new DocumentTypeManager();
+    private final DocumentType type = new DocumentType("my_type");
+
+    public SerializedFieldValueTestCase() {
+        type.addField("my_str", DataType.STRING);
+        type.addField("my_int", DataType.INT);
+        type.addField("my_array", new ArrayDataType(DataType.STRING));
+        types.register(type);
+    }
+
+    @Test
+    public void fields_are_deserialized_when_accessed() {
+        Document original = createDocument();
+        Document lazy = deserializeLazily(serialize(original));
+        Field stringField = type.getField("my_str");
+        Field intField = type.getField("my_int");
+
+        assertEquals(original.getId(), lazy.getId());
+        assertEquals(3, lazy.getFieldCount());
+        assertNotNull(lazy.getSerializedFieldValue(stringField));
+        assertNotNull(lazy.getSerializedFieldValue(intField));
+
+        assertEquals(new StringFieldValue("foo"), lazy.getFieldValue(stringField));
+        assertNull(lazy.getSerializedFieldValue(stringField));
+        assertNotNull(lazy.getSerializedFieldValue(intField));
+
+        assertEquals(original, lazy);
+        assertNull(lazy.getSerializedFieldValue(intField));
+    }
+
+    @Test
+    public void clones_share_serialized_values() {
+        Document lazy = deserializeLazily(serialize(createDocument()));
+        Document clone = lazy.clone();
+        Field intField = type.getField("my_int");
+        assertEquals(new IntegerFieldValue(69), clone.getFieldValue(intField));
+        assertNull(clone.getSerializedFieldValue(intField));
+        assertNotNull(lazy.getSerializedFieldValue(intField));
+    }
+
+    @Test
+    public void untouched_fields_are_reserialized_as_is() {
+        Document original = createDocument();
+        byte[] serialized = serialize(original);
+
+        Document lazy = deserializeLazily(serialized);
+        assertArrayEquals(serialized, serialize(lazy));
+
+        lazy.getFieldValue("my_array");
+        lazy.setFieldValue("my_int", new IntegerFieldValue(70));
+        lazy.removeFieldValue("my_str");
+        Document modified = deserialize(serialize(lazy));
+        assertEquals(2, modified.getFieldCount());
+        assertEquals(new IntegerFieldValue(70), modified.getFieldValue("my_int"));
+        assertEquals(original.getFieldValue("my_array"), modified.getFieldValue("my_array"));
+    }
+
+    @Test
+    public void fields_can_be_accessed_concurrently() throws Exception {
+        Document lazy = deserializeLazily(serialize(createDocument()));
+        Field arrayField = type.getField("my_array");
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Callable<FieldValue>> readers = new ArrayList<>();
+            for (int i = 0; i < 64; i++)
+                readers.add(() -> lazy.getFieldValue(arrayField));
+            FieldValue first = null;
+            for (Future<FieldValue> value : executor.invokeAll(readers)) {
+                if (first == null)
+                    first = value.get();
+                assertSame(first, value.get());
+            }
+            assertEquals(createDocument().getFieldValue(arrayField), first);
+        }
+        finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void errors_are_detected_when_deserializing() {
+        Document original = new Document(type, "id:ns:my_type::1");
+        original.setFieldValue("my_array", createDocument().getFieldValue("my_array"));
+        byte[] serialized = serialize(original);
+        // Claim that the array has 127 elements rather than 2
+        byte[] elementCountAndFirstElement = { 2, 0, 4, 'b', 'a', 'r', 0 };
+        int countPosition = indexOf(elementCountAndFirstElement, serialized);
+        serialized[countPosition] = 127;
+
+        assertThrows(RuntimeException.class, () -> deserialize(serialized));
+        assertThrows(RuntimeException.class, () -> deserializeLazily(serialized));
+    }
+
+    @Test
+    public void values_with_fields_unknown_to_the_local_type_are_serialized_again() {
+        DocumentTypeManager senderTypes = new DocumentTypeManager();
+        senderTypes.register(typeWithStruct("a", "b"));
+        DocumentTypeManager localTypes = new DocumentTypeManager();
+        DocumentType localType = typeWithStruct("a");
+        localTypes.register(localType);
+
+        Document original = new Document(senderTypes.getDocumentType("my_type"), "id:ns:my_type::1");
+        Struct struct = (Struct)original.getField("my_struct").getDataType().createFieldValue();
+        struct.setFieldValue("a", new StringFieldValue("foo"));
+        struct.setFieldValue("b", new StringFieldValue("bar"));
+        original.setFieldValue("my_struct", struct);
+        original.setFieldValue("my_str", new StringFieldValue("baz"));
+        byte[] serialized = serialize(original);
+
+        Document lazy = new Document(DocumentDeserializerFactory.createLazyHead(localTypes, GrowableByteBuffer.wrap(serialized)));
+        Field structField = localType.getField("my_struct");
+        Field stringField = localType.getField("my_str");
+        assertFalse(lazy.getSerializedFieldValue(structField).isWritableAs(structField));
+        assertNotNull(lazy.getSerializedFieldValue(stringField));
+        assertTrue(lazy.getSerializedFieldValue(stringField).isWritableAs(stringField));
+
+        Document eager = new Document(DocumentDeserializerFactory.createHead(localTypes, GrowableByteBuffer.wrap(serialized)));
+        assertArrayEquals(serialize(eager), serialize(lazy));
+    }
+
+    private static DocumentType typeWithStruct(String ... structFields) {
+        DocumentType type = new DocumentType("my_type");
+        StructDataType structType = new StructDataType("my_struct");
+        for (String structField : structFields)
+            structType.addField(new Field(structField, DataType.STRING));
+        type.addField("my_struct", structType);
+        type.addField("my_str", DataType.STRING);
+        return type;
+    }
+
+    private static int indexOf(byte[] part, byte[] data) {
+        for (int i = 0; i + part.length <= data.length; i++)
+            if (Arrays.equals(part, 0, part.length, data, i, i + part.length)) return i;
+        throw new IllegalArgumentException("Not found");
+    }
+
+    private Document createDocument() {
+        Document document = new Document(type, "id:ns:my_type::1");
+        document.setFieldValue("my_str", new StringFieldValue("foo"));
+        document.setFieldValue("my_int", new IntegerFieldValue(69));
+        Array<StringFieldValue> array = new Array<>(type.getField("my_array").getDataType());
+        array.add(new StringFieldValue("bar"));
+        array.add(new StringFieldValue("baz"));
+        document.setFieldValue("my_array", array);
+        return document;
+    }
+
+    private static byte[] serialize(Document document) {
+        GrowableByteBuffer buffer = new GrowableByteBuffer();
+        DocumentSerializerFactory.createHead(buffer).write(document);
+        return Arrays.copyOf(buffer.array(), buffer.position());
+    }
+
+    private Document deserializeLazily(byte[] data) {
+        return new Document(DocumentDeserializerFactory.createLazyHead(types, GrowableByteBuffer.wrap(data)));
+    }
+
+    private Document deserialize(byte[] data) {
+        return new Document(DocumentDeserializerFactory.createHead(types, GrowableByteBuffer.wrap(data)));
+    }
+
+}
@@ -3,6 +3,7 @@ package com.yahoo.documentapi;
 
 import java.util.Base64;
 import java.util.Collections;
+import java.util.List;
 import java.util.Map;
 import java.util.TreeMap;
 import java.util.logging.Logger;
@@ -243,6 +244,60 @@ public final class ProgressToken {
         return Base64.getUrlEncoder().encodeToString(serialize());
     }
 
+    /**
+     * Returns a copy of this containing only the unfinished buckets in the given slice of the bucket space,
+     * for resuming visiting of that slice only.
+     *
+     * @param slices the number of slices the bucket space is divided into
+     * @param sliceId the slice to return progress for, in [0, slices)
+     */
+    public synchronized ProgressToken slice(int slices, int sliceId) {
+        if (sliceId < 0 || sliceId >= slices)
+            throw new IllegalArgumentException("sliceId must be in [0, " + slices + "), but was " + sliceId);
+        ProgressToken slice = new ProgressToken(serialize());
+        if (slice.totalBucketCount == 0) return slice;
+
+        slice.buckets.keySet().removeIf(key -> (key.key() >>> (64 - distributionBits)) % slices != sliceId);
+        slice.pendingBucketCount = slice.buckets.size();
+        slice.finishedBucketCount = slice.bucketCursor - slice.pendingBucketCount;
+        return slice;
+    }
+
+    /**
+     * Returns a token with the combined progress of the given tokens, which each track visiting one slice
+     * of the same bucket space. As a token only tracks a bucket cursor and the unfinished buckets before it,
+     * the combined progress is that of the least progressed slice, plus the unfinished buckets before its cursor.
+     * Hence, buckets visited past this cursor by other slices will be visited again when resuming from the
+     * returned token. If the slices have not all started, or do not agree on the distribution bit count,
+     * the returned token has no progress.
+     *
+     * @param slices the progress of each slice, which must not be modified while this is called
+     */
+    public static ProgressToken merge(List<ProgressToken> slices) {
+        if (slices.isEmpty()) throw new IllegalArgumentException("Can not merge progress of zero slices");
+        List<ProgressToken> snapshots = slices.stream().map(slice -> new ProgressToken(slice.serialize())).toList();
+
+        int distributionBits = snapshots.get(0).distributionBits;
+        long bucketCursor = Long.MAX_VALUE;
+        for (ProgressToken snapshot : snapshots) {
+            if (snapshot.totalBucketCount == 0 || snapshot.distributionBits != distributionBits)
+                return new ProgressToken();
+            bucketCursor = Math.min(bucketCursor, snapshot.bucketCursor);
+        }
+
+        ProgressToken merged = new ProgressToken(distributionBits);
+        merged.totalBucketCount = snapshots.get(0).totalBucketCount;
+        merged.bucketCursor = bucketCursor;
+        for (ProgressToken snapshot : snapshots) {
+            for (Map.Entry<BucketKeyWrapper, BucketEntry> entry : snapshot.buckets.entrySet()) {
+                if ((entry.getKey().key() >>> (64 - distributionBits)) < bucketCursor)
+                    merged.addBucket(entry.getKey().toBucketId(), entry.getValue().getProgress(), BucketState.BUCKET_PENDING);
+            }
+        }
+        merged.finishedBucketCount = bucketCursor - merged.pendingBucketCount;
+        return merged;
+    }
+
     public static ProgressToken fromSerializedString(String serializedString) {
         byte[] serialized;
         try {
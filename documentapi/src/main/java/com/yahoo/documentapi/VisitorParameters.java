@@ -24,6 +24,7 @@ public final class VisitorParameters extends Parameters {
     private String bucketSpace = FixedBucketSpaces.defaultSpace();
     private String visitorLibrary = "DumpVisitor";
     private int maxPending = 32;
+    private long maxPendingBytes = 0;
     private long timeoutMs = -1;
     private long sessionTimeoutMs = -1;
     private long fromTimestamp = 0;
@@ -46,6 +47,7 @@ public final class VisitorParameters extends Parameters {
     private boolean skipBucketsOnFatalErrors = false;
     private int slices = 1;
     private int sliceId = 0;
+    private int parallelism = 1;
 
     // Advanced parameter, only for internal use.
     Set<BucketId> bucketsToVisit = null;
@@ -70,6 +72,7 @@ public final class VisitorParameters extends Parameters {
         setBucketSpace(params.getBucketSpace());
         setVisitorLibrary(params.getVisitorLibrary());
         setMaxPending(params.getMaxPending());
+        setMaxPendingBytes(params.getMaxPendingBytes());
         setTimeoutMs(params.getTimeoutMs());
         setFromTimestamp(params.getFromTimestamp());
         setToTimestamp(params.getToTimestamp());
@@ -91,7 +94,8 @@ public final class VisitorParameters extends Parameters {
         setPriority(params.getPriority());
         setTraceLevel(params.getTraceLevel());
         skipBucketsOnFatalErrors(params.skipBucketsOnFatalErrors());
-        slice(params.getSlices(), getSliceId());
+        slice(params.getSlices(), params.getSliceId());
+        setParallelism(params.getParallelism());
     }
 
     // Get functions
@@ -108,6 +112,12 @@ public final class VisitorParameters extends Parameters {
     /** Returns the maximum number of messages each storage visitor will have pending before waiting for acks from client. */
     public int getMaxPending() { return maxPending; }
 
+    /**
+     * Returns the maximum total size in bytes of visitor data received by this client which is not yet acked,
+     * or 0 if this is not limited.
+     */
+    public long getMaxPendingBytes() { return maxPendingBytes; }
+
     /** Returns the timeout for each sent visitor operation in milliseconds. */
     public long getTimeoutMs() { return timeoutMs; }
 
@@ -174,6 +184,15 @@ public final class VisitorParameters extends Parameters {
     /** Sets maximum pending messages one storage visitor will have pending to this client before stalling, waiting for acks. */
     public void setMaxPending(int maxPending) { this.maxPending = maxPending; }
 
+    /**
+     * Sets the maximum total size in bytes of visitor data received by this client which is not yet acked,
+     * or 0 (the default) to not limit this. When this is set, no new visitors are created while this limit is
+     * exceeded, and the max pending messages of each visitor is reduced from {@link #getMaxPending()} such that
+     * the visitors in progress are not expected to send more than this many bytes at a time.
+     * This only applies when visitor data is sent to a local data handler.
+     */
+    public void setMaxPendingBytes(long maxPendingBytes) { this.maxPendingBytes = maxPendingBytes; }
+
     /** Sets the timeout for each visitor command in milliseconds. */
     public void setTimeoutMs(long timeoutMs) { this.timeoutMs = timeoutMs; }
 
@@ -281,6 +300,22 @@ public final class VisitorParameters extends Parameters {
 
     public int getSliceId() { return sliceId; }
 
+    /**
+     * Sets the number of visitor sessions to visit with in parallel, each visiting its own slice of the bucket space
+     * (or of the slice given by {@link #slice}), or 0 to choose this from the number of distributors in the cluster.
+     * The data and control handlers of this still receive all data and progress, as from a single session.
+     * Default is 1. This is ignored when visiting explicitly given buckets.
+     * Only sessions created by {@link com.yahoo.documentapi.messagebus.MessageBusDocumentAccess#createParallelVisitorSession}
+     * visit in parallel.
+     */
+    public void setParallelism(int parallelism) {
+        if (parallelism < 0) throw new IllegalArgumentException("Parallelism can not be negative, but was " + parallelism);
+        this.parallelism = parallelism;
+    }
+
+    /** Returns the number of sessions to visit with in parallel, where 0 means to choose this automatically. */
+    public int getParallelism() { return parallelism; }
+
     @Override
     public String toString() {
         StringBuilder sb = new StringBuilder();
@@ -289,6 +324,7 @@ public final class VisitorParameters extends Parameters {
                 .append("  Bucket space:       ").append(bucketSpace).append('\n')
                 .append("  Visitor library:    ").append(visitorLibrary).append('\n')
                 .append("  Max pending:        ").append(maxPending).append('\n')
+                .append("  Max pending bytes:  ").append(maxPendingBytes).append('\n')
                 .append("  Timeout (ms):       ").append(timeoutMs).append('\n')
                 .append("  Time period:        ").append(fromTimestamp).append(" - ").append(toTimestamp).append('\n');
         if (visitRemoves) {
@@ -314,6 +350,9 @@ public final class VisitorParameters extends Parameters {
             sb.append("  Slice ID:           %d\n".formatted(sliceId));
             sb.append("  Slice count:        %d\n".formatted(slices));
         }
+        if (parallelism != 1) {
+            sb.append("  Parallelism:        %d\n".formatted(parallelism));
+        }
         sb.append(')');
 
         return sb.toString();
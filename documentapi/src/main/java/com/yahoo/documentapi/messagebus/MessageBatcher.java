@@ -0,0 +1,327 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.documentapi.messagebus;
+
+import com.yahoo.concurrent.ThreadFactoryFactory;
+import com.yahoo.documentapi.messagebus.protocol.BatchDocumentMessage;
+import com.yahoo.documentapi.messagebus.protocol.BatchDocumentReply;
+import com.yahoo.documentapi.messagebus.protocol.DocumentMessage;
+import com.yahoo.documentapi.messagebus.protocol.PutDocumentMessage;
+import com.yahoo.documentapi.messagebus.protocol.RemoveDocumentMessage;
+import com.yahoo.documentapi.messagebus.protocol.TestAndSetMessage;
+import com.yahoo.documentapi.messagebus.protocol.UpdateDocumentMessage;
+import com.yahoo.messagebus.EmptyReply;
+import com.yahoo.messagebus.Error;
+import com.yahoo.messagebus.ErrorCode;
+import com.yahoo.messagebus.Message;
+import com.yahoo.messagebus.MessageBus;
+import com.yahoo.messagebus.Reply;
+import com.yahoo.messagebus.ReplyHandler;
+import com.yahoo.messagebus.Result;
+import com.yahoo.messagebus.SourceSession;
+import com.yahoo.messagebus.SourceSessionParams;
+import com.yahoo.messagebus.ThrottlePolicy;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Coalesces the puts, updates and removes sent through a source session within a short time window into
+ * {@link BatchDocumentMessage}s, and demultiplexes the replies to these back into one reply per operation,
+ * which is passed to the reply handler of the session as if each operation was sent by itself.
+ *
+ * Operations are batched per route and document type, and a batch is sent when it reaches the max size,
+ * or when the window has passed since its first operation was added. Other messages are sent directly.
+ *
+ * Operations are sequenced by document like the session would: An operation is held back until the reply to
+ * any earlier operation with the same sequence id is received, so a batch never contains two operations to
+ * the same document, and a batch is never in flight at the same time as another operation to the same document.
+ * This allows receivers to process the operations of a batch concurrently. The time an operation is held back
+ * counts towards its timeout, and operations still held back when this is destroyed are replied to with an error.
+ *
+ * The throttle policy of the session is applied by this to each operation rather than by the session
+ * to each batch, such that the number of operations pending is throttled as without batching.
+ *
+ * @author agent
+ */
+class MessageBatcher implements ReplyHandler {
+
+    private final ReplyHandler handler;
+    private final int maxOperations;
+    private final long windowNanos;
+    private final ThrottlePolicy throttlePolicy;
+    private final SourceSession session;
+    private final ScheduledExecutorService flusher =
+            Executors.newSingleThreadScheduledExecutor(ThreadFactoryFactory.getDaemonThreadFactory("mbus.batcher"));
+
+    /** The number of messages sent through this which have not been replied to yet */
+    private final AtomicInteger pendingCount = new AtomicInteger();
+
+    /** The batches currently being filled. Guarded by this. */
+    private final Map<BatchKey, Batch> batches = new HashMap<>();
+
+    /**
+     * The operations waiting for the reply to an operation with the same sequence id, by sequence id.
+     * An id is present from an operation with that id is added to a batch until its reply is received.
+     * Guarded by this.
+     */
+    private final Map<Long, Queue<Operation>> sequenced = new HashMap<>();
+
+    private volatile boolean destroyed = false;
+
+    /**
+     * Creates a batcher and the source session it sends through
+     *
+     * @param bus the message bus to create a source session in
+     * @param params the parameters of the session to create, whose reply handler will receive the replies
+     *               to each operation, and whose throttle policy will be applied to each operation
+     * @param maxOperations the max number of operations in a batch
+     * @param window the max time to hold an operation back to fill a batch
+     */
+    MessageBatcher(MessageBus bus, SourceSessionParams params, int maxOperations, Duration window) {
+        if (maxOperations < 2)
+            throw new IllegalArgumentException("Max operations in a batch must be at least 2, not " + maxOperations);
+        this.handler = params.getReplyHandler();
+        this.maxOperations = maxOperations;
+        this.windowNanos = window.toNanos();
+        this.throttlePolicy = params.getThrottlePolicy();
+        this.session = bus.createSourceSession(new SourceSessionParams(params).setThrottlePolicy(null)
+                                                                               .setReplyHandler(this));
+    }
+
+    /** Returns the session this sends through */
+    SourceSession session() { return session; }
+
+    /** Returns the throttle policy this applies to each operation, or null if none */
+    ThrottlePolicy throttlePolicy() { return throttlePolicy; }
+
+    /**
+     * Sends the given message, possibly as part of a batch, to the given route, or the default route if null.
+     * If this returns an accepted result, a reply to the message will be passed to the reply handler of this.
+     * Otherwise, the message may be sent again later, if the error of the result is transient.
+     */
+    Result send(Message message, String route) {
+        if (destroyed)
+            return new Result(ErrorCode.SEND_QUEUE_CLOSED, "Source session is closed.");
+        int pending = pendingCount.getAndIncrement();
+        if (throttlePolicy != null && ! throttlePolicy.canSend(message, pending)) {
+            pendingCount.decrementAndGet();
+            return new Result(ErrorCode.SEND_QUEUE_FULL, "Too much pending data (" + pending + " operations).");
+        }
+        message.pushHandler(handler);
+        if (throttlePolicy != null)
+            throttlePolicy.processMessage(message);
+
+        if ( ! (message instanceof DocumentMessage documentMessage) || ! BatchDocumentMessage.isBatchable(documentMessage)) {
+            Result result = sendToSession(message, route);
+            if ( ! result.isAccepted())
+                unsend(message, result.getError());
+            return result;
+        }
+
+        TestAndSetMessage operation = (TestAndSetMessage) message;
+        operation.setTimeReceivedNow(); // so time held back by this is subtracted from its time remaining
+        long sequenceId = operation.getSequenceId();
+        synchronized (this) {
+            Queue<Operation> waiting = sequenced.get(sequenceId);
+            if (waiting != null) {
+                waiting.add(new Operation(operation, route));
+                return Result.ACCEPTED;
+            }
+            sequenced.put(sequenceId, new ArrayDeque<>());
+        }
+        add(operation, route);
+        return Result.ACCEPTED;
+    }
+
+    /**
+     * Sends all pending batches, aborts the operations held back by sequencing, and stops the timer of this.
+     * This does not destroy the session.
+     */
+    void destroy() {
+        destroyed = true;
+        List<Batch> pending;
+        List<Operation> waiting = new ArrayList<>();
+        synchronized (this) {
+            pending = new ArrayList<>(batches.values());
+            batches.clear();
+            sequenced.values().forEach(waiting::addAll);
+            sequenced.clear();
+        }
+        pending.forEach(this::send);
+        for (Operation operation : waiting)
+            complete(replyTo(operation.message(), operation.message().createReply(),
+                             List.of(new Error(ErrorCode.SEND_ABORTED, "Source session destroyed."))));
+        flusher.shutdownNow();
+    }
+
+    /** Adds an operation which is cleared for sending by the sequencing of this to a batch */
+    private void add(TestAndSetMessage operation, String route) {
+        Batch full = null;
+        synchronized (this) {
+            BatchKey key = new BatchKey(route, documentTypeOf(operation));
+            Batch batch = batches.get(key);
+            if (batch == null) {
+                batch = new Batch(key);
+                batches.put(key, batch);
+                Batch scheduled = batch;
+                flusher.schedule(() -> flush(scheduled), windowNanos, TimeUnit.NANOSECONDS);
+            }
+            batch.operations.add(operation);
+            if (batch.operations.size() >= maxOperations) {
+                batches.remove(key);
+                full = batch;
+            }
+        }
+        if (full != null)
+            send(full);
+    }
+
+    private void flush(Batch batch) {
+        synchronized (this) {
+            if (batches.get(batch.key) != batch) return; // already sent
+            batches.remove(batch.key);
+        }
+        send(batch);
+    }
+
+    private void send(Batch batch) {
+        List<TestAndSetMessage> operations = new ArrayList<>(batch.operations.size());
+        for (TestAndSetMessage operation : batch.operations) {
+            if (operation.getTimeRemaining() > 0 && operation.isExpired())
+                complete(replyTo(operation, operation.createReply(),
+                                 List.of(new Error(ErrorCode.TIMEOUT, "Timed out waiting to be sent in a batch"))));
+            else
+                operations.add(operation);
+        }
+        if (operations.isEmpty()) return;
+
+        Result result;
+        if (operations.size() == 1) {
+            TestAndSetMessage operation = operations.get(0);
+            if (operation.getTimeRemaining() > 0)
+                operation.setTimeRemaining(operation.getTimeRemainingNow());
+            result = sendToSession(operation, batch.key.route());
+        }
+        else {
+            BatchDocumentMessage message = new BatchDocumentMessage(operations);
+            long timeRemaining = Long.MAX_VALUE;
+            int traceLevel = 0;
+            for (TestAndSetMessage operation : operations) {
+                if (operation.getTimeRemaining() > 0)
+                    timeRemaining = Math.min(timeRemaining, operation.getTimeRemainingNow());
+                traceLevel = Math.max(traceLevel, operation.getTrace().getLevel());
+            }
+            if (timeRemaining != Long.MAX_VALUE)
+                message.setTimeRemaining(timeRemaining);
+            message.getTrace().setLevel(traceLevel);
+            result = sendToSession(message, batch.key.route());
+        }
+        if ( ! result.isAccepted()) {
+            for (TestAndSetMessage operation : operations)
+                complete(replyTo(operation, operation.createReply(), List.of(result.getError())));
+        }
+    }
+
+    private Result sendToSession(Message message, String route) {
+        return route != null ? session.send(message, route, true) : session.send(message);
+    }
+
+    @Override
+    public void handleReply(Reply reply) {
+        if ( ! (reply.getMessage() instanceof BatchDocumentMessage batch)) {
+            complete(reply);
+            return;
+        }
+
+        List<Error> batchErrors = new ArrayList<>();
+        for (int i = 0; i < reply.getNumErrors(); i++)
+            batchErrors.add(reply.getError(i));
+        List<Reply> replies = reply instanceof BatchDocumentReply batchReply ? batchReply.getReplies() : List.of();
+        List<TestAndSetMessage> operations = batch.getOperations();
+        if (replies.size() != operations.size() && batchErrors.isEmpty())
+            batchErrors.add(new Error(ErrorCode.APP_FATAL_ERROR, "Expected " + operations.size() +
+                                                                 " replies to batch but got " + replies.size()));
+        for (int i = 0; i < operations.size(); i++) {
+            TestAndSetMessage operation = operations.get(i);
+            Reply operationReply = replies.size() == operations.size() ? replies.get(i) : operation.createReply();
+            complete(replyTo(operation, operationReply, batchErrors));
+        }
+    }
+
+    /** Releases the message of the given reply from throttling and sequencing, and passes the reply on */
+    private void complete(Reply reply) {
+        if (reply.getMessage() instanceof DocumentMessage message && BatchDocumentMessage.isBatchable(message))
+            sendNextInSequence(message.getSequenceId());
+        if (throttlePolicy != null)
+            throttlePolicy.processReply(reply);
+        pendingCount.decrementAndGet();
+        ReplyHandler handler = reply.popHandler();
+        handler.handleReply(reply);
+    }
+
+    /** Releases a message which was not accepted by the session from throttling, and restores its state */
+    private void unsend(Message message, Error error) {
+        Reply reply = new EmptyReply();
+        reply.swapState(message);
+        reply.addError(error);
+        if (throttlePolicy != null)
+            throttlePolicy.processReply(reply);
+        pendingCount.decrementAndGet();
+        reply.popHandler();
+        message.swapState(reply);
+    }
+
+    private void sendNextInSequence(long sequenceId) {
+        Operation next;
+        synchronized (this) {
+            Queue<Operation> waiting = sequenced.get(sequenceId);
+            if (waiting == null) return; // destroyed
+            next = waiting.poll();
+            if (next == null)
+                sequenced.remove(sequenceId);
+        }
+        if (next != null)
+            add(next.message(), next.route());
+    }
+
+    /** Prepares the given reply to be passed to the reply handler as the reply to the given operation */
+    private static Reply replyTo(Message operation, Reply reply, List<Error> errors) {
+        errors.forEach(reply::addError);
+        reply.swapState(operation);
+        reply.setMessage(operation);
+        return reply;
+    }
+
+    private static String documentTypeOf(Message message) {
+        if (message instanceof PutDocumentMessage put)
+            return put.getDocumentPut().getDocument().getDataType().getName();
+        if (message instanceof UpdateDocumentMessage update)
+            return update.getDocumentUpdate().getDocumentType().getName();
+        return ((RemoveDocumentMessage) message).getDocumentId().getDocType();
+    }
+
+    private record BatchKey(String route, String documentType) {}
+
+    private record Operation(TestAndSetMessage message, String route) {}
+
+    private static class Batch {
+
+        final BatchKey key;
+        final List<TestAndSetMessage> operations = new ArrayList<>();
+
+        Batch(BatchKey key) {
+            this.key = key;
+        }
+
+    }
+
+}
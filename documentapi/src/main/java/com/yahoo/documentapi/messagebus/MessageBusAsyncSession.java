@@ -68,6 +68,7 @@ public class MessageBusAsyncSession implements MessageBusSession, AsyncSession {
     private final AtomicLong requestId = new AtomicLong(0);
     private final BlockingQueue<Response> responses = new LinkedBlockingQueue<>();
     private final SourceSession session;
+    private final MessageBatcher batcher;
     private final String routeForGet;
     private String route;
     private int traceLevel;
@@ -101,7 +102,14 @@ public class MessageBusAsyncSession implements MessageBusSession, AsyncSession {
             sourceSessionParams.setThrottlePolicy(asyncParams.getThrottlePolicy());
         }
         sourceSessionParams.setReplyHandler((handler != null) ? handler : new MyReplyHandler(asyncParams.getResponseHandler(), responses));
-        session = bus.createSourceSession(sourceSessionParams);
+        if (mbusParams.getMaxBatchedOperations() > 1) {
+            batcher = new MessageBatcher(bus, sourceSessionParams, mbusParams.getMaxBatchedOperations(), mbusParams.getBatchWindow());
+            session = batcher.session();
+        }
+        else {
+            batcher = null;
+            session = bus.createSourceSession(sourceSessionParams);
+        }
     }
 
     @Override
@@ -166,7 +174,9 @@ public class MessageBusAsyncSession implements MessageBusSession, AsyncSession {
             parameters.deadline().ifPresent(deadline -> msg.setTimeRemaining(Math.max(1, Duration.between(Instant.now(), deadline).toMillis())));
             // Use route from parameters, or session route if non-default, or finally, defaults for get and non-get, if set. Phew!
             String toRoute = parameters.route().orElse(mayOverrideWithGetOnlyRoute(msg) ? routeForGet : route);
-            if (toRoute != null) {
+            if (batcher != null) {
+                return toResult(reqId, batcher.send(msg, toRoute));
+            } else if (toRoute != null) {
                 return toResult(reqId, session.send(msg, toRoute, true));
             } else {
                 return toResult(reqId, session.send(msg));
@@ -208,6 +218,8 @@ public class MessageBusAsyncSession implements MessageBusSession, AsyncSession {
 
     @Override
     public void destroy() {
+        if (batcher != null)
+            batcher.destroy();
         session.destroy();
     }
 
@@ -239,7 +251,9 @@ public class MessageBusAsyncSession implements MessageBusSession, AsyncSession {
         return 0;
     }
 
-    ThrottlePolicy getThrottlePolicy() { return session.getThrottlePolicy(); }
+    ThrottlePolicy getThrottlePolicy() {
+        return batcher != null ? batcher.throttlePolicy() : session.getThrottlePolicy();
+    }
 
     /**
      * Returns a concatenated error string from the errors contained in a reply.
@@ -2,6 +2,8 @@
 package com.yahoo.documentapi.messagebus;
 
 import com.yahoo.concurrent.ThreadFactoryFactory;
+import com.yahoo.document.BucketIdFactory;
+import com.yahoo.document.select.BucketSelector;
 import com.yahoo.document.select.parser.ParseException;
 import com.yahoo.documentapi.AsyncParameters;
 import com.yahoo.documentapi.DocumentAccess;
@@ -11,12 +13,15 @@ import com.yahoo.documentapi.SubscriptionSession;
 import com.yahoo.documentapi.SyncParameters;
 import com.yahoo.documentapi.VisitorDestinationParameters;
 import com.yahoo.documentapi.VisitorParameters;
+import com.yahoo.documentapi.VisitorSession;
 import com.yahoo.documentapi.messagebus.protocol.DocumentProtocol;
 import com.yahoo.messagebus.MessageBus;
 import com.yahoo.messagebus.NetworkMessageBus;
 import com.yahoo.messagebus.RPCMessageBus;
 import com.yahoo.messagebus.network.Network;
 import com.yahoo.messagebus.network.local.LocalNetwork;
+import com.yahoo.messagebus.routing.Route;
+import com.yahoo.messagebus.routing.RoutingTable;
 
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
@@ -33,6 +38,11 @@ public final class MessageBusDocumentAccess extends DocumentAccess {
 
     private static final Logger log = Logger.getLogger(MessageBusDocumentAccess.class.getName());
 
+    private static final String clusterRoutePrefix = "storage/cluster.";
+
+    /** The max number of sessions to visit with in parallel when this is chosen from the number of distributors */
+    private static final int maxAutomaticParallelism = 16;
+
     private final NetworkMessageBus bus;
 
     private final MessageBusParams params;
@@ -58,7 +68,8 @@ public final class MessageBusDocumentAccess extends DocumentAccess {
         this.params = params;
         try {
             com.yahoo.messagebus.MessageBusParams mbusParams = new com.yahoo.messagebus.MessageBusParams(params.getMessageBusParams());
-            mbusParams.addProtocol(new DocumentProtocol(getDocumentTypeManager(), params.getProtocolConfigId()));
+            mbusParams.addProtocol(new DocumentProtocol(getDocumentTypeManager(), params.getProtocolConfigId())
+                                           .setLazyFieldDecoding(params.getLazyFieldDecoding()));
             if (System.getProperty("vespa.local", "false").equals("true")) { // set by Application when running locally
                 LocalNetwork network = new LocalNetwork();
                 bus = new NetworkMessageBus(network, new MessageBus(network, mbusParams));
@@ -99,14 +110,72 @@ public final class MessageBusDocumentAccess extends DocumentAccess {
         return new MessageBusAsyncSession(parameters, messageBus(), this.params);
     }
 
+    /**
+     * Creates a visitor session visiting with a single message bus session.
+     * Use {@link #createParallelVisitorSession} to visit with the parallelism given in the parameters.
+     *
+     * @throws IllegalArgumentException if the parameters ask for a parallelism other than 1
+     */
     @Override
     public MessageBusVisitorSession createVisitorSession(VisitorParameters params) throws ParseException, IllegalArgumentException {
+        if (params.getParallelism() != 1)
+            throw new IllegalArgumentException("Parallelism " + params.getParallelism() + " requires a session " +
+                                               "created by createParallelVisitorSession");
+        return createSingleVisitorSession(params);
+    }
+
+    /**
+     * Creates a visitor session visiting with the number of message bus sessions given by
+     * {@link VisitorParameters#getParallelism}, each visiting its own slice of the bucket space.
+     * This is a single session if the parallelism is 1, or resolves to 1.
+     */
+    public VisitorSession createParallelVisitorSession(VisitorParameters params) throws ParseException, IllegalArgumentException {
+        int parallelism = parallelismOf(params);
+        if (parallelism > 1)
+            return new SlicedVisitorSession(params, parallelism, this::createSingleVisitorSession);
+        return createSingleVisitorSession(params);
+    }
+
+    private MessageBusVisitorSession createSingleVisitorSession(VisitorParameters params) throws ParseException {
         MessageBusVisitorSession session = MessageBusVisitorSession.createForMessageBus(
                 messageBus(), scheduledExecutorService, params);
         session.start();
         return session;
     }
 
+    /** Returns the number of sessions to visit with in parallel for the given parameters */
+    private int parallelismOf(VisitorParameters params) throws ParseException {
+        if (params.getParallelism() == 1) return 1;
+        if (params.getBucketsToVisit() != null && ! params.getBucketsToVisit().isEmpty()) return 1;
+        if (new BucketSelector(new BucketIdFactory()).getBucketList(params.getDocumentSelection()) != null)
+            return 1; // explicit buckets are not sliced
+        if (params.getParallelism() > 1) return params.getParallelism();
+
+        String cluster = clusterOf(params.getRoute());
+        if (cluster == null) return 1;
+        int distributors = bus.getNetwork().getMirror().lookup(clusterRoutePrefix + cluster + "/distributor/*/default").size();
+        return Math.max(1, Math.min(maxAutomaticParallelism, distributors));
+    }
+
+    /** Returns the name of the content cluster the given route leads to, or null if this can not be determined */
+    private String clusterOf(Route route) {
+        String routeName = null;
+        if (route == null || ! route.hasHops()) { // the route of the single content cluster is used
+            RoutingTable table = messageBus().getRoutingTable(DocumentProtocol.NAME);
+            if (table == null) return null;
+            for (RoutingTable.RouteIterator it = table.getRouteIterator(); it.isValid(); it.next()) {
+                if ( ! it.getName().startsWith(clusterRoutePrefix)) continue;
+                if (routeName != null) return null;
+                routeName = it.getName();
+            }
+        }
+        else if (route.getNumHops() == 1) {
+            routeName = route.toString();
+        }
+        if (routeName == null || ! routeName.startsWith(clusterRoutePrefix)) return null;
+        return routeName.substring(clusterRoutePrefix.length());
+    }
+
     @Override
     public MessageBusVisitorDestinationSession createVisitorDestinationSession(VisitorDestinationParameters params) {
         return new MessageBusVisitorDestinationSession(params, bus.getMessageBus());
@@ -8,6 +8,8 @@ import com.yahoo.messagebus.SourceSessionParams;
 import com.yahoo.messagebus.network.rpc.RPCNetworkParams;
 import com.yahoo.vespa.config.content.DistributionConfig;
 
+import java.time.Duration;
+
 import static java.util.Objects.requireNonNull;
 
 /**
@@ -25,6 +27,9 @@ public class MessageBusParams extends DocumentAccessParams {
     private RPCNetworkParams rpcNetworkParams = new RPCNetworkParams();
     private com.yahoo.messagebus.MessageBusParams mbusParams = new com.yahoo.messagebus.MessageBusParams();
     private SourceSessionParams sourceSessionParams = new SourceSessionParams();
+    private int maxBatchedOperations = 1;
+    private Duration batchWindow = Duration.ofMillis(1);
+    private boolean lazyFieldDecoding = false;
 
     public MessageBusParams() {}
 
@@ -202,4 +207,59 @@ public class MessageBusParams extends DocumentAccessParams {
         sourceSessionParams = new SourceSessionParams(params);
         return this;
     }
+
+    /** Returns the max number of operations async sessions batch into a single message. 1 (the default) means no batching. */
+    public int getMaxBatchedOperations() {
+        return maxBatchedOperations;
+    }
+
+    /**
+     * Sets the max number of puts, updates and removes async sessions batch into a single message.
+     * Batches can only be decoded by Java containers, so this should only be set above 1 when the route
+     * leads to a document processing cluster. The throttle policy of a batching session limits the number of
+     * pending operations, not batches, and operations on the same document are never in flight at the same time.
+     *
+     * @param maxBatchedOperations the max number of operations per batch, where 1 means no batching
+     * @return This object for chaining.
+     */
+    public MessageBusParams setMaxBatchedOperations(int maxBatchedOperations) {
+        if (maxBatchedOperations < 1)
+            throw new IllegalArgumentException("Max batched operations must be positive, not " + maxBatchedOperations);
+        this.maxBatchedOperations = maxBatchedOperations;
+        return this;
+    }
+
+    /** Returns the max time an operation is held back to fill a batch */
+    public Duration getBatchWindow() {
+        return batchWindow;
+    }
+
+    /**
+     * Sets the max time an operation is held back to fill a batch.
+     *
+     * @param batchWindow the max time to hold back an operation
+     * @return This object for chaining.
+     */
+    public MessageBusParams setBatchWindow(Duration batchWindow) {
+        this.batchWindow = requireNonNull(batchWindow);
+        return this;
+    }
+
+    /** Returns whether the fields of received documents are deserialized when they are first accessed */
+    public boolean getLazyFieldDecoding() {
+        return lazyFieldDecoding;
+    }
+
+    /**
+     * Sets whether the fields of received documents are deserialized when they are first accessed,
+     * see {@link DocumentProtocol#setLazyFieldDecoding}. Default is false.
+     *
+     * @param lazyFieldDecoding whether to deserialize document fields lazily
+     * @return This object for chaining.
+     */
+    public MessageBusParams setLazyFieldDecoding(boolean lazyFieldDecoding) {
+        this.lazyFieldDecoding = lazyFieldDecoding;
+        return this;
+    }
+
 }
@@ -17,6 +17,7 @@ import com.yahoo.documentapi.messagebus.protocol.CreateVisitorReply;
 import com.yahoo.documentapi.messagebus.protocol.DocumentMessage;
 import com.yahoo.documentapi.messagebus.protocol.DocumentProtocol;
 import com.yahoo.documentapi.messagebus.protocol.VisitorInfoMessage;
+import com.yahoo.documentapi.messagebus.protocol.VisitorMessage;
 import com.yahoo.documentapi.messagebus.protocol.WrongDistributionReply;
 
 import java.util.List;
@@ -42,6 +43,7 @@ import com.yahoo.vdslib.state.ClusterState;
 import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.logging.Logger;
 
@@ -340,6 +342,12 @@ public final class MessageBusVisitorSession implements VisitorSession {
      * because it is decremented before the message is actually processed.
      */
     private int pendingMessageCount = 0;
+    /** The total size of visitor data received and not yet acked */
+    private final AtomicLong pendingDataBytes = new AtomicLong(0);
+    /** Whether sending visitors is stopped until enough visitor data is acked to get below the max pending bytes */
+    private final AtomicBoolean blockedOnPendingData = new AtomicBoolean(false);
+    private final AtomicLong receivedDataBytes = new AtomicLong(0);
+    private final AtomicLong receivedDataMessages = new AtomicLong(0);
 
     public MessageBusVisitorSession(VisitorParameters visitorParameters,
                                     AsyncTaskExecutor taskExecutor,
@@ -650,7 +658,7 @@ public final class MessageBusVisitorSession implements VisitorSession {
             msg.setBucketSpace(params.getBucketSpace());
             msg.setFromTimestamp(params.getFromTimestamp());
             msg.setToTimestamp(params.getToTimestamp());
-            msg.setMaxPendingReplyCount(params.getMaxPending());
+            msg.setMaxPendingReplyCount(maxPendingRepliesPerVisitor());
             msg.setFieldSet(params.fieldSet());
             msg.setVisitInconsistentBuckets(params.visitInconsistentBuckets());
             msg.setVisitRemoves(params.visitRemoves());
@@ -705,7 +713,7 @@ public final class MessageBusVisitorSession implements VisitorSession {
                     // processing must take place sequenced after we have exited the loop, as the reply handling
                     // also takes the session (token) lock. I.e. it should not be possible to end up in a
                     // situation where we stall session progress due to not having any further event edges.
-                    while (progress.getIterator().hasNext() && !hasScheduledHandleReplyTask()) {
+                    while (progress.getIterator().hasNext() && !hasScheduledHandleReplyTask() && !tooMuchPendingData()) {
                         VisitorIterator.BucketProgress bucket = progress.getIterator().getNext();
                         Result result = sender.send(createMessage(bucket));
                         if (result.isAccepted()) {
@@ -738,6 +746,56 @@ public final class MessageBusVisitorSession implements VisitorSession {
         }
     }
 
+    /**
+     * Returns the max pending replies to allow each new visitor: If max pending bytes is set, this is reduced
+     * from the configured max pending such that the visitors in progress together are not expected to send more
+     * data than this, given the average size of the visitor data received so far.
+     */
+    private int maxPendingRepliesPerVisitor() {
+        long messages = receivedDataMessages.get();
+        if (params.getMaxPendingBytes() <= 0 || messages == 0) return params.getMaxPending();
+
+        long averageMessageBytes = Math.max(1, receivedDataBytes.get() / messages);
+        long maxPendingReplies = params.getMaxPendingBytes() / (averageMessageBytes * (pendingMessageCount + 1));
+        return (int) Math.max(1, Math.min(params.getMaxPending(), maxPendingReplies));
+    }
+
+    /**
+     * Returns whether more visitor data than the max pending bytes is received and not yet acked.
+     * If so, visiting is continued when enough data is acked.
+     */
+    private boolean tooMuchPendingData() {
+        if (params.getMaxPendingBytes() <= 0 || pendingDataBytes.get() < params.getMaxPendingBytes()) return false;
+
+        blockedOnPendingData.set(true);
+        // Data may have been acked between the check above and blocking, without observing the block
+        return ! (pendingDataBytes.get() < params.getMaxPendingBytes() && blockedOnPendingData.compareAndSet(true, false));
+    }
+
+    /** Releases the given number of bytes of acked visitor data, and continues visiting if this was blocked on it */
+    private void releasePendingData(long bytes) {
+        if (pendingDataBytes.addAndGet(-bytes) >= params.getMaxPendingBytes()) return;
+        if ( ! blockedOnPendingData.compareAndSet(true, false)) return;
+
+        try {
+            taskExecutor.submitTask(() -> {
+                synchronized (progress.getToken()) {
+                    if ( ! done) {
+                        continueVisiting();
+                    }
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            log.log(Level.FINE, () -> sessionName + ": Could not continue visiting after acking data, as session is shut down");
+        }
+    }
+
+    private static int dataSizeOf(DocumentMessage message) {
+        if (message instanceof VisitorMessage visitorMessage && visitorMessage.getSerializedSize() > 0)
+            return visitorMessage.getSerializedSize();
+        return message.getApproxSize();
+    }
+
     private void continueVisiting() {
         if ( ! scheduleSendCreateVisitorsIfApplicable() && visitingCompleted()) {
             markSessionCompleted();
@@ -909,11 +967,24 @@ public final class MessageBusVisitorSession implements VisitorSession {
             receiver.reply(reply);
             return;
         }
+        int size = dataSizeOf(msg);
+        receivedDataBytes.addAndGet(size);
+        receivedDataMessages.incrementAndGet();
+        AckToken token;
+        if (params.getMaxPendingBytes() > 0) {
+            pendingDataBytes.addAndGet(size);
+            token = new DataAckToken(reply, size);
+        }
+        else {
+            token = new AckToken(reply);
+        }
         try {
-            params.getLocalDataHandler().onMessage(msg, new AckToken(reply));
+            params.getLocalDataHandler().onMessage(msg, token);
         } catch (Exception e) {
             handleMessageProcessingException(reply, e, "DocumentMessage");
             // Immediately reply since we cannot count on AckToken being registered
+            if (token instanceof DataAckToken dataToken)
+                releasePendingData(dataToken.size);
             receiver.reply(reply);
         }
     }
@@ -1144,6 +1215,8 @@ public final class MessageBusVisitorSession implements VisitorSession {
         }
         // No locking here; replying should be thread safe in itself
         receiver.reply((Reply)token.ackObject);
+        if (token instanceof DataAckToken dataToken)
+            releasePendingData(dataToken.size);
     }
 
     @Override
@@ -1213,4 +1286,16 @@ public final class MessageBusVisitorSession implements VisitorSession {
         }
     }
 
+    /** An ack token of visitor data counted towards the max pending bytes */
+    private static class DataAckToken extends AckToken {
+
+        final int size;
+
+        DataAckToken(Reply reply, int size) {
+            super(reply);
+            this.size = size;
+        }
+
+    }
+
 }
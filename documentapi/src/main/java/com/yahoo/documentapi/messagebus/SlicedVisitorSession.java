@@ -0,0 +1,266 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.documentapi.messagebus;
+
+import com.yahoo.document.select.parser.ParseException;
+import com.yahoo.documentapi.AckToken;
+import com.yahoo.documentapi.ProgressToken;
+import com.yahoo.documentapi.VisitorControlHandler;
+import com.yahoo.documentapi.VisitorControlHandler.CompletionCode;
+import com.yahoo.documentapi.VisitorControlSession;
+import com.yahoo.documentapi.VisitorDataHandler;
+import com.yahoo.documentapi.VisitorDataQueue;
+import com.yahoo.documentapi.VisitorParameters;
+import com.yahoo.documentapi.VisitorResponse;
+import com.yahoo.documentapi.VisitorSession;
+import com.yahoo.messagebus.Message;
+import com.yahoo.messagebus.Trace;
+import com.yahoo.vdslib.VisitorStatistics;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A visitor session which visits with a number of sessions in parallel, each visiting its own slice of the
+ * bucket space, and which passes the data and progress of all of them to the handlers given in the parameters,
+ * as if they came from a single session.
+ *
+ * The progress of each slice is tracked separately, and the progress reported by this is the merge of these,
+ * see {@link ProgressToken#merge}. Visiting is done when all slices are done, and completes with the worst
+ * completion code of the slices.
+ *
+ * @author agent
+ */
+class SlicedVisitorSession implements VisitorSession {
+
+    /** Creates and starts a visitor session from the given parameters */
+    interface SessionFactory {
+        VisitorSession create(VisitorParameters params) throws ParseException;
+    }
+
+    private final VisitorControlHandler controlHandler;
+    private final VisitorDataHandler dataHandler;
+    private final List<VisitorSession> slices = new ArrayList<>();
+
+    /** The last progress of each slice, as copies which can be read without locking the session of the slice. */
+    private final AtomicReferenceArray<ProgressToken> progress;
+    private final AtomicReferenceArray<VisitorStatistics> statistics;
+    private final AtomicReferenceArray<VisitorControlHandler.Result> results;
+
+    SlicedVisitorSession(VisitorParameters params, int parallelism, SessionFactory factory) throws ParseException {
+        if (parallelism < 2) throw new IllegalArgumentException("Parallelism must be at least 2, but was " + parallelism);
+        this.controlHandler = params.getControlHandler() != null ? params.getControlHandler() : new VisitorControlHandler();
+        this.controlHandler.reset();
+        this.controlHandler.setSession(this);
+        if (params.getLocalDataHandler() != null)
+            this.dataHandler = params.getLocalDataHandler();
+        else if (params.getRemoteDataHandler() == null)
+            this.dataHandler = new VisitorDataQueue();
+        else
+            this.dataHandler = null;
+        if (dataHandler != null) {
+            dataHandler.reset();
+            dataHandler.setSession(this);
+        }
+
+        this.progress = new AtomicReferenceArray<>(parallelism);
+        this.statistics = new AtomicReferenceArray<>(parallelism);
+        this.results = new AtomicReferenceArray<>(parallelism);
+        List<VisitorParameters> sliceParams = new ArrayList<>();
+        for (int i = 0; i < parallelism; i++) {
+            VisitorParameters slice = slice(params, parallelism, i);
+            progress.set(i, slice.getResumeToken() != null ? slice.getResumeToken() : new ProgressToken());
+            sliceParams.add(slice);
+        }
+        try {
+            for (VisitorParameters slice : sliceParams)
+                slices.add(factory.create(slice));
+        }
+        catch (ParseException | RuntimeException e) {
+            slices.forEach(VisitorSession::destroy);
+            throw e;
+        }
+    }
+
+    /** Returns the parameters for visiting the given slice of the given parameters */
+    private VisitorParameters slice(VisitorParameters params, int parallelism, int index) {
+        VisitorParameters slice = new VisitorParameters(params);
+        int slices = params.getSlices() * parallelism;
+        int sliceId = params.getSliceId() + index * params.getSlices();
+        slice.slice(slices, sliceId);
+        slice.setParallelism(1);
+        if (params.getResumeToken() != null)
+            slice.setResumeToken(params.getResumeToken().slice(slices, sliceId));
+        if (params.getMaxPendingBytes() > 0)
+            slice.setMaxPendingBytes(Math.max(1, params.getMaxPendingBytes() / parallelism));
+        if (params.getMaxTotalHits() != -1)
+            slice.setMaxTotalHits((params.getMaxTotalHits() + parallelism - 1) / parallelism);
+        slice.setControlHandler(new SliceControlHandler(index));
+        if (dataHandler != null)
+            slice.setLocalDataHandler(new SliceDataHandler());
+        return slice;
+    }
+
+    private ProgressToken mergedProgress() {
+        List<ProgressToken> tokens = new ArrayList<>(progress.length());
+        for (int i = 0; i < progress.length(); i++)
+            tokens.add(progress.get(i));
+        return ProgressToken.merge(tokens);
+    }
+
+    private VisitorStatistics mergedStatistics() {
+        VisitorStatistics merged = new VisitorStatistics();
+        for (int i = 0; i < statistics.length(); i++) {
+            if (statistics.get(i) != null)
+                merged.add(statistics.get(i));
+        }
+        return merged;
+    }
+
+    /** Returns the worst of the results of all slices, or null if not all slices are done. */
+    private VisitorControlHandler.Result mergedResult() {
+        VisitorControlHandler.Result worst = null;
+        for (int i = 0; i < results.length(); i++) {
+            VisitorControlHandler.Result result = results.get(i);
+            if (result == null) return null;
+            if (worst == null || severity(result.getCode()) > severity(worst.getCode()))
+                worst = result;
+        }
+        return worst;
+    }
+
+    private static int severity(CompletionCode code) {
+        return switch (code) {
+            case SUCCESS -> 0;
+            case ABORTED -> 1;
+            case TIMEOUT -> 2;
+            case FAILURE -> 3;
+        };
+    }
+
+    @Override
+    public boolean isDone() {
+        return slices.stream().allMatch(VisitorSession::isDone);
+    }
+
+    @Override
+    public ProgressToken getProgress() {
+        return mergedProgress();
+    }
+
+    @Override
+    public Trace getTrace() {
+        Trace trace = new Trace();
+        for (VisitorSession slice : slices)
+            trace.getRoot().addChild(slice.getTrace().getRoot());
+        return trace;
+    }
+
+    @Override
+    public boolean waitUntilDone(long timeoutMs) throws InterruptedException {
+        return controlHandler.waitUntilDone(timeoutMs);
+    }
+
+    @Override
+    public void ack(AckToken token) {
+        SliceAckToken sliceToken = (SliceAckToken) token;
+        sliceToken.session.ack(sliceToken.token);
+    }
+
+    @Override
+    public void abort() {
+        slices.forEach(VisitorSession::abort);
+    }
+
+    @Override
+    public VisitorResponse getNext() {
+        if (dataHandler == null)
+            throw new IllegalStateException("Data has been routed to external source for this visitor");
+        return dataHandler.getNext();
+    }
+
+    @Override
+    public VisitorResponse getNext(int timeoutMilliseconds) throws InterruptedException {
+        if (dataHandler == null)
+            throw new IllegalStateException("Data has been routed to external source for this visitor");
+        return dataHandler.getNext(timeoutMilliseconds);
+    }
+
+    @Override
+    public void destroy() {
+        slices.forEach(VisitorSession::destroy);
+    }
+
+    /** Passes the progress of a slice on to the control handler of this, merged with that of the other slices. */
+    private class SliceControlHandler extends VisitorControlHandler {
+
+        private final int index;
+
+        SliceControlHandler(int index) {
+            this.index = index;
+        }
+
+        @Override
+        public void onProgress(ProgressToken token) {
+            super.onProgress(token);
+            // Called with the token locked: Take a copy such that merging never locks the tokens of other slices
+            progress.set(index, new ProgressToken(token.serialize()));
+            controlHandler.onProgress(mergedProgress());
+        }
+
+        @Override
+        public void onVisitorError(String message) {
+            super.onVisitorError(message);
+            controlHandler.onVisitorError(message);
+        }
+
+        @Override
+        public void onVisitorStatistics(VisitorStatistics vs) {
+            super.onVisitorStatistics(vs);
+            VisitorStatistics copy = new VisitorStatistics();
+            copy.add(vs);
+            statistics.set(index, copy);
+            controlHandler.onVisitorStatistics(mergedStatistics());
+        }
+
+        @Override
+        public void onDone(CompletionCode code, String message) {
+            super.onDone(code, message);
+            if ( ! results.compareAndSet(index, null, getResult())) return;
+
+            VisitorControlHandler.Result result = mergedResult();
+            if (result == null) return;
+            synchronized (SlicedVisitorSession.this) {
+                if (controlHandler.isDone()) return; // the last two slices completed concurrently
+                if (dataHandler != null)
+                    dataHandler.onDone();
+                controlHandler.onDone(result.getCode(), result.getMessage());
+            }
+        }
+
+    }
+
+    /** Passes the data of a slice on to the data handler of this, with acks routed back to the slice. */
+    private class SliceDataHandler extends VisitorDataHandler {
+
+        @Override
+        public void onMessage(Message message, AckToken token) {
+            dataHandler.onMessage(message, new SliceAckToken(token, session));
+        }
+
+    }
+
+    private static class SliceAckToken extends AckToken {
+
+        final AckToken token;
+        final VisitorControlSession session;
+
+        SliceAckToken(AckToken token, VisitorControlSession session) {
+            super(token.ackObject);
+            this.token = token;
+            this.session = session;
+        }
+
+    }
+
+}
@@ -0,0 +1,73 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.documentapi.messagebus.protocol;
+
+import java.util.List;
+
+/**
+ * A batch of put, update and remove operations sent as a single message, to amortize the per message
+ * overhead of routing, throttling and network round trips when feeding many small documents.
+ * The reply to this is a {@link BatchDocumentReply} containing one reply per operation, in the same order.
+ *
+ * Batches can only be decoded by Java containers, such as document processing clusters, which process
+ * and forward the operations individually. Content nodes do not accept batches.
+ * As a batch is routed as a whole, its operations should be of the same document type.
+ *
+ * @author agent
+ */
+public class BatchDocumentMessage extends DocumentMessage {
+
+    private final List<TestAndSetMessage> operations;
+
+    /**
+     * Creates a batch of operations
+     *
+     * @param operations the operations of this, which must be puts, updates or removes
+     * @throws IllegalArgumentException if the list is empty or contains other message types
+     */
+    public BatchDocumentMessage(List<? extends TestAndSetMessage> operations) {
+        if (operations.isEmpty())
+            throw new IllegalArgumentException("A batch must contain at least one operation");
+        for (TestAndSetMessage operation : operations) {
+            if ( ! isBatchable(operation))
+                throw new IllegalArgumentException("A batch can only contain puts, updates and removes, not " + operation);
+        }
+        this.operations = List.copyOf(operations);
+    }
+
+    /** Returns the operations of this, in the order they were added */
+    public List<TestAndSetMessage> getOperations() { return operations; }
+
+    @Override
+    public DocumentReply createReply() {
+        return new BatchDocumentReply(List.of());
+    }
+
+    @Override
+    public int getApproxSize() {
+        int size = super.getApproxSize() + 4;
+        for (TestAndSetMessage operation : operations)
+            size += operation.getApproxSize();
+        return size;
+    }
+
+    @Override
+    public int getType() {
+        return DocumentProtocol.MESSAGE_BATCHDOCUMENT;
+    }
+
+    @Override
+    public String toString() {
+        return "batch of " + operations.size() + " operations";
+    }
+
+    /** Returns whether the given message may be sent as part of a batch */
+    public static boolean isBatchable(DocumentMessage message) {
+        return switch (message.getType()) {
+            case DocumentProtocol.MESSAGE_PUTDOCUMENT,
+                 DocumentProtocol.MESSAGE_UPDATEDOCUMENT,
+                 DocumentProtocol.MESSAGE_REMOVEDOCUMENT -> true;
+            default -> false;
+        };
+    }
+
+}
@@ -0,0 +1,27 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.documentapi.messagebus.protocol;
+
+import com.yahoo.messagebus.Reply;
+
+import java.util.List;
+
+/**
+ * The reply to a {@link BatchDocumentMessage}. If the batch was processed, this contains one reply per operation
+ * of the batch, in the same order, each holding the errors of that operation. If the batch as a whole failed,
+ * this contains no operation replies, and the errors of this apply to every operation.
+ *
+ * @author agent
+ */
+public class BatchDocumentReply extends DocumentReply {
+
+    private final List<Reply> replies;
+
+    public BatchDocumentReply(List<Reply> replies) {
+        super(DocumentProtocol.REPLY_BATCHDOCUMENT);
+        this.replies = List.copyOf(replies);
+    }
+
+    /** Returns the replies to each operation of the batch, or an empty list if the batch failed as a whole */
+    public List<Reply> getReplies() { return replies; }
+
+}
@@ -60,6 +60,7 @@ public final class DocumentProtocol implements Protocol {
     public static final int MESSAGE_EMPTYBUCKETS = DOCUMENT_MESSAGE + 23;
     public static final int MESSAGE_REMOVELOCATION = DOCUMENT_MESSAGE + 24;
     public static final int MESSAGE_QUERYRESULT = DOCUMENT_MESSAGE + 25;
+    public static final int MESSAGE_BATCHDOCUMENT = DOCUMENT_MESSAGE + 26;
 
     // All reply types that are implemented by this protocol.
     public static final int DOCUMENT_REPLY = 200000;
@@ -81,6 +82,7 @@ public final class DocumentProtocol implements Protocol {
     public static final int REPLY_EMPTYBUCKETS = DOCUMENT_REPLY + 23;
     public static final int REPLY_REMOVELOCATION = DOCUMENT_REPLY + 24;
     public static final int REPLY_QUERYRESULT = DOCUMENT_REPLY + 25;
+    public static final int REPLY_BATCHDOCUMENT = DOCUMENT_REPLY + 26;
     public static final int REPLY_WRONGDISTRIBUTION = DOCUMENT_REPLY + 1000;
     public static final int REPLY_DOCUMENTIGNORED = DOCUMENT_REPLY + 1001;
 
@@ -275,7 +277,7 @@ public final class DocumentProtocol implements Protocol {
         putRoutingPolicyFactory("SubsetService", new RoutingPolicyFactories.SubsetServicePolicyFactory());
 
         registerLegacyV6Factories();
-        registerV8Factories();
+        registerV8Factories(false);
     }
 
     private void registerLegacyV6Factories() {
@@ -319,19 +321,19 @@ public final class DocumentProtocol implements Protocol {
         putRoutableFactory(REPLY_WRONGDISTRIBUTION, new RoutableFactories60.WrongDistributionReplyFactory(), from6);
     }
 
-    private void registerV8Factories() {
+    private void registerV8Factories(boolean lazyFieldDecoding) {
         var version8 = new VersionSpecification(8, 310); // Must be same as in C++ impl
         var from8 = List.of(version8);
 
         putRoutableFactory(MESSAGE_CREATEVISITOR,   RoutableFactories80.createCreateVisitorMessageFactory(),   from8);
         putRoutableFactory(MESSAGE_DESTROYVISITOR,  RoutableFactories80.createDestroyVisitorMessageFactory(),  from8);
-        putRoutableFactory(MESSAGE_DOCUMENTLIST,    RoutableFactories80.createDocumentListMessageFactory(),    from8);
+        putRoutableFactory(MESSAGE_DOCUMENTLIST,    RoutableFactories80.createDocumentListMessageFactory(lazyFieldDecoding), from8);
         putRoutableFactory(MESSAGE_EMPTYBUCKETS,    RoutableFactories80.createEmptyBucketsMessageFactory(),    from8);
         putRoutableFactory(MESSAGE_GETBUCKETLIST,   RoutableFactories80.createGetBucketListMessageFactory(),   from8);
         putRoutableFactory(MESSAGE_GETBUCKETSTATE,  RoutableFactories80.createGetBucketStateMessageFactory(),  from8);
         putRoutableFactory(MESSAGE_GETDOCUMENT,     RoutableFactories80.createGetDocumentMessageFactory(),     from8);
         putRoutableFactory(MESSAGE_MAPVISITOR,      RoutableFactories80.createMapVisitorMessageFactory(),      from8);
-        putRoutableFactory(MESSAGE_PUTDOCUMENT,     RoutableFactories80.createPutDocumentMessageFactory(),     from8);
+        putRoutableFactory(MESSAGE_PUTDOCUMENT,     RoutableFactories80.createPutDocumentMessageFactory(lazyFieldDecoding), from8);
         putRoutableFactory(MESSAGE_QUERYRESULT,     RoutableFactories80.createQueryResultMessageFactory(),     from8);
         putRoutableFactory(MESSAGE_REMOVEDOCUMENT,  RoutableFactories80.createRemoveDocumentMessageFactory(),  from8);
         putRoutableFactory(MESSAGE_REMOVELOCATION,  RoutableFactories80.createRemoveLocationMessageFactory(),  from8);
@@ -345,7 +347,7 @@ public final class DocumentProtocol implements Protocol {
         putRoutableFactory(REPLY_EMPTYBUCKETS,      RoutableFactories80.createEmptyBucketsReplyFactory(),      from8);
         putRoutableFactory(REPLY_GETBUCKETLIST,     RoutableFactories80.createGetBucketListReplyFactory(),     from8);
         putRoutableFactory(REPLY_GETBUCKETSTATE,    RoutableFactories80.createGetBucketStateReplyFactory(),    from8);
-        putRoutableFactory(REPLY_GETDOCUMENT,       RoutableFactories80.createGetDocumentReplyFactory(),       from8);
+        putRoutableFactory(REPLY_GETDOCUMENT,       RoutableFactories80.createGetDocumentReplyFactory(lazyFieldDecoding), from8);
         putRoutableFactory(REPLY_MAPVISITOR,        RoutableFactories80.createMapVisitorReplyFactory(),        from8);
         putRoutableFactory(REPLY_PUTDOCUMENT,       RoutableFactories80.createPutDocumentReplyFactory(),       from8);
         putRoutableFactory(REPLY_QUERYRESULT,       RoutableFactories80.createQueryResultReplyFactory(),       from8);
@@ -355,6 +357,24 @@ public final class DocumentProtocol implements Protocol {
         putRoutableFactory(REPLY_UPDATEDOCUMENT,    RoutableFactories80.createUpdateDocumentReplyFactory(),    from8);
         putRoutableFactory(REPLY_VISITORINFO,       RoutableFactories80.createVisitorInfoReplyFactory(),       from8);
         putRoutableFactory(REPLY_WRONGDISTRIBUTION, RoutableFactories80.createWrongDistributionReplyFactory(), from8);
+
+        // Batches are only understood by Java containers, which know them from this version
+        var from8_311 = List.of(new VersionSpecification(8, 311));
+        putRoutableFactory(MESSAGE_BATCHDOCUMENT, RoutableFactories80.createBatchDocumentMessageFactory(lazyFieldDecoding), from8_311);
+        putRoutableFactory(REPLY_BATCHDOCUMENT,   RoutableFactories80.createBatchDocumentReplyFactory(),   from8_311);
+    }
+
+    /**
+     * Sets whether the fields of documents in decoded messages and replies are kept in serialized form until
+     * they are accessed, which is cheaper for consumers which only access some of the fields of the documents
+     * they receive. Fields which are never accessed are encoded again as-is. Default is false.
+     *
+     * @param lazyFieldDecoding whether to deserialize document fields when they are first accessed
+     * @return this, to allow chaining
+     */
+    public DocumentProtocol setLazyFieldDecoding(boolean lazyFieldDecoding) {
+        registerV8Factories(lazyFieldDecoding);
+        return this;
     }
 
     /**
@@ -557,7 +577,10 @@ public final class DocumentProtocol implements Protocol {
 
     public Routable decode(Version version, byte[] data) {
         try {
-            return routableRepository.decode(docMan, version, data);
+            Routable routable = routableRepository.decode(docMan, version, data);
+            if (routable instanceof VisitorMessage visitorMessage)
+                visitorMessage.setSerializedSize(data.length);
+            return routable;
         } catch (RuntimeException e) {
             log.log(Level.WARNING, "Failed to decode document data", e);
             return null;
@@ -149,8 +149,11 @@ public class DocumentRouteSelectorPolicy
             return true;
         }
 
+        return select(selector, context.getMessage());
+    }
+
+    private static boolean select(DocumentSelector selector, Message msg) {
         // Select based on message content.
-        Message msg = context.getMessage();
         switch (msg.getType()) {
 
         case DocumentProtocol.MESSAGE_PUTDOCUMENT:
@@ -177,6 +180,14 @@ public class DocumentRouteSelectorPolicy
             }
         }
 
+        case DocumentProtocol.MESSAGE_BATCHDOCUMENT: {
+            // A batch can not be split here, so it is only sent where all its operations should go
+            for (TestAndSetMessage operation : ((BatchDocumentMessage)msg).getOperations()) {
+                if ( ! select(selector, operation)) return false;
+            }
+            return true;
+        }
+
         default:
             return true;
         }
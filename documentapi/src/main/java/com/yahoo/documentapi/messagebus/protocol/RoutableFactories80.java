@@ -21,6 +21,9 @@ import com.yahoo.document.serialization.DocumentDeserializerFactory;
 import com.yahoo.document.serialization.DocumentSerializer;
 import com.yahoo.document.serialization.DocumentSerializerFactory;
 import com.yahoo.io.GrowableByteBuffer;
+import com.yahoo.messagebus.EmptyReply;
+import com.yahoo.messagebus.Error;
+import com.yahoo.messagebus.Reply;
 import com.yahoo.messagebus.Routable;
 import com.yahoo.vdslib.DocumentSummary;
 import com.yahoo.vdslib.SearchResult;
@@ -30,6 +33,7 @@ import com.yahoo.vespa.objects.BufferSerializer;
 import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.Objects;
 import java.util.function.BiFunction;
 import java.util.function.Function;
@@ -44,22 +48,35 @@ abstract class RoutableFactories80 {
 
     private static class ProtobufCodec<DocApiT extends Routable, ProtoT extends AbstractMessage> implements RoutableFactory {
 
-        private final Class<DocApiT>                          apiClass;
-        private final Function<DocApiT, ProtoT>               encoderFn;
-        private final Function<DocumentDeserializer, DocApiT> decoderFn;
+        private final Class<DocApiT>                                     apiClass;
+        private final Function<DocApiT, ProtoT>                          encoderFn;
+        private final Parser<ProtoT>                                     parser;
+        private final BiFunction<ProtoT, DocumentTypeManager, DocApiT> decoderFn;
 
         ProtobufCodec(Class<DocApiT> apiClass,
                       Function<DocApiT, ProtoT> encoderFn,
-                      Function<DocumentDeserializer, DocApiT> decoderFn) {
+                      Parser<ProtoT> parser,
+                      BiFunction<ProtoT, DocumentTypeManager, DocApiT> decoderFn) {
             this.apiClass = apiClass;
             this.encoderFn = encoderFn;
+            this.parser = parser;
             this.decoderFn = decoderFn;
         }
 
+        /** Returns the Protobuf representation of the given routable, for embedding in other messages */
+        ProtoT toProto(Routable obj) {
+            return encoderFn.apply(apiClass.cast(obj));
+        }
+
+        /** Returns the routable represented by the given Protobuf message */
+        DocApiT fromProto(ProtoT protoObj, DocumentTypeManager repo) {
+            return decoderFn.apply(protoObj, repo);
+        }
+
         @Override
         public byte[] encode(int msgType, Routable obj) {
             try {
-                var protoMsg = encoderFn.apply(apiClass.cast(obj));
+                var protoMsg = toProto(obj);
                 int protoSize = protoMsg.getSerializedSize();
                 // The message payload contains a 4-byte header int which specifies the type of the message
                 // that follows. We want to write this header and the subsequence message bytes using a single
@@ -87,8 +104,8 @@ abstract class RoutableFactories80 {
         @Override
         public Routable decode(DocumentDeserializer in) {
             try {
-                return decoderFn.apply(in);
-            } catch (RuntimeException e) {
+                return fromProto(parser.parseFrom(in.getBuf().getByteBuffer()), in.getTypeRepo());
+            } catch (IOException | RuntimeException e) {
                 throw new RuntimeException("Error during Protobuf decoding of message type %s: %s"
                         .formatted(apiClass.getSimpleName(), e.getMessage()), e);
             }
@@ -98,10 +115,11 @@ abstract class RoutableFactories80 {
 
     private static class ProtobufCodecBuilder<DocApiT extends Routable, ProtoT extends AbstractMessage> {
 
-        private final Class<DocApiT>                    apiClass;
-        private final Class<ProtoT>                     protoClass;
-        private Function<DocApiT, ProtoT>               encoderFn;
-        private Function<DocumentDeserializer, DocApiT> decoderFn;
+        private final Class<DocApiT>                                     apiClass;
+        private final Class<ProtoT>                                      protoClass;
+        private Function<DocApiT, ProtoT>                                encoderFn;
+        private Parser<ProtoT>                                           parser;
+        private BiFunction<ProtoT, DocumentTypeManager, DocApiT>       decoderFn;
 
         ProtobufCodecBuilder(Class<DocApiT> apiClass, Class<ProtoT> protoClass) {
             this.apiClass = apiClass;
@@ -122,39 +140,22 @@ abstract class RoutableFactories80 {
         }
 
         ProtobufCodecBuilder<DocApiT, ProtoT> decoder(Parser<ProtoT> parser, Function<ProtoT, DocApiT> fn) {
-            if (decoderFn != null) {
-                throw new IllegalArgumentException("Decoder already set");
-            }
-            decoderFn = (buf) -> {
-                try {
-                    var protoObj = parser.parseFrom(buf.getBuf().getByteBuffer());
-                    return fn.apply(protoObj);
-                } catch (IOException e) {
-                    throw new RuntimeException(e);
-                }
-            };
-            return this;
+            return decoderWithRepo(parser, (protoObj, repo) -> fn.apply(protoObj));
         }
 
         ProtobufCodecBuilder<DocApiT, ProtoT> decoderWithRepo(Parser<ProtoT> parser, BiFunction<ProtoT, DocumentTypeManager, DocApiT> fn) {
             if (decoderFn != null) {
                 throw new IllegalArgumentException("Decoder already set");
             }
-            decoderFn = (buf) -> {
-                try {
-                    var protoObj = parser.parseFrom(buf.getBuf().getByteBuffer());
-                    return fn.apply(protoObj, buf.getTypeRepo());
-                } catch (IOException e) {
-                    throw new RuntimeException(e);
-                }
-            };
+            this.parser = parser;
+            decoderFn = fn;
             return this;
         }
 
         ProtobufCodec<DocApiT, ProtoT> build() {
             Objects.requireNonNull(encoderFn, "Encoder has not been set");
             Objects.requireNonNull(decoderFn, "Decoder has not been set");
-            return new ProtobufCodec<>(apiClass, encoderFn, decoderFn);
+            return new ProtobufCodec<>(apiClass, encoderFn, parser, decoderFn);
         }
     }
 
@@ -211,8 +212,15 @@ abstract class RoutableFactories80 {
                 .build();
     }
 
-    private static Document fromProtoDocument(DocapiCommon.Document protoDoc, DocumentTypeManager repo) {
-        var deserializer = DocumentDeserializerFactory.createHead(repo, new GrowableByteBuffer(protoDoc.getPayload().asReadOnlyByteBuffer()));
+    /**
+     * Decodes a document
+     *
+     * @param lazyFieldDecoding whether to deserialize the fields of the document when they are first accessed
+     */
+    private static Document fromProtoDocument(DocapiCommon.Document protoDoc, DocumentTypeManager repo, boolean lazyFieldDecoding) {
+        var buffer = new GrowableByteBuffer(protoDoc.getPayload().asReadOnlyByteBuffer());
+        var deserializer = lazyFieldDecoding ? DocumentDeserializerFactory.createLazyHead(repo, buffer)
+                                             : DocumentDeserializerFactory.createHead(repo, buffer);
         return Document.createDocument(deserializer);
     }
 
@@ -315,7 +323,7 @@ abstract class RoutableFactories80 {
                 .build();
     }
 
-    static RoutableFactory createGetDocumentReplyFactory() {
+    static RoutableFactory createGetDocumentReplyFactory(boolean lazyFieldDecoding) {
         return ProtobufCodecBuilder
                 .of(GetDocumentReply.class, DocapiFeed.GetDocumentResponse.class)
                 .encoder((apiReply) -> {
@@ -330,7 +338,7 @@ abstract class RoutableFactories80 {
                 .decoderWithRepo(DocapiFeed.GetDocumentResponse.parser(), (protoReply, repo) -> {
                     GetDocumentReply reply;
                     if (protoReply.hasDocument()) {
-                        var doc = fromProtoDocument(protoReply.getDocument(), repo);
+                        var doc = fromProtoDocument(protoReply.getDocument(), repo, lazyFieldDecoding);
                         doc.setLastModified(protoReply.getLastModified());
                         reply = new GetDocumentReply(doc);
                     } else {
@@ -346,7 +354,7 @@ abstract class RoutableFactories80 {
     // Put request and response
     // ---------------------------------------------
 
-    static RoutableFactory createPutDocumentMessageFactory() {
+    static ProtobufCodec<PutDocumentMessage, DocapiFeed.PutDocumentRequest> createPutDocumentMessageFactory(boolean lazyFieldDecoding) {
         return ProtobufCodecBuilder
                 .of(PutDocumentMessage.class, DocapiFeed.PutDocumentRequest.class)
                 .encoder((apiMsg) -> {
@@ -361,7 +369,7 @@ abstract class RoutableFactories80 {
                     return builder.build();
                 })
                 .decoderWithRepo(DocapiFeed.PutDocumentRequest.parser(), (protoMsg, repo) -> {
-                    var doc = fromProtoDocument(protoMsg.getDocument(), repo);
+                    var doc = fromProtoDocument(protoMsg.getDocument(), repo, lazyFieldDecoding);
                     var msg = new PutDocumentMessage(new DocumentPut(doc));
                     if (protoMsg.hasCondition()) {
                         msg.setCondition(fromProtoTasCondition(protoMsg.getCondition()));
@@ -374,7 +382,7 @@ abstract class RoutableFactories80 {
                 .build();
     }
 
-    static RoutableFactory createPutDocumentReplyFactory() {
+    static ProtobufCodec<WriteDocumentReply, DocapiFeed.PutDocumentResponse> createPutDocumentReplyFactory() {
         return ProtobufCodecBuilder
                 .of(WriteDocumentReply.class, DocapiFeed.PutDocumentResponse.class)
                 .encoder((apiReply) ->
@@ -393,7 +401,7 @@ abstract class RoutableFactories80 {
     // Update request and response
     // ---------------------------------------------
 
-    static RoutableFactory createUpdateDocumentMessageFactory() {
+    static ProtobufCodec<UpdateDocumentMessage, DocapiFeed.UpdateDocumentRequest> createUpdateDocumentMessageFactory() {
         return ProtobufCodecBuilder
                 .of(UpdateDocumentMessage.class, DocapiFeed.UpdateDocumentRequest.class)
                 .encoder((apiMsg) -> {
@@ -422,7 +430,7 @@ abstract class RoutableFactories80 {
                 .build();
     }
 
-    static RoutableFactory createUpdateDocumentReplyFactory() {
+    static ProtobufCodec<UpdateDocumentReply, DocapiFeed.UpdateDocumentResponse> createUpdateDocumentReplyFactory() {
         return ProtobufCodecBuilder
                 .of(UpdateDocumentReply.class, DocapiFeed.UpdateDocumentResponse.class)
                 .encoder((apiReply) ->
@@ -443,7 +451,7 @@ abstract class RoutableFactories80 {
     // Remove request and response
     // ---------------------------------------------
 
-    static RoutableFactory createRemoveDocumentMessageFactory() {
+    static ProtobufCodec<RemoveDocumentMessage, DocapiFeed.RemoveDocumentRequest> createRemoveDocumentMessageFactory() {
         return ProtobufCodecBuilder
                 .of(RemoveDocumentMessage.class, DocapiFeed.RemoveDocumentRequest.class)
                 .encoder((apiMsg) -> {
@@ -466,7 +474,7 @@ abstract class RoutableFactories80 {
                 .build();
     }
 
-    static RoutableFactory createRemoveDocumentReplyFactory() {
+    static ProtobufCodec<RemoveDocumentReply, DocapiFeed.RemoveDocumentResponse> createRemoveDocumentReplyFactory() {
         return ProtobufCodecBuilder
                 .of(RemoveDocumentReply.class, DocapiFeed.RemoveDocumentResponse.class)
                 .encoder((apiReply) ->
@@ -483,6 +491,109 @@ abstract class RoutableFactories80 {
                 .build();
     }
 
+    // ---------------------------------------------
+    // Batch request and response
+    // ---------------------------------------------
+
+    static RoutableFactory createBatchDocumentMessageFactory(boolean lazyFieldDecoding) {
+        var putCodec = createPutDocumentMessageFactory(lazyFieldDecoding);
+        var updateCodec = createUpdateDocumentMessageFactory();
+        var removeCodec = createRemoveDocumentMessageFactory();
+        return ProtobufCodecBuilder
+                .of(BatchDocumentMessage.class, DocapiFeed.BatchDocumentRequest.class)
+                .encoder((apiMsg) -> {
+                    var builder = DocapiFeed.BatchDocumentRequest.newBuilder();
+                    for (var operation : apiMsg.getOperations()) {
+                        var protoOperation = DocapiFeed.BatchedDocumentRequest.newBuilder();
+                        switch (operation.getType()) {
+                            case DocumentProtocol.MESSAGE_PUTDOCUMENT -> protoOperation.setPut(putCodec.toProto(operation));
+                            case DocumentProtocol.MESSAGE_UPDATEDOCUMENT -> protoOperation.setUpdate(updateCodec.toProto(operation));
+                            case DocumentProtocol.MESSAGE_REMOVEDOCUMENT -> protoOperation.setRemove(removeCodec.toProto(operation));
+                            default -> throw new IllegalArgumentException("Can not batch message type " + operation.getType());
+                        }
+                        builder.addOperations(protoOperation);
+                    }
+                    return builder.build();
+                })
+                .decoderWithRepo(DocapiFeed.BatchDocumentRequest.parser(), (protoMsg, repo) -> {
+                    var operations = new ArrayList<TestAndSetMessage>(protoMsg.getOperationsCount());
+                    for (var protoOperation : protoMsg.getOperationsList()) {
+                        operations.add(switch (protoOperation.getOperationCase()) {
+                            case PUT -> putCodec.fromProto(protoOperation.getPut(), repo);
+                            case UPDATE -> updateCodec.fromProto(protoOperation.getUpdate(), repo);
+                            case REMOVE -> removeCodec.fromProto(protoOperation.getRemove(), repo);
+                            case OPERATION_NOT_SET -> throw new IllegalArgumentException("Batched operation has no content");
+                        });
+                    }
+                    return new BatchDocumentMessage(operations);
+                })
+                .build();
+    }
+
+    static RoutableFactory createBatchDocumentReplyFactory() {
+        var putCodec = createPutDocumentReplyFactory();
+        var updateCodec = createUpdateDocumentReplyFactory();
+        var removeCodec = createRemoveDocumentReplyFactory();
+        return ProtobufCodecBuilder
+                .of(BatchDocumentReply.class, DocapiFeed.BatchDocumentResponse.class)
+                .encoder((apiReply) -> {
+                    var builder = DocapiFeed.BatchDocumentResponse.newBuilder();
+                    for (var reply : apiReply.getReplies()) {
+                        var protoResponse = DocapiFeed.BatchedDocumentResponse.newBuilder().setType(reply.getType());
+                        for (int i = 0; i < reply.getNumErrors(); i++) {
+                            protoResponse.addErrors(toProtoReplyError(reply.getError(i)));
+                        }
+                        if (reply instanceof UpdateDocumentReply) {
+                            protoResponse.setUpdate(updateCodec.toProto(reply));
+                        } else if (reply instanceof RemoveDocumentReply) {
+                            protoResponse.setRemove(removeCodec.toProto(reply));
+                        } else if (reply instanceof WriteDocumentReply && reply.getType() == DocumentProtocol.REPLY_PUTDOCUMENT) {
+                            protoResponse.setPut(putCodec.toProto(reply));
+                        }
+                        builder.addResponses(protoResponse);
+                    }
+                    return builder.build();
+                })
+                .decoderWithRepo(DocapiFeed.BatchDocumentResponse.parser(), (protoReply, repo) -> {
+                    var replies = new ArrayList<Reply>(protoReply.getResponsesCount());
+                    for (var protoResponse : protoReply.getResponsesList()) {
+                        Reply reply = switch (protoResponse.getResponseCase()) {
+                            case PUT -> putCodec.fromProto(protoResponse.getPut(), repo);
+                            case UPDATE -> updateCodec.fromProto(protoResponse.getUpdate(), repo);
+                            case REMOVE -> removeCodec.fromProto(protoResponse.getRemove(), repo);
+                            case RESPONSE_NOT_SET -> replyWithoutContent(protoResponse.getType());
+                        };
+                        for (var protoError : protoResponse.getErrorsList()) {
+                            reply.addError(fromProtoReplyError(protoError));
+                        }
+                        replies.add(reply);
+                    }
+                    return new BatchDocumentReply(replies);
+                })
+                .build();
+    }
+
+    private static DocapiFeed.ReplyError toProtoReplyError(Error error) {
+        var builder = DocapiFeed.ReplyError.newBuilder().setCode(error.getCode()).setMessage(error.getMessage());
+        if (error.getService() != null) {
+            builder.setService(error.getService());
+        }
+        return builder.build();
+    }
+
+    private static Error fromProtoReplyError(DocapiFeed.ReplyError protoError) {
+        return new Error(protoError.getCode(), protoError.getMessage(),
+                         protoError.getService().isEmpty() ? null : protoError.getService());
+    }
+
+    private static Reply replyWithoutContent(int type) {
+        return switch (type) {
+            case 0 -> new EmptyReply();
+            case DocumentProtocol.REPLY_DOCUMENTIGNORED -> new DocumentIgnoredReply();
+            default -> new DocumentReply(type);
+        };
+    }
+
     // ---------------------------------------------
     // RemoveLocation request and response
     // ---------------------------------------------
@@ -744,7 +855,7 @@ abstract class RoutableFactories80 {
     // TODO this should be deprecated
     // ---------------------------------------------
 
-    static RoutableFactory createDocumentListMessageFactory() {
+    static RoutableFactory createDocumentListMessageFactory(boolean lazyFieldDecoding) {
         return ProtobufCodecBuilder
                 .of(DocumentListMessage.class, DocapiVisiting.DocumentListRequest.class)
                 .encoder((apiMsg) -> {
@@ -763,7 +874,7 @@ abstract class RoutableFactories80 {
                     msg.setBucketId(fromProtoBucketId(protoMsg.getBucketId()));
                     for (var entry : protoMsg.getEntriesList()) {
                         msg.getDocuments().add(new DocumentListEntry(
-                                fromProtoDocument(entry.getDocument(), repo),
+                                fromProtoDocument(entry.getDocument(), repo, lazyFieldDecoding),
                                 entry.getTimestamp(),
                                 entry.getIsTombstone()));
                     }
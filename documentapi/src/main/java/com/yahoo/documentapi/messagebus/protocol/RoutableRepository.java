@@ -116,9 +116,8 @@ final class RoutableRepository {
 
             factoryTypes.put(type, versionMap);
         }
-        if (versionMap.putFactory(version, factory)) {
-            cache.clear();
-        }
+        versionMap.putFactory(version, factory);
+        cache.clear();
     }
 
     /**
@@ -169,8 +168,8 @@ final class RoutableRepository {
 
         final Map<VersionSpecification, RoutableFactory> factoryVersions = new HashMap<>();
 
-        boolean putFactory(VersionSpecification version, RoutableFactory factory) {
-            return factoryVersions.put(version, factory) == null;
+        void putFactory(VersionSpecification version, RoutableFactory factory) {
+            factoryVersions.put(version, factory);
         }
 
         RoutableFactory getFactory(Version version) {
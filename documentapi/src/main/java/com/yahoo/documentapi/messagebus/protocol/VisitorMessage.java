@@ -2,5 +2,12 @@
 package com.yahoo.documentapi.messagebus.protocol;
 
 public abstract class VisitorMessage extends DocumentMessage {
-    // empty
+
+    private int serializedSize = 0;
+
+    /** Returns the size of this as received over the network, or 0 if it was not received over the network */
+    public int getSerializedSize() { return serializedSize; }
+
+    void setSerializedSize(int serializedSize) { this.serializedSize = serializedSize; }
+
 }
@@ -1724,4 +1724,61 @@ public class VisitorIteratorTestCase {
         assertEquals(input, p2.toString());
     }
 
+    @Test
+    public void testProgressSlicing() throws ParseException {
+        ProgressToken progress = new ProgressToken();
+        VisitorIterator iter = VisitorIterator.createFromDocumentSelection(
+                "id.group != \"yahoo.com\"", new BucketIdFactory(), 4, progress);
+        for (int i = 0; i < 4; i++)
+            iter.getNext(); // buckets 0 to 3 are active
+
+        ProgressToken slice = progress.slice(2, 1);
+        assertEquals(4, slice.getBucketCursor());
+        assertEquals(2, slice.getPendingBucketCount());
+        assertEquals(2, slice.getFinishedBucketCount());
+        assertEquals(16, slice.getTotalBucketCount());
+        assertEquals(4, progress.getActiveBucketCount()); // unchanged
+    }
+
+    @Test
+    public void testProgressMerging() throws ParseException {
+        int distBits = 4;
+        BucketIdFactory idFactory = new BucketIdFactory();
+        String selection = "id.group != \"yahoo.com\"";
+        ProgressToken progress0 = new ProgressToken();
+        VisitorIterator iter0 = VisitorIterator.createFromDocumentSelection(selection, idFactory, distBits, progress0, 2, 0);
+        ProgressToken progress1 = new ProgressToken();
+        VisitorIterator iter1 = VisitorIterator.createFromDocumentSelection(selection, idFactory, distBits, progress1, 2, 1);
+        assertEquals(0, ProgressToken.merge(List.of(progress0, new ProgressToken())).getTotalBucketCount());
+
+        for (int i = 0; i < 3; i++)
+            iter0.update(iter0.getNext().getSuperbucket(), ProgressToken.FINISHED_BUCKET); // buckets 0, 2 and 4 are done
+        iter0.getNext(); // bucket 6 is active
+        while (iter1.hasNext())
+            iter1.update(iter1.getNext().getSuperbucket(), ProgressToken.FINISHED_BUCKET);
+        assertTrue(progress1.isFinished());
+
+        ProgressToken merged = ProgressToken.merge(List.of(progress0, progress1));
+        long cursor = progress0.getBucketCursor();
+        assertEquals(distBits, merged.getDistributionBitCount());
+        assertEquals(16, merged.getTotalBucketCount());
+        assertEquals(cursor, merged.getBucketCursor());
+        assertEquals(1, merged.getPendingBucketCount());
+        assertEquals(cursor - 1, merged.getFinishedBucketCount());
+
+        // Resuming from the merged progress visits all buckets not done before the cursor of the least progressed slice
+        long[] expectedBuckets = { 16 / 2 - 3, (16 - cursor) / 2 };
+        for (int sliceId = 0; sliceId < 2; sliceId++) {
+            ProgressToken progress = merged.slice(2, sliceId);
+            VisitorIterator iter = VisitorIterator.createFromDocumentSelection(selection, idFactory, distBits, progress, 2, sliceId);
+            long buckets = 0;
+            while (iter.hasNext()) {
+                iter.update(iter.getNext().getSuperbucket(), ProgressToken.FINISHED_BUCKET);
+                ++buckets;
+            }
+            assertEquals("slice " + sliceId, expectedBuckets[sliceId], buckets);
+        }
+        assertTrue(ProgressToken.merge(List.of(progress1, progress1)).isFinished());
+    }
+
 }
@@ -22,6 +22,7 @@ public class VisitorParametersTestCase {
         params.setRoute("extraterrestrial/highway");
         params.setTimeoutMs(1337);
         params.setMaxPending(111);
+        params.setMaxPendingBytes(1 << 20);
         params.setFieldSet(AllFields.NAME);
         params.setVisitRemoves(true);
         params.setVisitInconsistentBuckets(true);
@@ -39,6 +40,8 @@ public class VisitorParametersTestCase {
     @Test
     public void testCopyConstructor() {
         VisitorParameters params = createVisitorParameters();
+        params.slice(3, 2);
+        params.setParallelism(4);
 
         VisitorParameters copy = new VisitorParameters(params);
 
@@ -54,6 +57,7 @@ public class VisitorParametersTestCase {
         assertEquals("extraterrestrial/highway", copy.getRoute().toString());
         assertEquals(1337, copy.getTimeoutMs());
         assertEquals(111, copy.getMaxPending());
+        assertEquals(1 << 20, copy.getMaxPendingBytes());
         assertEquals(AllFields.NAME, copy.getFieldSet());
         assertEquals(true, copy.getVisitRemoves());
         assertEquals(true, copy.getVisitInconsistentBuckets());
@@ -64,6 +68,9 @@ public class VisitorParametersTestCase {
         assertEquals(params.getControlHandler(), copy.getControlHandler());
         assertEquals(777, copy.getMaxTotalHits());
         assertEquals(true, copy.skipBucketsOnFatalErrors());
+        assertEquals(3, copy.getSlices());
+        assertEquals(2, copy.getSliceId());
+        assertEquals(4, copy.getParallelism());
 
         // Test local data handler copy
         VisitorParameters params2 = new VisitorParameters("");
@@ -82,6 +89,7 @@ public class VisitorParametersTestCase {
                 "  Bucket space:       narnia\n" +
                 "  Visitor library:    CoolVisitor\n" +
                 "  Max pending:        111\n" +
+                "  Max pending bytes:  1048576\n" +
                 "  Timeout (ms):       1337\n" +
                 "  Time period:        9001 - 10001\n" +
                 "  Visiting remove entries\n" +
@@ -1,6 +1,7 @@
 // Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
 package com.yahoo.documentapi.messagebus;
 
+import com.yahoo.document.DocumentId;
 import com.yahoo.document.DocumentRemove;
 import com.yahoo.documentapi.DocumentAccess;
 import com.yahoo.documentapi.DocumentAccessParams;
@@ -8,6 +9,8 @@ import com.yahoo.documentapi.ProgressToken;
 import com.yahoo.documentapi.SyncParameters;
 import com.yahoo.documentapi.SyncSession;
 import com.yahoo.documentapi.local.LocalDocumentAccess;
+import com.yahoo.documentapi.messagebus.protocol.BatchDocumentMessage;
+import com.yahoo.documentapi.messagebus.protocol.BatchDocumentReply;
 import com.yahoo.documentapi.messagebus.protocol.CreateVisitorReply;
 import com.yahoo.documentapi.messagebus.protocol.DocumentMessage;
 import com.yahoo.documentapi.messagebus.protocol.DocumentProtocol;
@@ -15,6 +18,7 @@ import com.yahoo.documentapi.messagebus.protocol.GetDocumentMessage;
 import com.yahoo.documentapi.messagebus.protocol.GetDocumentReply;
 import com.yahoo.documentapi.messagebus.protocol.PutDocumentMessage;
 import com.yahoo.documentapi.messagebus.protocol.RemoveDocumentMessage;
+import com.yahoo.documentapi.messagebus.protocol.TestAndSetMessage;
 import com.yahoo.documentapi.messagebus.protocol.UpdateDocumentMessage;
 import com.yahoo.messagebus.DestinationSession;
 import com.yahoo.messagebus.EmptyReply;
@@ -27,8 +31,11 @@ import com.yahoo.messagebus.Reply;
 import com.yahoo.messagebus.network.Identity;
 import com.yahoo.messagebus.network.rpc.RPCNetworkParams;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Mock-up destination used for testing.
@@ -38,6 +45,8 @@ import java.util.concurrent.atomic.AtomicBoolean;
 public class Destination implements MessageHandler {
 
     final AtomicBoolean discard = new AtomicBoolean();
+    final AtomicInteger batches = new AtomicInteger();
+    final List<List<DocumentId>> batchedIds = new CopyOnWriteArrayList<>();
 
     private final DestinationSession session;
     private final DocumentAccess access;
@@ -64,6 +73,12 @@ public class Destination implements MessageHandler {
             return;
         }
 
+        Reply reply = process(msg);
+        msg.swapState(reply);
+        session.reply(reply);
+    }
+
+    private Reply process(Message msg) {
         Reply reply = ((DocumentMessage)msg).createReply();
         try {
             switch (msg.getType()) {
@@ -88,6 +103,18 @@ public class Destination implements MessageHandler {
                     ((CreateVisitorReply) reply).setLastBucket(ProgressToken.FINISHED_BUCKET);
                     break;
 
+                case DocumentProtocol.MESSAGE_BATCHDOCUMENT:
+                    batches.incrementAndGet();
+                    List<Reply> replies = new ArrayList<>();
+                    List<DocumentId> ids = new ArrayList<>();
+                    for (TestAndSetMessage operation : ((BatchDocumentMessage)msg).getOperations()) {
+                        replies.add(process(operation));
+                        ids.add(idOf(operation));
+                    }
+                    batchedIds.add(ids);
+                    reply = new BatchDocumentReply(replies);
+                    break;
+
                 default:
                     throw new UnsupportedOperationException("Unsupported message type '" + msg.getType() + "'.");
             }
@@ -95,8 +122,15 @@ public class Destination implements MessageHandler {
             reply = new EmptyReply();
             reply.addError(new Error(ErrorCode.APP_FATAL_ERROR, e.toString()));
         }
-        msg.swapState(reply);
-        session.reply(reply);
+        return reply;
+    }
+
+    private static DocumentId idOf(TestAndSetMessage operation) {
+        if (operation instanceof PutDocumentMessage put)
+            return put.getDocumentPut().getId();
+        if (operation instanceof UpdateDocumentMessage update)
+            return update.getDocumentUpdate().getId();
+        return ((RemoveDocumentMessage)operation).getDocumentId();
     }
 
     public void shutdown() {
@@ -4,6 +4,7 @@ package com.yahoo.documentapi.messagebus;
 import com.yahoo.document.Document;
 import com.yahoo.document.DocumentId;
 import com.yahoo.document.DocumentPut;
+import com.yahoo.document.DocumentRemove;
 import com.yahoo.document.DocumentType;
 import com.yahoo.document.select.parser.ParseException;
 import com.yahoo.documentapi.AsyncParameters;
@@ -11,6 +12,8 @@ import com.yahoo.documentapi.AsyncSession;
 import com.yahoo.documentapi.DocumentAccess;
 import com.yahoo.documentapi.DocumentOperationParameters;
 import com.yahoo.documentapi.Response;
+import com.yahoo.documentapi.ResponseHandler;
+import com.yahoo.documentapi.Result;
 import com.yahoo.documentapi.VisitorParameters;
 import com.yahoo.documentapi.VisitorSession;
 
@@ -19,20 +22,28 @@ import com.yahoo.jrt.ListenFailedException;
 import com.yahoo.jrt.slobrok.server.Slobrok;
 import com.yahoo.messagebus.AllPassThrottlePolicy;
 import com.yahoo.messagebus.DynamicThrottlePolicy;
+import com.yahoo.messagebus.StaticThrottlePolicy;
 import com.yahoo.messagebus.ThrottlePolicy;
 import com.yahoo.messagebus.network.Identity;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.time.Duration;
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicReference;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 /**
  * @author Einar M R Rosenvinge
@@ -41,6 +52,7 @@ public class MessageBusDocumentApiTestCase extends AbstractDocumentApiTestCase {
 
     private Slobrok slobrok;
     private Destination destination;
+    private MessageBusParams params;
     private DocumentAccess access;
 
     @Override
@@ -54,7 +66,7 @@ public class MessageBusDocumentApiTestCase extends AbstractDocumentApiTestCase {
         String slobrokConfigId =
                 "raw:slobrok[1]\n" + "slobrok[0].connectionspec tcp/localhost:" + slobrok.port() + "\n";
 
-        MessageBusParams params = new MessageBusParams();
+        params = new MessageBusParams();
         params.getRPCNetworkParams().setIdentity(new Identity("test/feeder"));
         params.getRPCNetworkParams().setSlobrokConfigId(slobrokConfigId);
         params.setDocumentManagerConfigId("file:src/test/cfg/documentmanager.cfg");
@@ -87,6 +99,26 @@ public class MessageBusDocumentApiTestCase extends AbstractDocumentApiTestCase {
         // TODO(vekterli): test DocumentAccess shutdown during active ession?
     }
 
+    @Test
+    public void requireThatOnlyParallelVisitorSessionsVisitInParallel() throws ParseException, InterruptedException {
+        VisitorParameters parameters = new VisitorParameters("id.user==1234");
+        parameters.setRoute("Route");
+        parameters.setParallelism(2);
+        try {
+            ((MessageBusDocumentAccess)access).createVisitorSession(parameters);
+            fail("Expected exception");
+        }
+        catch (IllegalArgumentException e) {
+            assertEquals("Parallelism 2 requires a session created by createParallelVisitorSession", e.getMessage());
+        }
+
+        parameters.setParallelism(1);
+        VisitorSession session = ((MessageBusDocumentAccess)access).createParallelVisitorSession(parameters);
+        assertTrue(session instanceof MessageBusVisitorSession);
+        assertTrue(session.waitUntilDone(60*5*1000));
+        session.destroy();
+    }
+
     @Test
     public void requireThatTimeoutWorks() throws InterruptedException {
         CountDownLatch latch = new CountDownLatch(1);
@@ -129,4 +161,116 @@ public class MessageBusDocumentApiTestCase extends AbstractDocumentApiTestCase {
         mbusSession.destroy();
     }
 
+    @Test
+    public void requireThatOperationsCanBeBatched() throws InterruptedException {
+        params.setMaxBatchedOperations(10).setBatchWindow(Duration.ofMillis(10));
+        DocumentAccess batchingAccess = new MessageBusDocumentAccess(params);
+        AsyncParameters asyncParams = new AsyncParameters();
+        asyncParams.setThrottlePolicy(new AllPassThrottlePolicy()); // throttling is per operation
+        AsyncSession session = batchingAccess.createAsyncSession(asyncParams);
+        DocumentType type = batchingAccess.getDocumentTypeManager().getDocumentType("music");
+
+        int operations = 25;
+        CountDownLatch latch = new CountDownLatch(operations);
+        List<Response> responses = new CopyOnWriteArrayList<>();
+        for (int i = 0; i < operations; i++) {
+            DocumentPut put = new DocumentPut(new Document(type, new DocumentId("id:ns:music::" + i)));
+            assertTrue(session.put(put, DocumentOperationParameters.parameters()
+                                                                   .withResponseHandler(response -> {
+                                                                       responses.add(response);
+                                                                       latch.countDown();
+                                                                   }))
+                              .isSuccess());
+        }
+        assertTrue(latch.await(60, TimeUnit.SECONDS));
+        for (int i = 0; i < operations; i++)
+            assertTrue(responses.get(i).isSuccess());
+        assertEquals(operations, responses.stream().map(Response::getRequestId).distinct().count());
+        assertTrue(destination.batches.get() >= 2);
+        session.destroy();
+        batchingAccess.shutdown();
+    }
+
+    @Test
+    public void requireThatBatchedOperationsOnTheSameDocumentAreSequenced() throws InterruptedException {
+        params.setMaxBatchedOperations(10).setBatchWindow(Duration.ofMillis(10));
+        DocumentAccess batchingAccess = new MessageBusDocumentAccess(params);
+        AsyncParameters asyncParams = new AsyncParameters();
+        asyncParams.setThrottlePolicy(new AllPassThrottlePolicy()); // throttling is per operation
+        AsyncSession session = batchingAccess.createAsyncSession(asyncParams);
+        DocumentType type = batchingAccess.getDocumentTypeManager().getDocumentType("music");
+        DocumentId id = new DocumentId("id:ns:music::same");
+
+        int operations = 20;
+        CountDownLatch latch = new CountDownLatch(2 * operations);
+        List<Long> sent = new ArrayList<>();
+        List<Long> replied = new CopyOnWriteArrayList<>();
+        ResponseHandler sameDocumentHandler = response -> {
+            replied.add(response.getRequestId());
+            latch.countDown();
+        };
+        for (int i = 0; i < operations; i++) {
+            DocumentPut other = new DocumentPut(new Document(type, new DocumentId("id:ns:music::" + i)));
+            assertTrue(session.put(other, DocumentOperationParameters.parameters().withResponseHandler(response -> latch.countDown())).isSuccess());
+            Result result = i % 2 == 0
+                            ? session.put(new DocumentPut(new Document(type, id)), DocumentOperationParameters.parameters().withResponseHandler(sameDocumentHandler))
+                            : session.remove(new DocumentRemove(id), DocumentOperationParameters.parameters().withResponseHandler(sameDocumentHandler));
+            assertTrue(result.isSuccess());
+            sent.add(result.getRequestId());
+        }
+        assertTrue(latch.await(60, TimeUnit.SECONDS));
+        assertEquals(sent, replied);
+        assertTrue(destination.batches.get() >= 1);
+        for (List<DocumentId> batch : destination.batchedIds)
+            assertEquals("Operations on the same document are not batched together: " + batch,
+                         batch.size(), new HashSet<>(batch).size());
+        session.destroy();
+        batchingAccess.shutdown();
+    }
+
+    @Test
+    public void requireThatBatchedOperationsAreThrottledIndividually() {
+        params.setMaxBatchedOperations(10).setBatchWindow(Duration.ofMillis(10));
+        DocumentAccess batchingAccess = new MessageBusDocumentAccess(params);
+        AsyncParameters asyncParams = new AsyncParameters();
+        asyncParams.setThrottlePolicy(new StaticThrottlePolicy().setMaxPendingCount(3));
+        AsyncSession session = batchingAccess.createAsyncSession(asyncParams);
+        DocumentType type = batchingAccess.getDocumentTypeManager().getDocumentType("music");
+
+        destination.discard.set(true);
+        for (int i = 0; i < 3; i++)
+            assertTrue(session.put(new DocumentPut(new Document(type, new DocumentId("id:ns:music::" + i)))).isSuccess());
+        Result result = session.put(new DocumentPut(new Document(type, new DocumentId("id:ns:music::3"))));
+        assertFalse(result.isSuccess());
+        assertEquals(Result.ResultType.TRANSIENT_ERROR, result.type());
+        session.destroy();
+        batchingAccess.shutdown();
+    }
+
+    @Test
+    public void requireThatHeldBackOperationsAreRepliedToWhenSessionIsDestroyed() throws InterruptedException {
+        params.setMaxBatchedOperations(10).setBatchWindow(Duration.ofMillis(10));
+        DocumentAccess batchingAccess = new MessageBusDocumentAccess(params);
+        AsyncParameters asyncParams = new AsyncParameters();
+        asyncParams.setThrottlePolicy(new AllPassThrottlePolicy());
+        AsyncSession session = batchingAccess.createAsyncSession(asyncParams);
+        DocumentType type = batchingAccess.getDocumentTypeManager().getDocumentType("music");
+        DocumentId id = new DocumentId("id:ns:music::same");
+
+        destination.discard.set(true);
+        CountDownLatch latch = new CountDownLatch(1);
+        AtomicReference<Response> heldBack = new AtomicReference<>();
+        assertTrue(session.put(new DocumentPut(new Document(type, id))).isSuccess());
+        assertTrue(session.remove(new DocumentRemove(id),
+                                  DocumentOperationParameters.parameters().withResponseHandler(response -> {
+                                      heldBack.set(response);
+                                      latch.countDown();
+                                  })).isSuccess());
+        session.destroy();
+        assertTrue(latch.await(60, TimeUnit.SECONDS));
+        assertFalse(heldBack.get().isSuccess());
+        assertTrue(heldBack.get().getTextMessage(), heldBack.get().getTextMessage().contains("Source session destroyed"));
+        batchingAccess.shutdown();
+    }
+
 }
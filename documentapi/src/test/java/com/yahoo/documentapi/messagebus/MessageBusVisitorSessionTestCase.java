@@ -1149,6 +1149,40 @@ public class MessageBusVisitorSessionTestCase {
         assertTrue(mc.visitorSession.isDone());
     }
 
+    @Test
+    public void testMaxPendingBytesOfLocalData() {
+        VisitorParameters params = createVisitorParameters("id.user==1234");
+        params.setMaxPendingBytes(10);
+        MockComponents mc = createDefaultMock(params);
+        mc.visitorSession.start();
+        mc.executor.expectAndProcessTasks(1);
+
+        mc.receiver.send(new RemoveDocumentMessage(new DocumentId("id:ns:testdoc::bar")));
+        mc.executor.expectAndProcessTasks(1);
+
+        // The bucket must be visited again, but no visitor is sent while the data received is not acked
+        replyToCreateVisitor(mc.sender, (reply) -> reply.addError(new Error(DocumentProtocol.ERROR_ABORTED, "try again")));
+        mc.executor.expectAndProcessTasks(1); // reply
+        mc.executor.expectAndProcessTasks(1, new long[] { 100 }); // send
+        assertEquals(0, mc.sender.getMessageCount());
+        mc.executor.expectNoTasks();
+
+        // Acking the data continues visiting, with max pending reduced to what is expected to fit the max bytes
+        mc.dataHandler.ack(mc.dataHandler.getMessages().get(0).getAckToken());
+        mc.executor.expectAndProcessTasks(1); // continue
+        mc.executor.expectAndProcessTasks(1); // send
+        assertEquals("CreateVisitorMessage(buckets=[\n" +
+                     "BucketId(0x80000000000004d2)\n" +
+                     "BucketId(0x0000000000000000)\n" +
+                     "]\n" +
+                     "selection='id.user==1234'\n" +
+                     "max pending=1\n)",
+                     replyToCreateVisitor(mc.sender, ProgressToken.FINISHED_BUCKET));
+        mc.executor.expectAndProcessTasks(1);
+        mc.executor.expectNoTasks();
+        assertTrue(mc.visitorSession.isDone());
+    }
+
     @Test
     public void testCreateDefaultVisitorControlHandlerIfNoneGiven() {
         MockSender sender = new MockSender();
@@ -0,0 +1,149 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.documentapi.messagebus;
+
+import com.yahoo.document.Document;
+import com.yahoo.document.DocumentPut;
+import com.yahoo.document.DocumentTypeManager;
+import com.yahoo.document.DocumentTypeManagerConfigurer;
+import com.yahoo.document.select.parser.ParseException;
+import com.yahoo.documentapi.AckToken;
+import com.yahoo.documentapi.ProgressToken;
+import com.yahoo.documentapi.VisitorControlHandler;
+import com.yahoo.documentapi.VisitorControlHandler.CompletionCode;
+import com.yahoo.documentapi.VisitorDataQueue;
+import com.yahoo.documentapi.VisitorParameters;
+import com.yahoo.documentapi.VisitorResponse;
+import com.yahoo.documentapi.VisitorSession;
+import com.yahoo.documentapi.messagebus.protocol.PutDocumentMessage;
+import com.yahoo.messagebus.Trace;
+import com.yahoo.vdslib.VisitorStatistics;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author agent
+ */
+public class SlicedVisitorSessionTestCase {
+
+    private final List<MockSession> slices = new ArrayList<>();
+
+    @Test
+    public void testParametersAreSliced() throws ParseException {
+        VisitorParameters params = new VisitorParameters("");
+        params.slice(2, 1);
+        params.setMaxPendingBytes(1000);
+        params.setMaxTotalHits(10);
+        params.setParallelism(3);
+        new SlicedVisitorSession(params, 3, this::createSession);
+
+        assertEquals(3, slices.size());
+        for (int i = 0; i < slices.size(); i++) {
+            VisitorParameters slice = slices.get(i).params;
+            assertEquals(6, slice.getSlices());
+            assertEquals(1 + i * 2, slice.getSliceId());
+            assertEquals(1, slice.getParallelism());
+            assertEquals(333, slice.getMaxPendingBytes());
+            assertEquals(4, slice.getMaxTotalHits());
+        }
+    }
+
+    @Test
+    public void testSlicesAreVisitedAsOneSession() throws ParseException, InterruptedException {
+        VisitorParameters params = new VisitorParameters("");
+        VisitorDataQueue data = new VisitorDataQueue();
+        VisitorControlHandler control = new VisitorControlHandler();
+        params.setLocalDataHandler(data);
+        params.setControlHandler(control);
+        VisitorSession session = new SlicedVisitorSession(params, 2, this::createSession);
+
+        PutDocumentMessage put = createPut();
+        AckToken token = new AckToken(new Object());
+        slices.get(1).params.getLocalDataHandler().onMessage(put, token);
+        VisitorResponse response = session.getNext(1000);
+        session.ack(response.getAckToken());
+        assertEquals(List.of(), slices.get(0).acks);
+        assertEquals(List.of(token), slices.get(1).acks);
+
+        for (int i = 0; i < slices.size(); i++) {
+            VisitorStatistics statistics = new VisitorStatistics();
+            statistics.setDocumentsReturned(i + 1);
+            slices.get(i).params.getControlHandler().onVisitorStatistics(statistics);
+        }
+        assertEquals(3, control.getVisitorStatistics().getDocumentsReturned());
+
+        slices.get(0).params.getControlHandler().onDone(CompletionCode.TIMEOUT, "Timed out");
+        assertFalse(control.isDone());
+        slices.get(1).params.getControlHandler().onDone(CompletionCode.SUCCESS, "");
+        assertTrue(session.waitUntilDone(1000));
+        assertEquals(CompletionCode.TIMEOUT, control.getResult().getCode());
+        assertEquals("Timed out", control.getResult().getMessage());
+
+        session.destroy();
+        assertTrue(slices.stream().allMatch(slice -> slice.destroyed));
+    }
+
+    @Test
+    public void testProgressIsMerged() throws ParseException {
+        VisitorParameters params = new VisitorParameters("");
+        VisitorControlHandler control = new VisitorControlHandler();
+        params.setControlHandler(control);
+        VisitorSession session = new SlicedVisitorSession(params, 2, this::createSession);
+
+        slices.get(0).params.getControlHandler().onProgress(progress(10));
+        assertEquals(0, control.getProgress().getTotalBucketCount()); // not all slices have started
+
+        slices.get(1).params.getControlHandler().onProgress(progress(7));
+        assertEquals(7, control.getProgress().getBucketCursor());
+        assertEquals(256, session.getProgress().getTotalBucketCount());
+        assertEquals(7, session.getProgress().getFinishedBucketCount());
+    }
+
+    /** Returns progress with 8 distribution bits, where all buckets before the given cursor are finished */
+    private static ProgressToken progress(long cursor) {
+        return new ProgressToken("VDS bucket progress file\n8\n" + cursor + "\n" + cursor + "\n256\n");
+    }
+
+    private PutDocumentMessage createPut() {
+        DocumentTypeManager types = new DocumentTypeManager();
+        DocumentTypeManagerConfigurer.configure(types, "file:./test/cfg/testdoc.cfg");
+        return new PutDocumentMessage(new DocumentPut(new Document(types.getDocumentType("testdoc"), "id:ns:testdoc::1")));
+    }
+
+    private VisitorSession createSession(VisitorParameters params) {
+        MockSession session = new MockSession(params);
+        params.getControlHandler().setSession(session);
+        if (params.getLocalDataHandler() != null)
+            params.getLocalDataHandler().setSession(session);
+        slices.add(session);
+        return session;
+    }
+
+    private static class MockSession implements VisitorSession {
+
+        final VisitorParameters params;
+        final List<AckToken> acks = new ArrayList<>();
+        boolean destroyed = false;
+
+        MockSession(VisitorParameters params) {
+            this.params = params;
+        }
+
+        @Override public boolean isDone() { return params.getControlHandler().isDone(); }
+        @Override public ProgressToken getProgress() { return params.getControlHandler().getProgress(); }
+        @Override public Trace getTrace() { return new Trace(); }
+        @Override public boolean waitUntilDone(long timeoutMs) { return isDone(); }
+        @Override public void ack(AckToken token) { acks.add(token); }
+        @Override public void abort() { }
+        @Override public VisitorResponse getNext() { throw new UnsupportedOperationException(); }
+        @Override public VisitorResponse getNext(int timeoutMilliseconds) { throw new UnsupportedOperationException(); }
+        @Override public void destroy() { destroyed = true; }
+
+    }
+
+}
@@ -0,0 +1,125 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.documentapi.messagebus.protocol;
+
+import com.yahoo.component.Version;
+import com.yahoo.document.Document;
+import com.yahoo.document.DocumentId;
+import com.yahoo.document.DocumentPut;
+import com.yahoo.document.DocumentTypeManager;
+import com.yahoo.document.DocumentTypeManagerConfigurer;
+import com.yahoo.document.DocumentUpdate;
+import com.yahoo.document.TestAndSetCondition;
+import com.yahoo.messagebus.EmptyReply;
+import com.yahoo.messagebus.Error;
+import com.yahoo.messagebus.ErrorCode;
+import com.yahoo.messagebus.Reply;
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * @author agent
+ */
+public class BatchDocumentMessageTestCase {
+
+    private final DocumentTypeManager types = new DocumentTypeManager();
+    private final DocumentProtocol protocol;
+
+    public BatchDocumentMessageTestCase() {
+        DocumentTypeManagerConfigurer.configure(types, "file:./test/cfg/testdoc.cfg");
+        protocol = new DocumentProtocol(types, null);
+    }
+
+    @Test
+    public void testBatchSerialization() {
+        var put = new PutDocumentMessage(new DocumentPut(new Document(types.getDocumentType("testdoc"), "id:ns:testdoc::1")));
+        put.setCondition(new TestAndSetCondition("testdoc.intfield > 0"));
+        var update = new UpdateDocumentMessage(new DocumentUpdate(types.getDocumentType("testdoc"), new DocumentId("id:ns:testdoc::2")));
+        var remove = new RemoveDocumentMessage(new DocumentId("id:ns:testdoc::3"));
+
+        var decoded = (BatchDocumentMessage) roundTrip(new BatchDocumentMessage(List.of(put, update, remove)));
+        assertEquals(3, decoded.getOperations().size());
+        var decodedPut = (PutDocumentMessage) decoded.getOperations().get(0);
+        assertEquals(put.getDocumentPut().getId(), decodedPut.getDocumentPut().getId());
+        assertEquals(put.getCondition(), decodedPut.getCondition());
+        assertEquals(update.getDocumentUpdate().getId(), ((UpdateDocumentMessage) decoded.getOperations().get(1)).getDocumentUpdate().getId());
+        assertEquals(remove.getDocumentId(), ((RemoveDocumentMessage) decoded.getOperations().get(2)).getDocumentId());
+    }
+
+    @Test
+    public void testBatchReplySerialization() {
+        var putReply = new WriteDocumentReply(DocumentProtocol.REPLY_PUTDOCUMENT);
+        putReply.setHighestModificationTimestamp(17);
+        var updateReply = new UpdateDocumentReply();
+        updateReply.setWasFound(false);
+        var removeReply = new RemoveDocumentReply();
+        removeReply.addError(new Error(DocumentProtocol.ERROR_TEST_AND_SET_CONDITION_FAILED, "Condition failed", "storage/0"));
+        var errorReply = new EmptyReply();
+        errorReply.addError(new Error(ErrorCode.TIMEOUT, "Timed out"));
+
+        var decoded = (BatchDocumentReply) roundTrip(new BatchDocumentReply(List.of(putReply, updateReply, removeReply,
+                                                                                    new DocumentIgnoredReply(), errorReply)));
+        List<Reply> replies = decoded.getReplies();
+        assertEquals(5, replies.size());
+        assertEquals(17, ((WriteDocumentReply) replies.get(0)).getHighestModificationTimestamp());
+        assertFalse(((UpdateDocumentReply) replies.get(1)).wasFound());
+        assertTrue(((RemoveDocumentReply) replies.get(2)).wasFound());
+        assertEquals(1, replies.get(2).getNumErrors());
+        assertEquals(DocumentProtocol.ERROR_TEST_AND_SET_CONDITION_FAILED, replies.get(2).getError(0).getCode());
+        assertEquals("storage/0", replies.get(2).getError(0).getService());
+        assertEquals(DocumentProtocol.REPLY_DOCUMENTIGNORED, replies.get(3).getType());
+        assertTrue(replies.get(4) instanceof EmptyReply);
+        assertEquals(ErrorCode.TIMEOUT, replies.get(4).getError(0).getCode());
+        assertNull(replies.get(4).getError(0).getService());
+    }
+
+    @Test
+    public void testBatchesAreNotEncodedForOlderVersions() {
+        var remove = new RemoveDocumentMessage(new DocumentId("id:ns:testdoc::1"));
+        assertEquals(0, protocol.encode(new Version(8, 310), new BatchDocumentMessage(List.of(remove))).length);
+    }
+
+    @Test
+    public void testOnlyFeedOperationsCanBeBatched() {
+        try {
+            new BatchDocumentMessage(List.of());
+            fail("Expected exception");
+        }
+        catch (IllegalArgumentException e) {
+            assertEquals("A batch must contain at least one operation", e.getMessage());
+        }
+        assertFalse(BatchDocumentMessage.isBatchable(new GetDocumentMessage(new DocumentId("id:ns:testdoc::1"))));
+    }
+
+    @Test
+    public void testDocumentFieldsAreOnlyDecodedLazilyWhenRequested() {
+        var document = new Document(types.getDocumentType("testdoc"), "id:ns:testdoc::1");
+        document.setFieldValue("intfield", 3);
+        var field = document.getField("intfield");
+
+        var batch = new BatchDocumentMessage(List.of(new PutDocumentMessage(new DocumentPut(document))));
+        var put = (PutDocumentMessage) ((BatchDocumentMessage) roundTrip(batch)).getOperations().get(0);
+        assertNull(put.getDocumentPut().getDocument().getSerializedFieldValue(field));
+
+        protocol.setLazyFieldDecoding(true);
+        put = (PutDocumentMessage) ((BatchDocumentMessage) roundTrip(batch)).getOperations().get(0);
+        assertNotNull(put.getDocumentPut().getDocument().getSerializedFieldValue(field));
+        assertEquals(document, put.getDocumentPut().getDocument());
+
+        var singlePut = (PutDocumentMessage) roundTrip(new PutDocumentMessage(new DocumentPut(document)));
+        assertNotNull(singlePut.getDocumentPut().getDocument().getSerializedFieldValue(field));
+    }
+
+    private com.yahoo.messagebus.Routable roundTrip(com.yahoo.messagebus.Routable routable) {
+        Version version = new Version(8, 311);
+        return protocol.decode(version, protocol.encode(version, routable));
+    }
+
+}
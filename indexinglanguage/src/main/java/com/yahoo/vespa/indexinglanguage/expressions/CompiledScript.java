@@ -0,0 +1,58 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.vespa.indexinglanguage.expressions;
+
+import com.yahoo.document.Document;
+import com.yahoo.vespa.indexinglanguage.AdapterFactory;
+import com.yahoo.vespa.indexinglanguage.DocumentAdapter;
+
+/**
+ * An indexing expression compiled to closures by {@link ScriptCompiler}, which executes documents
+ * with the same result as the expression it is compiled from.
+ *
+ * This is immutable and multithread safe.
+ *
+ * @author agent
+ */
+public final class CompiledScript {
+
+    /** A compiled expression */
+    @FunctionalInterface
+    interface Step {
+
+        void execute(ExecutionContext context);
+
+    }
+
+    private final Expression expression;
+    private final Step root;
+    private final int variableCount;
+
+    CompiledScript(Expression expression, Step root, int variableCount) {
+        this.expression = expression;
+        this.root = root;
+        this.variableCount = variableCount;
+    }
+
+    /** Returns the expression this is compiled from */
+    public Expression getExpression() { return expression; }
+
+    /** Executes this on the given document, as {@link Expression#execute(AdapterFactory, Document)} */
+    public Document execute(AdapterFactory factory, Document document) {
+        return execute(factory.newDocumentAdapter(document));
+    }
+
+    /** Executes this on the given document, as {@link Expression#execute(DocumentAdapter)} */
+    public Document execute(DocumentAdapter adapter) {
+        ExecutionContext context = new ExecutionContext(adapter);
+        if (variableCount > 0)
+            context.allocateIndexedVariables(variableCount);
+        root.execute(context);
+        return adapter.getFullOutput();
+    }
+
+    @Override
+    public String toString() {
+        return "compiled " + expression;
+    }
+
+}
@@ -9,7 +9,7 @@ import com.yahoo.language.Language;
 import com.yahoo.language.Linguistics;
 import com.yahoo.language.detect.Detection;
 
-import java.util.HashMap;
+import java.util.Arrays;
 import java.util.Map;
 import java.util.Objects;
 
@@ -18,7 +18,9 @@ import java.util.Objects;
  */
 public class ExecutionContext implements FieldTypeAdapter, FieldValueAdapter {
 
-    private final Map<String, FieldValue> variables = new HashMap<>();
+    private final Map<String, FieldValue> variables = LazyMap.newHashMap();
+    /** The values of the variables a compiled script has resolved to indexes, or null if none */
+    private FieldValue[] indexedVariables = null;
     private final FieldValueAdapter adapter;
     private FieldValue value;
     private Language language;
@@ -94,6 +96,21 @@ public class ExecutionContext implements FieldTypeAdapter, FieldValueAdapter {
         return this;
     }
 
+    /** Makes room for the given number of variables accessed by index */
+    ExecutionContext allocateIndexedVariables(int count) {
+        indexedVariables = new FieldValue[count];
+        return this;
+    }
+
+    FieldValue getVariable(int index) {
+        return indexedVariables[index];
+    }
+
+    ExecutionContext setVariable(int index, FieldValue value) {
+        indexedVariables[index] = value;
+        return this;
+    }
+
     public Language getLanguage() { return language; }
 
     public ExecutionContext setLanguage(Language language) {
@@ -137,6 +154,8 @@ public class ExecutionContext implements FieldTypeAdapter, FieldValueAdapter {
     /** Clears all state in this except the cache. */
     public ExecutionContext clear() {
         variables.clear();
+        if (indexedVariables != null)
+            Arrays.fill(indexedVariables, null);
         value = null;
         return this;
     }
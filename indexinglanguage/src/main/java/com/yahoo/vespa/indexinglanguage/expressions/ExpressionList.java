@@ -10,7 +10,7 @@ import com.yahoo.vespa.objects.ObjectPredicate;
 
 import java.util.Collections;
 import java.util.Iterator;
-import java.util.LinkedList;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
 
@@ -19,13 +19,16 @@ import java.util.Objects;
  */
 public abstract class ExpressionList<T extends Expression> extends CompositeExpression implements Iterable<T> {
 
-    private final List<T> expressions = new LinkedList<T>();
+    /** The expressions of this, in an array backed list as this is iterated for each execution */
+    private final List<T> expressions;
 
     protected ExpressionList(Iterable<? extends T> expressions, DataType inputType) {
         super(inputType);
+        List<T> list = new ArrayList<>();
         for (T exp : expressions) {
-            this.expressions.add(exp);
+            list.add(exp);
         }
+        this.expressions = Collections.unmodifiableList(list);
     }
 
     protected List<Expression> convertChildList(ExpressionConverter converter) {
@@ -51,7 +54,7 @@ public abstract class ExpressionList<T extends Expression> extends CompositeExpr
     }
 
     public List<T> asList() {
-        return Collections.unmodifiableList(expressions);
+        return expressions;
     }
 
     @Override
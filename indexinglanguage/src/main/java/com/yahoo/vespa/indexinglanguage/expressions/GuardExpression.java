@@ -28,6 +28,11 @@ public final class GuardExpression extends CompositeExpression {
         return exp;
     }
 
+    /** Returns whether this executes its inner expression for updates */
+    boolean shouldExecute() {
+        return shouldExecute;
+    }
+
     @Override
     public GuardExpression convertChildren(ExpressionConverter converter) {
         return new GuardExpression(converter.convert(exp));
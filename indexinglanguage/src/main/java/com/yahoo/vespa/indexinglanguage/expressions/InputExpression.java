@@ -30,6 +30,11 @@ public final class InputExpression extends Expression {
         return fieldName;
     }
 
+    /** Returns the path to the input field if it is resolved, or null if the field is looked up by name */
+    FieldPath getFieldPath() {
+        return fieldPath;
+    }
+
     @Override
     protected void doExecute(ExecutionContext context) {
         if (fieldPath != null)
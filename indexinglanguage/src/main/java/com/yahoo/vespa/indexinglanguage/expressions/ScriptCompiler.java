@@ -0,0 +1,186 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.vespa.indexinglanguage.expressions;
+
+import com.yahoo.document.DataType;
+import com.yahoo.document.FieldPath;
+import com.yahoo.document.datatypes.FieldValue;
+import com.yahoo.vespa.indexinglanguage.UpdateAdapter;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compiles indexing expressions into {@link CompiledScript} instances, where scripts, statements,
+ * inputs, outputs, guards and variables are turned into closures:
+ * <ul>
+ *     <li>Input and output type checks are resolved once, and dropped where they cannot fail.</li>
+ *     <li>Statements and scripts execute arrays of closures, with the input fields of each statement resolved.</li>
+ *     <li>Variables are resolved to indexes into an array rather than looked up by name.</li>
+ * </ul>
+ *
+ * Other expressions are executed by interpreting them as usual from the closure of their parent.
+ * If any of those access variables, variables are looked up by name also in the compiled parts.
+ *
+ * Expressions must be compiled after they are fully configured, that is, after any
+ * {@link Expression#setStatementOutput} and verification.
+ *
+ * @author agent
+ */
+public final class ScriptCompiler {
+
+    /** Variable indexes by name, or null if variables are looked up by name */
+    private final Map<String, Integer> variables;
+
+    /** Whether any expression which is interpreted rather than compiled accesses variables */
+    private boolean interpretedAccessesVariables = false;
+
+    private ScriptCompiler(Map<String, Integer> variables) {
+        this.variables = variables;
+    }
+
+    /** Returns the given expression compiled */
+    public static CompiledScript compile(Expression expression) {
+        ScriptCompiler compiler = new ScriptCompiler(new HashMap<>());
+        CompiledScript.Step root = compiler.compileChecked(expression);
+        if ( ! compiler.interpretedAccessesVariables)
+            return new CompiledScript(expression, root, compiler.variables.size());
+
+        // Variables must be visible by name to the interpreted expressions
+        compiler = new ScriptCompiler(null);
+        return new CompiledScript(expression, compiler.compileChecked(expression), 0);
+    }
+
+    /** Compiles an expression including the type checks done by {@link Expression#execute(ExecutionContext)} */
+    private CompiledScript.Step compileChecked(Expression expression) {
+        CompiledScript.Step body = compileBody(expression);
+        if (body == null) return interpret(expression);
+
+        DataType inputType = expression.requiredInputType();
+        DataType outputType = expression.createdOutputType();
+        boolean checkInputType = inputType != null && ! (inputType instanceof UnresolvedDataType);
+        // an unresolved output type only rejects null, which is always accepted
+        boolean checkOutputType = outputType != null && ! (outputType instanceof UnresolvedDataType);
+        if (inputType == null && ! checkOutputType) return body;
+        return context -> {
+            if (inputType != null) {
+                FieldValue input = context.getValue();
+                if (input == null) return;
+                if (checkInputType && ! inputType.isValueCompatible(input))
+                    throw new IllegalArgumentException("Expression '" + expression + "' expected " + inputType.getName() +
+                                                       " input, got " + input.getDataType().getName());
+            }
+            body.execute(context);
+            if (checkOutputType) {
+                FieldValue output = context.getValue();
+                if (output != null && ! outputType.isValueCompatible(output))
+                    throw new IllegalStateException("Expression '" + expression + "' expected " + outputType.getName() +
+                                                    " output, got " + output.getDataType().getName());
+            }
+        };
+    }
+
+    /** Returns the body of the given expression compiled, or null if it is to be interpreted */
+    private CompiledScript.Step compileBody(Expression expression) {
+        if (expression instanceof ScriptExpression script)
+            return compileScript(script);
+        if (expression instanceof StatementExpression statement)
+            return compileStatement(statement);
+        if (expression instanceof InputExpression input)
+            return compileInput(input);
+        if (expression instanceof OutputExpression output)
+            return compileOutput(output);
+        if (expression instanceof GuardExpression guard)
+            return compileGuard(guard);
+        if (expression instanceof SetVarExpression setVar && variables != null) {
+            int index = indexOf(setVar.getVariableName());
+            return context -> context.setVariable(index, context.getValue());
+        }
+        if (expression instanceof GetVarExpression getVar && variables != null) {
+            int index = indexOf(getVar.getVariableName());
+            return context -> context.setValue(context.getVariable(index));
+        }
+        return null;
+    }
+
+    private CompiledScript.Step compileScript(ScriptExpression script) {
+        int size = script.size();
+        CompiledScript.Step[] statements = new CompiledScript.Step[size];
+        String[][] inputFields = new String[size][];
+        for (int i = 0; i < size; i++) {
+            statements[i] = compileChecked(script.get(i));
+            inputFields[i] = script.get(i).getInputFields().toArray(new String[0]);
+        }
+        return context -> {
+            FieldValue input = context.getValue();
+            boolean complete = context.isComplete();
+            for (int i = 0; i < statements.length; i++) {
+                if (complete || inputFields[i].length == 0 || containsAtLeastOneInputFrom(inputFields[i], context)) {
+                    context.setValue(input);
+                    statements[i].execute(context);
+                }
+            }
+            context.setValue(input);
+        };
+    }
+
+    private static boolean containsAtLeastOneInputFrom(String[] inputFields, ExecutionContext context) {
+        for (String inputField : inputFields)
+            if (context.getInputValue(inputField) != null)
+                return true;
+        return false;
+    }
+
+    private CompiledScript.Step compileStatement(StatementExpression statement) {
+        List<Expression> expressions = statement.asList();
+        CompiledScript.Step[] steps = new CompiledScript.Step[expressions.size()];
+        for (int i = 0; i < steps.length; i++)
+            steps[i] = compileChecked(expressions.get(i));
+        if (steps.length == 1) return steps[0];
+        return context -> {
+            for (CompiledScript.Step step : steps)
+                step.execute(context);
+        };
+    }
+
+    private CompiledScript.Step compileInput(InputExpression input) {
+        String fieldName = input.getFieldName();
+        return context -> {
+            FieldPath fieldPath = input.getFieldPath(); // may be resolved after compilation
+            context.setValue(fieldPath != null ? context.getInputValue(fieldPath) : context.getInputValue(fieldName));
+        };
+    }
+
+    private CompiledScript.Step compileOutput(OutputExpression output) {
+        String fieldName = output.getFieldName();
+        return context -> context.setOutputValue(output, fieldName, context.getValue());
+    }
+
+    private CompiledScript.Step compileGuard(GuardExpression guard) {
+        CompiledScript.Step inner = compileChecked(guard.getInnerExpression());
+        if (guard.shouldExecute()) return inner;
+        return context -> {
+            if (context.getAdapter() instanceof UpdateAdapter)
+                context.setValue(null);
+            else
+                inner.execute(context);
+        };
+    }
+
+    private CompiledScript.Step interpret(Expression expression) {
+        if (variables != null && accessesVariables(expression))
+            interpretedAccessesVariables = true;
+        return expression::execute;
+    }
+
+    private int indexOf(String variableName) {
+        return variables.computeIfAbsent(variableName, __ -> variables.size());
+    }
+
+    private static boolean accessesVariables(Expression expression) {
+        boolean[] found = new boolean[1];
+        expression.select(o -> o instanceof SetVarExpression || o instanceof GetVarExpression, o -> found[0] = true);
+        return found[0];
+    }
+
+}
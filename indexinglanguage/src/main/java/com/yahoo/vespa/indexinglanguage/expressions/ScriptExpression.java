@@ -46,8 +46,10 @@ public final class ScriptExpression extends ExpressionList<StatementExpression>
     @Override
     protected void doExecute(ExecutionContext context) {
         FieldValue input = context.getValue();
-        for (StatementExpression statement : this) {
-            if (context.isComplete() ||
+        boolean complete = context.isComplete();
+        for (int i = 0, size = size(); i < size; i++) {
+            StatementExpression statement = get(i);
+            if (complete ||
                 (statement.getInputFields().isEmpty() || containsAtLeastOneInputFrom(statement.getInputFields(), context))) {
                 context.setValue(input);
                 context.execute(statement);
@@ -57,8 +59,8 @@ public final class ScriptExpression extends ExpressionList<StatementExpression>
     }
 
     private boolean containsAtLeastOneInputFrom(List<String> inputFields, ExecutionContext context) {
-        for (String inputField : inputFields)
-            if (context.getInputValue(inputField) != null)
+        for (int i = 0, size = inputFields.size(); i < size; i++)
+            if (context.getInputValue(inputFields.get(i)) != null)
                 return true;
         return false;
     }
@@ -11,8 +11,8 @@ import com.yahoo.vespa.indexinglanguage.ScriptParserContext;
 import com.yahoo.vespa.indexinglanguage.parser.IndexingInput;
 import com.yahoo.vespa.indexinglanguage.parser.ParseException;
 
+import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
@@ -55,8 +55,8 @@ public final class StatementExpression extends ExpressionList<Expression> {
 
     @Override
     protected void doExecute(ExecutionContext context) {
-        for (Expression expression : this) {
-            context.execute(expression);
+        for (int i = 0, size = size(); i < size; i++) {
+            context.execute(get(i));
         }
     }
 
@@ -116,7 +116,7 @@ public final class StatementExpression extends ExpressionList<Expression> {
     }
 
     private static List<Expression> filterList(Iterable<Expression> lst) {
-        List<Expression> ret = new LinkedList<>();
+        List<Expression> ret = new ArrayList<>();
         for (Expression exp : lst) {
             if (exp instanceof StatementExpression) {
                 ret.addAll(filterList((StatementExpression)exp));
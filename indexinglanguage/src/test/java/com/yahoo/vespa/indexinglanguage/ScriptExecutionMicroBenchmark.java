@@ -0,0 +1,78 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.vespa.indexinglanguage;
+
+import com.yahoo.document.DataType;
+import com.yahoo.document.Document;
+import com.yahoo.document.DocumentType;
+import com.yahoo.document.datatypes.IntegerFieldValue;
+import com.yahoo.document.datatypes.StringFieldValue;
+import com.yahoo.vespa.indexinglanguage.expressions.CompiledScript;
+import com.yahoo.vespa.indexinglanguage.expressions.ScriptCompiler;
+import com.yahoo.vespa.indexinglanguage.expressions.ScriptExpression;
+import com.yahoo.vespa.indexinglanguage.expressions.StatementExpression;
+import com.yahoo.vespa.indexinglanguage.parser.ParseException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Measures the cost of executing an indexing script over a document with many indexed fields,
+ * interpreted and compiled.
+ *
+ * @author agent
+ */
+public class ScriptExecutionMicroBenchmark {
+
+    private final ScriptExpression script;
+    private final CompiledScript compiled;
+    private final Document document;
+    private final AdapterFactory adapterFactory = new SimpleAdapterFactory();
+
+    public ScriptExecutionMicroBenchmark(int fieldCount) throws ParseException {
+        DocumentType type = new DocumentType("benchmark");
+        List<StatementExpression> statements = new ArrayList<>();
+        for (int i = 0; i < fieldCount; i++) {
+            type.addField("s" + i, DataType.STRING);
+            type.addField("i" + i, DataType.INT);
+            statements.add(StatementExpression.fromString("input s" + i + " | lowercase | summary s" + i + " | attribute s" + i));
+            statements.add(StatementExpression.fromString("input i" + i + " | attribute i" + i));
+        }
+        script = new ScriptExpression(statements);
+
+        document = new Document(type, "id:ns:benchmark::0");
+        for (int i = 0; i < fieldCount; i++) {
+            document.setFieldValue("s" + i, new StringFieldValue("Value of field " + i));
+            document.setFieldValue("i" + i, new IntegerFieldValue(i));
+        }
+        script.verify(document);
+        compiled = ScriptCompiler.compile(script);
+    }
+
+    public void benchmark(int count) {
+        benchmark("Interpreted", count, () -> script.execute(adapterFactory, document));
+        benchmark("Compiled", count, () -> compiled.execute(adapterFactory, document));
+    }
+
+    private void benchmark(String name, int count, Supplier<Document> execution) {
+        execute(count / 10, execution); // warm-up
+        long startTime = System.nanoTime();
+        execute(count, execution);
+        long totalTime = System.nanoTime() - startTime;
+        System.out.println(name + ": Executed " + count + " documents in " + totalTime / 1_000_000 + " ms (" +
+                           (totalTime / count / 1000.0) + " microseconds per document)");
+    }
+
+    private void execute(int count, Supplier<Document> execution) {
+        for (int i = 0; i < count; i++) {
+            Document output = execution.get();
+            if (output == null)
+                throw new IllegalStateException("Expected output");
+        }
+    }
+
+    public static void main(String[] args) throws ParseException {
+        new ScriptExecutionMicroBenchmark(50).benchmark(200_000);
+    }
+
+}
@@ -0,0 +1,87 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.vespa.indexinglanguage.expressions;
+
+import com.yahoo.document.DataType;
+import com.yahoo.document.Document;
+import com.yahoo.document.DocumentType;
+import com.yahoo.document.datatypes.IntegerFieldValue;
+import com.yahoo.document.datatypes.StringFieldValue;
+import com.yahoo.vespa.indexinglanguage.SimpleAdapterFactory;
+import com.yahoo.vespa.indexinglanguage.parser.ParseException;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+/**
+ * @author agent
+ */
+public class ScriptCompilerTestCase {
+
+    private final DocumentType type = new DocumentType("test");
+
+    public ScriptCompilerTestCase() {
+        type.addField("s", DataType.STRING);
+        type.addField("i", DataType.INT);
+        type.addField("t", DataType.STRING);
+        type.addField("j", DataType.INT);
+    }
+
+    @Test
+    public void requireThatCompiledScriptsProduceTheSameDocuments() throws ParseException {
+        assertCompiled("{ input s | lowercase | summary t; input i | attribute j; }", "FOO", 3);
+        assertCompiled("{ input s | set_var v; get_var v | lowercase | summary t; }", "FOO", 3);
+        assertCompiled("{ input s | set_var v; (get_var v) | lowercase | summary t; }", "FOO", 3);
+        assertCompiled("{ input i | set_var v; input s | set_var w; get_var w | summary t; get_var v | attribute j; }", "FOO", 3);
+        assertCompiled("{ clear_state | guard { input s | lowercase | summary t; } }", "FOO", 3);
+        assertCompiled("{ input s | lowercase | summary t; input i | attribute j; }", null, 3);
+        assertCompiled("{ input s | lowercase | summary t; input i | attribute j; }", "FOO", null);
+    }
+
+    @Test
+    public void requireThatCompiledScriptsCheckTypes() throws ParseException {
+        ScriptExpression script = ScriptExpression.fromString("{ input i | lowercase | summary t; }");
+        Document document = document("FOO", 3);
+        String interpretedMessage = null;
+        try {
+            script.execute(new SimpleAdapterFactory(), document);
+            fail("Expected exception");
+        }
+        catch (IllegalArgumentException e) {
+            interpretedMessage = e.getMessage();
+        }
+        try {
+            ScriptCompiler.compile(script).execute(new SimpleAdapterFactory(), document);
+            fail("Expected exception");
+        }
+        catch (IllegalArgumentException e) {
+            assertEquals(interpretedMessage, e.getMessage());
+        }
+    }
+
+    @Test
+    public void requireThatVariablesAreClearedByClearState() throws ParseException {
+        ScriptExpression script = ScriptExpression.fromString("{ input s | set_var v; clear_state | get_var v | summary t; }");
+        Document compiled = ScriptCompiler.compile(script).execute(new SimpleAdapterFactory(), document("FOO", 3));
+        assertNull(compiled.getFieldValue("t"));
+    }
+
+    private void assertCompiled(String scriptString, String s, Integer i) throws ParseException {
+        ScriptExpression script = ScriptExpression.fromString(scriptString);
+        script.verify(document(s, i));
+        Document interpreted = script.execute(new SimpleAdapterFactory(), document(s, i));
+        Document compiled = ScriptCompiler.compile(script).execute(new SimpleAdapterFactory(), document(s, i));
+        assertEquals(interpreted, compiled);
+    }
+
+    private Document document(String s, Integer i) {
+        Document document = new Document(type, "id:ns:test::1");
+        if (s != null)
+            document.setFieldValue("s", new StringFieldValue(s));
+        if (i != null)
+            document.setFieldValue("i", new IntegerFieldValue(i));
+        return document;
+    }
+
+}
@@ -6,6 +6,8 @@ import java.nio.ByteBuffer;
 
 
 class Buffer {
+    private final BufferPool       pool; // null if not pooled
+    private final TransportMetrics metrics = TransportMetrics.getInstance();
     private ByteBuffer buf;
     private int        readPos;
     private int        writePos;
@@ -49,24 +51,47 @@ class Buffer {
             buf.position(readPos);
             buf.limit(writePos);
             buf.compact();
+            metrics.addBufferBytesCopied(used);
             readPos = 0;
         } else {
             int size = buf.capacity() * 2;
             if (buf.capacity() + free < minFree) {
                 size = buf.capacity() + minFree;
             }
-            ByteBuffer tmp = ByteBuffer.allocate(size);
+            ByteBuffer tmp = allocate(size);
             tmp.order(buf.order());
             buf.position(readPos);
             buf.limit(writePos);
             tmp.put(buf);
+            metrics.addBufferBytesCopied(used);
+            release(buf);
             buf = tmp;
             readPos = 0;
         }
     }
 
+    private ByteBuffer allocate(int size) {
+        return (pool == null || size == 0) ? ByteBuffer.allocate(size) : pool.acquire(size);
+    }
+
+    private void release(ByteBuffer buffer) {
+        if (pool != null) {
+            pool.release(buffer);
+        }
+    }
+
     public Buffer(int size) {
-        buf = ByteBuffer.allocate(size);
+        this(size, null);
+    }
+
+    /** Creates an empty buffer which allocates its memory from the given pool */
+    public Buffer(BufferPool pool) {
+        this(0, pool);
+    }
+
+    private Buffer(int size, BufferPool pool) {
+        this.pool = pool;
+        buf = allocate(size);
         readPos = 0;
         writePos = 0;
         readMode = false;
@@ -79,11 +104,16 @@ class Buffer {
         if (used > size || buf.capacity() <= size) {
             return false;
         }
-        ByteBuffer tmp = ByteBuffer.allocate(size);
+        if (pool != null && size > 0 && BufferPool.capacityOf(size) >= buf.capacity()) {
+            return false;
+        }
+        ByteBuffer tmp = allocate(size);
         tmp.order(buf.order());
         buf.position(rpos);
         buf.limit(wpos);
         tmp.put(buf);
+        metrics.addBufferBytesCopied(used);
+        release(buf);
         buf = tmp;
         readPos = 0;
         writePos = used;
@@ -108,4 +138,13 @@ class Buffer {
         ensureFree(minFree);
         return buf;
     }
+
+    /** Discards the content of this and returns its memory to the pool, if any */
+    public void release() {
+        release(buf);
+        buf = ByteBuffer.allocate(0);
+        readPos = 0;
+        writePos = 0;
+        readMode = false;
+    }
 }
@@ -0,0 +1,164 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.jrt;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A pool of direct byte buffers in power of two size classes, shared by the connections of a {@link Transport}.
+ * Channels read into and write from direct buffers without the copy into a temporary direct buffer the JDK does
+ * for heap buffers, but direct buffers are expensive to allocate, so they are reused here.
+ * Buffers larger than the largest size class are allocated on the heap and not pooled.
+ *
+ * The direct buffers of all pools in the JVM, in use or pooled, are bounded by {@link #MAX_DIRECT_BYTES},
+ * as many processes using this run with a small max direct memory. Heap buffers are allocated when this is reached.
+ *
+ * @author agent
+ */
+class BufferPool {
+
+    static final int MIN_SIZE_SHIFT = 12; // 4 kB
+    static final int MAX_SIZE_SHIFT = 20; // 1 MB
+
+    /**
+     * The max bytes of direct buffers allocated by all pools in the JVM, set by the system property
+     * jrt.buffer.maxDirectBytes. The default is well below the smallest max direct memory used by Vespa tools (32 MB),
+     * and 0 turns off direct buffers.
+     */
+    static final long MAX_DIRECT_BYTES = Long.getLong("jrt.buffer.maxDirectBytes", 8 * 1024 * 1024);
+
+    /** The max bytes kept in each size class of a pool */
+    private static final int MAX_POOLED_BYTES_PER_CLASS = 2 * 1024 * 1024;
+
+    private static final DirectMemory globalDirectMemory = new DirectMemory(MAX_DIRECT_BYTES);
+
+    private final TransportMetrics metrics;
+    private final DirectMemory directMemory;
+    private final SizeClass[] sizeClasses = new SizeClass[MAX_SIZE_SHIFT - MIN_SIZE_SHIFT + 1];
+
+    /** Whether this is cleared, such that released buffers are no longer pooled */
+    private volatile boolean closed = false;
+
+    BufferPool(TransportMetrics metrics) {
+        this(metrics, globalDirectMemory);
+    }
+
+    /** Creates a pool with its own bound on direct memory. For testing. */
+    BufferPool(TransportMetrics metrics, long maxDirectBytes) {
+        this(metrics, new DirectMemory(maxDirectBytes));
+    }
+
+    private BufferPool(TransportMetrics metrics, DirectMemory directMemory) {
+        this.metrics = metrics;
+        this.directMemory = directMemory;
+        for (int i = 0; i < sizeClasses.length; i++) {
+            sizeClasses[i] = new SizeClass();
+        }
+    }
+
+    /** Returns a cleared buffer with at least the given capacity */
+    ByteBuffer acquire(int minSize) {
+        int sizeClass = sizeClassOf(minSize);
+        if (sizeClass >= sizeClasses.length) {
+            return ByteBuffer.allocate(minSize);
+        }
+        ByteBuffer buffer = sizeClasses[sizeClass].free.poll();
+        if (buffer != null) {
+            sizeClasses[sizeClass].freeCount.decrementAndGet();
+            metrics.incrementBufferPoolHits();
+            return buffer;
+        }
+        metrics.incrementBufferPoolMisses();
+        int capacity = 1 << (sizeClass + MIN_SIZE_SHIFT);
+        if ( ! directMemory.reserve(capacity)) {
+            return ByteBuffer.allocate(capacity);
+        }
+        return ByteBuffer.allocateDirect(capacity);
+    }
+
+    /** Returns a buffer acquired from this to the pool. The buffer must not be used by the caller after this. */
+    void release(ByteBuffer buffer) {
+        if ( ! buffer.isDirect()) return;
+        int sizeClass = sizeClassOf(buffer.capacity());
+        if (sizeClass >= sizeClasses.length || buffer.capacity() != 1 << (sizeClass + MIN_SIZE_SHIFT)) return;
+        SizeClass pooled = sizeClasses[sizeClass];
+        if (closed) {
+            directMemory.free(buffer.capacity());
+            return; // leave it to the garbage collector
+        }
+        if (pooled.freeCount.incrementAndGet() > MAX_POOLED_BYTES_PER_CLASS >> (sizeClass + MIN_SIZE_SHIFT)) {
+            pooled.freeCount.decrementAndGet();
+            directMemory.free(buffer.capacity());
+            return;
+        }
+        buffer.clear().order(ByteOrder.BIG_ENDIAN);
+        pooled.free.offer(buffer);
+        if (closed) drain(pooled); // cleared concurrently
+    }
+
+    /**
+     * Drops all pooled buffers, leaving them to the garbage collector, and closes this such that buffers
+     * released later are dropped too, rather than pooled. Buffers may still be acquired after this.
+     */
+    void clear() {
+        closed = true;
+        for (SizeClass pooled : sizeClasses)
+            drain(pooled);
+    }
+
+    private void drain(SizeClass pooled) {
+        ByteBuffer buffer;
+        while ((buffer = pooled.free.poll()) != null) {
+            pooled.freeCount.decrementAndGet();
+            directMemory.free(buffer.capacity());
+        }
+    }
+
+    /** Returns the bytes of direct buffers currently allocated within the bound of this pool */
+    long directBytes() { return directMemory.used.get(); }
+
+    /** Returns the capacity of the buffer acquired for the given size */
+    static int capacityOf(int size) {
+        int sizeClass = sizeClassOf(size);
+        return (sizeClass > MAX_SIZE_SHIFT - MIN_SIZE_SHIFT) ? size : 1 << (sizeClass + MIN_SIZE_SHIFT);
+    }
+
+    /** Returns the index of the smallest size class holding the given size, which may be larger than the largest */
+    static int sizeClassOf(int size) {
+        if (size <= 1 << MIN_SIZE_SHIFT) return 0;
+        return 32 - Integer.numberOfLeadingZeros(size - 1) - MIN_SIZE_SHIFT;
+    }
+
+    private static class SizeClass {
+        final Queue<ByteBuffer> free = new ConcurrentLinkedQueue<>();
+        final AtomicInteger freeCount = new AtomicInteger(0);
+    }
+
+    /** Bytes of direct buffers allocated, in use or pooled, by the pools sharing this */
+    private static class DirectMemory {
+
+        final long max;
+        final AtomicLong used = new AtomicLong(0);
+
+        DirectMemory(long max) {
+            this.max = max;
+        }
+
+        /** Reserves the given bytes and returns true if this is within the max, returns false otherwise */
+        boolean reserve(int bytes) {
+            if (used.addAndGet(bytes) <= max) return true;
+            used.addAndGet(-bytes);
+            return false;
+        }
+
+        void free(int bytes) {
+            used.addAndGet(-bytes);
+        }
+
+    }
+
+}
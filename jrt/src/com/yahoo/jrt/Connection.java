@@ -34,8 +34,8 @@ class Connection extends Target {
     private int state = INITIAL;
     private final Queue  queue   = new Queue();
     private final Queue  myQueue = new Queue();
-    private final Buffer input   = new Buffer(0); // Start off with empty buffer.
-    private final Buffer output  = new Buffer(0); // Start off with empty buffer.
+    private final Buffer input;
+    private final Buffer output;
     private final int maxInputSize;
     private final int maxOutputSize;
     private final boolean dropEmptyBuffers;
@@ -91,6 +91,8 @@ class Connection extends Target {
         this.owner = owner;
         this.socket = parent.transport().createServerCryptoSocket(channel);
         this.spec = null;
+        input = new Buffer(parent.transport().bufferPool()); // Start off with empty buffers.
+        output = new Buffer(parent.transport().bufferPool());
         this.tcpNoDelay = tcpNoDelay;
         maxInputSize = owner.getMaxInputBufferSize();
         maxOutputSize = owner.getMaxOutputBufferSize();
@@ -103,6 +105,8 @@ class Connection extends Target {
         this.parent = parent;
         this.owner = owner;
         this.spec = spec;
+        input = new Buffer(parent.transport().bufferPool()); // Start off with empty buffers.
+        output = new Buffer(parent.transport().bufferPool());
         this.tcpNoDelay = tcpNoDelay;
         maxInputSize = owner.getMaxInputBufferSize();
         maxOutputSize = owner.getMaxOutputBufferSize();
@@ -381,6 +385,8 @@ class Connection extends Target {
         if (selectionKey != null) {
             selectionKey.cancel();
         }
+        input.release();
+        output.release();
     }
 
     public boolean isClosed() {
@@ -31,6 +31,7 @@ public final class Transport {
     private final int eventsBeforeWakeup;
 
     private final TransportMetrics metrics = TransportMetrics.getInstance();
+    private final BufferPool bufferPool = new BufferPool(metrics);
     private final List<TransportThread> threads = new ArrayList<>();
     private final Random rnd = new Random();
 
@@ -86,6 +87,7 @@ public final class Transport {
 
     boolean getTcpNoDelay() { return tcpNoDelay; }
     int getEventsBeforeWakeup() { return eventsBeforeWakeup; }
+    BufferPool bufferPool() { return bufferPool; }
 
     public String getName() { return name; }
 
@@ -216,6 +218,7 @@ public final class Transport {
         if (runCnt.decrementAndGet() == 0) {
             worker.shutdown().join();
             try { cryptoEngine.close(); } catch (Exception e) {}
+            bufferPool.clear();
         }
     }
 
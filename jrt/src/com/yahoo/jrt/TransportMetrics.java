@@ -19,6 +19,9 @@ public class TransportMetrics {
     private final AtomicLong clientTlsConnectionsEstablished = new AtomicLong(0);
     private final AtomicLong serverUnencryptedConnectionsEstablished = new AtomicLong(0);
     private final AtomicLong clientUnencryptedConnectionsEstablished = new AtomicLong(0);
+    private final AtomicLong bufferPoolHits = new AtomicLong(0);
+    private final AtomicLong bufferPoolMisses = new AtomicLong(0);
+    private final AtomicLong bufferBytesCopied = new AtomicLong(0);
 
     private TransportMetrics() {}
 
@@ -48,6 +51,21 @@ public class TransportMetrics {
         return clientUnencryptedConnectionsEstablished.get();
     }
 
+    /** Returns the number of connection buffers which were reused from a pool */
+    public long bufferPoolHits() {
+        return bufferPoolHits.get();
+    }
+
+    /** Returns the number of connection buffers which were allocated because none was available in the pool */
+    public long bufferPoolMisses() {
+        return bufferPoolMisses.get();
+    }
+
+    /** Returns the number of bytes copied within or between buffers when compacting, growing or shrinking them */
+    public long bufferBytesCopied() {
+        return bufferBytesCopied.get();
+    }
+
     public Snapshot snapshot() { return new Snapshot(this); }
 
     void incrementTlsCertificateVerificationFailures() {
@@ -74,6 +92,18 @@ public class TransportMetrics {
         clientUnencryptedConnectionsEstablished.incrementAndGet();
     }
 
+    void incrementBufferPoolHits() {
+        bufferPoolHits.incrementAndGet();
+    }
+
+    void incrementBufferPoolMisses() {
+        bufferPoolMisses.incrementAndGet();
+    }
+
+    void addBufferBytesCopied(long bytes) {
+        bufferBytesCopied.addAndGet(bytes);
+    }
+
     @Override
     public String toString() {
         return "TransportMetrics{" +
@@ -83,11 +113,14 @@ public class TransportMetrics {
                 ", clientTlsConnectionsEstablished=" + clientTlsConnectionsEstablished +
                 ", serverUnencryptedConnectionsEstablished=" + serverUnencryptedConnectionsEstablished +
                 ", clientUnencryptedConnectionsEstablished=" + clientUnencryptedConnectionsEstablished +
+                ", bufferPoolHits=" + bufferPoolHits +
+                ", bufferPoolMisses=" + bufferPoolMisses +
+                ", bufferBytesCopied=" + bufferBytesCopied +
                 '}';
     }
 
     public static class Snapshot {
-        public static final Snapshot EMPTY = new Snapshot(0, 0, 0, 0, 0, 0);
+        public static final Snapshot EMPTY = new Snapshot(0, 0, 0, 0, 0, 0, 0, 0, 0);
 
         private final long tlsCertificateVerificationFailures;
         private final long peerAuthorizationFailures;
@@ -95,6 +128,9 @@ public class TransportMetrics {
         private final long clientTlsConnectionsEstablished;
         private final long serverUnencryptedConnectionsEstablished;
         private final long clientUnencryptedConnectionsEstablished;
+        private final long bufferPoolHits;
+        private final long bufferPoolMisses;
+        private final long bufferBytesCopied;
 
         private Snapshot(TransportMetrics metrics) {
             this(metrics.tlsCertificateVerificationFailures.get(),
@@ -102,7 +138,10 @@ public class TransportMetrics {
                  metrics.serverTlsConnectionsEstablished.get(),
                  metrics.clientTlsConnectionsEstablished.get(),
                  metrics.serverUnencryptedConnectionsEstablished.get(),
-                 metrics.clientUnencryptedConnectionsEstablished.get());
+                 metrics.clientUnencryptedConnectionsEstablished.get(),
+                 metrics.bufferPoolHits.get(),
+                 metrics.bufferPoolMisses.get(),
+                 metrics.bufferBytesCopied.get());
         }
 
         private Snapshot(long tlsCertificateVerificationFailures,
@@ -110,13 +149,19 @@ public class TransportMetrics {
                         long serverTlsConnectionsEstablished,
                         long clientTlsConnectionsEstablished,
                         long serverUnencryptedConnectionsEstablished,
-                        long clientUnencryptedConnectionsEstablished) {
+                        long clientUnencryptedConnectionsEstablished,
+                        long bufferPoolHits,
+                        long bufferPoolMisses,
+                        long bufferBytesCopied) {
             this.tlsCertificateVerificationFailures = tlsCertificateVerificationFailures;
             this.peerAuthorizationFailures = peerAuthorizationFailures;
             this.serverTlsConnectionsEstablished = serverTlsConnectionsEstablished;
             this.clientTlsConnectionsEstablished = clientTlsConnectionsEstablished;
             this.serverUnencryptedConnectionsEstablished = serverUnencryptedConnectionsEstablished;
             this.clientUnencryptedConnectionsEstablished = clientUnencryptedConnectionsEstablished;
+            this.bufferPoolHits = bufferPoolHits;
+            this.bufferPoolMisses = bufferPoolMisses;
+            this.bufferBytesCopied = bufferBytesCopied;
         }
 
         public long tlsCertificateVerificationFailures() { return tlsCertificateVerificationFailures; }
@@ -125,6 +170,9 @@ public class TransportMetrics {
         public long clientTlsConnectionsEstablished() { return clientTlsConnectionsEstablished; }
         public long serverUnencryptedConnectionsEstablished() { return serverUnencryptedConnectionsEstablished; }
         public long clientUnencryptedConnectionsEstablished() { return clientUnencryptedConnectionsEstablished; }
+        public long bufferPoolHits() { return bufferPoolHits; }
+        public long bufferPoolMisses() { return bufferPoolMisses; }
+        public long bufferBytesCopied() { return bufferBytesCopied; }
 
         public Snapshot changesSince(Snapshot base) {
             return new Snapshot(
@@ -133,7 +181,10 @@ public class TransportMetrics {
                 changesSince(base, Snapshot::serverTlsConnectionsEstablished),
                 changesSince(base, Snapshot::clientTlsConnectionsEstablished),
                 changesSince(base, Snapshot::serverUnencryptedConnectionsEstablished),
-                changesSince(base, Snapshot::clientUnencryptedConnectionsEstablished));
+                changesSince(base, Snapshot::clientUnencryptedConnectionsEstablished),
+                changesSince(base, Snapshot::bufferPoolHits),
+                changesSince(base, Snapshot::bufferPoolMisses),
+                changesSince(base, Snapshot::bufferBytesCopied));
         }
 
         private long changesSince(Snapshot base, ToLongFunction<Snapshot> metricProperty) {
@@ -149,6 +200,9 @@ public class TransportMetrics {
                     ", clientTlsConnectionsEstablished=" + clientTlsConnectionsEstablished +
                     ", serverUnencryptedConnectionsEstablished=" + serverUnencryptedConnectionsEstablished +
                     ", clientUnencryptedConnectionsEstablished=" + clientUnencryptedConnectionsEstablished +
+                    ", bufferPoolHits=" + bufferPoolHits +
+                    ", bufferPoolMisses=" + bufferPoolMisses +
+                    ", bufferBytesCopied=" + bufferBytesCopied +
                     '}';
         }
     }
@@ -6,6 +6,8 @@ import java.util.Arrays;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
 public class BufferTest {
@@ -222,4 +224,87 @@ public class BufferTest {
         }
     }
 
+    @org.junit.Test
+    public void testPooledBuffer() {
+        TransportMetrics metrics = TransportMetrics.getInstance();
+        TransportMetrics.Snapshot before = metrics.snapshot();
+        BufferPool pool = new BufferPool(metrics);
+        Buffer buf = new Buffer(pool);
+        assertEquals(0, buf.getReadable().capacity());
+
+        ByteBuffer b = buf.getWritable(100);
+        assertTrue(b.isDirect());
+        assertEquals(4096, b.capacity());
+        for (int i = 0; i < 3000; i++)
+            b.put((byte)i);
+
+        b = buf.getWritable(3000);
+        assertTrue(b.isDirect());
+        assertEquals(8192, b.capacity());
+        b = buf.getReadable();
+        assertEquals(3000, b.remaining());
+        for (int i = 0; i < 3000; i++)
+            assertEquals((byte)i, b.get());
+
+        assertFalse(buf.shrink(5000));
+        assertTrue(buf.shrink(0));
+        assertEquals(0, buf.getReadable().capacity());
+
+        buf.getWritable(5000).put((byte)42); // reuses the 8 kB buffer
+        assertEquals(8192, buf.getReadable().capacity());
+        assertEquals(42, buf.getReadable().get());
+        buf.release();
+        assertEquals(0, buf.bytes());
+
+        assertEquals(ByteBuffer.allocate(0).getClass(), buf.getWritable(2 << 20).getClass()); // too large to be pooled
+
+        TransportMetrics.Snapshot changes = metrics.snapshot().changesSince(before); // metrics are global: At least
+        assertTrue(changes.bufferPoolMisses() >= 2);
+        assertTrue(changes.bufferPoolHits() >= 1);
+        assertTrue(changes.bufferBytesCopied() >= 3000);
+    }
+
+    @org.junit.Test
+    public void testBufferPoolDirectMemoryIsBounded() {
+        BufferPool pool = new BufferPool(TransportMetrics.getInstance(), 3 * 4096);
+        ByteBuffer b1 = pool.acquire(4096);
+        ByteBuffer b2 = pool.acquire(8192);
+        assertTrue(b1.isDirect());
+        assertTrue(b2.isDirect());
+        assertEquals(3 * 4096, pool.directBytes());
+
+        ByteBuffer b3 = pool.acquire(4096);
+        assertFalse(b3.isDirect()); // over the bound
+        pool.release(b3);
+        assertEquals(3 * 4096, pool.directBytes());
+
+        pool.release(b2);
+        assertEquals(3 * 4096, pool.directBytes()); // pooled buffers are counted
+        assertSame(b2, pool.acquire(5000));
+        pool.release(b2);
+        pool.release(b1);
+        pool.clear();
+        assertEquals(0, pool.directBytes());
+        ByteBuffer b4 = pool.acquire(8192);
+        assertTrue(b4.isDirect());
+        assertEquals(8192, pool.directBytes());
+        pool.release(b4); // not pooled after clear
+        assertEquals(0, pool.directBytes());
+        assertNotSame(b4, pool.acquire(8192));
+
+        assertFalse(new BufferPool(TransportMetrics.getInstance(), 0).acquire(100).isDirect());
+    }
+
+    @org.junit.Test
+    public void testBufferPoolSizeClasses() {
+        assertEquals(0, BufferPool.sizeClassOf(1));
+        assertEquals(0, BufferPool.sizeClassOf(4096));
+        assertEquals(1, BufferPool.sizeClassOf(4097));
+        assertEquals(8, BufferPool.sizeClassOf(1 << 20));
+        assertEquals(9, BufferPool.sizeClassOf((1 << 20) + 1));
+        assertEquals(4096, BufferPool.capacityOf(100));
+        assertEquals(1 << 20, BufferPool.capacityOf(1 << 20));
+        assertEquals((1 << 20) + 1, BufferPool.capacityOf((1 << 20) + 1));
+    }
+
 }
@@ -0,0 +1,70 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.language;
+
+import com.yahoo.language.detect.Detector;
+import com.yahoo.language.process.CachingNormalizer;
+import com.yahoo.language.process.CachingStemmer;
+import com.yahoo.language.process.CachingTokenizer;
+import com.yahoo.language.process.CharacterClasses;
+import com.yahoo.language.process.GramSplitter;
+import com.yahoo.language.process.LinguisticsCache;
+import com.yahoo.language.process.Normalizer;
+import com.yahoo.language.process.Segmenter;
+import com.yahoo.language.process.Stemmer;
+import com.yahoo.language.process.Tokenizer;
+import com.yahoo.language.process.Transformer;
+
+/**
+ * Linguistics which caches the results of tokenization, stemming and normalization done by
+ * another linguistics implementation. All processors returned by this share the same cache.
+ *
+ * @author agent
+ */
+public class CachingLinguistics implements Linguistics {
+
+    private final Linguistics linguistics;
+    private final LinguisticsCache cache;
+
+    /** Creates a caching linguistics with a cache of 100000 entries, caching strings up to 100 characters */
+    public CachingLinguistics(Linguistics linguistics) {
+        this(linguistics, new LinguisticsCache(100_000, 100));
+    }
+
+    public CachingLinguistics(Linguistics linguistics, LinguisticsCache cache) {
+        this.linguistics = linguistics;
+        this.cache = cache;
+    }
+
+    /** Returns the cache used by this */
+    public LinguisticsCache cache() { return cache; }
+
+    @Override
+    public Stemmer getStemmer() { return new CachingStemmer(linguistics.getStemmer(), cache); }
+
+    @Override
+    public Tokenizer getTokenizer() { return new CachingTokenizer(linguistics.getTokenizer(), cache); }
+
+    @Override
+    public Normalizer getNormalizer() { return new CachingNormalizer(linguistics.getNormalizer(), cache); }
+
+    @Override
+    public Transformer getTransformer() { return linguistics.getTransformer(); }
+
+    @Override
+    public Segmenter getSegmenter() { return linguistics.getSegmenter(); }
+
+    @Override
+    public Detector getDetector() { return linguistics.getDetector(); }
+
+    @Override
+    public GramSplitter getGramSplitter() { return linguistics.getGramSplitter(); }
+
+    @Override
+    public CharacterClasses getCharacterClasses() { return linguistics.getCharacterClasses(); }
+
+    @Override
+    public boolean equals(Linguistics other) {
+        return other instanceof CachingLinguistics caching && linguistics.equals(caching.linguistics);
+    }
+
+}
@@ -0,0 +1,27 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.language.process;
+
+/**
+ * A normalizer which returns the cached normalized form of strings seen before,
+ * and delegates to another normalizer otherwise.
+ *
+ * This has the same thread safety as the wrapped normalizer.
+ *
+ * @author agent
+ */
+public class CachingNormalizer implements Normalizer {
+
+    private final Normalizer normalizer;
+    private final LinguisticsCache cache;
+
+    public CachingNormalizer(Normalizer normalizer, LinguisticsCache cache) {
+        this.normalizer = normalizer;
+        this.cache = cache;
+    }
+
+    @Override
+    public String normalize(String input) {
+        return cache.normalized(input, () -> normalizer.normalize(input));
+    }
+
+}
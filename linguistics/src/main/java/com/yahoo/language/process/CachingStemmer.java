@@ -0,0 +1,37 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.language.process;
+
+import com.yahoo.language.Language;
+
+import java.util.List;
+
+/**
+ * A stemmer which returns cached stems for inputs seen before, and delegates to another stemmer otherwise.
+ * The returned stem lists are shared and must not be modified.
+ *
+ * This has the same thread safety as the wrapped stemmer.
+ *
+ * @author agent
+ */
+public class CachingStemmer implements Stemmer {
+
+    private final Stemmer stemmer;
+    private final LinguisticsCache cache;
+
+    public CachingStemmer(Stemmer stemmer, LinguisticsCache cache) {
+        this.stemmer = stemmer;
+        this.cache = cache;
+    }
+
+    @Override
+    public List<StemList> stem(String input, Language language, StemMode mode, boolean removeAccents) {
+        return cache.stems(input, language, mode, removeAccents,
+                           () -> List.copyOf(stemmer.stem(input, language, mode, removeAccents)));
+    }
+
+    @Override
+    public List<StemList> stem(String input, StemMode mode, Language language) {
+        return stem(input, language, mode, false);
+    }
+
+}
@@ -0,0 +1,40 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.language.process;
+
+import com.yahoo.language.Language;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A tokenizer which returns cached tokens for inputs seen before, and delegates to another tokenizer otherwise.
+ * The returned tokens are shared and must not be modified.
+ *
+ * This has the same thread safety as the wrapped tokenizer.
+ *
+ * @author agent
+ */
+public class CachingTokenizer implements Tokenizer {
+
+    private final Tokenizer tokenizer;
+    private final LinguisticsCache cache;
+
+    public CachingTokenizer(Tokenizer tokenizer, LinguisticsCache cache) {
+        this.tokenizer = tokenizer;
+        this.cache = cache;
+    }
+
+    @Override
+    public Iterable<Token> tokenize(String input, Language language, StemMode stemMode, boolean removeAccents) {
+        return cache.tokens(input, language, stemMode, removeAccents,
+                            () -> toList(tokenizer.tokenize(input, language, stemMode, removeAccents)));
+    }
+
+    private static List<Token> toList(Iterable<Token> tokens) {
+        if (tokens instanceof List<Token> list) return List.copyOf(list);
+        List<Token> list = new ArrayList<>();
+        tokens.forEach(list::add);
+        return List.copyOf(list);
+    }
+
+}
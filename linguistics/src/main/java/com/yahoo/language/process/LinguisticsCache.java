@@ -0,0 +1,124 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.language.process;
+
+import com.yahoo.language.Language;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * A bounded cache of the results of linguistic processing, shared by the caching processors created
+ * from it (see {@link CachingTokenizer}, {@link CachingStemmer} and {@link CachingNormalizer}).
+ * This is useful when the same strings, such as category values or common query terms, are processed repeatedly.
+ *
+ * The cache keeps two generations of entries: When the current generation is full it becomes the previous,
+ * and entries in the previous generation are moved to the current one when looked up.
+ * This gives LRU-like behavior without any locking on lookup.
+ * Only inputs up to a maximum length are cached, to avoid filling the cache with large texts which are
+ * unlikely to be repeated.
+ *
+ * Cached values are shared between all users of this and must not be modified.
+ *
+ * This is thread safe.
+ *
+ * @author agent
+ */
+public class LinguisticsCache {
+
+    private final int maxEntriesPerGeneration;
+    private final int maxInputLength;
+
+    private volatile Map<Key, Object> current = new ConcurrentHashMap<>();
+    private volatile Map<Key, Object> previous = Map.of();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    /**
+     * Creates a linguistics cache
+     *
+     * @param maxEntries the max number of entries to keep in this
+     * @param maxInputLength the max length of a string whose processing result is cached
+     */
+    public LinguisticsCache(int maxEntries, int maxInputLength) {
+        if (maxEntries < 2) throw new IllegalArgumentException("maxEntries must be at least 2, got " + maxEntries);
+        this.maxEntriesPerGeneration = maxEntries / 2;
+        this.maxInputLength = maxInputLength;
+    }
+
+    /** Returns the number of lookups in this returning a cached value */
+    public long hits() { return hits.get(); }
+
+    /** Returns the number of lookups in this which required processing */
+    public long misses() { return misses.get(); }
+
+    /** Returns the number of entries currently in this */
+    public int size() { return current.size() + previous.size(); }
+
+    /** Removes all entries from this */
+    public void clear() {
+        previous = Map.of();
+        current = new ConcurrentHashMap<>();
+    }
+
+    List<Token> tokens(String input, Language language, StemMode stemMode, boolean removeAccents,
+                       Supplier<List<Token>> tokenizer) {
+        return get(Operation.TOKENIZE, input, language, stemMode, removeAccents, tokenizer);
+    }
+
+    List<StemList> stems(String input, Language language, StemMode stemMode, boolean removeAccents,
+                         Supplier<List<StemList>> stemmer) {
+        return get(Operation.STEM, input, language, stemMode, removeAccents, stemmer);
+    }
+
+    String normalized(String input, Supplier<String> normalizer) {
+        return get(Operation.NORMALIZE, input, Language.UNKNOWN, StemMode.NONE, false, normalizer);
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T get(Operation operation, String input, Language language, StemMode stemMode, boolean removeAccents,
+                      Supplier<T> processor) {
+        if (input.length() > maxInputLength) return processor.get();
+
+        Key key = new Key(operation, input, language, stemMode, removeAccents);
+        Map<Key, Object> current = this.current;
+        Object value = current.get(key);
+        if (value == null) {
+            value = previous.get(key);
+            if (value == null) {
+                misses.incrementAndGet();
+                value = processor.get();
+                if (value == null) return null; // not cached
+            }
+            else {
+                hits.incrementAndGet();
+            }
+            put(current, key, value);
+        }
+        else {
+            hits.incrementAndGet();
+        }
+        return (T)value;
+    }
+
+    private void put(Map<Key, Object> current, Key key, Object value) {
+        if (current.size() >= maxEntriesPerGeneration) {
+            synchronized (this) {
+                if (this.current == current) { // not already rotated by another thread
+                    previous = current;
+                    this.current = new ConcurrentHashMap<>();
+                }
+                current = this.current;
+            }
+        }
+        current.put(key, value);
+    }
+
+    private enum Operation { TOKENIZE, STEM, NORMALIZE }
+
+    private record Key(Operation operation, String input, Language language, StemMode stemMode, boolean removeAccents) {}
+
+}
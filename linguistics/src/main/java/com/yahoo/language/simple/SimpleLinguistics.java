@@ -34,6 +34,7 @@ public class SimpleLinguistics implements Linguistics {
     private final CharacterClasses characterClasses;
     private final GramSplitter gramSplitter;
     private final SpecialTokenRegistry specialTokenRegistry = new SpecialTokenRegistry(List.of());
+    private final Tokenizer tokenizer;
 
     @Inject
     public SimpleLinguistics() {
@@ -42,13 +43,14 @@ public class SimpleLinguistics implements Linguistics {
         this.detector = new SimpleDetector();
         this.characterClasses = new CharacterClasses();
         this.gramSplitter = new GramSplitter(characterClasses);
+        this.tokenizer = new SimpleTokenizer(normalizer, transformer, specialTokenRegistry);
     }
 
     @Override
     public Stemmer getStemmer() { return new StemmerImpl(getTokenizer()); }
 
     @Override
-    public Tokenizer getTokenizer() { return new SimpleTokenizer(normalizer, transformer, specialTokenRegistry); }
+    public Tokenizer getTokenizer() { return tokenizer; }
 
     @Override
     public Normalizer getNormalizer() { return normalizer; }
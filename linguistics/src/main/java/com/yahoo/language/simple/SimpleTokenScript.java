@@ -8,7 +8,20 @@ import com.yahoo.language.process.TokenScript;
 
 class SimpleTokenScript {
 
+    /** Precomputed scripts of the code points below this, which covers the most commonly used alphabets */
+    private static final int tableSize = 0x0800;
+    private static final TokenScript[] table = new TokenScript[tableSize];
+    static {
+        for (int codePoint = 0; codePoint < tableSize; codePoint++)
+            table[codePoint] = computeValueOf(codePoint);
+    }
+
     static TokenScript valueOf(int codePoint) {
+        if (codePoint >= 0 && codePoint < tableSize) return table[codePoint];
+        return computeValueOf(codePoint);
+    }
+
+    private static TokenScript computeValueOf(int codePoint) {
         return switch(Character.UnicodeScript.of(codePoint))
         {
             case COMMON -> TokenScript.COMMON;
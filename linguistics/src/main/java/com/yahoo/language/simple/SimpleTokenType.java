@@ -8,7 +8,20 @@ import com.yahoo.language.process.TokenType;
  */
 public class SimpleTokenType {
 
+    /** Precomputed types of the code points below this, which covers the most commonly used alphabets */
+    private static final int tableSize = 0x0800;
+    private static final TokenType[] table = new TokenType[tableSize];
+    static {
+        for (int codePoint = 0; codePoint < tableSize; codePoint++)
+            table[codePoint] = computeValueOf(codePoint);
+    }
+
     public static TokenType valueOf(int codePoint) {
+        if (codePoint >= 0 && codePoint < tableSize) return table[codePoint];
+        return computeValueOf(codePoint);
+    }
+
+    private static TokenType computeValueOf(int codePoint) {
         switch (Character.getType(codePoint)) {
             case Character.NON_SPACING_MARK:
                 // "combining grave accent"
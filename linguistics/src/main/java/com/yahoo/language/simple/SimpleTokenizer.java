@@ -6,8 +6,9 @@ import com.yahoo.language.LinguisticsCase;
 import com.yahoo.language.process.*;
 import com.yahoo.language.simple.kstem.KStemmer;
 
-import java.util.ArrayList;
+import java.util.AbstractList;
 import java.util.List;
+import java.util.Objects;
 import java.util.function.Function;
 import java.util.logging.Logger;
 import java.util.logging.Level;
@@ -16,7 +17,8 @@ import java.util.logging.Level;
  * <p>A tokenizer which splits on whitespace, normalizes and transforms using the given implementations
  * and stems using the kstem algorithm.</p>
  *
- * <p>This is not multithread safe.</p>
+ * <p>This is multithread safe if the given normalizer and transformer are, but the tokens returned
+ * by a single call to tokenize must not be accessed by multiple threads concurrently.</p>
  *
  * @author Mathias Mølster Lidal
  * @author bratseth
@@ -28,7 +30,7 @@ public class SimpleTokenizer implements Tokenizer {
 
     private final Normalizer normalizer;
     private final Transformer transformer;
-    private final KStemmer stemmer = new KStemmer();
+    private static final KStemmer stemmer = new KStemmer();
     private final SpecialTokenRegistry specialTokenRegistry;
 
     public SimpleTokenizer() {
@@ -56,11 +58,26 @@ public class SimpleTokenizer implements Tokenizer {
                         token -> processToken(token, language, stemMode, removeAccents));
     }
 
-    /** Tokenize the input, and apply the given transform to each token string. */
+    /**
+     * Tokenize the input, and apply the given transform to each token string.
+     * Each token is created, and its string transformed, when it is first accessed.
+     */
     public Iterable<Token> tokenize(String input, Function<String, String> tokenProcessor) {
         if (input.isEmpty()) return List.of();
+        return new LazyTokens(input, scan(input, new TokenBuffer()), tokenProcessor);
+    }
+
+    /**
+     * Finds the tokens of the input and adds their boundaries, types and scripts to the given buffer,
+     * without creating any token objects or substrings. The buffer is cleared first.
+     * Unlike tokenize, this does not normalize, transform or stem the tokens.
+     *
+     * @return the given buffer, for chaining
+     */
+    public TokenBuffer scan(String input, TokenBuffer buffer) {
+        buffer.clear();
+        if (input.isEmpty()) return buffer;
 
-        List<Token> tokens = new ArrayList<>();
         int nextCode = input.codePointAt(0);
         TokenType prevType = SimpleTokenType.valueOf(nextCode);
         TokenType tokenType = prevType;
@@ -72,11 +89,7 @@ public class SimpleTokenizer implements Tokenizer {
             TokenScript nextScript = SimpleTokenScript.valueOf(nextCode);
 
             if (isAtTokenBoundary(prevType, nextType)) {
-                String original = input.substring(prev, next);
-                tokens.add(new SimpleToken(original).setOffset(prev)
-                                                    .setType(tokenType)
-                                                    .setTokenString(tokenProcessor.apply(original))
-                                                    .setScript(tokenScript));
+                buffer.add(prev, next, tokenType, tokenScript);
                 prev = next;
                 prevType = nextType;
                 prevScript = nextScript;
@@ -89,7 +102,7 @@ public class SimpleTokenizer implements Tokenizer {
             }
             next += Character.charCount(nextCode);
         }
-        return tokens;
+        return buffer;
     }
 
     private boolean isAtTokenBoundary(TokenType prevType, TokenType nextType) {
@@ -127,4 +140,37 @@ public class SimpleTokenizer implements Tokenizer {
         return result;
     }
 
+    /** The tokens of a scanned input, created from the buffer holding them when first accessed */
+    private static class LazyTokens extends AbstractList<Token> {
+
+        private final String input;
+        private final TokenBuffer buffer;
+        private final Function<String, String> tokenProcessor;
+        private final Token[] tokens;
+
+        LazyTokens(String input, TokenBuffer buffer, Function<String, String> tokenProcessor) {
+            this.input = input;
+            this.buffer = buffer;
+            this.tokenProcessor = tokenProcessor;
+            this.tokens = new Token[buffer.size()];
+        }
+
+        @Override
+        public Token get(int i) {
+            Objects.checkIndex(i, tokens.length);
+            if (tokens[i] == null) {
+                String original = buffer.text(input, i);
+                tokens[i] = new SimpleToken(original).setOffset(buffer.start(i))
+                                                     .setType(buffer.type(i))
+                                                     .setTokenString(tokenProcessor.apply(original))
+                                                     .setScript(buffer.script(i));
+            }
+            return tokens[i];
+        }
+
+        @Override
+        public int size() { return tokens.length; }
+
+    }
+
 }
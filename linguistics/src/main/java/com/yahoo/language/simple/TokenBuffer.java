@@ -0,0 +1,78 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.language.simple;
+
+import com.yahoo.language.process.TokenScript;
+import com.yahoo.language.process.TokenType;
+
+import java.util.Arrays;
+
+/**
+ * A reusable buffer of the boundaries, types and scripts of the tokens in a string, as produced by
+ * {@link SimpleTokenizer#scan}. Tokens are stored in primitive arrays which grow as needed and are kept
+ * between uses, so scanning text into a reused buffer does not allocate.
+ *
+ * This is not multithread safe.
+ *
+ * @author agent
+ */
+public final class TokenBuffer {
+
+    private static final TokenType[] types = TokenType.values();
+    private static final TokenScript[] scripts = TokenScript.values();
+
+    private int size = 0;
+    private int[] starts;
+    private int[] ends;
+    private byte[] typeOrdinals;
+    private short[] scriptOrdinals;
+
+    public TokenBuffer() {
+        this(16);
+    }
+
+    public TokenBuffer(int initialCapacity) {
+        starts = new int[initialCapacity];
+        ends = new int[initialCapacity];
+        typeOrdinals = new byte[initialCapacity];
+        scriptOrdinals = new short[initialCapacity];
+    }
+
+    /** Returns the number of tokens in this */
+    public int size() { return size; }
+
+    /** Returns the offset of the first char of the token at the given index in the scanned string */
+    public int start(int index) { return starts[index]; }
+
+    /** Returns the offset after the last char of the token at the given index in the scanned string */
+    public int end(int index) { return ends[index]; }
+
+    /** Returns the type of the token at the given index */
+    public TokenType type(int index) { return types[typeOrdinals[index]]; }
+
+    /** Returns the script of the token at the given index */
+    public TokenScript script(int index) { return scripts[scriptOrdinals[index]]; }
+
+    /** Returns the text of the token at the given index, given the string which was scanned into this */
+    public String text(String input, int index) { return input.substring(starts[index], ends[index]); }
+
+    /** Removes all tokens from this, retaining the allocated capacity */
+    public void clear() { size = 0; }
+
+    void add(int start, int end, TokenType type, TokenScript script) {
+        if (size == starts.length) grow();
+        starts[size] = start;
+        ends[size] = end;
+        typeOrdinals[size] = (byte)type.ordinal();
+        scriptOrdinals[size] = (short)script.ordinal();
+        size++;
+    }
+
+    private void grow() {
+        int capacity = Math.max(16, starts.length * 2);
+        starts = Arrays.copyOf(starts, capacity);
+        ends = Arrays.copyOf(ends, capacity);
+        typeOrdinals = Arrays.copyOf(typeOrdinals, capacity);
+        scriptOrdinals = Arrays.copyOf(scriptOrdinals, capacity);
+    }
+
+}
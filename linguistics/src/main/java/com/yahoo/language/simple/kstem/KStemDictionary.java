@@ -0,0 +1,112 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.language.simple.kstem;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The immutable dictionary of the kstem algorithm: A map from words to their dictionary entries.
+ * All words are packed into a single char array and looked up through an open addressing table of
+ * int indexes into it, so this holds no per-word objects, is compact and cheap to build, and
+ * can be shared by all stemmers in all threads.
+ *
+ * @author agent
+ */
+final class KStemDictionary {
+
+    /** The chars of all words, concatenated */
+    private final char[] chars;
+
+    /** The start offset of each word in chars, followed by the total length */
+    private final int[] offsets;
+
+    /** The entry of each word */
+    private final KStemming.DictEntry[] entries;
+
+    /** Hash table where each slot contains the index of a word plus one, or 0 if empty */
+    private final int[] table;
+
+    private KStemDictionary(List<String> words, List<KStemming.DictEntry> entries, List<String> sources) {
+        int totalLength = 0;
+        for (String word : words)
+            totalLength += word.length();
+
+        this.chars = new char[totalLength];
+        this.offsets = new int[words.size() + 1];
+        this.entries = entries.toArray(new KStemming.DictEntry[0]);
+        this.table = new int[Integer.highestOneBit(Math.max(1, words.size()) * 2) * 2];
+        int offset = 0;
+        for (int i = 0; i < words.size(); i++) {
+            String word = words.get(i);
+            word.getChars(0, word.length(), chars, offset);
+            offsets[i] = offset;
+            offset += word.length();
+            offsets[i + 1] = offset;
+
+            int slot = slotOf(chars, offsets[i], word.length());
+            if (table[slot] != 0)
+                throw new IllegalStateException("Entry [" + word + "] already in dictionary " + sources.get(i));
+            table[slot] = i + 1;
+        }
+    }
+
+    /** Returns the entry of the given word, or null if it is not in this */
+    KStemming.DictEntry get(char[] text, int offset, int length) {
+        int index = table[slotOf(text, offset, length)];
+        return index == 0 ? null : entries[index - 1];
+    }
+
+    /** Returns the number of words in this */
+    int size() { return entries.length; }
+
+    /** Returns the slot holding the given word, or the empty slot where it should be inserted */
+    private int slotOf(char[] text, int offset, int length) {
+        int mask = table.length - 1;
+        int slot = hash(text, offset, length) & mask;
+        while (table[slot] != 0 && ! equals(table[slot] - 1, text, offset, length))
+            slot = (slot + 1) & mask;
+        return slot;
+    }
+
+    private boolean equals(int index, char[] text, int offset, int length) {
+        int start = offsets[index];
+        if (offsets[index + 1] - start != length) return false;
+        for (int i = 0; i < length; i++)
+            if (chars[start + i] != text[offset + i]) return false;
+        return true;
+    }
+
+    private static int hash(char[] text, int offset, int length) {
+        int hash = 0;
+        for (int i = offset; i < offset + length; i++)
+            hash = 31 * hash + text[i];
+        return hash ^ (hash >>> 16);
+    }
+
+    static class Builder {
+
+        private final List<String> words = new ArrayList<>();
+        private final List<KStemming.DictEntry> entries = new ArrayList<>();
+        private final List<String> sources = new ArrayList<>();
+
+        /**
+         * Adds a word to this
+         *
+         * @param word the word to add
+         * @param entry the dictionary entry of this word
+         * @param source the name of the source of this word, used in the error message when it is added twice
+         */
+        Builder add(String word, KStemming.DictEntry entry, String source) {
+            words.add(word);
+            entries.add(entry);
+            sources.add(source);
+            return this;
+        }
+
+        KStemDictionary build() {
+            return new KStemDictionary(words, entries, sources);
+        }
+
+    }
+
+}
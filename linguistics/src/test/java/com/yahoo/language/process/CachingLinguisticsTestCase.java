@@ -0,0 +1,92 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.language.process;
+
+import com.yahoo.language.CachingLinguistics;
+import com.yahoo.language.Language;
+import com.yahoo.language.Linguistics;
+import com.yahoo.language.simple.SimpleLinguistics;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+/**
+ * @author agent
+ */
+public class CachingLinguisticsTestCase {
+
+    @Test
+    public void testCachedTokensAreEqualToUncached() {
+        Linguistics simple = new SimpleLinguistics();
+        CachingLinguistics caching = new CachingLinguistics(simple);
+        String input = "Some tokens, and SOME MORE tokens";
+
+        List<String> expected = tokenStrings(simple.getTokenizer().tokenize(input, Language.ENGLISH, StemMode.BEST, true));
+        Iterable<Token> first = caching.getTokenizer().tokenize(input, Language.ENGLISH, StemMode.BEST, true);
+        Iterable<Token> second = caching.getTokenizer().tokenize(input, Language.ENGLISH, StemMode.BEST, true);
+        assertEquals(expected, tokenStrings(first));
+        assertSame(first, second);
+        assertEquals(1, caching.cache().hits());
+        assertEquals(1, caching.cache().misses());
+
+        // Different parameters are cached separately
+        Iterable<Token> unstemmed = caching.getTokenizer().tokenize(input, Language.ENGLISH, StemMode.NONE, true);
+        assertEquals(tokenStrings(simple.getTokenizer().tokenize(input, Language.ENGLISH, StemMode.NONE, true)),
+                     tokenStrings(unstemmed));
+        assertEquals(2, caching.cache().misses());
+    }
+
+    @Test
+    public void testStemmingAndNormalizationIsCached() {
+        Linguistics simple = new SimpleLinguistics();
+        CachingLinguistics caching = new CachingLinguistics(simple);
+
+        assertEquals(simple.getStemmer().stem("cars", StemMode.BEST, Language.ENGLISH),
+                     caching.getStemmer().stem("cars", StemMode.BEST, Language.ENGLISH));
+        assertEquals(simple.getStemmer().stem("cars", StemMode.BEST, Language.ENGLISH),
+                     caching.getStemmer().stem("cars", StemMode.BEST, Language.ENGLISH));
+        assertEquals("fi", caching.getNormalizer().normalize("ﬁ"));
+        assertEquals("fi", caching.getNormalizer().normalize("ﬁ"));
+        assertEquals(2, caching.cache().hits());
+        assertEquals(2, caching.cache().misses());
+    }
+
+    @Test
+    public void testCacheIsBounded() {
+        LinguisticsCache cache = new LinguisticsCache(10, 5);
+        Normalizer normalizer = new CachingNormalizer(new SimpleLinguistics().getNormalizer(), cache);
+        for (int i = 0; i < 100; i++)
+            normalizer.normalize("s" + i);
+        assertEquals(10, cache.size());
+        assertEquals(100, cache.misses());
+
+        normalizer.normalize("longer than max");
+        assertEquals(10, cache.size());
+        assertEquals(100, cache.misses());
+
+        cache.clear();
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void testNullResultsAreNotCached() {
+        LinguisticsCache cache = new LinguisticsCache(10, 100);
+        Normalizer normalizer = new CachingNormalizer(input -> null, cache);
+        assertNull(normalizer.normalize("foo"));
+        assertNull(normalizer.normalize("foo"));
+        assertEquals(0, cache.size());
+        assertEquals(2, cache.misses());
+    }
+
+    private static List<String> tokenStrings(Iterable<Token> tokens) {
+        List<String> strings = new ArrayList<>();
+        for (Token token : tokens)
+            strings.add(token.getTokenString());
+        return strings;
+    }
+
+}
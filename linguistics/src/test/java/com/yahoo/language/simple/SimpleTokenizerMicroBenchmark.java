@@ -0,0 +1,68 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.language.simple;
+
+import com.yahoo.language.Language;
+import com.yahoo.language.process.StemMode;
+import com.yahoo.language.process.Token;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ * Compares throughput and allocation rate of tokenizing into token objects
+ * and scanning into a reused token buffer, over multilingual text.
+ *
+ * @author agent
+ */
+public class SimpleTokenizerMicroBenchmark {
+
+    private static final String[] texts = {
+            "The quick brown fox jumps over the lazy dog, while 42 cats watch the running foxes.",
+            "Zwölf Boxkämpfer jagen Viktor quer über den großen Sylter Deich.",
+            "Съешь же ещё этих мягких французских булок, да выпей чаю.",
+            "Ξεσκεπάζω την ψυχοφθόρα βδελυγμία.",
+            "いろはにほへと ちりぬるを わかよたれそ つねならむ",
+            "नमस्ते दुनिया, यह एक परीक्षण वाक्य है।"
+    };
+
+    private final SimpleTokenizer tokenizer = new SimpleTokenizer();
+    private final TokenBuffer buffer = new TokenBuffer();
+
+    private long tokenize(int count) {
+        long tokens = 0;
+        for (int i = 0; i < count; i++)
+            for (Token token : tokenizer.tokenize(texts[i % texts.length], Language.ENGLISH, StemMode.NONE, false))
+                if (token.isIndexable()) tokens++;
+        return tokens;
+    }
+
+    private long scan(int count) {
+        long tokens = 0;
+        for (int i = 0; i < count; i++) {
+            tokenizer.scan(texts[i % texts.length], buffer);
+            for (int t = 0; t < buffer.size(); t++)
+                if (buffer.type(t).isIndexable()) tokens++;
+        }
+        return tokens;
+    }
+
+    private static void run(String description, int count, java.util.function.IntToLongFunction operation) {
+        operation.applyAsLong(count / 10); // warm-up
+        var threads = (com.sun.management.ThreadMXBean)ManagementFactory.getThreadMXBean();
+        long startBytes = threads.getCurrentThreadAllocatedBytes();
+        long startTime = System.nanoTime();
+        long tokens = operation.applyAsLong(count);
+        long totalTime = System.nanoTime() - startTime;
+        long totalBytes = threads.getCurrentThreadAllocatedBytes() - startBytes;
+        System.out.println(description + ": " + tokens + " indexable tokens in " + totalTime / 1_000_000 + " ms, " +
+                           (tokens * 1_000_000_000L / totalTime) + " tokens/s, " +
+                           (totalBytes / tokens) + " bytes allocated per token");
+    }
+
+    public static void main(String[] args) {
+        SimpleTokenizerMicroBenchmark benchmark = new SimpleTokenizerMicroBenchmark();
+        int count = 1_000_000;
+        run("Tokenize", count, benchmark::tokenize);
+        run("Scan    ", count, benchmark::scan);
+    }
+
+}
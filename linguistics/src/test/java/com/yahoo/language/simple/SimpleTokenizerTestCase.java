@@ -6,12 +6,19 @@ import com.yahoo.language.process.AbstractTokenizerTestCase;
 import com.yahoo.language.process.StemMode;
 import com.yahoo.language.process.Token;
 import com.yahoo.language.process.TokenScript;
+import com.yahoo.language.process.TokenType;
 import org.junit.Test;
 
+import java.util.ArrayList;
 import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
 /**
@@ -69,5 +76,89 @@ public class SimpleTokenizerTestCase extends AbstractTokenizerTestCase {
                 TokenScript.COMMON,
                 TokenScript.DEVANAGARI);
     }
-}
 
+    @Test
+    public void testScanningIntoReusedBuffer() {
+        SimpleTokenizer tokenizer = new SimpleTokenizer();
+        TokenBuffer buffer = new TokenBuffer(1);
+        String input = "Foo 42 b\u00E6r արևելահայերեն";
+        tokenizer.scan(input, buffer);
+        assertEquals(7, buffer.size());
+        assertEquals("Foo", buffer.text(input, 0));
+        assertEquals(TokenType.ALPHABETIC, buffer.type(0));
+        assertEquals(TokenScript.LATIN, buffer.script(0));
+        assertEquals(" ", buffer.text(input, 1));
+        assertEquals(TokenType.SPACE, buffer.type(1));
+        assertEquals("42", buffer.text(input, 2));
+        assertEquals(TokenType.NUMERIC, buffer.type(2));
+        assertEquals(4, buffer.start(2));
+        assertEquals(6, buffer.end(2));
+        assertEquals("b\u00E6r", buffer.text(input, 4));
+        assertEquals("արևելահայերեն", buffer.text(input, 6));
+        assertEquals(TokenScript.ARMENIAN, buffer.script(6));
+
+        // Same as when tokenizing
+        Iterator<Token> tokens = tokenizer.tokenize(input, Language.ENGLISH, StemMode.NONE, false).iterator();
+        for (int i = 0; i < buffer.size(); i++) {
+            Token token = tokens.next();
+            assertEquals(token.getOrig(), buffer.text(input, i));
+            assertEquals(token.getOffset(), buffer.start(i));
+            assertEquals(token.getType(), buffer.type(i));
+            assertEquals(token.getScript(), buffer.script(i));
+        }
+        assertFalse(tokens.hasNext());
+
+        tokenizer.scan("bar", buffer);
+        assertEquals(1, buffer.size());
+        assertEquals("bar", buffer.text("bar", 0));
+        tokenizer.scan("", buffer);
+        assertEquals(0, buffer.size());
+    }
+
+    @Test
+    public void testTokensAreCreatedWhenAccessed() {
+        List<String> processed = new ArrayList<>();
+        Iterable<Token> tokens = new SimpleTokenizer().tokenize("foo bar baz", token -> {
+            processed.add(token);
+            return token.toUpperCase();
+        });
+        assertTrue(processed.isEmpty());
+
+        Iterator<Token> iterator = tokens.iterator();
+        assertEquals("FOO", iterator.next().getTokenString());
+        assertEquals(List.of("foo"), processed);
+        iterator.next();
+        assertEquals("BAR", iterator.next().getTokenString());
+        assertEquals(List.of("foo", " ", "bar"), processed);
+
+        Token first = tokens.iterator().next();
+        assertSame(first, tokens.iterator().next());
+        assertEquals(List.of("foo", " ", "bar"), processed); // not processed again
+    }
+
+    @Test
+    public void testConcurrentTokenizing() throws Exception {
+        SimpleTokenizer tokenizer = new SimpleTokenizer();
+        String input = "Running dogs jumped over the sleeping cats while walking ";
+        List<String> expected = tokenStrings(tokenizer.tokenize(input.repeat(20), Language.ENGLISH, StemMode.SHORTEST, true));
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<List<String>>> results = new ArrayList<>();
+            for (int i = 0; i < 64; i++)
+                results.add(executor.submit(() -> tokenStrings(tokenizer.tokenize(input.repeat(20), Language.ENGLISH,
+                                                                                  StemMode.SHORTEST, true))));
+            for (Future<List<String>> result : results)
+                assertEquals(expected, result.get());
+        }
+        finally {
+            executor.shutdown();
+        }
+    }
+
+    private static List<String> tokenStrings(Iterable<Token> tokens) {
+        List<String> strings = new ArrayList<>();
+        tokens.forEach(token -> strings.add(token.getTokenString()));
+        return strings;
+    }
+
+}
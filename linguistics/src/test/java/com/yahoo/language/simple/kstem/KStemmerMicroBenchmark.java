@@ -0,0 +1,38 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.language.simple.kstem;
+
+/**
+ * Measures the time to build the kstem dictionary, and stemming throughput.
+ *
+ * @author agent
+ */
+public class KStemmerMicroBenchmark {
+
+    private static final String[] words = { "cars", "walked", "jumping", "darkness", "quickly", "houses",
+                                            "organizations", "running", "italians", "happily", "abilities" };
+
+    public static void main(String[] args) {
+        long startTime = System.nanoTime();
+        new KStemmer(); // initializes the dictionary
+        System.out.println("Initialized dictionary in " + (System.nanoTime() - startTime) / 1_000_000 + " ms");
+
+        startTime = System.nanoTime();
+        int builds = 20;
+        for (int i = 0; i < builds; i++)
+            KStemming.initializeDictHash();
+        System.out.println("Rebuilt dictionary in " + (System.nanoTime() - startTime) / 1_000_000 / builds + " ms");
+
+        KStemmer stemmer = new KStemmer();
+        int count = 10_000_000;
+        long length = 0;
+        for (int i = 0; i < count / 10; i++) // warm-up
+            length += stemmer.stem(words[i % words.length]).length();
+        startTime = System.nanoTime();
+        for (int i = 0; i < count; i++)
+            length += stemmer.stem(words[i % words.length]).length();
+        long totalTime = System.nanoTime() - startTime;
+        System.out.println("Stemmed " + count + " words in " + totalTime / 1_000_000 + " ms (" +
+                           (count * 1_000_000_000L / totalTime) + " words/s, total length " + length + ")");
+    }
+
+}
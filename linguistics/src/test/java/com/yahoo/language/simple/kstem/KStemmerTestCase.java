@@ -0,0 +1,93 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.language.simple.kstem;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * @author agent
+ */
+public class KStemmerTestCase {
+
+    @Test
+    public void testStemming() {
+        KStemmer stemmer = new KStemmer();
+        assertEquals("car", stemmer.stem("cars"));
+        assertEquals("walk", stemmer.stem("walked"));
+        assertEquals("jump", stemmer.stem("jumping"));
+        assertEquals("dark", stemmer.stem("darkness"));
+        assertEquals("running", stemmer.stem("running")); // in dictionary
+        assertEquals("age", stemmer.stem("aging"));       // direct conflation
+        assertEquals("italy", stemmer.stem("italians"));  // country nationality
+        assertEquals("aide", stemmer.stem("aide"));       // exception word
+        assertEquals("ab", stemmer.stem("ab"));           // too short
+        assertEquals("foo42", stemmer.stem("foo42"));     // not alphabetic
+    }
+
+    @Test
+    public void testDictionary() {
+        KStemDictionary dictionary = new KStemDictionary.Builder()
+                .add("foo", new KStemming.DictEntry(null, false), "test")
+                .add("bar", new KStemming.DictEntry("baz", true), "test")
+                .build();
+        assertEquals(2, dictionary.size());
+        assertNotNull(dictionary.get("xfoox".toCharArray(), 1, 3));
+        assertNull(dictionary.get("xfoox".toCharArray(), 1, 2));
+        assertNull(dictionary.get("fo".toCharArray(), 0, 2));
+        assertEquals("baz", dictionary.get("bar".toCharArray(), 0, 3).root);
+        assertTrue(dictionary.get("bar".toCharArray(), 0, 3).exception);
+
+        try {
+            new KStemDictionary.Builder().add("foo", new KStemming.DictEntry(null, false), "1")
+                                         .add("foo", new KStemming.DictEntry(null, false), "2")
+                                         .build();
+            fail("Expected exception");
+        }
+        catch (IllegalStateException e) {
+            assertEquals("Entry [foo] already in dictionary 2", e.getMessage());
+        }
+    }
+
+    @Test
+    public void testStemmerCanBeSharedByManyThreads() throws Exception {
+        List<String> words = List.of("cars", "walked", "aging", "italians", "quickly", "houses", "darkness");
+        List<String> expected = new ArrayList<>();
+        KStemmer stemmer = new KStemmer();
+        for (String word : words)
+            expected.add(stemmer.stem(word));
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<List<String>>> results = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                results.add(executor.submit(() -> {
+                    List<String> stems = new ArrayList<>();
+                    for (int i = 0; i < 1000; i++)
+                        for (String word : words)
+                            stems.add(stemmer.stem(word));
+                    return stems;
+                }));
+            }
+            for (Future<List<String>> result : results) {
+                List<String> stems = result.get();
+                for (int i = 0; i < stems.size(); i++)
+                    assertEquals(expected.get(i % words.size()), stems.get(i));
+            }
+        }
+        finally {
+            executor.shutdown();
+        }
+    }
+
+}
@@ -3,6 +3,8 @@ package com.yahoo.messagebus;
 
 import com.yahoo.concurrent.SystemTimer;
 import com.yahoo.concurrent.Timer;
+
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -41,6 +43,9 @@ import java.util.logging.Logger;
  * measurements, at the same point along the window size axis. With smaller weights, i.e., smaller increases to window
  * size, this break-even occurs where the curve is steeper, i.e., where the client has a smaller share of the server.
  * Thus, competing algorithms with different weights end up with a resource distribution roughly proportional to weight.
+ * </p><p>
+ * Messages and replies are counted atomically, and only the thread completing a resize period takes the monitor
+ * of this to resize the window, so concurrent senders do not contend for a lock.
  * </p>
  *
  * @author Simon Thoresen Hult
@@ -50,14 +55,14 @@ public class DynamicThrottlePolicy extends StaticThrottlePolicy {
 
     private static final long IDLE_TIME_MILLIS = 60000;
     private final Timer timer;
-    private int numSent = 0;
-    private int numOk = 0;
+    private final AtomicInteger numSent = new AtomicInteger();
+    private final AtomicInteger numOk = new AtomicInteger();
     private double resizeRate = 3;
     private long resizeTime = 0;
-    private long timeOfLastMessage;
+    private volatile long timeOfLastMessage;
     private double efficiencyThreshold = 1;
     private double windowSizeIncrement = 20;
-    private double windowSize = windowSizeIncrement;
+    private volatile double windowSize = windowSizeIncrement;
     private double minWindowSize = windowSizeIncrement;
     private double decrementFactor = 2.0;
     private double maxWindowSize = Integer.MAX_VALUE;
@@ -105,36 +110,51 @@ public class DynamicThrottlePolicy extends StaticThrottlePolicy {
         long time = timer.milliTime();
         double elapsed = (time - timeOfLastMessage);
         if (elapsed > IDLE_TIME_MILLIS) {
-            windowSize = Math.max(minWindowSize, Math.min(windowSize, pendingCount + windowSizeIncrement));
+            synchronized (this) {
+                windowSize = Math.max(minWindowSize, Math.min(windowSize, pendingCount + windowSizeIncrement));
+            }
         }
         timeOfLastMessage = time;
+        double windowSize = this.windowSize;
         int windowSizeFloored = (int) windowSize;
         // Use floating point window sizes, so the algorithm sees the difference between 1.1 and 1.9 window size.
-        boolean carry = numSent < (windowSize * resizeRate) * (windowSize - windowSizeFloored);
+        boolean carry = numSent.get() < (windowSize * resizeRate) * (windowSize - windowSizeFloored);
         return pendingCount < windowSizeFloored + (carry ? 1 : 0);
     }
 
     @Override
     public void processMessage(Message message) {
         super.processMessage(message);
-        if (++numSent < windowSize * resizeRate) {
+        if (numSent.incrementAndGet() < windowSize * resizeRate) {
             return;
         }
+        synchronized (this) {
+            if (numSent.get() < windowSize * resizeRate) {
+                return; // resized by another thread
+            }
+            resize();
+        }
+    }
 
+    /** Adjusts the window size to the throughput measured since the last resize. Must be called with the monitor of this. */
+    private void resize() {
         long time = timer.milliTime();
         double elapsed = time - resizeTime;
         resizeTime = time;
 
-        double throughput = numOk / elapsed;
-        numSent = 0;
-        numOk = 0;
+        double throughput = numOk.getAndSet(0) / elapsed;
+        numSent.set(0);
 
+        // Adjust a local copy, so concurrent senders only see the final window size
+        double windowSize = this.windowSize;
         if (maxThroughput > 0 && throughput > maxThroughput * 0.95) {
             // No need to increase window when we're this close to max.
             // TODO jonmv: Not so sure — what if we're too high, and should back off?
         } else if (throughput > localMaxThroughput) {
             windowSize += weight * windowSizeIncrement;
-            log.log(Level.FINE, () -> "windowSize " + windowSize + " throughput " + throughput + " local max " + localMaxThroughput);
+            double increasedWindowSize = windowSize;
+            double previousMaxThroughput = localMaxThroughput;
+            log.log(Level.FINE, () -> "windowSize " + increasedWindowSize + " throughput " + throughput + " local max " + previousMaxThroughput);
             localMaxThroughput = throughput;
         } else {
             // scale up/down throughput for comparing to window size
@@ -152,17 +172,19 @@ public class DynamicThrottlePolicy extends StaticThrottlePolicy {
             } else {
                 windowSize += weight * windowSizeIncrement;
             }
-            log.log(Level.FINE, () ->"windowSize " + windowSize + " throughput " + throughput + " local max " + localMaxThroughput + " efficiency " + efficiency);
+            double adjustedWindowSize = windowSize;
+            log.log(Level.FINE, () ->"windowSize " + adjustedWindowSize + " throughput " + throughput + " local max " + localMaxThroughput + " efficiency " + efficiency);
         }
         windowSize = Math.max(minWindowSize, windowSize);
         windowSize = Math.min(maxWindowSize, windowSize);
+        this.windowSize = windowSize;
     }
 
     @Override
     public void processReply(Reply reply) {
         super.processReply(reply);
         if ( ! reply.hasErrors()) {
-            ++numOk;
+            numOk.incrementAndGet();
         }
     }
 
@@ -170,7 +170,7 @@ public final class MessageBus implements ConfigHandler, NetworkOwner, MessageHan
         }
 
         // Start messenger.
-        msn = new Messenger();
+        msn = new Messenger(params.getMessengerThreads());
 
         RetryPolicy retryPolicy = params.getRetryPolicy();
         if (retryPolicy != null) {
@@ -187,6 +187,9 @@ public final class MessageBus implements ConfigHandler, NetworkOwner, MessageHan
 
     Messenger messenger() { return msn; }
 
+    /** Returns a snapshot of the metrics of each messenger thread of this */
+    public List<Messenger.WorkerMetrics> messengerMetrics() { return msn.workerMetrics(); }
+
     /**
      * <p>Sets the destroyed flag to true. The very first time this method is
      * called, it cleans up all its dependencies. Even if you retain a reference
@@ -18,6 +18,7 @@ public class MessageBusParams {
     private final List<Protocol> protocols = new ArrayList<>();
     private RetryPolicy retryPolicy;
     private int maxPendingCount;
+    private int messengerThreads;
     private MessagebusConfig config;
 
     /**
@@ -26,6 +27,7 @@ public class MessageBusParams {
     public MessageBusParams() {
         retryPolicy = new RetryTransientErrorsPolicy();
         maxPendingCount = 1024;
+        messengerThreads = 1;
         config = null;
     }
 
@@ -38,6 +40,7 @@ public class MessageBusParams {
         protocols.addAll(params.protocols);
         retryPolicy = params.retryPolicy;
         maxPendingCount = params.maxPendingCount;
+        messengerThreads = params.messengerThreads;
         config = params.config;
     }
 
@@ -124,6 +127,28 @@ public class MessageBusParams {
         return this;
     }
 
+    /**
+     * Returns the number of threads running messenger tasks, such as sending the next message of a sequence.
+     *
+     * @return The number of threads.
+     */
+    public int getMessengerThreads() {
+        return messengerThreads;
+    }
+
+    /**
+     * Sets the number of threads running messenger tasks. Tasks for the same sequence id are always
+     * run by the same thread, so sequencing is preserved.
+     *
+     * @param threads The number of threads, at least 1.
+     * @return This, to allow chaining.
+     */
+    public MessageBusParams setMessengerThreads(int threads) {
+        if (threads < 1) throw new IllegalArgumentException("Messenger threads must be at least 1, not " + threads);
+        this.messengerThreads = threads;
+        return this;
+    }
+
     /**
      * Returns the maximum number of bytes allowed for pending messages.
      *
@@ -15,9 +15,11 @@ import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.logging.Logger;
 
 /**
- * <p>This class implements a single thread that is able to process arbitrary
- * tasks. Tasks are enqueued using the synchronized {@link #enqueue(Task)}
- * method, and are run in the order they were enqueued.</p>
+ * <p>This class implements a set of worker threads that are able to process
+ * arbitrary tasks. Tasks are enqueued using the thread-safe {@link #enqueue(Task)}
+ * method, and tasks enqueued to the same worker are run in the order they were
+ * enqueued. Tasks given an affinity are always run by the same worker, so tasks
+ * which must be ordered with respect to each other must use the same affinity.</p>
  *
  * @author Simon Thoresen Hult
  */
@@ -25,36 +27,44 @@ public final class Messenger implements Runnable {
 
     private static final Logger log = Logger.getLogger(Messenger.class.getName());
     private final AtomicBoolean destroyed = new AtomicBoolean(false);
-    private final List<Task> children = new ArrayList<>();
-    private final Queue<Task> queue = new ArrayDeque<>();
-
-    private final Thread thread;
+    private final List<Worker> workers = new ArrayList<>();
 
     public Messenger() {
-        thread = new Thread(this, "Messenger");
-        thread.setDaemon(true);
+        this(1);
+    }
+
+    /**
+     * Creates a messenger with the given number of worker threads.
+     *
+     * @param threads the number of worker threads, at least 1
+     */
+    public Messenger(int threads) {
+        if (threads < 1) throw new IllegalArgumentException("A messenger must have at least 1 thread, not " + threads);
+        for (int i = 0; i < threads; i++)
+            workers.add(new Worker(threads == 1 ? "Messenger" : "Messenger-" + i));
     }
 
     /**
      * <p>Adds a recurrent task to this that is to be run for every iteration of
-     * the main loop. This task must be very light-weight as to not block the
-     * messenger. Note that this method is NOT thread-safe, so it should NOT be
-     * used after calling {@link #start()}.</p>
+     * the main loop of the first worker. This task must be very light-weight as
+     * to not block the messenger. Note that this method is NOT thread-safe, so it
+     * should NOT be used after calling {@link #start()}.</p>
      *
      * @param task The task to add.
      */
     void addRecurrentTask(Task task) {
-        children.add(task);
+        workers.get(0).children.add(task);
     }
 
     /**
-     * <p>Starts the internal thread. This must be done AFTER all recurrent
+     * <p>Starts the internal threads. This must be done AFTER all recurrent
      * tasks have been added.</p>
      *
      * @see #addRecurrentTask(Task)
      */
     public void start() {
-        thread.start();
+        for (Worker worker : workers)
+            worker.thread.start();
     }
 
     /**
@@ -90,36 +100,68 @@ public final class Messenger implements Runnable {
     }
 
     /**
-     * <p>Enqueues the given task in the list of tasks that this worker is to
-     * process. If this thread has been destroyed previously, this method
+     * <p>Enqueues the given task in the list of tasks that the first worker is to
+     * process. If this has been destroyed previously, this method
      * invokes {@link Messenger.Task#destroy()}.</p>
      *
      * @param task The task to enqueue.
      */
     public void enqueue(Task task) {
+        enqueue(task, 0);
+    }
+
+    /**
+     * <p>Enqueues the given task in the list of tasks of the worker selected by
+     * the given affinity, such as a sequence id. Tasks with the same affinity are
+     * run in the order they were enqueued. If this has been destroyed previously,
+     * this method invokes {@link Messenger.Task#destroy()}.</p>
+     *
+     * @param task     The task to enqueue.
+     * @param affinity The affinity of the task.
+     */
+    public void enqueue(Task task, long affinity) {
         if (destroyed.get()) {
             task.destroy();
             return;
         }
-        synchronized (this) {
-            queue.offer(task);
-            if (queue.size() == 1) {
-                notify();
-            }
-        }
+        workerOf(affinity).enqueue(task);
+    }
+
+    private Worker workerOf(long affinity) {
+        if (workers.size() == 1) return workers.get(0);
+        long hash = affinity * 0x9E3779B97F4A7C15L; // spread sequential ids
+        return workers.get((int) Long.remainderUnsigned(hash ^ (hash >>> 32), workers.size()));
+    }
+
+    /** Returns the number of worker threads of this */
+    public int threadCount() { return workers.size(); }
+
+    /** Returns a snapshot of the metrics of each worker of this */
+    public List<WorkerMetrics> workerMetrics() {
+        List<WorkerMetrics> metrics = new ArrayList<>(workers.size());
+        for (Worker worker : workers)
+            metrics.add(worker.metrics());
+        return metrics;
     }
 
     /**
-     * <p>Handshakes with the internal thread. If this method is called using
-     * the messenger thread, this will deadlock.</p>
+     * <p>Handshakes with the internal threads. If this method is called using
+     * a messenger thread, that thread is not waited for, as that would deadlock.</p>
      */
     public void sync() {
-        if (Thread.currentThread() == thread) {
-            return; // no need to wait for self
+        List<SyncTask> tasks = new ArrayList<>(workers.size());
+        for (Worker worker : workers) {
+            if (Thread.currentThread() == worker.thread) continue; // no need to wait for self
+            SyncTask task = new SyncTask();
+            if (destroyed.get()) {
+                task.destroy();
+            } else {
+                worker.enqueue(task);
+            }
+            tasks.add(task);
         }
-        SyncTask task = new SyncTask();
-        enqueue(task);
-        task.await();
+        for (SyncTask task : tasks)
+            task.await();
     }
 
     /**
@@ -132,15 +174,14 @@ public final class Messenger implements Runnable {
      */
     public boolean destroy() {
         boolean done = false;
-        enqueue(TERMINATE);
+        if (!destroyed.get()) {
+            for (Worker worker : workers)
+                worker.enqueue(TERMINATE);
+        }
         if (!destroyed.getAndSet(true)) {
             try {
-                synchronized (this) {
-                    while (!queue.isEmpty()) {
-                        wait();
-                    }
-                }
-                thread.join();
+                for (Worker worker : workers)
+                    worker.awaitTermination();
             } catch (InterruptedException e) {
                 // ignore
             }
@@ -149,57 +190,125 @@ public final class Messenger implements Runnable {
         return done;
     }
 
+    /** Runs the main loop of the first worker in the calling thread, instead of in its own thread. */
     @Override
     public void run() {
-        long timeoutMS = SystemTimer.adjustTimeoutByDetectedHz(Duration.ofMillis(100)).toMillis();
-        while (true) {
-            Task task = null;
+        workers.get(0).run();
+    }
+
+    /**
+     * The metrics of a worker thread.
+     *
+     * @param queueSize the number of tasks currently waiting to be run by the worker
+     * @param tasksRun the total number of tasks run by the worker
+     * @param totalTaskLatencyNanos the total time from tasks were enqueued until they had run
+     */
+    public record WorkerMetrics(int queueSize, long tasksRun, long totalTaskLatencyNanos) {
+
+        /** Returns the average time from a task is enqueued until it has run, in nanoseconds */
+        public double averageTaskLatencyNanos() {
+            return tasksRun == 0 ? 0 : (double) totalTaskLatencyNanos / tasksRun;
+        }
+
+    }
+
+    private record QueuedTask(Task task, long enqueuedNanos) { }
+
+    private static class Worker implements Runnable {
+
+        private final List<Task> children = new ArrayList<>();
+        private final Queue<QueuedTask> queue = new ArrayDeque<>();
+        private final Thread thread;
+        private long tasksRun = 0;
+        private long totalTaskLatencyNanos = 0;
+
+        Worker(String name) {
+            thread = new Thread(this, name);
+            thread.setDaemon(true);
+        }
+
+        void enqueue(Task task) {
+            QueuedTask queued = new QueuedTask(task, System.nanoTime());
             synchronized (this) {
-                if (queue.isEmpty()) {
-                    try {
-                        if (children.isEmpty()) {
-                            wait();
-                        } else {
-                            wait(timeoutMS);
+                queue.offer(queued);
+                if (queue.size() == 1) {
+                    notify();
+                }
+            }
+        }
+
+        synchronized WorkerMetrics metrics() {
+            return new WorkerMetrics(queue.size(), tasksRun, totalTaskLatencyNanos);
+        }
+
+        void awaitTermination() throws InterruptedException {
+            synchronized (this) {
+                while (!queue.isEmpty()) {
+                    wait();
+                }
+            }
+            thread.join();
+        }
+
+        @Override
+        public void run() {
+            long timeoutMS = SystemTimer.adjustTimeoutByDetectedHz(Duration.ofMillis(100)).toMillis();
+            while (true) {
+                QueuedTask queued = null;
+                synchronized (this) {
+                    if (queue.isEmpty()) {
+                        try {
+                            if (children.isEmpty()) {
+                                wait();
+                            } else {
+                                wait(timeoutMS);
+                            }
+                        } catch (InterruptedException e) {
+                            continue;
                         }
-                    } catch (InterruptedException e) {
-                        continue;
+                    }
+                    if (!queue.isEmpty()) {
+                        queued = queue.poll();
                     }
                 }
-                if (!queue.isEmpty()) {
-                    task = queue.poll();
+                if (queued != null && queued.task() == TERMINATE) {
+                    break;
                 }
-            }
-            if (task == TERMINATE) {
-                break;
-            }
-            if (task != null) {
-                try {
-                    task.run();
-                } catch (Exception e) {
-                    log.log(Level.SEVERE, "An exception was thrown while running " + task.getClass().getName(), e);
+                if (queued != null) {
+                    Task task = queued.task();
+                    try {
+                        task.run();
+                    } catch (Exception e) {
+                        log.log(Level.SEVERE, "An exception was thrown while running " + task.getClass().getName(), e);
+                    }
+                    long latency = System.nanoTime() - queued.enqueuedNanos();
+                    synchronized (this) {
+                        tasksRun++;
+                        totalTaskLatencyNanos += latency;
+                    }
+                    try {
+                        task.destroy();
+                    } catch (Exception e) {
+                        log.warning("An exception was thrown while destroying " + task.getClass().getName() + ": " + e);
+                        log.warning("Someone, somewhere might have to wait indefinitely for something.");
+                    }
                 }
-                try {
-                    task.destroy();
-                } catch (Exception e) {
-                    log.warning("An exception was thrown while destroying " + task.getClass().getName() + ": " + e);
-                    log.warning("Someone, somewhere might have to wait indefinitely for something.");
+                for (Task child : children) {
+                    child.run();
                 }
             }
             for (Task child : children) {
-                child.run();
+                child.destroy();
             }
-        }
-        for (Task child : children) {
-            child.destroy();
-        }
-        synchronized (this) {
-            while (!queue.isEmpty()) {
-                Task task = queue.poll();
-                task.destroy();
+            synchronized (this) {
+                while (!queue.isEmpty()) {
+                    QueuedTask queued = queue.poll();
+                    queued.task().destroy();
+                }
+                notify();
             }
-            notify();
         }
+
     }
 
     /**
@@ -35,27 +35,30 @@ public class RateThrottlingPolicy extends StaticThrottlePolicy {
         currentPeriod = timer.milliTime() / PERIOD;
     }
 
+    @Override
     public boolean canSend(Message message, int pendingCount) {
         if (!super.canSend(message, pendingCount)) {
             return false;
         }
 
-        long period = timer.milliTime() / PERIOD;
+        synchronized (this) {
+            long period = timer.milliTime() / PERIOD;
 
-        while (currentPeriod < period) {
-            if (allotted > 0) {
-                allotted = 0.0;
+            while (currentPeriod < period) {
+                if (allotted > 0) {
+                    allotted = 0.0;
+                }
+
+                allotted = allotted + PERIOD * desiredRate / 1000;
+                currentPeriod++;
             }
 
-            allotted = allotted + PERIOD * desiredRate / 1000;
-            currentPeriod++;
-        }
+            if (allotted > 0.0) {
+                allotted -= 1;
+                return true;
+            }
 
-        if (allotted > 0.0) {
-            allotted -= 1;
-            return true;
+            return false;
         }
-
-        return false;
     }
 }
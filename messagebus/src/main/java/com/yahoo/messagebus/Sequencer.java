@@ -13,13 +13,18 @@ import java.util.concurrent.atomic.AtomicBoolean;
  * id, and messages are only sent when they are at the front of their list. When a reply arrives, the current front of
  * the list is removed and the next message, if any, is sent.
  *
+ * The sequencing state is striped on sequence id, such that senders of messages with different ids
+ * rarely contend for the same lock.
+ *
  * @author Simon Thoresen Hult
  */
 public class Sequencer implements MessageHandler, ReplyHandler {
 
+    private static final int STRIPES = 64; // must be a power of two
+
     private final AtomicBoolean destroyed = new AtomicBoolean(false);
     private final MessageHandler sender;
-    private final Map<Long, Queue<Message>> seqMap = new HashMap<>();
+    private final Stripe[] stripes = new Stripe[STRIPES];
     private final Messenger msn;
     private final static ThreadLocal<Boolean> isSending = ThreadLocal.withInitial(() -> Boolean.FALSE);
 
@@ -31,6 +36,8 @@ public class Sequencer implements MessageHandler, ReplyHandler {
     public Sequencer(MessageHandler sender, Messenger msn) {
         this.sender = sender;
         this.msn = msn;
+        for (int i = 0; i < stripes.length; i++)
+            stripes[i] = new Stripe();
     }
     public Sequencer(MessageHandler sender) {
         this(sender, null);
@@ -44,15 +51,17 @@ public class Sequencer implements MessageHandler, ReplyHandler {
      */
     public boolean destroy() {
         if (!destroyed.getAndSet(true)) {
-            synchronized (this) {
-                for (Queue<Message> queue : seqMap.values()) {
-                    if (queue != null) {
-                        for (Message msg : queue) {
-                            msg.discard();
+            for (Stripe stripe : stripes) {
+                synchronized (stripe) {
+                    for (Queue<Message> queue : stripe.seqMap.values()) {
+                        if (queue != null) {
+                            for (Message msg : queue) {
+                                msg.discard();
+                            }
                         }
                     }
+                    stripe.seqMap.clear();
                 }
-                seqMap.clear();
             }
             return true;
         }
@@ -71,9 +80,10 @@ public class Sequencer implements MessageHandler, ReplyHandler {
     private boolean filter(Message msg) {
         long seqId = msg.getSequenceId();
         msg.setContext(seqId);
-        synchronized (this) {
-            if (seqMap.containsKey(seqId)) {
-                Queue<Message> queue = seqMap.computeIfAbsent(seqId, k -> new LinkedList<>());
+        Stripe stripe = stripeOf(seqId);
+        synchronized (stripe) {
+            if (stripe.seqMap.containsKey(seqId)) {
+                Queue<Message> queue = stripe.seqMap.computeIfAbsent(seqId, k -> new LinkedList<>());
                 if (msg.getTrace().shouldTrace(TraceLevel.COMPONENT)) {
                     msg.getTrace().trace(TraceLevel.COMPONENT,
                                          "Sequencer queued message with sequence id '" + seqId + "'.");
@@ -81,7 +91,7 @@ public class Sequencer implements MessageHandler, ReplyHandler {
                 queue.add(msg);
                 return false;
             }
-            seqMap.put(seqId, null);
+            stripe.seqMap.put(seqId, null);
         }
         return true;
     }
@@ -153,10 +163,11 @@ public class Sequencer implements MessageHandler, ReplyHandler {
 
     private void sendNextInSequence(long seqId) {
         Message msg = null;
-        synchronized (this) {
-            Queue<Message> queue = seqMap.get(seqId);
+        Stripe stripe = stripeOf(seqId);
+        synchronized (stripe) {
+            Queue<Message> queue = stripe.seqMap.get(seqId);
             if (queue == null || queue.isEmpty()) {
-                seqMap.remove(seqId);
+                stripe.seqMap.remove(seqId);
             } else {
                 msg = queue.remove();
             }
@@ -165,7 +176,7 @@ public class Sequencer implements MessageHandler, ReplyHandler {
             Boolean alreadySending = isSending.get();
             if (alreadySending && (msn != null)) {
                 // Dispatch in another thread to break possibly very long recursion.
-                msn.enqueue(new SequencedSendTask(msg));
+                msn.enqueue(new SequencedSendTask(msg), seqId);
             } else {
                 isSending.set(Boolean.TRUE);
                 sequencedSend(msg);
@@ -174,4 +185,17 @@ public class Sequencer implements MessageHandler, ReplyHandler {
         }
     }
 
+    private Stripe stripeOf(long seqId) {
+        int hash = Long.hashCode(seqId);
+        return stripes[(hash ^ (hash >>> 16)) & (STRIPES - 1)];
+    }
+
+    /** The sequencing state of the ids hashing to one stripe. Guarded by itself. */
+    private static class Stripe {
+
+        /** The queue of messages waiting for each id in flight, or null if none are waiting */
+        final Map<Long, Queue<Message>> seqMap = new HashMap<>();
+
+    }
+
 }
@@ -8,6 +8,7 @@ import java.util.Deque;
 import java.util.LinkedList;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * A session supporting sending new messages.
@@ -19,13 +20,12 @@ public final class SourceSession implements ReplyHandler, MessageBus.SendBlocked
     private final AtomicBoolean destroyed = new AtomicBoolean(false);
     private final CountDownLatch done = new CountDownLatch(1);
     private final AtomicBoolean sendingBlockedToken = new AtomicBoolean(false);
-    private final Object lock = new Object();
     private final MessageBus mbus;
     private final Sequencer sequencer;
     private final ReplyHandler replyHandler;
     private final ThrottlePolicy throttlePolicy;
     private volatile double timeout;  // volatile only for tests
-    private volatile int pendingCount = 0;
+    private final AtomicInteger pendingCount = new AtomicInteger(0);
     private volatile boolean closed = false;
     private final Deque<BlockedMessage> blockedQ = new LinkedList<>();
     private final static class Counter {
@@ -70,9 +70,7 @@ public final class SourceSession implements ReplyHandler, MessageBus.SendBlocked
         if (destroyed.getAndSet(true)) {
             return false;
         }
-        synchronized (lock) {
-            closed = true;
-        }
+        closed = true;
         sequencer.destroy();
         mbus.sync();
         return true;
@@ -83,10 +81,8 @@ public final class SourceSession implements ReplyHandler, MessageBus.SendBlocked
      * returning, this method calls {@link #destroy()}.
      */
     public void close() {
-        synchronized (lock) {
-            closed = true;
-        }
-        if (pendingCount == 0) {
+        closed = true;
+        if (pendingCount.get() == 0) {
             done.countDown();
         }
         try {
@@ -135,26 +131,31 @@ public final class SourceSession implements ReplyHandler, MessageBus.SendBlocked
     }
 
     private Result sendInternal(Message message) {
-        synchronized (lock) {
-            if (closed) {
-                return new Result(ErrorCode.SEND_QUEUE_CLOSED, "Source session is closed.");
-            }
-            if (throttlePolicy != null) {
-                if (! throttlePolicy.canSend(message, pendingCount)) {
-                    return new Result(ErrorCode.SEND_QUEUE_FULL,
-                            "Too much pending data (" + pendingCount + " messages).");
-                }
-                message.pushHandler(replyHandler);
-                throttlePolicy.processMessage(message);
-            } else {
-                message.pushHandler(replyHandler);
+        if (closed) {
+            return new Result(ErrorCode.SEND_QUEUE_CLOSED, "Source session is closed.");
+        }
+        // Reserve a slot in the window before checking it, so concurrent senders never see more pending than allowed.
+        // Closing is checked again after reserving, as close() waits only for the slots reserved before it was called.
+        int pending = pendingCount.getAndIncrement();
+        if (closed) {
+            releasePending();
+            return new Result(ErrorCode.SEND_QUEUE_CLOSED, "Source session is closed.");
+        }
+        if (throttlePolicy != null) {
+            if (! throttlePolicy.canSend(message, pending)) {
+                releasePending();
+                return new Result(ErrorCode.SEND_QUEUE_FULL,
+                        "Too much pending data (" + pending + " messages).");
             }
-            ++pendingCount;
+            message.pushHandler(replyHandler);
+            throttlePolicy.processMessage(message);
+        } else {
+            message.pushHandler(replyHandler);
         }
         if (message.getTrace().shouldTrace(TraceLevel.COMPONENT)) {
             message.getTrace().trace(TraceLevel.COMPONENT,
                                      "Source session accepted a " + message.getApproxSize() + " byte message. " +
-                                     pendingCount + " message(s) now pending.");
+                                     (pending + 1) + " message(s) now pending.");
         }
         message.pushHandler(this);
         sequencer.handleMessage(message);
@@ -293,18 +294,15 @@ public final class SourceSession implements ReplyHandler, MessageBus.SendBlocked
             reply.discard();
             return;
         }
-        boolean done;
-        synchronized (lock) {
-            --pendingCount;
-            if (throttlePolicy != null) {
-                throttlePolicy.processReply(reply);
-            }
-            done = (closed && pendingCount == 0);
+        if (throttlePolicy != null) {
+            throttlePolicy.processReply(reply);
         }
+        int pending = pendingCount.decrementAndGet();
+        boolean done = (pending == 0 && closed);
         sendBlockedMessages();
         if (reply.getTrace().shouldTrace(TraceLevel.COMPONENT)) {
             reply.getTrace().trace(TraceLevel.COMPONENT,
-                                   "Source session received reply. " + pendingCount + " message(s) now pending.");
+                                   "Source session received reply. " + pending + " message(s) now pending.");
         }
         ReplyHandler handler = reply.popHandler();
         handler.handleReply(reply);
@@ -381,7 +379,14 @@ public final class SourceSession implements ReplyHandler, MessageBus.SendBlocked
 
     /** Returns the number of messages sent that have not been replied to yet */
     public int getPendingCount() {
-        return pendingCount;
+        return pendingCount.get();
+    }
+
+    /** Releases a slot reserved by a message which was not sent after all */
+    private void releasePending() {
+        if (pendingCount.decrementAndGet() == 0 && closed) {
+            done.countDown();
+        }
     }
 
     /**
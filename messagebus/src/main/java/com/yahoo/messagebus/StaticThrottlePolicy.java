@@ -1,6 +1,8 @@
 // Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
 package com.yahoo.messagebus;
 
+import java.util.concurrent.atomic.AtomicLong;
+
 /**
  * This is an implementation of the {@link ThrottlePolicy} that offers static limits to the amount of pending data a
  * {@link SourceSession} is allowed to have. You may choose to set a limit to the total number of pending messages (by
@@ -9,20 +11,23 @@ package com.yahoo.messagebus;
  *
  * <b>NOTE:</b> By context, "pending" refers to the number of sent messages that have not been replied to yet.
  *
+ * The pending size is tracked atomically, so when messages are sent concurrently the size limit may be
+ * exceeded by at most the size of the messages being sent at the same time.
+ *
  * @author Simon Thoresen Hult
  */
 public class StaticThrottlePolicy implements ThrottlePolicy {
 
     private int maxPendingCount = 0;
     private long maxPendingSize = 0;
-    private long pendingSize = 0;
+    private final AtomicLong pendingSize = new AtomicLong();
 
     @Override
     public boolean canSend(Message message, int pendingCount) {
         if (maxPendingCount > 0 && pendingCount >= maxPendingCount) {
             return false;
         }
-        if (maxPendingSize > 0 && pendingSize >= maxPendingSize) {
+        if (maxPendingSize > 0 && pendingSize.get() >= maxPendingSize) {
             return false;
         }
         return true;
@@ -32,13 +37,13 @@ public class StaticThrottlePolicy implements ThrottlePolicy {
     public void processMessage(Message message) {
         int size = message.getApproxSize();
         message.setContext(size);
-        pendingSize += size;
+        pendingSize.addAndGet(size);
     }
 
     @Override
     public void processReply(Reply reply) {
         int size = (Integer)reply.getContext();
-        pendingSize -= size;
+        pendingSize.addAndGet(-size);
     }
 
     /**
@@ -88,7 +93,7 @@ public class StaticThrottlePolicy implements ThrottlePolicy {
      * @return The size.
      */
     public long getPendingSize() {
-        return pendingSize;
+        return pendingSize.get();
     }
 
 }
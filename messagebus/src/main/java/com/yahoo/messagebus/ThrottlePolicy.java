@@ -6,6 +6,11 @@ package com.yahoo.messagebus;
  * {@link SourceSession#send(Message)} needs to be accepted by this interface's {@link #canSend(Message, int)} method.
  * All messages accepted are passed through the {@link #processMessage(Message)} method, and the corresponding replies
  * are passed through the {@link #processReply(Reply)} method.
+ * <p>
+ * These methods are called concurrently by all threads sending through, and receiving replies to, the sessions
+ * using the policy, so implementations must be thread safe. The pending count passed to
+ * {@link #canSend(Message, int)} includes the messages being sent concurrently, so a policy never sees more
+ * messages pending than it has allowed.
  *
  * @author Simon Thoresen Hult
  */
@@ -0,0 +1,127 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.messagebus.network.rpc;
+
+import com.yahoo.compress.CompressionType;
+import com.yahoo.compress.Compressor;
+import com.yahoo.compress.ZstdCompressor;
+import com.yahoo.slime.BinaryFormat;
+import com.yahoo.slime.Slime;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Encodes and compresses the slime payloads of mbus.slime requests and responses.
+ *
+ * Payloads smaller than the min size are never compressed. For larger payloads, the compression achieved is
+ * tracked per routable type: Once compressing a type is found not to pay off, payloads of that type are sent
+ * uncompressed, except for every {@link #SAMPLE_INTERVAL}th, which is compressed to detect if this changes.
+ *
+ * ZSTD is only used towards peers which can decode it, and LZ4 otherwise.
+ *
+ * @author agent
+ */
+class AdaptiveCompressor {
+
+    /** How often to sample the compression ratio of types not currently compressed */
+    static final int SAMPLE_INTERVAL = 64;
+
+    /** The max size of compressed data relative to uncompressed for compression to be used */
+    private static final double THRESHOLD_FACTOR = 0.90;
+
+    private final CompressionType type;
+    private final int minSizeBytes;
+    private final Compressor compressor;
+    private final Map<Integer, TypeState> types = new ConcurrentHashMap<>();
+
+    private final LongAdder uncompressedBytes = new LongAdder();
+    private final LongAdder compressedBytes = new LongAdder();
+    private final LongAdder compressions = new LongAdder();
+    private final LongAdder skippedCompressions = new LongAdder();
+    private final LongAdder compressionNanos = new LongAdder();
+
+    /**
+     * Creates an adaptive compressor
+     *
+     * @param type the compression type to use when possible
+     * @param minSizeBytes the min size of payloads to compress
+     */
+    AdaptiveCompressor(CompressionType type, int minSizeBytes) {
+        if (type != CompressionType.NONE && type != CompressionType.LZ4 && type != CompressionType.ZSTD)
+            throw new IllegalArgumentException("Compression type must be NONE, LZ4 or ZSTD, not " + type);
+        this.type = type;
+        this.minSizeBytes = minSizeBytes;
+        this.compressor = new Compressor(CompressionType.LZ4, 3, THRESHOLD_FACTOR, minSizeBytes);
+    }
+
+    /**
+     * Encodes and compresses the given slime.
+     *
+     * @param slime the slime to encode
+     * @param routableType the type of routable this is the payload of, or 0 if unknown
+     * @param peerDecodesZstd whether the receiver of this payload can decode ZSTD
+     */
+    Compressor.Compression compress(Slime slime, int routableType, boolean peerDecodesZstd) {
+        byte[] data = BinaryFormat.encode(slime);
+        uncompressedBytes.add(data.length);
+        if (type == CompressionType.NONE || data.length < minSizeBytes)
+            return incompressible(data);
+
+        TypeState state = types.computeIfAbsent(routableType, __ -> new TypeState());
+        if ( ! state.shouldCompress()) {
+            skippedCompressions.increment();
+            return incompressible(data);
+        }
+
+        long startTime = System.nanoTime();
+        Compressor.Compression compression = (type == CompressionType.ZSTD && peerDecodesZstd)
+                                             ? compressZstd(data)
+                                             : compressor.compress(CompressionType.LZ4, data);
+        compressionNanos.add(System.nanoTime() - startTime);
+        compressions.increment();
+
+        state.compressed = compression.type().isCompressed();
+        compressedBytes.add(compression.data().length);
+        return compression;
+    }
+
+    private Compressor.Compression incompressible(byte[] data) {
+        compressedBytes.add(data.length);
+        return new Compressor.Compression(CompressionType.INCOMPRESSIBLE, data.length, data);
+    }
+
+    private Compressor.Compression compressZstd(byte[] data) {
+        byte[] compressed = new ZstdCompressor().compress(data, 0, data.length);
+        if (compressed.length + 8 >= data.length * THRESHOLD_FACTOR)
+            return new Compressor.Compression(CompressionType.INCOMPRESSIBLE, data.length, data);
+        return new Compressor.Compression(CompressionType.ZSTD, data.length, compressed);
+    }
+
+    /** Decompresses a payload compressed by any peer */
+    byte[] decompress(byte[] data, CompressionType type, int uncompressedSize) {
+        return compressor.decompress(data, type, uncompressedSize);
+    }
+
+    /** Returns a snapshot of the metrics of this */
+    CompressionMetrics metrics() {
+        return new CompressionMetrics(uncompressedBytes.sum(), compressedBytes.sum(), compressions.sum(),
+                                      skippedCompressions.sum(), compressionNanos.sum());
+    }
+
+    private static class TypeState {
+
+        /** Whether compression achieved the threshold the last time it was tried */
+        volatile boolean compressed = true;
+
+        private final AtomicInteger skipped = new AtomicInteger();
+
+        boolean shouldCompress() {
+            if (compressed) return true;
+            return skipped.incrementAndGet() % SAMPLE_INTERVAL == 0;
+        }
+
+    }
+
+}
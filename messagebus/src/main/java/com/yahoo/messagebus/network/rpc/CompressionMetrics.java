@@ -0,0 +1,20 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.messagebus.network.rpc;
+
+/**
+ * Metrics of the compression of message and reply payloads sent by a network.
+ *
+ * @param uncompressedBytes the total size of payloads before compression
+ * @param sentBytes the total size of payloads as sent, compressed or not
+ * @param compressions the number of payloads compression was attempted on
+ * @param skippedCompressions the number of payloads not compressed because compression did not pay off for their type
+ * @param compressionNanos the total time spent compressing payloads
+ * @author agent
+ */
+public record CompressionMetrics(long uncompressedBytes, long sentBytes, long compressions,
+                                 long skippedCompressions, long compressionNanos) {
+
+    /** Returns the number of bytes saved by compression */
+    public long savedBytes() { return uncompressedBytes - sentBytes; }
+
+}
@@ -55,13 +55,14 @@ import java.util.stream.Collectors;
 public class RPCNetwork implements Network, MethodHandler {
 
     private static final Logger log = Logger.getLogger(RPCNetwork.class.getName());
-    private static final Version REPORTED_VERSION = new Version(8, 310);
+    private static final Version REPORTED_VERSION = new Version(8, 311);
 
     private final AtomicBoolean destroyed = new AtomicBoolean(false);
     private final Identity identity;
     private final Supervisor orb;
     private final RPCTargetPool targetPool;
     private final RPCServicePool servicePool;
+    private final AdaptiveCompressor compressor;
     private final Acceptor listener;
     private final Mirror mirror;
     private final Register register;
@@ -100,6 +101,7 @@ public class RPCNetwork implements Network, MethodHandler {
         orb.setMaxOutputBufferSize(params.getMaxOutputBufferSize());
         targetPool = new RPCTargetPool(params.getConnectionExpireSecs(), params.getNumTargetsPerSpec());
         servicePool = new RPCServicePool(4096);
+        compressor = new AdaptiveCompressor(params.getCompressionType(), params.getCompressionMinSizeBytes());
 
         Method method = new Method("mbus.getVersion", "", "s", this);
         method.requireCapabilities(CapabilitySet.none());
@@ -314,6 +316,11 @@ public class RPCNetwork implements Network, MethodHandler {
     private Version getVersion() {
         return version;
     }
+    AdaptiveCompressor compressor() { return compressor; }
+
+    /** Returns a snapshot of the metrics of compression of payloads sent by this network */
+    public CompressionMetrics compressionMetrics() { return compressor.metrics(); }
+
     // Only for testing
     public void setVersion(Version version) {
         this.version = version;
@@ -1,6 +1,7 @@
 // Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
 package com.yahoo.messagebus.network.rpc;
 
+import com.yahoo.compress.CompressionType;
 import com.yahoo.messagebus.network.Identity;
 import com.yahoo.cloud.config.SlobroksConfig;
 
@@ -21,6 +22,8 @@ public class RPCNetworkParams {
     private double connectionExpireSecs = 30;
     private int numTargetsPerSpec = 1;
     private int numNetworkThreads = 2;
+    private CompressionType compressionType = CompressionType.LZ4;
+    private int compressionMinSizeBytes = 1024;
 
     private int transportEventsBeforeWakeup = 1;
     public enum Optimization {LATENCY, THROUGHPUT}
@@ -49,6 +52,8 @@ public class RPCNetworkParams {
         numTargetsPerSpec = params.numTargetsPerSpec;
         numNetworkThreads = params.numNetworkThreads;
         optimization = params.optimization;
+        compressionType = params.compressionType;
+        compressionMinSizeBytes = params.compressionMinSizeBytes;
     }
 
     /**
@@ -227,4 +232,34 @@ public class RPCNetworkParams {
         this.transportEventsBeforeWakeup = transportEventsBeforeWakeup;
         return this;
     }
+
+    /**
+     * Sets the compression to use for message and reply payloads. ZSTD is only used towards peers which
+     * support it, and LZ4 otherwise.
+     *
+     * @param compressionType NONE, LZ4 or ZSTD
+     * @return This, to allow chaining.
+     */
+    public RPCNetworkParams setCompressionType(CompressionType compressionType) {
+        this.compressionType = compressionType;
+        return this;
+    }
+    CompressionType getCompressionType() {
+        return compressionType;
+    }
+
+    /**
+     * Sets the min size of message and reply payloads to compress.
+     *
+     * @param compressionMinSizeBytes The min size in bytes.
+     * @return This, to allow chaining.
+     */
+    public RPCNetworkParams setCompressionMinSizeBytes(int compressionMinSizeBytes) {
+        this.compressionMinSizeBytes = compressionMinSizeBytes;
+        return this;
+    }
+    int getCompressionMinSizeBytes() {
+        return compressionMinSizeBytes;
+    }
+
 }
@@ -34,9 +34,18 @@ public class RPCSendV2 extends RPCSend {
     private final static String METHOD_NAME = "mbus.slime";
     private final static String METHOD_PARAMS = "bixbix";
     private final static String METHOD_RETURN = "bixbix";
-    private final Compressor compressor = new Compressor(CompressionType.LZ4, 3, 0.90, 1024);
+    /**
+     * The first version which can decode ZSTD compressed payloads. C++ peers report 8.310,
+     * so ZSTD is only used between Java peers, and LZ4 is used towards C++ peers.
+     */
+    static final Version ZSTD_VERSION = new Version(8, 311);
 
-    protected RPCSendV2(RPCNetwork net) { super(net); }
+    private final AdaptiveCompressor compressor;
+
+    protected RPCSendV2(RPCNetwork net) {
+        super(net);
+        compressor = net.compressor();
+    }
 
     @Override
     protected String getReturnSpec() { return METHOD_RETURN; }
@@ -102,7 +111,7 @@ public class RPCSendV2 extends RPCSend {
         root.setLong(TRACELEVEL_F, traceLevel);
         root.setData(BLOB_F, payload);
 
-        Compressor.Compression compressionResult = BinaryFormat.encode_and_compress(slime, compressor);
+        Compressor.Compression compressionResult = compressor.compress(slime, msg.getType(), decodesZstd(version));
 
         v.add(new Int8Value(compressionResult.type().getCode()));
         v.add(new Int32Value(compressionResult.uncompressedSize()));
@@ -111,6 +120,10 @@ public class RPCSendV2 extends RPCSend {
         return req;
     }
 
+    private static boolean decodesZstd(Version peerVersion) {
+        return ! peerVersion.isBefore(ZSTD_VERSION);
+    }
+
     @Override
     protected Reply createReply(Values ret, String serviceName, Trace trace) {
         CompressionType compression = CompressionType.valueOf(ret.get(3).asInt8());
@@ -201,7 +214,7 @@ public class RPCSendV2 extends RPCSend {
             }
         }
 
-        Compressor.Compression compressionResult = BinaryFormat.encode_and_compress(slime, compressor);
+        Compressor.Compression compressionResult = compressor.compress(slime, reply.getType(), decodesZstd(version));
 
         ret.add(new Int8Value(compressionResult.type().getCode()));
         ret.add(new Int32Value(compressionResult.uncompressedSize()));
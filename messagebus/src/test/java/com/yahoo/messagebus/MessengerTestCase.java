@@ -3,9 +3,18 @@ package com.yahoo.messagebus;
 
 import org.junit.jupiter.api.Test;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 /**
@@ -95,6 +104,46 @@ public class MessengerTestCase {
         assertTrue(tryMessenger(msn));
     }
 
+    @Test
+    void requireThatTasksWithSameAffinityAreRunInOrderByOneThread() throws InterruptedException {
+        Messenger msn = new Messenger(4);
+        msn.start();
+        Map<Long, List<Integer>> runOrder = new ConcurrentHashMap<>();
+        Map<Long, Set<String>> runThreads = new ConcurrentHashMap<>();
+        CountDownLatch done = new CountDownLatch(8 * 100);
+        for (int i = 0; i < 100; i++) {
+            for (long affinity = 0; affinity < 8; affinity++) {
+                int index = i;
+                long key = affinity;
+                msn.enqueue(new Messenger.Task() {
+                    @Override public void run() {
+                        runOrder.computeIfAbsent(key, __ -> Collections.synchronizedList(new ArrayList<>())).add(index);
+                        runThreads.computeIfAbsent(key, __ -> ConcurrentHashMap.newKeySet()).add(Thread.currentThread().getName());
+                    }
+                    @Override public void destroy() { done.countDown(); }
+                }, affinity);
+            }
+        }
+        assertTrue(done.await(60, TimeUnit.SECONDS));
+        msn.sync();
+        Set<String> allThreads = new HashSet<>();
+        for (long affinity = 0; affinity < 8; affinity++) {
+            assertEquals(IntStream.range(0, 100).boxed().toList(), runOrder.get(affinity));
+            assertEquals(1, runThreads.get(affinity).size());
+            allThreads.addAll(runThreads.get(affinity));
+        }
+        assertTrue(allThreads.size() > 1);
+
+        assertEquals(4, msn.workerMetrics().size());
+        long tasksRun = 0;
+        for (Messenger.WorkerMetrics metrics : msn.workerMetrics()) {
+            assertEquals(0, metrics.queueSize());
+            tasksRun += metrics.tasksRun();
+        }
+        assertEquals(8 * 100 + 4, tasksRun); // including the sync tasks
+        assertTrue(msn.destroy());
+    }
+
     private static boolean tryMessenger(Messenger msn) {
         MyTask task = new MyTask();
         msn.enqueue(task);
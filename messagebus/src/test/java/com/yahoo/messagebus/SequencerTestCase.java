@@ -4,15 +4,22 @@ package com.yahoo.messagebus;
 import com.yahoo.messagebus.test.SimpleMessage;
 import org.junit.jupiter.api.Test;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
 import java.util.Queue;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.IntStream;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
@@ -156,6 +163,59 @@ public class SequencerTestCase {
         messenger.destroy();
     }
 
+    @Test
+    void testConcurrentSequencing() throws InterruptedException {
+        int threads = 8, idsPerThread = 16, messagesPerId = 50;
+        int messages = threads * idsPerThread * messagesPerId;
+        ExecutorService replier = Executors.newFixedThreadPool(4);
+        Map<Long, Message> inFlight = new ConcurrentHashMap<>();
+        Map<Long, List<Integer>> sentOrder = new ConcurrentHashMap<>();
+        Queue<String> errors = new ConcurrentLinkedQueue<>();
+        CountDownLatch replied = new CountDownLatch(messages);
+        MessageHandler sender = message -> {
+            long seqId = message.getSequenceId();
+            if (inFlight.putIfAbsent(seqId, message) != null)
+                errors.add("Two messages with sequence id " + seqId + " were in flight at once");
+            sentOrder.computeIfAbsent(seqId, __ -> Collections.synchronizedList(new ArrayList<>()))
+                     .add(Integer.parseInt(((SimpleMessage) message).getValue()));
+            replier.execute(() -> {
+                inFlight.remove(seqId);
+                Reply reply = new EmptyReply();
+                reply.swapState(message);
+                reply.setMessage(message);
+                reply.popHandler().handleReply(reply);
+            });
+        };
+        Sequencer sequencer = new Sequencer(sender);
+
+        // Each thread sends the messages of its own ids in order, while the ids of all threads share stripes
+        List<Thread> senders = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            int thread = t;
+            Thread senderThread = new Thread(() -> {
+                for (int i = 0; i < messagesPerId; i++) {
+                    for (int id = 0; id < idsPerThread; id++) {
+                        Message message = new MyMessage(true, (long) id * threads + thread, String.valueOf(i));
+                        message.pushHandler(reply -> replied.countDown());
+                        sequencer.handleMessage(message);
+                    }
+                }
+            });
+            senderThread.start();
+            senders.add(senderThread);
+        }
+        for (Thread senderThread : senders)
+            senderThread.join();
+        assertTrue(replied.await(60, TimeUnit.SECONDS), "All messages should obtain a reply within 60s");
+        replier.shutdown();
+
+        assertEquals(List.of(), List.copyOf(errors));
+        assertEquals(threads * idsPerThread, sentOrder.size());
+        List<Integer> expectedOrder = IntStream.range(0, messagesPerId).boxed().toList();
+        for (List<Integer> order : sentOrder.values())
+            assertEquals(expectedOrder, order);
+    }
+
     private static class TestQueue extends LinkedList<Routable> implements ReplyHandler {
 
         void checkReply(boolean hasSeqId, long seqId) {
@@ -218,7 +278,11 @@ public class SequencerTestCase {
         final long seqId;
 
         MyMessage(boolean hasSeqId, long seqId) {
-            super("foo");
+            this(hasSeqId, seqId, "foo");
+        }
+
+        MyMessage(boolean hasSeqId, long seqId, String value) {
+            super(value);
             this.hasSeqId = hasSeqId;
             this.seqId = seqId;
         }
@@ -15,7 +15,10 @@ import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -85,6 +88,59 @@ public class ThrottlerTestCase {
         dst_s.destroy();
     }
 
+    @Test
+    void testMaxCountWithConcurrentSenders() throws InterruptedException {
+        SourceSessionParams params = new SourceSessionParams().setTimeout(600.0);
+        StaticThrottlePolicy policy = new StaticThrottlePolicy();
+        policy.setMaxPendingCount(10);
+        params.setThrottlePolicy(policy);
+
+        Receptor src_rr = new Receptor();
+        SourceSession src_s = src.mb.createSourceSession(src_rr, params);
+        QueueAdapter dst_q = new QueueAdapter();
+        DestinationSession dst_s = dst.mb.createDestinationSession("session", true, dst_q);
+        src.waitSlobrok("test/dst/session", 1);
+
+        // Many threads racing for the window must together get exactly the allowed number of messages accepted
+        AtomicInteger accepted = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> senders = new ArrayList<>();
+        for (int i = 0; i < 16; i++) {
+            Thread sender = new Thread(() -> {
+                try {
+                    start.await();
+                    for (int j = 0; j < 100; j++) {
+                        if (src_s.send(new SimpleMessage("msg"), "test").isAccepted())
+                            accepted.incrementAndGet();
+                    }
+                }
+                catch (InterruptedException e) {
+                    throw new RuntimeException(e);
+                }
+            });
+            sender.start();
+            senders.add(sender);
+        }
+        start.countDown();
+        for (Thread sender : senders)
+            sender.join();
+        assertEquals(policy.getMaxPendingCount(), accepted.get());
+        assertEquals(policy.getMaxPendingCount(), src_s.getPendingCount());
+
+        assertTrue(dst_q.waitSize(policy.getMaxPendingCount(), 60));
+        while (!dst_q.isEmpty()) {
+            dst_s.acknowledge((Message) dst_q.dequeue());
+        }
+        for (int i = 0; i < policy.getMaxPendingCount(); i++) {
+            assertNotNull(src_rr.getReply(60));
+        }
+        assertEquals(0, policy.getPendingSize());
+
+        src_s.close();
+        assertEquals(0, src_s.getPendingCount());
+        dst_s.destroy();
+    }
+
     @Test
     void testMaxSize() {
         // Prepare a source session with throttle enabled.
@@ -0,0 +1,71 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.messagebus.network.rpc;
+
+import com.yahoo.compress.CompressionType;
+import com.yahoo.compress.Compressor;
+import com.yahoo.slime.BinaryFormat;
+import com.yahoo.slime.Slime;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author agent
+ */
+public class AdaptiveCompressorTestCase {
+
+    @Test
+    void requireThatZstdIsOnlyUsedTowardsPeersDecodingIt() {
+        AdaptiveCompressor compressor = new AdaptiveCompressor(CompressionType.ZSTD, 1024);
+        Slime slime = slime("compressible text ".repeat(200).getBytes());
+        assertRoundTrip(slime, CompressionType.ZSTD, compressor.compress(slime, 1, true), compressor);
+        assertRoundTrip(slime, CompressionType.LZ4, compressor.compress(slime, 1, false), compressor);
+    }
+
+    @Test
+    void requireThatSmallPayloadsAreNotCompressed() {
+        AdaptiveCompressor compressor = new AdaptiveCompressor(CompressionType.LZ4, 1024);
+        Slime slime = slime("compressible text ".repeat(10).getBytes());
+        assertRoundTrip(slime, CompressionType.INCOMPRESSIBLE, compressor.compress(slime, 1, true), compressor);
+        assertEquals(0, compressor.metrics().compressions());
+    }
+
+    @Test
+    void requireThatIncompressibleTypesAreSampled() {
+        AdaptiveCompressor compressor = new AdaptiveCompressor(CompressionType.ZSTD, 1024);
+        byte[] random = new byte[4096];
+        new Random(42).nextBytes(random);
+        Slime incompressible = slime(random);
+        Slime compressible = slime("compressible text ".repeat(200).getBytes());
+
+        int messages = AdaptiveCompressor.SAMPLE_INTERVAL * 2;
+        for (int i = 0; i < messages; i++) {
+            assertRoundTrip(incompressible, CompressionType.INCOMPRESSIBLE, compressor.compress(incompressible, 1, true), compressor);
+            assertRoundTrip(compressible, CompressionType.ZSTD, compressor.compress(compressible, 2, true), compressor);
+        }
+
+        CompressionMetrics metrics = compressor.metrics();
+        assertEquals(messages + 2, metrics.compressions()); // the first and the sampled message of type 1, all of type 2
+        assertEquals(messages - 2, metrics.skippedCompressions());
+        assertTrue(metrics.savedBytes() > 0);
+        assertTrue(metrics.compressionNanos() > 0);
+    }
+
+    private static Slime slime(byte[] payload) {
+        Slime slime = new Slime();
+        slime.setObject().setData("msg", payload);
+        return slime;
+    }
+
+    private static void assertRoundTrip(Slime slime, CompressionType expectedType, Compressor.Compression compression,
+                                        AdaptiveCompressor compressor) {
+        assertEquals(expectedType, compression.type());
+        byte[] encoded = BinaryFormat.encode(slime);
+        assertArrayEquals(encoded, compressor.decompress(compression.data(), compression.type(), compression.uncompressedSize()));
+    }
+
+}
@@ -127,6 +127,14 @@ public enum ContainerMetrics implements VespaMetrics {
     QUERIES("queries", Unit.OPERATION, "Query volume"),
     QUERY_CONTAINER_LATENCY("query_container_latency", Unit.MILLISECOND, "The query execution time consumed in the container"),
     QUERY_LATENCY("query_latency", Unit.MILLISECOND, "The overall query latency as seen by the container"),
+    GLOBAL_PHASE_PREPROCESS_LATENCY("globalphase.preprocess.latency", Unit.MILLISECOND, "Time spent collecting the hits to rerank and the inputs to normalizers in the global phase"),
+    GLOBAL_PHASE_NORMALIZE_LATENCY("globalphase.normalize.latency", Unit.MILLISECOND, "Time spent normalizing in the global phase"),
+    GLOBAL_PHASE_RESCORE_LATENCY("globalphase.rescore.latency", Unit.MILLISECOND, "Time spent evaluating the global-phase expression over the hits to rerank"),
+    GLOBAL_PHASE_THREADS("globalphase.threads", Unit.THREAD, "The number of threads used to evaluate the global phase of a query"),
+    DISPATCH_TENSOR_SERIALIZED_BYTES("dispatch.tensor.serialized_bytes", Unit.BYTE, "Bytes of query tensors serialized for dispatch to content nodes"),
+    DISPATCH_TENSOR_REUSED_BYTES("dispatch.tensor.reused_bytes", Unit.BYTE, "Bytes of query profile tensors reused from earlier queries instead of being serialized again for dispatch to content nodes"),
+    YQL_PARSE_CACHE_LOOKUPS("yql.parse_cache.lookups", Unit.OPERATION, "Number of lookups of parsed YQL programs in the YQL parse cache (hits + misses)"),
+    YQL_PARSE_CACHE_HITS("yql.parse_cache.hits", Unit.OPERATION, "Number of lookups of parsed YQL programs which were hits in the YQL parse cache"),
     QUERY_TIMEOUT("query_timeout", Unit.MILLISECOND, "The amount of time allowed for query execution, from the client"),
     FAILED_QUERIES("failed_queries", Unit.OPERATION, "The number of failed queries"),
     DEGRADED_QUERIES("degraded_queries", Unit.OPERATION, "The number of degraded queries, e.g. due to some content nodes not responding in time"),
@@ -175,6 +183,14 @@ public enum ContainerMetrics implements VespaMetrics {
     JRT_TRANSPORT_CLIENT_TLS_CONNECTIONS_ESTABLISHED("jrt.transport.client.tls-connections-established", Unit.CONNECTION, "TLS client connections established"),
     JRT_TRANSPORT_SERVER_UNENCRYPTED_CONNECTIONS_ESTABLISHED("jrt.transport.server.unencrypted-connections-established", Unit.CONNECTION, "Unencrypted server connections established"),
     JRT_TRANSPORT_CLIENT_UNENCRYPTED_CONNECTIONS_ESTABLISHED("jrt.transport.client.unencrypted-connections-established", Unit.CONNECTION, "Unencrypted client connections established"),
+    MBUS_MESSENGER_QUEUE_SIZE("mbus.messenger.queue_size", Unit.TASK, "Number of tasks waiting to be run by a message bus messenger thread"),
+    MBUS_MESSENGER_TASKS("mbus.messenger.tasks", Unit.TASK, "Number of tasks run by a message bus messenger thread"),
+    MBUS_MESSENGER_TASK_LATENCY("mbus.messenger.task_latency", Unit.MILLISECOND, "Average time from a task is enqueued until it has run by a message bus messenger thread"),
+    MBUS_COMPRESSION_UNCOMPRESSED_BYTES("mbus.compression.uncompressed_bytes", Unit.BYTE, "Bytes of message bus payloads sent, before compression"),
+    MBUS_COMPRESSION_SAVED_BYTES("mbus.compression.saved_bytes", Unit.BYTE, "Bytes saved by compressing message bus payloads"),
+    MBUS_COMPRESSION_COMPRESSIONS("mbus.compression.compressions", Unit.OPERATION, "Number of message bus payloads compression was attempted on"),
+    MBUS_COMPRESSION_SKIPPED("mbus.compression.skipped", Unit.OPERATION, "Number of message bus payloads not compressed because compression does not pay off for their type"),
+    MBUS_COMPRESSION_TIME("mbus.compression.time", Unit.MILLISECOND, "Time spent compressing message bus payloads"),
 
     MAX_QUERY_LATENCY("max_query_latency", Unit.MILLISECOND, "Deprecated. Use query_latency.max instead"), // TODO: Remove in Vespa 9
     MEAN_QUERY_LATENCY("mean_query_latency", Unit.MILLISECOND, "Deprecated. Use the expression (query_latency.sum / query_latency.count) instead"),// TODO: Remove in Vespa 9
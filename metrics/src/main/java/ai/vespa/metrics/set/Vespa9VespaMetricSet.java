@@ -91,6 +91,16 @@ public class Vespa9VespaMetricSet {
         addMetric(metrics, ContainerMetrics.JRT_TRANSPORT_SERVER_UNENCRYPTED_CONNECTIONS_ESTABLISHED.baseName());
         addMetric(metrics, ContainerMetrics.JRT_TRANSPORT_CLIENT_UNENCRYPTED_CONNECTIONS_ESTABLISHED.baseName());
 
+        // Java message bus metrics
+        addMetric(metrics, ContainerMetrics.MBUS_MESSENGER_QUEUE_SIZE, EnumSet.of(max, average));
+        addMetric(metrics, ContainerMetrics.MBUS_MESSENGER_TASKS.sum());
+        addMetric(metrics, ContainerMetrics.MBUS_MESSENGER_TASK_LATENCY, EnumSet.of(sum, count, max));
+        addMetric(metrics, ContainerMetrics.MBUS_COMPRESSION_UNCOMPRESSED_BYTES.sum());
+        addMetric(metrics, ContainerMetrics.MBUS_COMPRESSION_SAVED_BYTES.sum());
+        addMetric(metrics, ContainerMetrics.MBUS_COMPRESSION_COMPRESSIONS.sum());
+        addMetric(metrics, ContainerMetrics.MBUS_COMPRESSION_SKIPPED.sum());
+        addMetric(metrics, ContainerMetrics.MBUS_COMPRESSION_TIME.sum());
+
         // C++ TLS metrics
         addMetric(metrics, StorageMetrics.VDS_SERVER_NETWORK_TLS_HANDSHAKES_FAILED.count());
         addMetric(metrics, StorageMetrics.VDS_SERVER_NETWORK_PEER_AUTHORIZATION_FAILURES.count());
@@ -268,6 +278,14 @@ public class Vespa9VespaMetricSet {
         addMetric(metrics, ContainerMetrics.SEARCH_CONNECTIONS, EnumSet.of(sum, count, max));
         addMetric(metrics, ContainerMetrics.QUERIES.rate());
         addMetric(metrics, ContainerMetrics.QUERY_CONTAINER_LATENCY, EnumSet.of(sum, count, max));
+        addMetric(metrics, ContainerMetrics.GLOBAL_PHASE_PREPROCESS_LATENCY, EnumSet.of(sum, count, max));
+        addMetric(metrics, ContainerMetrics.GLOBAL_PHASE_NORMALIZE_LATENCY, EnumSet.of(sum, count, max));
+        addMetric(metrics, ContainerMetrics.GLOBAL_PHASE_RESCORE_LATENCY, EnumSet.of(sum, count, max));
+        addMetric(metrics, ContainerMetrics.GLOBAL_PHASE_THREADS, EnumSet.of(sum, count, max));
+        addMetric(metrics, ContainerMetrics.DISPATCH_TENSOR_SERIALIZED_BYTES.sum());
+        addMetric(metrics, ContainerMetrics.DISPATCH_TENSOR_REUSED_BYTES.sum());
+        addMetric(metrics, ContainerMetrics.YQL_PARSE_CACHE_LOOKUPS.sum());
+        addMetric(metrics, ContainerMetrics.YQL_PARSE_CACHE_HITS.sum());
         addMetric(metrics, ContainerMetrics.QUERY_LATENCY, EnumSet.of(sum, count, max, ninety_five_percentile, ninety_nine_percentile));
         addMetric(metrics, ContainerMetrics.QUERY_TIMEOUT, EnumSet.of(sum, count, max, min, ninety_five_percentile, ninety_nine_percentile));
         addMetric(metrics, ContainerMetrics.FAILED_QUERIES.rate());
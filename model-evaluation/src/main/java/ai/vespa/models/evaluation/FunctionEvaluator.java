@@ -2,12 +2,17 @@
 package ai.vespa.models.evaluation;
 
 import com.yahoo.searchlib.rankingexpression.ExpressionFunction;
+import com.yahoo.searchlib.rankingexpression.evaluation.CompiledExpression;
 import com.yahoo.searchlib.rankingexpression.evaluation.StringValue;
 import com.yahoo.searchlib.rankingexpression.evaluation.TensorValue;
+import com.yahoo.tensor.IndexedTensor;
 import com.yahoo.tensor.Tensor;
 import com.yahoo.tensor.TensorType;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
 
@@ -21,11 +26,19 @@ public class FunctionEvaluator {
 
     private final ExpressionFunction function;
     private final LazyArrayContext context;
+
+    /** The body of the function compiled against the context of this, or null if it could not be compiled */
+    private final CompiledExpression compiled;
     private boolean evaluated = false;
 
     FunctionEvaluator(ExpressionFunction function, LazyArrayContext context) {
+        this(function, context, null);
+    }
+
+    FunctionEvaluator(ExpressionFunction function, LazyArrayContext context, CompiledExpression compiled) {
         this.function = function;
         this.context = context;
+        this.compiled = compiled;
     }
 
     /**
@@ -102,13 +115,65 @@ public class FunctionEvaluator {
     }
 
     public Tensor evaluate() {
-        function.argumentTypes().entrySet().stream().sorted(Map.Entry.comparingByKey())
-                .forEach(argument -> checkArgument(argument.getKey(), argument.getValue()));
+        checkArguments();
         evaluated = true;
         evaluateOnnxModels();
+        return evaluateBody();
+    }
+
+    /**
+     * Evaluates a list of evaluators of the same function, each bound to its own arguments, and returns the
+     * results in the same order. This is equivalent to calling evaluate() on each of them, except that
+     * ONNX models which accept a batch dimension are evaluated once for all the evaluators instead of once for each.
+     * A model accepts a batch dimension if the first dimension of all its inputs and of the output used is unbound,
+     * and all the evaluators have input values of size 1 in that dimension.
+     */
+    public static List<Tensor> evaluate(List<FunctionEvaluator> evaluators) {
+        for (FunctionEvaluator evaluator : evaluators) {
+            evaluator.checkArguments();
+            evaluator.evaluated = true;
+        }
+        if (evaluators.size() > 1) {
+            for (Map.Entry<String, OnnxModel> entry : evaluators.get(0).context().onnxModels().entrySet())
+                evaluateBatched(entry.getKey(), entry.getValue(), evaluators);
+        }
+        List<Tensor> results = new ArrayList<>(evaluators.size());
+        if (canEvaluateCompiled(evaluators)) {
+            double[] values = evaluators.get(0).compiled.evaluateAll(evaluators.stream().map(FunctionEvaluator::context).toList());
+            for (double value : values)
+                results.add(Tensor.from(value));
+            return results;
+        }
+        for (FunctionEvaluator evaluator : evaluators) {
+            evaluator.evaluateOnnxModels();
+            results.add(evaluator.evaluateBody());
+        }
+        return results;
+    }
+
+    /** Returns whether all the given evaluators can be evaluated together by the same compiled expression */
+    private static boolean canEvaluateCompiled(List<FunctionEvaluator> evaluators) {
+        CompiledExpression compiled = evaluators.get(0).compiled;
+        if (compiled == null || evaluators.size() < 2) return false;
+        for (FunctionEvaluator evaluator : evaluators) {
+            if (evaluator.compiled != compiled) return false;
+            if ( ! evaluator.context.onnxModels().isEmpty()) return false;
+            if ( ! compiled.canEvaluate(evaluator.context)) return false;
+        }
+        return true;
+    }
+
+    private Tensor evaluateBody() {
+        if (compiled != null && compiled.canEvaluate(context))
+            return Tensor.from(compiled.evaluate(context));
         return function.getBody().evaluate(context).asTensor();
     }
 
+    private void checkArguments() {
+        function.argumentTypes().entrySet().stream().sorted(Map.Entry.comparingByKey())
+                .forEach(argument -> checkArgument(argument.getKey(), argument.getValue()));
+    }
+
     private void checkArgument(String name, TensorType type) {
         if (context.isMissing(name))
             throw new IllegalStateException("Missing argument '" + name + "': Must be bound to a value of type " + type);
@@ -122,24 +187,119 @@ public class FunctionEvaluator {
     private void evaluateOnnxModels() {
         for (Map.Entry<String, OnnxModel> entry : context().onnxModels().entrySet()) {
             String onnxFeature = entry.getKey();
-            String outputName = function.getName(); // Function name is output of model (sometimes)
-            int idx = onnxFeature.indexOf(").");
-            if (idx > 0 && idx + 2 < onnxFeature.length()) {
-                // explicitly specified as onnx(modelname).outputname ; pick the last part
-                outputName = onnxFeature.substring(idx+2);
-            }
             OnnxModel onnxModel = entry.getValue();
-            if (context.get(onnxFeature).equals(context.defaultValue())) {
+            if (isUnevaluated(onnxFeature)) {
                 Map<String, Tensor> inputs = new HashMap<>();
                 for (Map.Entry<String, TensorType> input: onnxModel.inputs().entrySet()) {
                     inputs.put(input.getKey(), context.get(input.getKey()).asTensor());
                 }
-                Tensor result = onnxModel.evaluate(inputs, outputName);
+                Tensor result = onnxModel.evaluate(inputs, outputNameOf(onnxFeature));
                 context.put(onnxFeature, new TensorValue(result));
             }
         }
     }
 
+    private boolean isUnevaluated(String onnxFeature) {
+        return context.get(onnxFeature).equals(context.defaultValue());
+    }
+
+    private String outputNameOf(String onnxFeature) {
+        int idx = onnxFeature.indexOf(").");
+        if (idx > 0 && idx + 2 < onnxFeature.length()) {
+            // explicitly specified as onnx(modelname).outputname ; pick the last part
+            return onnxFeature.substring(idx+2);
+        }
+        return function.getName(); // Function name is output of model (sometimes)
+    }
+
+    /**
+     * Evaluates the given model once with the inputs of all the given evaluators stacked along the batch dimension,
+     * and adds the slice of the output belonging to each evaluator to it.
+     * This does nothing if the model does not accept a batch dimension.
+     */
+    private static void evaluateBatched(String onnxFeature, OnnxModel model, List<FunctionEvaluator> evaluators) {
+        String outputName = evaluators.get(0).outputNameOf(onnxFeature);
+        String batchDimension = batchDimensionOf(model.outputs().get(outputName));
+        if (batchDimension == null) return;
+        for (FunctionEvaluator evaluator : evaluators) {
+            if (evaluator.context.onnxModels().get(onnxFeature) != model) return;
+            if ( ! evaluator.isUnevaluated(onnxFeature)) return;
+        }
+
+        Map<String, Tensor> inputs = new HashMap<>();
+        for (Map.Entry<String, TensorType> input : model.inputs().entrySet()) {
+            if ( ! batchDimension.equals(batchDimensionOf(input.getValue()))) return;
+            List<Tensor> values = new ArrayList<>(evaluators.size());
+            for (FunctionEvaluator evaluator : evaluators)
+                values.add(evaluator.context.get(input.getKey()).asTensor());
+            Tensor batch = stack(values, batchDimension);
+            if (batch == null) return;
+            inputs.put(input.getKey(), batch);
+        }
+        List<Tensor> outputs = unstack(model.evaluate(inputs, outputName), batchDimension, evaluators.size());
+        if (outputs == null) return;
+        for (int i = 0; i < evaluators.size(); i++)
+            evaluators.get(i).context.put(onnxFeature, new TensorValue(outputs.get(i)));
+    }
+
+    /** Returns the name of the first dimension of the given type if it is unbound, and null otherwise */
+    private static String batchDimensionOf(TensorType type) {
+        if (type == null || type.dimensions().isEmpty()) return null;
+        TensorType.Dimension first = type.dimensions().get(0);
+        return first.type() == TensorType.Dimension.Type.indexedUnbound ? first.name() : null;
+    }
+
+    /**
+     * Returns the given tensors stacked along the given dimension, or null if they are not all indexed tensors
+     * of the same shape, having the given dimension first, with size 1.
+     */
+    private static Tensor stack(List<Tensor> tensors, String dimension) {
+        if ( ! (tensors.get(0) instanceof IndexedTensor first)) return null;
+        if ( ! first.type().dimensions().get(0).name().equals(dimension) || first.shape()[0] != 1) return null;
+        for (Tensor tensor : tensors) {
+            if ( ! (tensor instanceof IndexedTensor indexed)) return null;
+            if ( ! indexed.type().equals(first.type()) || ! Arrays.equals(indexed.shape(), first.shape())) return null;
+        }
+
+        var builder = (IndexedTensor.BoundBuilder)Tensor.Builder.of(withFirstDimensionSize(first, tensors.size()));
+        long cellsPerTensor = first.size();
+        for (int i = 0; i < tensors.size(); i++) {
+            IndexedTensor tensor = (IndexedTensor)tensors.get(i);
+            for (long cell = 0; cell < cellsPerTensor; cell++)
+                builder.cellByDirectIndex(i * cellsPerTensor + cell, tensor.get(cell));
+        }
+        return builder.build();
+    }
+
+    /**
+     * Returns the given tensor split into the given number of tensors along its first dimension,
+     * or null if the tensor cannot be split that way.
+     */
+    private static List<Tensor> unstack(Tensor tensor, String dimension, int count) {
+        if ( ! (tensor instanceof IndexedTensor indexed)) return null;
+        if ( ! indexed.type().dimensions().get(0).name().equals(dimension) || indexed.shape()[0] != count) return null;
+
+        TensorType sliceType = withFirstDimensionSize(indexed, 1);
+        long cellsPerSlice = indexed.size() / count;
+        List<Tensor> slices = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            var builder = (IndexedTensor.BoundBuilder)Tensor.Builder.of(sliceType);
+            for (long cell = 0; cell < cellsPerSlice; cell++)
+                builder.cellByDirectIndex(cell, indexed.get(i * cellsPerSlice + cell));
+            slices.add(builder.build());
+        }
+        return slices;
+    }
+
+    /** Returns the bound type of the given tensor, with the size of the first dimension set to the given size */
+    private static TensorType withFirstDimensionSize(IndexedTensor tensor, long size) {
+        TensorType.Builder builder = new TensorType.Builder(tensor.type().valueType());
+        long[] shape = tensor.shape();
+        for (int i = 0; i < shape.length; i++)
+            builder.indexed(tensor.type().dimensions().get(i).name(), i == 0 ? size : shape[i]);
+        return builder.build();
+    }
+
     /** Returns the function evaluated by this */
     public ExpressionFunction function() { return function; }
 
@@ -55,7 +55,9 @@ class LazyValue extends Value {
 
     @Override
     public boolean hasDouble() {
-        return type().rank() == 0;
+        var returnType = model.requireReferencedFunction(function).returnType();
+        if (returnType.isEmpty()) return computedValue().hasDouble();
+        return returnType.get().rank() == 0;
     }
 
     @Override
@@ -3,7 +3,9 @@ package ai.vespa.models.evaluation;
 
 import com.yahoo.api.annotations.Beta;
 import com.yahoo.searchlib.rankingexpression.ExpressionFunction;
+import com.yahoo.searchlib.rankingexpression.evaluation.CompiledExpression;
 import com.yahoo.searchlib.rankingexpression.evaluation.ContextIndex;
+import com.yahoo.searchlib.rankingexpression.evaluation.ExpressionCompiler;
 import com.yahoo.searchlib.rankingexpression.evaluation.ExpressionOptimizer;
 import com.yahoo.stream.CustomCollectors;
 import com.yahoo.tensor.TensorType;
@@ -50,6 +52,9 @@ public class Model implements AutoCloseable {
     /** Context prototypes, indexed by function name (as all invocations of the same function share the same context prototype) */
     private final Map<String, LazyArrayContext> contextPrototypes;
 
+    /** The bodies of the functions of this which can be compiled, compiled against their context prototype */
+    private final Map<String, CompiledExpression> compiledFunctions;
+
     private final ExpressionOptimizer expressionOptimizer = new ExpressionOptimizer();
 
     private final List<Runnable> closeActions;
@@ -169,6 +174,12 @@ public class Model implements AutoCloseable {
             }
         }
         this.contextPrototypes = Map.copyOf(contextBuilder);
+        // Compile before optimizing, as the compiler covers the nodes the optimizers would replace
+        Map<String, CompiledExpression> compiledBuilder = new LinkedHashMap<>();
+        for (ExpressionFunction function : functions.values())
+            ExpressionCompiler.compile(function.getBody(), contextPrototypes.get(function.getName()))
+                              .ifPresent(compiled -> compiledBuilder.put(function.getName(), compiled));
+        this.compiledFunctions = Map.copyOf(compiledBuilder);
         // Optimize free functions
         this.functions = List.copyOf(functions.entrySet()
                                      .stream()
@@ -292,7 +303,9 @@ public class Model implements AutoCloseable {
 
     /** Returns a single-use evaluator of a function */
     private FunctionEvaluator evaluatorOf(ExpressionFunction function) {
-        return new FunctionEvaluator(function, requireContextPrototype(function.getName()).copy());
+        return new FunctionEvaluator(function,
+                                     requireContextPrototype(function.getName()).copy(),
+                                     compiledFunctions.get(function.getName()));
     }
 
     private void throwUndeterminedFunction(String message) {
@@ -6,6 +6,7 @@ import com.yahoo.tensor.Tensor;
 import com.yahoo.tensor.TensorType;
 import org.junit.Test;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -44,6 +45,17 @@ public class MlModelsImportingTest {
             FunctionEvaluator evaluator = xgboost.evaluatorOf();
             assertEquals("f109, f29, f56, f60", evaluator.context().names().stream().sorted().collect(Collectors.joining(", ")));
             assertEquals(-4.37659, evaluator.evaluate().sum().asDouble(), delta);
+
+            // Batch evaluation
+            List<FunctionEvaluator> evaluators = new ArrayList<>();
+            List<Double> expected = new ArrayList<>();
+            for (int i = 0; i < 10; i++) {
+                evaluators.add(xgboost.evaluatorOf().bind("f29", i * 0.1 - 0.5).bind("f56", 0.5 - i * 0.1));
+                expected.add(xgboost.evaluatorOf().bind("f29", i * 0.1 - 0.5).bind("f56", 0.5 - i * 0.1).evaluate().asDouble());
+            }
+            List<Tensor> results = FunctionEvaluator.evaluate(evaluators);
+            for (int i = 0; i < results.size(); i++)
+                assertEquals(expected.get(i), results.get(i).asDouble(), delta);
         }
 
         {
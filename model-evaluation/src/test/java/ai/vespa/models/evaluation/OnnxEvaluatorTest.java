@@ -13,7 +13,9 @@ import com.yahoo.vespa.config.search.core.RankingExpressionsConfig;
 import org.junit.Test;
 
 import java.io.File;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import static org.junit.Assert.assertEquals;
@@ -51,6 +53,39 @@ public class OnnxEvaluatorTest {
         assertEquals(function.evaluate(), Tensor.from("tensor<float>(d0[2],d1[1]):[0.63931,0.67574]"));
     }
 
+    @Test
+    public void testBatchedOnnxEvaluation() {
+        assumeTrue(OnnxRuntime.isRuntimeAvailable());
+        ModelsEvaluator models = createModels();
+
+        // one_layer has an unbound batch dimension: Evaluated once for all
+        List<FunctionEvaluator> functions = new ArrayList<>();
+        for (String input : List.of("[[0.1, 0.2, 0.3]]", "[[0.4, 0.5, 0.6]]", "[[0.7, 0.8, 0.9]]")) {
+            FunctionEvaluator function = models.evaluatorOf("one_layer");
+            function.bind("input", Tensor.from("tensor<float>(d0[1],d1[3]):" + input));
+            functions.add(function);
+        }
+        List<Tensor> results = FunctionEvaluator.evaluate(functions);
+        assertEquals(3, results.size());
+        assertEquals(Tensor.from("tensor<float>(d0[1],d1[1]):[0.63931]"), results.get(0));
+        assertEquals(Tensor.from("tensor<float>(d0[1],d1[1]):[0.67574]"), results.get(1));
+        FunctionEvaluator single = models.evaluatorOf("one_layer");
+        single.bind("input", Tensor.from("tensor<float>(d0[1],d1[3]):[[0.7, 0.8, 0.9]]"));
+        assertEquals(single.evaluate(), results.get(2));
+
+        // add_mul has a bound first dimension: Evaluated once for each
+        functions.clear();
+        for (int i = 1; i <= 2; i++) {
+            FunctionEvaluator function = models.evaluatorOf("add_mul", "output1");
+            function.bind("input1", Tensor.from("tensor<float>(d0[1]):[" + i + "]"));
+            function.bind("input2", Tensor.from("tensor<float>(d0[1]):[3]"));
+            functions.add(function);
+        }
+        results = FunctionEvaluator.evaluate(functions);
+        assertEquals(3.0, results.get(0).sum().asDouble(), delta);
+        assertEquals(6.0, results.get(1).sum().asDouble(), delta);
+    }
+
     @SuppressWarnings("deprecation")
     private ModelsEvaluator createModels() {
         RankProfilesConfig config = ConfigGetter.getConfig(RankProfilesConfig.class, fileConfigId("rank-profiles.cfg"));
@@ -3,12 +3,20 @@ package ai.vespa.rankingexpression.importer.lightgbm;
 
 import com.yahoo.searchlib.rankingexpression.RankingExpression;
 import com.yahoo.searchlib.rankingexpression.evaluation.ArrayContext;
+import com.yahoo.searchlib.rankingexpression.evaluation.CompiledExpression;
 import com.yahoo.searchlib.rankingexpression.evaluation.ContextIndex;
 import com.yahoo.searchlib.rankingexpression.evaluation.DoubleValue;
+import com.yahoo.searchlib.rankingexpression.evaluation.ExpressionCompiler;
 import com.yahoo.searchlib.rankingexpression.evaluation.ExpressionOptimizer;
 import com.yahoo.searchlib.rankingexpression.evaluation.gbdtoptimization.GBDTForestNode;
 import org.junit.Test;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
 /**
@@ -36,6 +44,34 @@ public class LightGBMImportEvaluationTestCase extends LightGBMTestBase {
         assertEvaluation(2.3571838,  expression, features(context).add("numerical_1", 0.7).add("numerical_2", 0.8).add("categorical_2", "m"));
     }
 
+    @Test
+    public void testCompiledRegression() {
+        RankingExpression expression = importModel("src/test/models/lightgbm/regression.json");
+        ArrayContext context = new ArrayContext(expression, true, DoubleValue.NaN);
+        CompiledExpression compiled = ExpressionCompiler.compile(expression, context).get();
+
+        assertEquals(1.91300868, compiled.evaluate(features(context).context()), 1e-6);
+        assertFalse("Categorical strings are evaluated as usual",
+                    compiled.canEvaluate(features(context).add("categorical_1", "a").context()));
+
+        Random random = new Random(1);
+        List<ArrayContext> contexts = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            TestFeatures features = features(context);
+            if (random.nextBoolean())
+                features.add("numerical_1", random.nextDouble());
+            if (random.nextBoolean())
+                features.add("numerical_2", random.nextDouble());
+            contexts.add(features.context());
+        }
+        double[] results = compiled.evaluateAll(contexts);
+        for (int i = 0; i < contexts.size(); i++) {
+            double expected = expression.evaluate(contexts.get(i)).asDouble();
+            assertEquals(expected, compiled.evaluate(contexts.get(i)), 1e-9);
+            assertEquals(expected, results[i], 1e-9);
+        }
+    }
+
     @Test
     public void testClassification() {
         RankingExpression expression = importModel("src/test/models/lightgbm/classification.json");
@@ -37,6 +37,9 @@ class LightGBMTestBase {
             context.put(name, new StringValue(value));
             return this;
         }
+        ArrayContext context() {
+            return context;
+        }
     }
 
 }
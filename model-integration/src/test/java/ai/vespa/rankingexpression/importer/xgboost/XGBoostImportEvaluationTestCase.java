@@ -3,15 +3,20 @@ package ai.vespa.rankingexpression.importer.xgboost;
 
 import com.yahoo.searchlib.rankingexpression.RankingExpression;
 import com.yahoo.searchlib.rankingexpression.evaluation.ArrayContext;
+import com.yahoo.searchlib.rankingexpression.evaluation.CompiledExpression;
 import com.yahoo.searchlib.rankingexpression.evaluation.Context;
 import com.yahoo.searchlib.rankingexpression.evaluation.ContextIndex;
 import com.yahoo.searchlib.rankingexpression.evaluation.DoubleValue;
+import com.yahoo.searchlib.rankingexpression.evaluation.ExpressionCompiler;
 import com.yahoo.searchlib.rankingexpression.evaluation.ExpressionOptimizer;
 import com.yahoo.searchlib.rankingexpression.evaluation.TensorValue;
 import com.yahoo.searchlib.rankingexpression.evaluation.gbdtoptimization.GBDTForestNode;
 import com.yahoo.tensor.Tensor;
 import org.junit.Test;
 
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 
@@ -57,6 +62,32 @@ public class XGBoostImportEvaluationTestCase {
         assertXGBoostEvaluation(6.0, expression, features(context, "f1", Tensor.from(1.0)));
     }
 
+    @Test
+    public void testCompiledXGBoostEvaluation() {
+        RankingExpression expression = new XGBoostImporter()
+                .importModel("xgb", "src/test/models/xgboost/xgboost.test.json")
+                .expressions().get("xgb");
+
+        ArrayContext context = new ArrayContext(expression, DoubleValue.NaN);
+        CompiledExpression compiled = ExpressionCompiler.compile(expression, context).get();
+
+        List<ArrayContext> contexts = List.of(features(context, "f1", 0.0, "f2", 0.0),
+                                              features(context, "f1", 0.0, "f2", 1.0),
+                                              features(context, "f1", 1.0, "f2", 0.0),
+                                              features(context, "f1", 1.0, "f2", 1.0),
+                                              features(context, "f1", 0.0),
+                                              features(context, "f1", 1.0),
+                                              features(context, "f2", 0.0),
+                                              features(context, "f2", 1.0),
+                                              features(context));
+        double[] expected = { 1.0, 2.0, 3.0, 4.0, 5.0, 6.0, 7.0, 9.0, 11.0 };
+        for (int i = 0; i < expected.length; i++) {
+            assertTrue(compiled.canEvaluate(contexts.get(i)));
+            assertEquals(expected[i], compiled.evaluate(contexts.get(i)), 1e-9);
+        }
+        assertArrayEquals(expected, compiled.evaluateAll(contexts), 1e-9);
+    }
+
     private ArrayContext features(ArrayContext context) {
         return context.clone();
     }
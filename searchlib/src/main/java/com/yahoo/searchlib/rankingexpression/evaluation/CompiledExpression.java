@@ -0,0 +1,68 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.searchlib.rankingexpression.evaluation;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A scalar ranking expression compiled by {@link ExpressionCompiler} into a tree of specialized functions
+ * over doubles, which reads its inputs by index from a context. This evaluates to the same value as
+ * the expression it is compiled from, but without allocating intermediate values.
+ *
+ * This is immutable and multithread safe. The contexts it is evaluated with must have the same name to index
+ * mapping as the context index it was compiled with.
+ *
+ * @author agent
+ */
+public final class CompiledExpression {
+
+    /** A compiled expression node */
+    @FunctionalInterface
+    interface Node {
+
+        double evaluate(ContextIndex context);
+
+    }
+
+    private final Node root;
+    private final int[] inputs;
+
+    CompiledExpression(Node root, int[] inputs) {
+        this.root = root;
+        this.inputs = inputs;
+    }
+
+    /** Returns the indexes of the values this reads from contexts, in increasing order */
+    public int[] inputs() { return Arrays.copyOf(inputs, inputs.length); }
+
+    /**
+     * Returns whether all the values this reads from the given context are scalars, such that
+     * this can be evaluated with it. If this returns false the expression must be evaluated as usual.
+     */
+    public boolean canEvaluate(ContextIndex context) {
+        for (int input : inputs) {
+            Value value = context.get(input);
+            if ( ! value.hasDouble() || value instanceof StringValue) return false;
+        }
+        return true;
+    }
+
+    /** Evaluates this with values from the given context, which must be one this {@link #canEvaluate} */
+    public double evaluate(ContextIndex context) {
+        return root.evaluate(context);
+    }
+
+    /**
+     * Evaluates this with values from each of the given contexts, which must all be ones this {@link #canEvaluate}.
+     * This is faster than evaluating each context separately when this is a sum of decision trees.
+     */
+    public double[] evaluateAll(List<? extends ContextIndex> contexts) {
+        if (root instanceof FlatGBDTForest forest)
+            return forest.evaluate(contexts);
+        double[] results = new double[contexts.size()];
+        for (int i = 0; i < results.length; i++)
+            results[i] = root.evaluate(contexts.get(i));
+        return results;
+    }
+
+}
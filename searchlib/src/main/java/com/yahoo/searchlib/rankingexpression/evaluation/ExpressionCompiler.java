@@ -0,0 +1,281 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.searchlib.rankingexpression.evaluation;
+
+import com.yahoo.searchlib.rankingexpression.RankingExpression;
+import com.yahoo.searchlib.rankingexpression.evaluation.CompiledExpression.Node;
+import com.yahoo.searchlib.rankingexpression.rule.ConstantNode;
+import com.yahoo.searchlib.rankingexpression.rule.EmbracedNode;
+import com.yahoo.searchlib.rankingexpression.rule.ExpressionNode;
+import com.yahoo.searchlib.rankingexpression.rule.Function;
+import com.yahoo.searchlib.rankingexpression.rule.FunctionNode;
+import com.yahoo.searchlib.rankingexpression.rule.IfNode;
+import com.yahoo.searchlib.rankingexpression.rule.NegativeNode;
+import com.yahoo.searchlib.rankingexpression.rule.NotNode;
+import com.yahoo.searchlib.rankingexpression.rule.OperationNode;
+import com.yahoo.searchlib.rankingexpression.rule.Operator;
+import com.yahoo.searchlib.rankingexpression.rule.ReferenceNode;
+import com.yahoo.searchlib.rankingexpression.rule.SetMembershipNode;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+
+/**
+ * Compiles scalar ranking expressions into {@link CompiledExpression} instances, where each node is
+ * specialized to its operation and operand kinds, references are resolved to context indexes,
+ * and subexpressions over constants only are folded into constants. Sums of decision trees are
+ * compiled to {@link FlatGBDTForest} instances.
+ *
+ * Expressions containing tensor functions or other nodes which cannot be evaluated as doubles are not compiled.
+ * Clients should keep evaluating those as usual. Example:
+ *
+ * <code>
+ * // Set up once
+ * ArrayContext context = new ArrayContext(expression);
+ * Optional&lt;CompiledExpression&gt; compiled = ExpressionCompiler.compile(expression, context);
+ *
+ * // Execute repeatedly (with a copy of the context in each thread)
+ * context.put("featureName1", value1);
+ * ...
+ * double score = compiled.isPresent() &amp;&amp; compiled.get().canEvaluate(context)
+ *                ? compiled.get().evaluate(context)
+ *                : expression.evaluate(context).asDouble();
+ * </code>
+ *
+ * @author agent
+ */
+public final class ExpressionCompiler {
+
+    private final ContextIndex contextIndex;
+    private final TreeSet<Integer> inputs = new TreeSet<>();
+
+    private ExpressionCompiler(ContextIndex contextIndex) {
+        this.contextIndex = contextIndex;
+    }
+
+    /** Returns the given expression compiled against the given context index, or empty if it cannot be compiled */
+    public static Optional<CompiledExpression> compile(RankingExpression expression, ContextIndex contextIndex) {
+        return compile(expression.getRoot(), contextIndex);
+    }
+
+    /** Returns the given expression compiled against the given context index, or empty if it cannot be compiled */
+    public static Optional<CompiledExpression> compile(ExpressionNode expression, ContextIndex contextIndex) {
+        ExpressionCompiler compiler = new ExpressionCompiler(contextIndex);
+        Node root = compiler.compile(expression);
+        if (root == null) return Optional.empty();
+        int[] inputs = compiler.inputs.stream().mapToInt(Integer::intValue).toArray();
+        return Optional.of(new CompiledExpression(root, inputs));
+    }
+
+    /** Returns the given node compiled, or null if it cannot be compiled */
+    private Node compile(ExpressionNode node) {
+        if (node instanceof ConstantNode constant)
+            return compileConstant(constant.getValue());
+        if (node instanceof ReferenceNode reference)
+            return compileReference(reference);
+        if (node instanceof EmbracedNode embraced)
+            return compile(embraced.getValue());
+        if (node instanceof NegativeNode negative)
+            return compileNegative(negative);
+        if (node instanceof NotNode not)
+            return compileNot(not);
+        if (node instanceof OperationNode operation)
+            return compileOperation(operation);
+        if (node instanceof IfNode ifNode)
+            return compileIf(ifNode);
+        if (node instanceof FunctionNode function)
+            return compileFunction(function);
+        if (node instanceof SetMembershipNode membership)
+            return compileSetMembership(membership);
+        return null;
+    }
+
+    private Node compileConstant(Value value) {
+        if ( ! (value instanceof DoubleCompatibleValue)) return null;
+        return new Constant(value.asDouble());
+    }
+
+    private Node compileReference(ReferenceNode node) {
+        int index = indexOf(node);
+        if (index < 0) return null;
+        inputs.add(index);
+        return context -> context.getDouble(index);
+    }
+
+    /** Returns the index of the given reference in the context index, or -1 if it is not known */
+    private int indexOf(ReferenceNode node) {
+        try {
+            return contextIndex.getIndex(nameOf(node));
+        }
+        catch (NullPointerException | IllegalArgumentException e) {
+            return -1;
+        }
+    }
+
+    /** Returns the name the value of this reference is looked up by in a context, see Context.get(name, arguments, output) */
+    private static String nameOf(ReferenceNode node) {
+        if (node.reference().isIdentifier()) return node.reference().name();
+
+        String name = node.getName();
+        if (node.getArguments() != null && node.getArguments().expressions().size() > 0)
+            name = name + "(" + node.getArguments().expressions().stream().map(ExpressionNode::toString).collect(Collectors.joining(",")) + ")";
+        if (node.getOutput() != null)
+            name = name + "." + node.getOutput();
+        return name;
+    }
+
+    private Node compileNegative(NegativeNode node) {
+        Node value = compile(node.getValue());
+        if (value == null) return null;
+        return fold(context -> - value.evaluate(context), value);
+    }
+
+    private Node compileNot(NotNode node) {
+        Node value = compile(node.getValue());
+        if (value == null) return null;
+        return fold(context -> value.evaluate(context) != 0 ? 0 : 1, value);
+    }
+
+    /** Compiles an operation into a binary tree, applying the operators in precedence order as OperationNode does */
+    private Node compileOperation(OperationNode node) {
+        if (isForest(node)) {
+            FlatGBDTForest forest = FlatGBDTForest.from(node.children(), this::indexOf);
+            if (forest != null) {
+                for (int input : forest.inputs())
+                    inputs.add(input);
+                return forest;
+            }
+        }
+
+        Iterator<ExpressionNode> child = node.children().iterator();
+        Deque<OperatorItem> stack = new ArrayDeque<>();
+        Node first = compile(child.next());
+        if (first == null) return null;
+        stack.push(new OperatorItem(null, first));
+        for (Iterator<Operator> it = node.operators().iterator(); it.hasNext() && child.hasNext();) {
+            Operator op = it.next();
+            while (stack.size() > 1 && ! op.hasPrecedenceOver(stack.peek().op))
+                popStack(stack);
+            Node next = compile(child.next());
+            if (next == null) return null;
+            stack.push(new OperatorItem(op, next));
+        }
+        while (stack.size() > 1)
+            popStack(stack);
+        return stack.getFirst().node;
+    }
+
+    /** Returns whether this is a sum of trees */
+    private boolean isForest(OperationNode node) {
+        return node.operators().stream().allMatch(op -> op == Operator.plus) &&
+               node.children().stream().allMatch(FlatGBDTForest::isTree);
+    }
+
+    private void popStack(Deque<OperatorItem> stack) {
+        OperatorItem rhs = stack.pop();
+        OperatorItem lhs = stack.peek();
+        lhs.node = compileOperator(rhs.op, lhs.node, rhs.node);
+    }
+
+    private Node compileOperator(Operator op, Node x, Node y) {
+        Node node = switch (op) {
+            case or -> context -> x.evaluate(context) != 0 || y.evaluate(context) != 0 ? 1 : 0;
+            case and -> context -> x.evaluate(context) != 0 && y.evaluate(context) != 0 ? 1 : 0;
+            case largerOrEqual -> context -> x.evaluate(context) >= y.evaluate(context) ? 1 : 0;
+            case larger -> context -> x.evaluate(context) > y.evaluate(context) ? 1 : 0;
+            case smallerOrEqual -> context -> x.evaluate(context) <= y.evaluate(context) ? 1 : 0;
+            case smaller -> context -> x.evaluate(context) < y.evaluate(context) ? 1 : 0;
+            case approxEqual -> context -> DoubleCompatibleValue.approxEqual(x.evaluate(context), y.evaluate(context)) ? 1 : 0;
+            case notEqual -> context -> x.evaluate(context) != y.evaluate(context) ? 1 : 0;
+            case equal -> context -> x.evaluate(context) == y.evaluate(context) ? 1 : 0;
+            case plus -> y instanceof Constant c ? context -> x.evaluate(context) + c.value
+                                                 : context -> x.evaluate(context) + y.evaluate(context);
+            case minus -> y instanceof Constant c ? context -> x.evaluate(context) - c.value
+                                                  : context -> x.evaluate(context) - y.evaluate(context);
+            case multiply -> y instanceof Constant c ? context -> x.evaluate(context) * c.value
+                                                     : x instanceof Constant c ? context -> c.value * y.evaluate(context)
+                                                                               : context -> x.evaluate(context) * y.evaluate(context);
+            case divide -> context -> x.evaluate(context) / y.evaluate(context);
+            case modulo -> context -> x.evaluate(context) % y.evaluate(context);
+            case power -> context -> Function.pow.evaluate(x.evaluate(context), y.evaluate(context));
+        };
+        return fold(node, x, y);
+    }
+
+    private Node compileIf(IfNode node) {
+        Node condition = compile(node.getCondition());
+        if (condition == null) return null;
+        if (condition instanceof Constant c)
+            return compile(c.value != 0 ? node.getTrueExpression() : node.getFalseExpression());
+        Node trueValue = compile(node.getTrueExpression());
+        if (trueValue == null) return null;
+        Node falseValue = compile(node.getFalseExpression());
+        if (falseValue == null) return null;
+        return context -> condition.evaluate(context) != 0 ? trueValue.evaluate(context) : falseValue.evaluate(context);
+    }
+
+    private Node compileFunction(FunctionNode node) {
+        List<ExpressionNode> arguments = node.children();
+        Function function = node.getFunction();
+        if (arguments.isEmpty())
+            return new Constant(function.evaluate(0, 0));
+        Node x = compile(arguments.get(0));
+        if (x == null) return null;
+        if (arguments.size() == 1)
+            return fold(context -> function.evaluate(x.evaluate(context), 0), x);
+        Node y = compile(arguments.get(1));
+        if (y == null) return null;
+        return fold(context -> function.evaluate(x.evaluate(context), y.evaluate(context)), x, y);
+    }
+
+    private Node compileSetMembership(SetMembershipNode node) {
+        Node testValue = compile(node.getTestValue());
+        if (testValue == null) return null;
+        double[] setValues = new double[node.getSetValues().size()];
+        for (int i = 0; i < setValues.length; i++) {
+            if ( ! (compile(node.getSetValues().get(i)) instanceof Constant constant)) return null;
+            setValues[i] = constant.value;
+        }
+        return fold(context -> {
+            double value = testValue.evaluate(context);
+            for (double setValue : setValues)
+                if (value == setValue) return 1;
+            return 0;
+        }, testValue);
+    }
+
+    /** Returns the given node evaluated to a constant if all its arguments are constants, and the node otherwise */
+    private static Node fold(Node node, Node ... arguments) {
+        for (Node argument : arguments)
+            if ( ! (argument instanceof Constant)) return node;
+        return new Constant(node.evaluate(null));
+    }
+
+    private static final class Constant implements Node {
+
+        final double value;
+
+        Constant(double value) { this.value = value; }
+
+        @Override
+        public double evaluate(ContextIndex context) { return value; }
+
+    }
+
+    private static class OperatorItem {
+
+        final Operator op;
+        Node node;
+
+        OperatorItem(Operator op, Node node) {
+            this.op = op;
+            this.node = node;
+        }
+
+    }
+
+}
@@ -0,0 +1,289 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.searchlib.rankingexpression.evaluation;
+
+import com.yahoo.searchlib.rankingexpression.rule.ConstantNode;
+import com.yahoo.searchlib.rankingexpression.rule.EmbracedNode;
+import com.yahoo.searchlib.rankingexpression.rule.ExpressionNode;
+import com.yahoo.searchlib.rankingexpression.rule.Function;
+import com.yahoo.searchlib.rankingexpression.rule.FunctionNode;
+import com.yahoo.searchlib.rankingexpression.rule.IfNode;
+import com.yahoo.searchlib.rankingexpression.rule.NegativeNode;
+import com.yahoo.searchlib.rankingexpression.rule.NotNode;
+import com.yahoo.searchlib.rankingexpression.rule.OperationNode;
+import com.yahoo.searchlib.rankingexpression.rule.Operator;
+import com.yahoo.searchlib.rankingexpression.rule.ReferenceNode;
+import com.yahoo.searchlib.rankingexpression.rule.SetMembershipNode;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.ToIntFunction;
+
+/**
+ * A sum of decision trees stored as flat primitive arrays, one entry per tree node, with the nodes
+ * of each tree in depth-first order such that the true child of a condition node is always the next node.
+ * This accepts the tree forms produced by the GBDT, XGBoost and LightGBM importers:
+ * <code>a &lt; b</code>, <code>a == b</code>, <code>!(a &gt;= b)</code>, <code>a in [...]</code>
+ * and <code>isNan(a) || (a in [...])</code>, where a is a feature and b constants.
+ *
+ * This is immutable and multithread safe.
+ *
+ * @author agent
+ */
+final class FlatGBDTForest implements CompiledExpression.Node {
+
+    private static final byte leaf = 0;
+    private static final byte smaller = 1;
+    private static final byte smallerOrNaN = 2; // !(a >= b)
+    private static final byte equal = 3;
+    private static final byte in = 4;
+    private static final byte inOrNaN = 5; // isNan(a) || (a in [...])
+
+    /** The index of the root node of each tree */
+    private final int[] roots;
+
+    /** The kind of each node */
+    private final byte[] kinds;
+
+    /** The input (index into inputs) each condition node tests */
+    private final int[] features;
+
+    /** The value each condition node compares with, or the value of a leaf */
+    private final double[] values;
+
+    /** The index of the false child of each condition node. The true child is the next node. */
+    private final int[] falseChildren;
+
+    /** The start and end (exclusive) in setValues of the set of each set membership condition node */
+    private final int[] setStarts, setEnds;
+    private final double[] setValues;
+
+    /** The context index of each input */
+    private final int[] inputs;
+
+    private FlatGBDTForest(Builder builder) {
+        this.roots = builder.roots.stream().mapToInt(Integer::intValue).toArray();
+        this.kinds = new byte[builder.kinds.size()];
+        for (int i = 0; i < kinds.length; i++)
+            kinds[i] = builder.kinds.get(i);
+        this.features = builder.features.stream().mapToInt(Integer::intValue).toArray();
+        this.values = builder.values.stream().mapToDouble(Double::doubleValue).toArray();
+        this.falseChildren = builder.falseChildren.stream().mapToInt(Integer::intValue).toArray();
+        this.setStarts = builder.setStarts.stream().mapToInt(Integer::intValue).toArray();
+        this.setEnds = builder.setEnds.stream().mapToInt(Integer::intValue).toArray();
+        this.setValues = builder.setValues.stream().mapToDouble(Double::doubleValue).toArray();
+        this.inputs = builder.inputs.keySet().stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    /** Returns the context indexes of the values this reads */
+    int[] inputs() { return inputs; }
+
+    /** Returns the number of trees in this */
+    int size() { return roots.length; }
+
+    @Override
+    public double evaluate(ContextIndex context) {
+        double sum = 0;
+        for (int root : roots) {
+            int node = root;
+            while (kinds[node] != leaf)
+                node = test(node, context.getDouble(inputs[features[node]])) ? node + 1 : falseChildren[node];
+            sum += values[node];
+        }
+        return sum;
+    }
+
+    /**
+     * Evaluates this for multiple contexts at once, tree by tree, such that the nodes of each tree are
+     * visited for all the contexts while they are in cache.
+     */
+    double[] evaluate(List<? extends ContextIndex> contexts) {
+        double[][] rows = new double[contexts.size()][inputs.length];
+        for (int i = 0; i < rows.length; i++) {
+            ContextIndex context = contexts.get(i);
+            for (int j = 0; j < inputs.length; j++)
+                rows[i][j] = context.getDouble(inputs[j]);
+        }
+        double[] sums = new double[rows.length];
+        for (int root : roots) {
+            for (int i = 0; i < rows.length; i++) {
+                double[] row = rows[i];
+                int node = root;
+                while (kinds[node] != leaf)
+                    node = test(node, row[features[node]]) ? node + 1 : falseChildren[node];
+                sums[i] += values[node];
+            }
+        }
+        return sums;
+    }
+
+    private boolean test(int node, double value) {
+        return switch (kinds[node]) {
+            case smaller -> value < values[node];
+            case smallerOrNaN -> ! (value >= values[node]);
+            case equal -> value == values[node];
+            case in -> contains(node, value);
+            case inOrNaN -> Double.isNaN(value) || contains(node, value);
+            default -> throw new IllegalStateException("Unexpected node kind " + kinds[node]);
+        };
+    }
+
+    private boolean contains(int node, double value) {
+        for (int i = setStarts[node]; i < setEnds[node]; i++)
+            if (setValues[i] == value) return true;
+        return false;
+    }
+
+    /**
+     * Returns the given trees as a flat forest, or null if some tree has a node which is not supported.
+     *
+     * @param trees the trees to sum
+     * @param indexOf returns the context index of a reference, or -1 if it is not known
+     */
+    static FlatGBDTForest from(List<ExpressionNode> trees, ToIntFunction<ReferenceNode> indexOf) {
+        Builder builder = new Builder(indexOf);
+        for (ExpressionNode tree : trees) {
+            builder.roots.add(builder.kinds.size());
+            if ( ! builder.add(unwrap(tree))) return null;
+        }
+        return new FlatGBDTForest(builder);
+    }
+
+    /** Returns whether the given node is the root of a tree which may be added to a flat forest */
+    static boolean isTree(ExpressionNode node) {
+        return unwrap(node) instanceof IfNode;
+    }
+
+    private static ExpressionNode unwrap(ExpressionNode node) {
+        while (node instanceof EmbracedNode embraced)
+            node = embraced.getValue();
+        return node;
+    }
+
+    private static class Builder {
+
+        private final ToIntFunction<ReferenceNode> indexOf;
+
+        private final List<Integer> roots = new ArrayList<>();
+        private final List<Byte> kinds = new ArrayList<>();
+        private final List<Integer> features = new ArrayList<>();
+        private final List<Double> values = new ArrayList<>();
+        private final List<Integer> falseChildren = new ArrayList<>();
+        private final List<Integer> setStarts = new ArrayList<>();
+        private final List<Integer> setEnds = new ArrayList<>();
+        private final List<Double> setValues = new ArrayList<>();
+
+        /** The inputs of this, from context index to index in inputs */
+        private final Map<Integer, Integer> inputs = new LinkedHashMap<>();
+
+        Builder(ToIntFunction<ReferenceNode> indexOf) {
+            this.indexOf = indexOf;
+        }
+
+        /** Adds the given subtree, and returns whether it could be added */
+        boolean add(ExpressionNode node) {
+            node = unwrap(node);
+            if (node instanceof IfNode ifNode) {
+                int index = kinds.size();
+                if ( ! addCondition(unwrap(ifNode.getCondition()))) return false;
+                if ( ! add(ifNode.getTrueExpression())) return false;
+                falseChildren.set(index, kinds.size());
+                return add(ifNode.getFalseExpression());
+            }
+            else {
+                Double value = constantValue(node, false);
+                if (value == null) return false;
+                addNode(leaf, 0, value);
+                return true;
+            }
+        }
+
+        private boolean addCondition(ExpressionNode condition) {
+            if (condition instanceof OperationNode operation && operation.operators().size() == 1) {
+                Operator operator = operation.operators().get(0);
+                if (operator == Operator.smaller)
+                    return addComparison(smaller, operation.children().get(0), operation.children().get(1));
+                if (operator == Operator.equal)
+                    return addComparison(equal, operation.children().get(0), operation.children().get(1));
+                if (operator == Operator.or) // isNan(a) || (a in [...])
+                    return addNaNOrSetMembership(operation.children().get(0), unwrap(operation.children().get(1)));
+                return false;
+            }
+            if (condition instanceof NotNode not
+                && unwrap(not.getValue()) instanceof OperationNode operation
+                && operation.operators().size() == 1
+                && operation.operators().get(0) == Operator.largerOrEqual)
+                return addComparison(smallerOrNaN, operation.children().get(0), operation.children().get(1));
+            if (condition instanceof SetMembershipNode setMembership)
+                return addSetMembership(in, setMembership);
+            return false;
+        }
+
+        private boolean addComparison(byte kind, ExpressionNode feature, ExpressionNode value) {
+            int input = inputOf(feature);
+            Double constant = constantValue(value, true);
+            if (input < 0 || constant == null) return false;
+            addNode(kind, input, constant);
+            return true;
+        }
+
+        private boolean addNaNOrSetMembership(ExpressionNode isNan, ExpressionNode setMembership) {
+            if ( ! (isNan instanceof FunctionNode function) || function.getFunction() != Function.isNan) return false;
+            if ( ! (setMembership instanceof SetMembershipNode membership)) return false;
+            if ( ! function.children().get(0).equals(membership.getTestValue())) return false;
+            return addSetMembership(inOrNaN, membership);
+        }
+
+        private boolean addSetMembership(byte kind, SetMembershipNode setMembership) {
+            int input = inputOf(setMembership.getTestValue());
+            if (input < 0) return false;
+            int start = setValues.size();
+            for (ExpressionNode setValue : setMembership.getSetValues()) {
+                Double constant = constantValue(setValue, true);
+                if (constant == null) return false;
+                setValues.add(constant);
+            }
+            addNode(kind, input, 0);
+            setStarts.set(kinds.size() - 1, start);
+            setEnds.set(kinds.size() - 1, setValues.size());
+            return true;
+        }
+
+        private void addNode(byte kind, int input, double value) {
+            kinds.add(kind);
+            features.add(input);
+            values.add(value);
+            falseChildren.add(-1);
+            setStarts.add(0);
+            setEnds.add(0);
+        }
+
+        /** Returns the index in inputs of the given feature, or -1 if it is not a feature known to the context */
+        private int inputOf(ExpressionNode feature) {
+            if ( ! (unwrap(feature) instanceof ReferenceNode reference)) return -1;
+            int contextIndex = indexOf.applyAsInt(reference);
+            if (contextIndex < 0) return -1;
+            return inputs.computeIfAbsent(contextIndex, k -> inputs.size());
+        }
+
+        /**
+         * Returns the double value of the given node if it is a constant, or null.
+         * Strings compare with doubles by their hash in trees, and are accepted if allowStrings is true.
+         */
+        private static Double constantValue(ExpressionNode node, boolean allowStrings) {
+            node = unwrap(node);
+            boolean negative = false;
+            if (node instanceof NegativeNode negation) {
+                negative = true;
+                node = unwrap(negation.getValue());
+            }
+            if ( ! (node instanceof ConstantNode constant)) return null;
+            Value value = constant.getValue();
+            if ( ! (value instanceof DoubleCompatibleValue || (allowStrings && value instanceof StringValue))) return null;
+            return negative ? - value.asDouble() : value.asDouble();
+        }
+
+    }
+
+}
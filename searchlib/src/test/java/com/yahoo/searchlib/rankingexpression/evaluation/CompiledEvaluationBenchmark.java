@@ -0,0 +1,120 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.searchlib.rankingexpression.evaluation;
+
+import com.yahoo.io.IOUtils;
+import com.yahoo.searchlib.rankingexpression.RankingExpression;
+import com.yahoo.searchlib.rankingexpression.parser.ParseException;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Benchmarks evaluation of compiled expressions against evaluation of the expression trees
+ * (unoptimized and GBDT optimized), over a GBDT, a linear and a small MLP expression.
+ *
+ * @author agent
+ */
+public class CompiledEvaluationBenchmark {
+
+    private static final int features = 16;
+
+    public void run(int iterations) throws ParseException {
+        runBenchmark("GBDT", readFile("src/test/files/gbdt.expression"), iterations);
+        runBenchmark("Linear", linearExpression(), iterations);
+        runBenchmark("MLP", mlpExpression(8), iterations);
+    }
+
+    private void runBenchmark(String name, String expressionString, int iterations) throws ParseException {
+        System.out.println("-----------------------------------------------------------------------------------------------------");
+        System.out.println(name + ":");
+
+        RankingExpression expression = new RankingExpression(expressionString);
+        ArrayContext context = new ArrayContext(expression, true);
+        List<String> inputs = new ArrayList<>(context.names());
+        double treeTotal = benchmark("Tree", iterations, inputs, context, () -> expression.evaluate(context).asDouble());
+
+        RankingExpression optimized = new RankingExpression(expressionString);
+        DoubleOnlyArrayContext optimizedContext = new DoubleOnlyArrayContext(optimized, true);
+        new ExpressionOptimizer().optimize(optimized, optimizedContext);
+        double optimizedTotal = benchmark("Optimized tree", iterations, inputs, optimizedContext,
+                                          () -> optimized.evaluate(optimizedContext).asDouble());
+        assertEqualish(treeTotal, optimizedTotal);
+
+        DoubleOnlyArrayContext compiledContext = new DoubleOnlyArrayContext(expression, true);
+        CompiledExpression compiled = ExpressionCompiler.compile(expression, compiledContext).get();
+        double compiledTotal = benchmark("Compiled", iterations, inputs, compiledContext,
+                                         () -> compiled.evaluate(compiledContext));
+        assertEqualish(treeTotal, compiledTotal);
+    }
+
+    private double benchmark(String description, int iterations, List<String> inputs, Context context, Evaluation evaluation) {
+        Random random = new Random(1);
+        double total = 0;
+        for (int i = 0; i < iterations / 5; i++) // warmup
+            evaluate(inputs, context, evaluation, random);
+
+        random = new Random(1);
+        long startTime = System.nanoTime();
+        for (int i = 0; i < iterations; i++)
+            total += evaluate(inputs, context, evaluation, random);
+        long totalTime = System.nanoTime() - startTime;
+        System.out.println("   " + description + ": " + totalTime / 1_000_000 + " ms (" +
+                           totalTime / iterations + " nanoseconds/expression)");
+        return total;
+    }
+
+    private double evaluate(List<String> inputs, Context context, Evaluation evaluation, Random random) {
+        for (String input : inputs)
+            context.put(input, random.nextDouble() * 10);
+        return evaluation.evaluate();
+    }
+
+    /** Returns a weighted sum of the features */
+    private static String linearExpression() {
+        Random random = new Random(1);
+        List<String> terms = new ArrayList<>();
+        for (int i = 0; i < features; i++)
+            terms.add(random.nextDouble() + " * f" + i);
+        return String.join(" + ", terms) + " + 0.5";
+    }
+
+    /** Returns a single hidden layer MLP over the features, with relu activations and sigmoid output */
+    private static String mlpExpression(int hiddenUnits) {
+        Random random = new Random(1);
+        List<String> hidden = new ArrayList<>();
+        for (int h = 0; h < hiddenUnits; h++) {
+            String sum = IntStream.range(0, features)
+                                  .mapToObj(i -> (random.nextDouble() - 0.5) + " * f" + i)
+                                  .collect(Collectors.joining(" + "));
+            hidden.add((random.nextDouble() - 0.5) + " * relu(" + sum + ")");
+        }
+        return "sigmoid(" + String.join(" + ", hidden) + ")";
+    }
+
+    private static String readFile(String file) {
+        try {
+            return IOUtils.readFile(new File(file));
+        } catch (IOException e) {
+            throw new AssertionError(e);
+        }
+    }
+
+    private static void assertEqualish(double a, double b) {
+        if (Math.abs(a - b) >= Math.abs((a + b) / 100000000))
+            throw new RuntimeException("Expected value " + a + " but optimized evaluation produced " + b);
+    }
+
+    private interface Evaluation {
+        double evaluate();
+    }
+
+    public static void main(String[] args) throws ParseException {
+        new CompiledEvaluationBenchmark().run(args.length > 0 ? Integer.parseInt(args[0]) : 1000 * 1000);
+    }
+
+}
@@ -0,0 +1,154 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.searchlib.rankingexpression.evaluation;
+
+import com.yahoo.io.IOUtils;
+import com.yahoo.searchlib.rankingexpression.RankingExpression;
+import com.yahoo.searchlib.rankingexpression.parser.ParseException;
+import com.yahoo.searchlib.rankingexpression.rule.OperationNode;
+import com.yahoo.tensor.Tensor;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author agent
+ */
+public class ExpressionCompilerTestCase {
+
+    private static final double[][] bindings = { { 0, 0, 0 }, { 1, 2, 3 }, { -1.5, 0.5, 100 }, { 3, 3, -7 }, { -0.5, 1, 2 } };
+
+    @Test
+    public void testScalarExpressions() throws ParseException {
+        assertCompiles("x + y * z");
+        assertCompiles("x - y - z");
+        assertCompiles("x / y / z");
+        assertCompiles("x ^ y ^ 2");
+        assertCompiles("x * 2 + 3 * y - z % 2");
+        assertCompiles("-(x + y) * -z");
+        assertCompiles("x > y && y >= z || x == 1");
+        assertCompiles("!(x < y) + (x <= z) + (y != z) + (x ~= y)");
+        assertCompiles("if (x < y, if (y in [2, 3, 0.5], z, -z), x * y)");
+        assertCompiles("max(x, y) + min(y, z) + sigmoid(x) + tanh(y) + exp(z / 100) + relu(x) + pow(y, 2) + atan2(x, z)");
+        assertCompiles("if (isNan(x), 1, 0) + bit(z, 1) + fmod(z, 2)");
+    }
+
+    @Test
+    public void testConstantsAreFolded() throws ParseException {
+        CompiledExpression compiled = assertCompiles("x + (2 * 3 - sqrt(4)) + if (1 > 2, y, z)");
+        assertEquals(2, compiled.inputs().length);
+        assertEquals(7.0, ExpressionCompiler.compile(new RankingExpression("2 * 3 + if (1 < 2, 1, 0)"), new ArrayContext(new RankingExpression("x")))
+                                            .get().evaluate(null), 0);
+    }
+
+    @Test
+    public void testGbdtExpressions() throws ParseException {
+        assertCompiles(readFile("src/test/files/gbdt.expression"), "F55", "F42", "F109");
+        // Array contexts do not support features with arguments
+        assertCompiles(readFile("src/test/files/ranking07.expression").replace("attribute(catid)", "catid"), "catid");
+    }
+
+    @Test
+    public void testForests() throws ParseException {
+        assertForest("if (x < 0.5, 1.5, if (y == 3, 2, -1)) + if (!(z >= 2), 0.25, 0.5)", 2);
+        assertForest("if (x in [1, 3, -1.5], 1, 2) + if (isNan(y) || (y in [2, 0.5]), 3, 4) + if (z < -1, 5, 6)", 3);
+        assertForest(readFile("src/test/files/gbdt.expression"), 10, "F55", "F42", "F109");
+        assertForest(readFile("src/test/files/ranking07.expression").replace("attribute(catid)", "catid"), 200, "catid");
+    }
+
+    @Test
+    public void testNonForestSumsAreCompiledAsOperations() throws ParseException {
+        assertNotForest("if (x < 0.5, 1, 2) + x");
+        assertNotForest("if (x < y, 1, 2) + if (z < 1, 3, 4)");
+        assertNotForest("if (x < 0.5, y, 2) + if (z < 1, 3, 4)");
+        assertNotForest("if (x > 0.5, 1, 2) + if (z < 1, 3, 4)");
+    }
+
+    @Test
+    public void testTensorExpressionsAreNotCompiled() throws ParseException {
+        RankingExpression expression = new RankingExpression("reduce(t * x, sum)");
+        assertFalse(ExpressionCompiler.compile(expression, new ArrayContext(expression)).isPresent());
+    }
+
+    @Test
+    public void testTensorInputsCannotBeEvaluated() throws ParseException {
+        RankingExpression expression = new RankingExpression("x + y");
+        ArrayContext context = new ArrayContext(expression);
+        CompiledExpression compiled = ExpressionCompiler.compile(expression, context).get();
+        context.put("x", 1.0);
+        context.put("y", 2.0);
+        assertTrue(compiled.canEvaluate(context));
+        context.put("y", new TensorValue(Tensor.from("tensor(d{}):{a:1.0}")));
+        assertFalse(compiled.canEvaluate(context));
+    }
+
+    private CompiledExpression assertCompiles(String expressionString) throws ParseException {
+        return assertCompiles(expressionString, "x", "y", "z");
+    }
+
+    /** Asserts that the given expression compiles and evaluates to the same values as without compilation */
+    private CompiledExpression assertCompiles(String expressionString, String ... variables) throws ParseException {
+        RankingExpression expression = new RankingExpression(expressionString);
+        ArrayContext context = new ArrayContext(expression, true);
+        Optional<CompiledExpression> compiled = ExpressionCompiler.compile(expression, context);
+        assertTrue("Compiles " + expressionString, compiled.isPresent());
+        List<ArrayContext> contexts = new ArrayList<>();
+        List<Double> expected = new ArrayList<>();
+        for (double[] values : bindings) {
+            for (int i = 0; i < variables.length; i++)
+                context.put(variables[i], values[i]);
+            assertTrue(compiled.get().canEvaluate(context));
+            assertEquals(expressionString, expression.evaluate(context).asDouble(), compiled.get().evaluate(context), 0);
+            ArrayContext copy = context.clone();
+            for (int i = 0; i < variables.length; i++)
+                copy.put(variables[i], values[i]);
+            contexts.add(copy);
+            expected.add(expression.evaluate(context).asDouble());
+        }
+        double[] results = compiled.get().evaluateAll(contexts);
+        for (int i = 0; i < results.length; i++)
+            assertEquals("Batch evaluation of " + expressionString, expected.get(i), results[i], 0);
+        return compiled.get();
+    }
+
+    /** Asserts that the given expression is a sum of trees which can be flattened, and evaluates as unflattened */
+    private void assertForest(String expressionString, int trees, String ... variables) throws ParseException {
+        RankingExpression expression = new RankingExpression(expressionString);
+        ArrayContext context = new ArrayContext(expression, true);
+        OperationNode root = (OperationNode)expression.getRoot();
+        FlatGBDTForest forest = FlatGBDTForest.from(root.children(), reference -> context.getIndex(reference.getName()));
+        assertNotNull("Flattens " + expressionString, forest);
+        assertEquals(trees, forest.size());
+        if (variables.length == 0)
+            assertCompiles(expressionString);
+        else
+            assertCompiles(expressionString, variables);
+    }
+
+    /** Asserts that the given expression compiles and evaluates correctly, but is not flattened to a forest */
+    private void assertNotForest(String expressionString) throws ParseException {
+        RankingExpression expression = new RankingExpression(expressionString);
+        ArrayContext context = new ArrayContext(expression, true);
+        OperationNode root = (OperationNode)expression.getRoot();
+        assertNull(FlatGBDTForest.from(root.children(), reference -> context.getIndex(reference.getName())));
+        assertCompiles(expressionString);
+    }
+
+    private static String readFile(String file) {
+        try {
+            return IOUtils.readFile(new File(file));
+        } catch (IOException e) {
+            throw new AssertionError(e);
+        }
+    }
+
+}
@@ -22,6 +22,7 @@ import java.util.Set;
 import java.util.StringTokenizer;
 import java.util.TreeMap;
 import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicReference;
 
 public final class Distribution {
@@ -30,6 +31,8 @@ public final class Distribution {
 
     private ConfigSubscriber configSub;
     private final AtomicReference<Config> config = new AtomicReference<>(new Config(null, 1));
+    /** The ideal distributor table of the last cluster state looked up with each set of up states */
+    private final Map<String, IdealDistributorTable> idealDistributorTables = new ConcurrentHashMap<>();
 
     public Group getRootGroup() {
         return config.getAcquire().nodeGraph;
@@ -460,6 +463,80 @@ public final class Distribution {
         return node.index;
     }
 
+    /**
+     * Returns the ideal distributor node of the given bucket, as {@link #getIdealDistributorNode}, but using a
+     * lookup table for each cluster state and up states which is filled in lazily.
+     * This is much cheaper when called repeatedly for the same state, but the given state must not be modified
+     * after it is passed to this.
+     */
+    public int getCachedIdealDistributorNode(ClusterState state, BucketId bucket, String upStates)
+            throws TooFewBucketBitsInUseException, NoDistributorsAvailableException {
+        if (state.getDistributionBitCount() > IdealDistributorTable.maxDistributionBits)
+            return getIdealDistributorNode(state, bucket, upStates);
+        return idealDistributorTable(state, upStates).get(bucket);
+    }
+
+    private IdealDistributorTable idealDistributorTable(ClusterState state, String upStates) {
+        Config cfg = config.getAcquire();
+        IdealDistributorTable table = idealDistributorTables.get(upStates);
+        if (table == null || ! table.isFor(state, upStates, cfg)) {
+            table = new IdealDistributorTable(state, upStates, cfg);
+            idealDistributorTables.put(upStates, table);
+        }
+        return table;
+    }
+
+    /**
+     * The ideal distributor of each bucket at the distribution bit count of a cluster state.
+     * The ideal distributor only depends on the distribution bits of a bucket, so this is bounded
+     * by the number of distribution bits. Entries are computed on first lookup, and racing writes
+     * are benign since they always write the same value.
+     */
+    private final class IdealDistributorTable {
+
+        /** The max distribution bits to use a table for, bounding it to 256 kB */
+        static final int maxDistributionBits = 16;
+
+        private final ClusterState state;
+        private final int version;
+        private final int distributionBits;
+        private final String upStates;
+        private final Config config;
+
+        /** The ideal distributor of each bucket plus one, or 0 if not computed */
+        private final int[] distributors;
+
+        IdealDistributorTable(ClusterState state, String upStates, Config config) {
+            this.state = state;
+            this.version = state.getVersion();
+            this.distributionBits = state.getDistributionBitCount();
+            this.upStates = upStates;
+            this.config = config;
+            this.distributors = new int[1 << distributionBits];
+        }
+
+        boolean isFor(ClusterState state, String upStates, Config config) {
+            return this.state == state &&
+                   this.version == state.getVersion() &&
+                   this.distributionBits == state.getDistributionBitCount() &&
+                   this.upStates.equals(upStates) &&
+                   this.config == config;
+        }
+
+        int get(BucketId bucket) throws TooFewBucketBitsInUseException, NoDistributorsAvailableException {
+            if (bucket.getUsedBits() < distributionBits)
+                return getIdealDistributorNode(state, bucket, upStates); // throws
+            int index = (int) lastNBits(bucket.getRawId(), distributionBits);
+            int distributor = distributors[index];
+            if (distributor == 0) { // Failures are not cached, as they are rare and carry a message
+                distributor = getIdealDistributorNode(state, bucket, upStates) + 1;
+                distributors[index] = distributor;
+            }
+            return distributor - 1;
+        }
+
+    }
+
     private boolean visitGroups(GroupVisitor visitor, Map<Integer, Group> groups) {
         for (Group g : groups.values()) {
             if (!visitor.visitGroup(g)) return false;
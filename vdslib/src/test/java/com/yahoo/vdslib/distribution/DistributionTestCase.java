@@ -393,4 +393,39 @@ public class DistributionTestCase {
         distr.getIdealDistributorNode(clusterState, new BucketId(16, 0), "uim");
     }
 
+    @Test
+    public void testCachedIdealDistributorsEqualsUncached() throws Exception {
+        Distribution distribution = new Distribution(new StorDistributionConfig(buildHierarchicalConfig(4, 3, 2, "2|*", 3)));
+        Random random = new Random(1234);
+        for (int i = 0; i < 20; i++) {
+            StringBuilder distributors = new StringBuilder();
+            for (int node = 0; node < 27; node++) {
+                int r = random.nextInt(10);
+                if (r == 0) distributors.append(" .").append(node).append(".s:d");
+                else if (r == 1) distributors.append(" .").append(node).append(".s:m");
+                else if (r == 2) distributors.append(" .").append(node).append(".c:").append(1 + random.nextInt(3));
+            }
+            int bits = 1 + random.nextInt(16);
+            ClusterState state = new ClusterState("version:" + i + " bits:" + bits + " distributor:27" + distributors + " storage:27");
+
+            List<BucketId> buckets = new ArrayList<>();
+            for (int j = 0; j < 500; j++)
+                buckets.add(new BucketId(bits + random.nextInt(58 - bits + 1), random.nextLong()));
+            for (int j = 0; j < buckets.size(); j++) { // alternate between up states to check they are cached separately
+                assertEquals(state + ", " + buckets.get(j),
+                             distribution.getIdealDistributorNode(state, buckets.get(j), "uim"),
+                             distribution.getCachedIdealDistributorNode(state, buckets.get(j), "uim"));
+                assertEquals(state + ", " + buckets.get(j),
+                             distribution.getIdealDistributorNode(state, buckets.get(j), "ui"),
+                             distribution.getCachedIdealDistributorNode(state, buckets.get(j), "ui"));
+            }
+        }
+    }
+
+    @Test(expected = Distribution.TooFewBucketBitsInUseException.class)
+    public void testCachedIdealDistributorWithTooFewBucketBits() throws Exception {
+        Distribution distribution = new Distribution(new StorDistributionConfig(buildHierarchicalConfig(2, 3, 1, "*", 3)));
+        distribution.getCachedIdealDistributorNode(new ClusterState("bits:16 distributor:9"), new BucketId(15, 0), "uim");
+    }
+
 }
@@ -137,12 +137,18 @@ public final class DocumentV1ApiHandler extends AbstractRequestHandler {
 
     private static final Duration defaultTimeout = Duration.ofSeconds(180); // Match document API default timeout.
     private static final Duration handlerTimeout = Duration.ofMillis(100); // Extra time to allow for handler, JDisc and jetty to complete.
+    private static final Duration checkpointInterval = Duration.ofSeconds(10); // Min time between continuations in JSONL visit responses.
 
     private static final Logger log = Logger.getLogger(DocumentV1ApiHandler.class.getName());
     private static final Parser<Integer> integerParser = Integer::parseInt;
     private static final Parser<Long> unsignedLongParser = Long::parseUnsignedLong;
     private static final Parser<Long> timeoutMillisParser = value -> ParameterParser.asMilliSeconds(value, defaultTimeout.toMillis());
     private static final Parser<Boolean> booleanParser = Boolean::parseBoolean;
+    private static final Parser<Boolean> jsonLinesParser = value -> switch (value) {
+        case "json" -> false;
+        case "jsonl" -> true;
+        default -> throw new IllegalArgumentException("format must be 'json' or 'jsonl'");
+    };
 
     private static final CompletionHandler logException = new CompletionHandler() {
         @Override public void completed() { }
@@ -175,6 +181,7 @@ public final class DocumentV1ApiHandler extends AbstractRequestHandler {
     private static final String TIMEOUT = "timeout";
     private static final String TRACELEVEL = "tracelevel";
     private static final String STREAM = "stream";
+    private static final String FORMAT = "format";
     private static final String SLICES = "slices";
     private static final String SLICE_ID = "sliceId";
     private static final String DRY_RUN = "dryRun";
@@ -378,10 +385,11 @@ public final class DocumentV1ApiHandler extends AbstractRequestHandler {
     private ContentChannel getDocuments(HttpRequest request, DocumentPath path, ResponseHandler handler) {
         disallow(request, DRY_RUN);
         enqueueAndDispatch(request, handler, () -> {
-            boolean streamed = getProperty(request, STREAM, booleanParser).orElse(false);
+            boolean jsonLines = getProperty(request, FORMAT, jsonLinesParser).orElse(false);
+            boolean streamed = jsonLines || getProperty(request, STREAM, booleanParser).orElse(false);
             VisitorParameters parameters = parseGetParameters(request, path, streamed);
             return () -> {
-                visitAndWrite(request, parameters, handler, streamed);
+                visitAndWrite(request, parameters, handler, streamed, jsonLines);
                 return true; // VisitorSession has its own throttle handling.
             };
         });
@@ -649,15 +657,23 @@ public final class DocumentV1ApiHandler extends AbstractRequestHandler {
         private final AtomicLong documentsWritten = new AtomicLong();
         private final AtomicLong documentsFlushed = new AtomicLong();
         private final AtomicLong documentsAcked = new AtomicLong();
+        private final boolean jsonLines;
         private boolean documentsDone = false;
         private boolean first = true;
+        private boolean summaryStarted = false;
         private ContentChannel channel;
 
         private JsonResponse(ResponseHandler handler, HttpRequest request) throws IOException {
+            this(handler, request, false);
+        }
+
+        private JsonResponse(ResponseHandler handler, HttpRequest request, boolean jsonLines) throws IOException {
             this.handler = handler;
             this.request = request;
+            this.jsonLines = jsonLines;
             json = jsonFactory.createGenerator(out);
-            json.writeStartObject();
+            if ( ! jsonLines)
+                json.writeStartObject();
         }
 
         /** Creates a new JsonResponse with path and id fields written. */
@@ -675,6 +691,14 @@ public final class DocumentV1ApiHandler extends AbstractRequestHandler {
             return response;
         }
 
+        /**
+         * Creates a new JsonResponse which writes each document, and each checkpoint, as a JSON line,
+         * followed by a last line with the path and any other fields written to this.
+         */
+        static JsonResponse createJsonLines(HttpRequest request, ResponseHandler handler) throws IOException {
+            return new JsonResponse(handler, request, true);
+        }
+
         /** Creates a new JsonResponse with path and message fields written. */
         static JsonResponse create(HttpRequest request, String message, ResponseHandler handler) throws IOException {
             JsonResponse response = create(request, handler);
@@ -689,7 +713,8 @@ public final class DocumentV1ApiHandler extends AbstractRequestHandler {
         /** Commits a response with the given status code and some default headers, and writes whatever content is buffered. */
         synchronized void commit(int status, boolean fullyApplied) throws IOException {
             Response response = new Response(status);
-            response.headers().add("Content-Type", List.of("application/json; charset=UTF-8"));
+            response.headers().add("Content-Type", List.of(jsonLines ? "application/jsonl; charset=UTF-8"
+                                                                     : "application/json; charset=UTF-8"));
             if (! fullyApplied)
                 response.headers().add(Headers.IGNORED_FIELDS, "true");
             try {
@@ -717,7 +742,10 @@ public final class DocumentV1ApiHandler extends AbstractRequestHandler {
                     log.log(WARNING, "Close called before response was committed, in " + getClass().getName());
                     commit(Response.Status.INTERNAL_SERVER_ERROR);
                 }
+                writeSummaryStart();
                 json.close(); // Also closes object and array scopes.
+                if (jsonLines)
+                    out.write('\n');
                 out.close();  // Simply flushes the output stream.
             }
             finally {
@@ -781,7 +809,16 @@ public final class DocumentV1ApiHandler extends AbstractRequestHandler {
         }
 
         synchronized void writeDocumentsArrayStart() throws IOException {
-            json.writeArrayFieldStart("documents");
+            if ( ! jsonLines)
+                json.writeArrayFieldStart("documents");
+        }
+
+        /** Starts the last line of a JSON lines response, which holds the fields written after the documents. */
+        private void writeSummaryStart() throws IOException {
+            if ( ! jsonLines || summaryStarted) return;
+            summaryStarted = true;
+            json.writeStartObject();
+            writePathId(request.getUri().getRawPath());
         }
 
         private interface DocumentWriter {
@@ -792,7 +829,15 @@ public final class DocumentV1ApiHandler extends AbstractRequestHandler {
         void writeDocumentValue(Document document, CompletionHandler completionHandler) throws IOException {
             writeDocument(myOut -> {
                 try (JsonGenerator myJson = jsonFactory.createGenerator(myOut)) {
-                    new JsonWriter(myJson, tensorShortForm(), tensorDirectValues()).write(document);
+                    if (jsonLines) { // As a put operation, so the output can be fed as is
+                        myJson.writeStartObject();
+                        myJson.writeStringField("put", document.getId().toString());
+                        new JsonWriter(myJson, tensorShortForm(), tensorDirectValues()).writeFields(document);
+                        myJson.writeEndObject();
+                    }
+                    else {
+                        new JsonWriter(myJson, tensorShortForm(), tensorDirectValues()).write(document);
+                    }
                 }
             }, completionHandler);
         }
@@ -807,20 +852,41 @@ public final class DocumentV1ApiHandler extends AbstractRequestHandler {
             }, completionHandler);
         }
 
+        /**
+         * Writes a line with a continuation token which resumes visiting after the documents written before it.
+         * Only used with JSON lines.
+         */
+        void writeCheckpoint(ProgressToken progress) throws IOException {
+            String continuation = progress.serializeToString();
+            double percentFinished = progress.percentFinished();
+            writeDocument(myOut -> {
+                try (JsonGenerator myJson = jsonFactory.createGenerator(myOut)) {
+                    myJson.writeStartObject();
+                    myJson.writeStringField("continuation", continuation);
+                    myJson.writeNumberField("percentFinished", percentFinished);
+                    myJson.writeEndObject();
+                }
+            }, null);
+        }
+
         /** Writes documents to an internal queue, which is flushed regularly. */
         void writeDocument(DocumentWriter documentWriter, CompletionHandler completionHandler) throws IOException {
-            if (completionHandler != null) {
-                acks.add(completionHandler);
-                ackDocuments();
-            }
-
-            // Serialise document and add to queue, not necessarily in the order dictated by "written" above,
+            // Serialise document and add to queue, not necessarily in the order dictated by "written" below,
             // i.e., the first 128 documents in the queue are not necessarily the ones ack'ed early.
             ByteArrayOutputStream myOut = new ByteArrayOutputStream(1);
-            myOut.write(','); // Prepend rather than append, to avoid double memory copying.
+            if ( ! jsonLines)
+                myOut.write(','); // Prepend rather than append, to avoid double memory copying.
             documentWriter.write(myOut);
+            if (jsonLines)
+                myOut.write('\n');
             docs.add(myOut);
 
+            // Ack only after queueing the document, so checkpoints of progress including it are queued after it.
+            if (completionHandler != null) {
+                acks.add(completionHandler);
+                ackDocuments();
+            }
+
             // Flush the first FLUSH_SIZE documents in the queue to the network layer if chunk is filled.
             if (documentsWritten.incrementAndGet() % FLUSH_SIZE == 0) {
                 flushDocuments();
@@ -845,7 +911,10 @@ public final class DocumentV1ApiHandler extends AbstractRequestHandler {
                     break;
 
                 if ( ! documentsDone) {
-                    if (first) { // First chunk, remove leading comma from first document, and flush "json" to "buffer".
+                    if (jsonLines) {
+                        buffer.write(ByteBuffer.wrap(doc.toByteArray()), null);
+                    }
+                    else if (first) { // First chunk, remove leading comma from first document, and flush "json" to "buffer".
                         json.flush();
                         buffer.write(ByteBuffer.wrap(doc.toByteArray(), 1, doc.size() - 1), null);
                         first = false;
@@ -871,9 +940,14 @@ public final class DocumentV1ApiHandler extends AbstractRequestHandler {
         }
 
         synchronized void writeArrayEnd() throws IOException {
-            flushDocuments();
+            do {
+                flushDocuments();
+            } while ( ! docs.isEmpty());
             documentsDone = true;
-            json.writeEndArray();
+            if (jsonLines)
+                writeSummaryStart();
+            else
+                json.writeEndArray();
         }
 
         synchronized void writeContinuation(String token) throws IOException {
@@ -1284,6 +1358,9 @@ public final class DocumentV1ApiHandler extends AbstractRequestHandler {
         /** Called at the start of response rendering. */
         default void onStart(JsonResponse response, boolean fullyApplied) throws IOException { }
 
+        /** Called when visiting progresses, with the progress of the visit. */
+        default void onProgress(JsonResponse response, ProgressToken progress) throws IOException { }
+
         /** Called for every document or removal received from backend visitors—must call the ack for these to proceed. */
         default void onDocument(JsonResponse response, Document document, DocumentId removeId, long persistedTimestamp, Runnable ack, Consumer<String> onError) { }
 
@@ -1331,7 +1408,7 @@ public final class DocumentV1ApiHandler extends AbstractRequestHandler {
     private void visitAndProcess(HttpRequest request, VisitorParameters parameters, boolean fullyApplied,
                                  ResponseHandler handler,
                                  String route, VisitProcessingCallback operation) {
-        visit(request, parameters, false, fullyApplied, handler, new VisitCallback() {
+        visit(request, parameters, false, false, fullyApplied, handler, new VisitCallback() {
             @Override public void onDocument(JsonResponse response, Document document, DocumentId removeId,
                                              long persistedTimestamp, Runnable ack, Consumer<String> onError) {
                 DocumentOperationParameters operationParameters = parameters().withRoute(route)
@@ -1369,14 +1446,23 @@ public final class DocumentV1ApiHandler extends AbstractRequestHandler {
         });
     }
 
-    private void visitAndWrite(HttpRequest request, VisitorParameters parameters, ResponseHandler handler, boolean streamed) {
-        visit(request, parameters, streamed, true, handler, new VisitCallback() {
+    private void visitAndWrite(HttpRequest request, VisitorParameters parameters, ResponseHandler handler,
+                               boolean streamed, boolean jsonLines) {
+        visit(request, parameters, streamed, jsonLines, true, handler, new VisitCallback() {
+            final AtomicLong lastCheckpointMillis = new AtomicLong(clock.millis());
             @Override public void onStart(JsonResponse response, boolean fullyApplied) throws IOException {
                 if (streamed)
                     response.commit(Response.Status.OK, fullyApplied);
 
                 response.writeDocumentsArrayStart();
             }
+            @Override public void onProgress(JsonResponse response, ProgressToken progress) throws IOException {
+                if ( ! jsonLines) return;
+                long now = clock.millis();
+                long last = lastCheckpointMillis.get();
+                if (now - last >= checkpointInterval.toMillis() && lastCheckpointMillis.compareAndSet(last, now))
+                    response.writeCheckpoint(progress);
+            }
             @Override public void onDocument(JsonResponse response, Document document, DocumentId removeId,
                                              long persistedTimestamp, Runnable ack, Consumer<String> onError) {
                 try {
@@ -1408,13 +1494,15 @@ public final class DocumentV1ApiHandler extends AbstractRequestHandler {
     }
 
     private void visitWithRemote(HttpRequest request, VisitorParameters parameters, ResponseHandler handler) {
-        visit(request, parameters, false, true, handler, new VisitCallback() { });
+        visit(request, parameters, false, false, true, handler, new VisitCallback() { });
     }
 
     @SuppressWarnings("fallthrough")
-    private void visit(HttpRequest request, VisitorParameters parameters, boolean streaming, boolean fullyApplied, ResponseHandler handler, VisitCallback callback) {
+    private void visit(HttpRequest request, VisitorParameters parameters, boolean streaming, boolean jsonLines,
+                       boolean fullyApplied, ResponseHandler handler, VisitCallback callback) {
         try {
-            JsonResponse response = JsonResponse.create(request, handler);
+            JsonResponse response = jsonLines ? JsonResponse.createJsonLines(request, handler)
+                                              : JsonResponse.create(request, handler);
             Phaser phaser = new Phaser(2); // Synchronize this thread (dispatch) with the visitor callback thread.
             AtomicReference<String> error = new AtomicReference<>(); // Set if error occurs during processing of visited documents.
             callback.onStart(response, fullyApplied);
@@ -1426,6 +1514,10 @@ public final class DocumentV1ApiHandler extends AbstractRequestHandler {
                     super.setSession(session);
                     if (session instanceof VisitorSession visitorSession) this.session.set(visitorSession);
                 }
+                @Override public void onProgress(ProgressToken token) {
+                    super.onProgress(token);
+                    loggingException(() -> callback.onProgress(response, token));
+                }
                 @Override public void onDone(CompletionCode code, String message) {
                     super.onDone(code, message);
                     loggingException(() -> {
@@ -398,6 +398,57 @@ public class DocumentV1ApiTest {
                        }""", response.readAll());
         assertEquals(200, response.getStatus());
 
+        // GET with format=jsonl streams documents as put operations, with regular continuation checkpoints, as JSON lines
+        ProgressToken checkpoint = new ProgressToken();
+        VisitorIterator.createFromExplicitBucketSet(Set.of(new BucketId(1), new BucketId(2)), 8, checkpoint)
+                       .update(new BucketId(1), new BucketId(1));
+        access.expect(tokens.subList(0, 2));
+        access.expect(parameters -> {
+            assertEquals(Integer.MAX_VALUE, parameters.getMaxTotalHits());
+            parameters.getLocalDataHandler().onMessage(new PutDocumentMessage(new DocumentPut(doc1)), tokens.get(0));
+            parameters.getControlHandler().onProgress(checkpoint); // Too soon after start to write a checkpoint.
+            clock.advance(Duration.ofSeconds(10));
+            parameters.getControlHandler().onProgress(checkpoint);
+            clock.retreat(Duration.ofSeconds(10));
+            parameters.getLocalDataHandler().onMessage(new PutDocumentMessage(new DocumentPut(doc2)), tokens.get(1));
+            parameters.getControlHandler().onDone(VisitorControlHandler.CompletionCode.SUCCESS, "success");
+        });
+        response = driver.sendRequest("http://localhost/document/v1/space/music/docid?format=jsonl");
+        assertEquals("application/jsonl; charset=UTF-8", response.getResponse().headers().getFirst("Content-Type"));
+        String[] lines = response.readAll().split("\n");
+        assertEquals(4, lines.length);
+        assertSameJson("""
+                       {
+                         "put": "id:space:music::one",
+                         "fields": {
+                           "artist": "Tom Waits",
+                           "embedding": { "type": "tensor(x[3])", "values": [1.0,2.0,3.0] }
+                         }
+                       }""", lines[0]);
+        assertSameJson("{ \"continuation\": \"" + checkpoint.serializeToString() + "\", \"percentFinished\": " + checkpoint.percentFinished() + " }",
+                       lines[1]);
+        assertSameJson("""
+                       {
+                         "put": "id:space:music:n=1:two",
+                         "fields": {
+                           "artist": "Asa-Chan & Jun-Ray",
+                           "embedding": { "type": "tensor(x[3])", "values": [4.0,5.0,6.0] }
+                         }
+                       }""", lines[2]);
+        assertSameJson("{ \"pathId\": \"/document/v1/space/music/docid\", \"documentCount\": 2, \"continuation\": \"" +
+                       checkpoint.serializeToString() + "\" }",
+                       lines[3]);
+        assertEquals(200, response.getStatus());
+
+        // GET with an unknown format is a bad request.
+        response = driver.sendRequest("http://localhost/document/v1/space/music/docid?format=xml");
+        assertSameJson("""
+                       {
+                         "pathId": "/document/v1/space/music/docid",
+                         "message": "Failed parsing 'xml': format must be 'json' or 'jsonl'"
+                       }""", response.readAll());
+        assertEquals(400, response.getStatus());
+
         // GET with namespace and document type is a restricted visit.
         ProgressToken progress = new ProgressToken();
         VisitorIterator.createFromExplicitBucketSet(Set.of(new BucketId(1), new BucketId(2)), 8, progress)
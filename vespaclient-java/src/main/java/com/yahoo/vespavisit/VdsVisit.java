@@ -75,7 +75,7 @@ public class VdsVisit {
         }
         @Override
         public VisitorSession createVisitorSession(VisitorParameters params) throws ParseException {
-            return access.createVisitorSession(params);
+            return access.createParallelVisitorSession(params);
         }
 
         @Override
@@ -215,6 +215,15 @@ public class VdsVisit {
                 .type(Number.class)
                 .build());
 
+        options.addOption(Option.builder()
+                .longOpt("maxpendingbytes")
+                .hasArg(true)
+                .argName("bytes")
+                .desc("Maximum total size of visitor data received but not yet processed by this client. " +
+                      "When set, this also limits the pending messages per storage visitor to fit.")
+                .type(Number.class)
+                .build());
+
         options.addOption(Option.builder()
                 .longOpt("maxpendingsuperbuckets")
                 .hasArg(true)
@@ -381,6 +390,16 @@ public class VdsVisit {
                 .type(Number.class)
                 .build());
 
+        options.addOption(Option.builder()
+                .longOpt("parallel")
+                .desc("Visit with this number of visitor sessions in parallel, each visiting its own slice of the " +
+                      "documents (or of the slice given by --slices and --sliceid). " +
+                      "Use 0 to visit with one session per distributor in the cluster. Default is 1.")
+                .hasArg(true)
+                .argName("num")
+                .type(Number.class)
+                .build());
+
         options.addOption(Option.builder()
                 .longOpt("nullrender")
                 .desc("Process documents, but do not render any output. Overrides all other output options. " +
@@ -595,6 +614,9 @@ public class VdsVisit {
             if (line.hasOption("m")) {
                 params.setMaxPending(optionAsInt(line, "m"));
             }
+            if (line.hasOption("maxpendingbytes")) {
+                params.setMaxPendingBytes(optionAsLong(line, "maxpendingbytes"));
+            }
             if (line.hasOption("b")) {
                 params.setMaxBucketsPerVisitor(optionAsInt(line, "b"));
             }
@@ -708,6 +730,9 @@ public class VdsVisit {
                 }
                 params.slice(allParams.slices(), allParams.sliceId());
             }
+            if (line.hasOption("parallel")) {
+                params.setParallelism(optionAsInt(line, "parallel"));
+            }
 
             allParams.setVisitorParameters(params);
             return allParams;
@@ -784,6 +809,9 @@ public class VdsVisit {
             out.println("Only showing document identifiers.");
         }
         out.println("Let visitor have maximum " + params.getMaxPending() + " replies pending on data handlers per storage node visitor.");
+        if (params.getMaxPendingBytes() > 0) {
+            out.println("Let visitors have maximum " + params.getMaxPendingBytes() + " bytes of data pending on this client.");
+        }
         out.println("Visit maximum " + params.getMaxBucketsPerVisitor() + " buckets per visitor.");
         if (params.getRemoteDataHandler() != null) {
             out.println("Sending data to data handler at: " + params.getRemoteDataHandler());
@@ -810,6 +838,11 @@ public class VdsVisit {
         if (params.getSlices() > 1) {
             out.format("Visiting slice %d out of %s slices\n", params.getSliceId(), params.getSlices());
         }
+        if (params.getParallelism() != 1) {
+            out.println("Visiting with " + (params.getParallelism() == 0 ? "one session per distributor"
+                                                                        : params.getParallelism() + " sessions") +
+                        " in parallel.");
+        }
     }
 
     private void onDocumentSelectionException(Exception e) {
@@ -130,6 +130,7 @@ public class VdsVisitTestCase {
                 "--to", "9012",
                 "--fieldset", "foodoc.bar,foodoc.baz",
                 "--maxpending", "6000",
+                "--maxpendingbytes", "1048576",
                 "--maxbuckets", "5",
                 "--progress", "foo-progress.txt",
                 "--maxpendingsuperbuckets", "3",
@@ -149,7 +150,8 @@ public class VdsVisitTestCase {
                 "--bucketspace", "outerspace",
                 "--shorttensors",
                 "--slices", "16",
-                "--sliceid", "5"
+                "--sliceid", "5",
+                "--parallel", "4"
         };
         VdsVisit.ArgumentParser parser = createMockArgumentParser();
         VdsVisit.VdsVisitParameters allParams = parser.parse(args);
@@ -164,6 +166,7 @@ public class VdsVisitTestCase {
         assertEquals(9012, params.getToTimestamp());
         assertEquals("foodoc.bar,foodoc.baz", params.getFieldSet());
         assertEquals(6000, params.getMaxPending());
+        assertEquals(1048576, params.getMaxPendingBytes());
         assertEquals(5, params.getMaxBucketsPerVisitor());
         assertEquals("foo-progress.txt", params.getResumeFileName());
         assertEquals(123456789, params.getTimeoutMs());
@@ -188,6 +191,7 @@ public class VdsVisitTestCase {
 
         assertEquals(16, params.getSlices());
         assertEquals(5, params.getSliceId());
+        assertEquals(4, params.getParallelism());
 
         ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
         PrintStream printStream = new PrintStream(outputStream);
@@ -204,6 +208,7 @@ public class VdsVisitTestCase {
                 "Including remove entries.",
                 "Tracking progress in file: foo-progress.txt",
                 "Let visitor have maximum 6000 replies pending on data handlers per storage node visitor.",
+                "Let visitors have maximum 1048576 bytes of data pending on this client.",
                 "Visit maximum 5 buckets per visitor.",
                 "Sending data to data handler at: foo.remote",
                 "Using visitor library 'fnord'.",
@@ -211,7 +216,8 @@ public class VdsVisitTestCase {
                 "  asdf = rargh",
                 "Visitor priority NORMAL_1",
                 "Skip visiting super buckets with fatal errors.",
-                "Visiting slice 5 out of 16 slices"),
+                "Visiting slice 5 out of 16 slices",
+                "Visiting with 4 sessions in parallel."),
                 outputStream.toString(StandardCharsets.UTF_8));
     }
 
@@ -150,7 +150,7 @@ public class Compressor {
                     throw new IllegalStateException("Compressed size mismatch. Expected " + compressedSize + ". Got " + expectedCompressedSize.get());
                 return uncompressedLZ4Data;
             case ZSTD:
-                int compressedLength = expectedCompressedSize.orElseThrow(() -> new IllegalArgumentException("Zstd decompressor requires input size"));
+                int compressedLength = expectedCompressedSize.orElse(compressedData.length - compressedDataOffset);
                 ZstdCompressor zstdCompressor = new ZstdCompressor();
                 byte[] decompressedData = zstdCompressor.decompress(compressedData, compressedDataOffset, compressedLength);
                 expectedCompressedSize.ifPresent(expectedSize -> {
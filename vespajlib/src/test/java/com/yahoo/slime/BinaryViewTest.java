@@ -2,10 +2,12 @@
 package com.yahoo.slime;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.function.Consumer;
 
 import org.junit.Test;
+
 import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertSame;
@@ -306,6 +308,22 @@ public class BinaryViewTest {
         }
     }
 
+    @Test public void testBinaryViewShapesParityInsideLargerBuffer() {
+        for (int i = 0; i < numShapes; ++i) {
+            var slime = makeSlime(i);
+            ctx = "case " + i + ": '" + slime.toString() + "'";
+            byte[] data = BinaryFormat.encode(slime);
+            byte[] buffer = new byte[data.length + 10];
+            Arrays.fill(buffer, (byte)-1);
+            System.arraycopy(data, 0, buffer, 7, data.length);
+            try {
+                checkParity(slime.get(), BinaryView.inspect(buffer, 7, data.length));
+            } catch (Exception e) {
+                fail(ctx + ", got exception: " + e);
+            }
+        }
+    }
+
     void assertFail(byte[] data, String reason) {
         try {
             var view = BinaryView.inspect(data);